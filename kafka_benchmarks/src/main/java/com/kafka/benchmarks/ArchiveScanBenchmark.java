@@ -0,0 +1,144 @@
+package com.kafka.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.apache.kafka.common.TopicPartition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.kafka.consumer.archive.ArchiveScanner;
+import com.kafka.consumer.archive.TransactionArchive;
+import com.kafka.consumer.model.Transaction;
+import com.kafka.consumer.repository.TransactionBatchRepositoryImpl;
+import com.kafka.consumer.repository.TransactionSchemaManager;
+import com.kafka.consumer.repository.TransactionShards;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// One op = rows, quantity and revenue per country over a `range` of transaction_time, on the
+// same 300000 rows in the columnar archive (ArchiveScanner) and in H2 (MySQL mode, the typed
+// table with its transaction_time index). The rows are flushed in 5000-row batches and rolled
+// every 50000, as the consumer would, so each roll's files span the whole two years: the scan
+// narrows each file by binary search on its sorted time column rather than skipping files.
+// H2's result cache is off, or every repeat of the query would be answered from it.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class ArchiveScanBenchmark {
+
+    private static final int ROWS = 300_000;
+    private static final LocalDateTime FROM = LocalDateTime.of(2019, 3, 1, 0, 0);
+    private static final String SQL = "SELECT country, COUNT(*), SUM(number_of_item_purchased), " +
+            "SUM(number_of_item_purchased * cost_per_item) FROM transaction " +
+            "WHERE transaction_time >= ? AND transaction_time < ? GROUP BY country";
+
+    @Param({"month", "year"})
+    private String range;
+
+    private Path dir;
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private ArchiveScanner scanner;
+    private LocalDateTime to;
+
+    @Setup(Level.Trial)
+    public void load() throws IOException {
+        to = "month".equals(range) ? FROM.plusMonths(1) : FROM.plusYears(1);
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:archive_scan;MODE=MySQL;DB_CLOSE_DELAY=-1;QUERY_CACHE_SIZE=0", true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS transaction");
+        new TransactionSchemaManager(jdbcTemplate).createTable("transaction");
+        TransactionBatchRepositoryImpl rows = new TransactionBatchRepositoryImpl(TransactionShards.single(jdbcTemplate, "multi-row", 500));
+
+        dir = Files.createTempDirectory("archive-scan");
+        TransactionArchive archive = new TransactionArchive(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(archive, "enabled", true);
+        ReflectionTestUtils.setField(archive, "archiveDir", dir.toString());
+        ReflectionTestUtils.setField(archive, "rollMaxRows", 50_000);
+        ReflectionTestUtils.setField(archive, "rollIntervalMs", Long.MAX_VALUE);
+        ReflectionTestUtils.setField(archive, "compressionLevel", 3);
+        ReflectionTestUtils.invokeMethod(archive, "init");
+
+        TopicPartition partition = new TopicPartition("transactions", 0);
+        Random data = new Random(7);
+        List<Transaction> batch = new ArrayList<>(5000);
+        long[] offsets = new long[5000];
+        for (int i = 0; i < ROWS; i++) {
+            offsets[batch.size()] = i;
+            batch.add(SyntheticTransactions.consumerTransaction(6000000 + i, data));
+            if (batch.size() == 5000) {
+                rows.insertIgnoreAll(batch);
+                archive.append(partition, batch, offsets);
+                batch = new ArrayList<>(5000);
+            }
+        }
+        archive.roll();
+        scanner = new ArchiveScanner(dir);
+        if (!sql().equals(archive())) throw new IllegalStateException("Archive and database disagree on " + range);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws IOException {
+        dataSource.destroy();
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public Map<String, ArchiveScanner.Aggregate> archive() throws IOException {
+        Instant from = FROM.toInstant(ZoneOffset.UTC);
+        ArchiveScanner.Filter filter = new ArchiveScanner.Filter(null, from, to.toInstant(ZoneOffset.UTC), null, null,
+                ArchiveScanner.GroupBy.COUNTRY);
+        return rounded(scanner.scan(filter).groups());
+    }
+
+    @Benchmark
+    public Map<String, ArchiveScanner.Aggregate> sql() {
+        Map<String, ArchiveScanner.Aggregate> groups = new TreeMap<>();
+        jdbcTemplate.query(SQL, rs -> {
+            groups.put(rs.getString(1), new ArchiveScanner.Aggregate(rs.getLong(2), rs.getLong(3), rs.getDouble(4)));
+        }, FROM, to);
+        return rounded(groups);
+    }
+
+    // Sums of doubles in a different order differ in the last bits; cents are what is compared
+    private static Map<String, ArchiveScanner.Aggregate> rounded(Map<String, ArchiveScanner.Aggregate> groups) {
+        Map<String, ArchiveScanner.Aggregate> rounded = new TreeMap<>();
+        groups.forEach((country, a) -> rounded.put(country,
+                new ArchiveScanner.Aggregate(a.rows(), a.quantity(), Math.round(a.revenue() * 100) / 100.0)));
+        return rounded;
+    }
+}
@@ -0,0 +1,27 @@
+package com.kafka.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Entry point of target/benchmarks.jar: the standard JMH command line, always with the GC
+// profiler so every result carries gc.alloc.rate and gc.alloc.rate.norm (bytes per op).
+//
+//   mvn -pl kafka_benchmarks -am -DskipTests package
+//   java -jar kafka_benchmarks/target/benchmarks.jar                  # everything
+//   java -jar kafka_benchmarks/target/benchmarks.jar FlushBenchmark -p batchSize=500 -rf json
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        new Runner(new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class)
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,72 @@
+package com.kafka.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.kafka.producer.model.Transaction;
+import com.opencsv.CSVReader;
+import com.opencsv.bean.CsvToBean;
+import com.opencsv.bean.CsvToBeanBuilder;
+
+// One op = parsing a whole in-memory file with the same CsvToBeanBuilder setup as CsvKafkaProducer
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CsvParsingBenchmark {
+
+    @Param({"10000", "100000"})
+    private int rows;
+
+    private byte[] csv;
+
+    @Setup
+    public void generate() {
+        csv = SyntheticTransactions.csv(rows);
+    }
+
+    @Benchmark
+    public void streamingIterator(Blackhole blackhole) throws Exception {
+        try (CSVReader reader = reader()) {
+            for (Transaction transaction : newCsvToBean(reader)) {
+                blackhole.consume(transaction);
+            }
+        }
+    }
+
+    @Benchmark
+    public void parseToList(Blackhole blackhole) throws Exception {
+        try (CSVReader reader = reader()) {
+            blackhole.consume(newCsvToBean(reader).parse());
+        }
+    }
+
+    private CSVReader reader() {
+        return new CSVReader(new InputStreamReader(new ByteArrayInputStream(csv), StandardCharsets.UTF_8));
+    }
+
+    private static CsvToBean<Transaction> newCsvToBean(CSVReader reader) {
+        return new CsvToBeanBuilder<Transaction>(reader)
+                .withType(Transaction.class)
+                .withIgnoreLeadingWhiteSpace(true)
+                .withSkipLines(1)
+                .build();
+    }
+}
@@ -0,0 +1,92 @@
+package com.kafka.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import com.kafka.consumer.model.Transaction;
+import com.kafka.consumer.repository.TransactionBatchRepositoryImpl;
+import com.kafka.consumer.repository.TransactionSchemaManager;
+import com.kafka.consumer.repository.TransactionShards;
+
+// One op = one writer flush (buffer → insertIgnoreAll) against H2 in MySQL mode, for each
+// insert strategy and batch size. freshRows inserts new ids; duplicateRows replays a batch
+// that is already stored, the redelivery case INSERT IGNORE has to absorb.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class FlushBenchmark {
+
+    @Param({"multi-row", "jdbc-batch"})
+    private String strategy;
+
+    @Param({"50", "500", "5000"})
+    private int batchSize;
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionBatchRepositoryImpl repository;
+    private final Random random = new Random(42);
+    private List<Transaction> stored;
+    private long nextId;
+
+    @Setup(Level.Trial)
+    public void connect() {
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:flush;MODE=MySQL;DB_CLOSE_DELAY=-1", true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        repository = new TransactionBatchRepositoryImpl(TransactionShards.single(jdbcTemplate, strategy, 500));
+    }
+
+    // A fresh table per iteration keeps index depth comparable across iterations
+    @Setup(Level.Iteration)
+    public void createTable() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS transaction");
+        new TransactionSchemaManager(jdbcTemplate).createTable("transaction");
+        nextId = 6000000;
+        stored = batch();
+        repository.insertIgnoreAll(stored);
+    }
+
+    @TearDown(Level.Trial)
+    public void disconnect() {
+        dataSource.destroy();
+    }
+
+    @Benchmark
+    public int freshRows() {
+        return repository.insertIgnoreAll(batch());
+    }
+
+    @Benchmark
+    public int duplicateRows() {
+        return repository.insertIgnoreAll(stored);
+    }
+
+    private List<Transaction> batch() {
+        List<Transaction> rows = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            rows.add(SyntheticTransactions.consumerTransaction(nextId++, random));
+        }
+        return rows;
+    }
+}
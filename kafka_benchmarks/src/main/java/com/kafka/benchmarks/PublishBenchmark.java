@@ -0,0 +1,128 @@
+package com.kafka.benchmarks;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.kafka.producer.checkpoint.FileCheckpoint;
+import com.kafka.producer.config.KafkaProducerConfig;
+import com.kafka.producer.logging.RecordLog;
+import com.kafka.producer.serialization.TransactionSerializer;
+import com.kafka.producer.service.CsvKafkaProducer;
+import com.kafka.producer.service.FileSendReport;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// One op = one record of a file published by CsvKafkaProducer to an embedded broker and
+// acknowledged, so scores are records/sec. Every delivery mode sends through the checkpointed
+// chunk path the FolderWatcher uses; exactly-once adds a Kafka transaction per chunk of
+// chunkBytes (chunk) or per file (file). The producer is built by KafkaProducerConfig with
+// the throughput profile, as in application.properties.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PublishBenchmark {
+
+    private static final int ROWS = 20_000;
+    private static final String TOPIC = "publish";
+
+    @Param({"at-least-once", "exactly-once-chunk", "exactly-once-file"})
+    private String delivery;
+
+    @Param({"65536", "1048576"})
+    private long chunkBytes;
+
+    private EmbeddedKafkaBroker broker;
+    private ProducerFactory<String, byte[]> producerFactory;
+    private RecordLog recordLog;
+    private CsvKafkaProducer producer;
+    private Path dir;
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        broker = new EmbeddedKafkaKraftBroker(1, 6, TOPIC)
+                .brokerProperties(Map.of("transaction.state.log.replication.factor", "1",
+                        "transaction.state.log.min.isr", "1"));
+        broker.afterPropertiesSet();
+        dir = Files.createTempDirectory("publish-benchmark");
+        file = Files.write(dir.resolve("transactions.csv"), SyntheticTransactions.csv(ROWS));
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        KafkaProducerConfig config = new KafkaProducerConfig(registry);
+        ReflectionTestUtils.setField(config, "bootstrapServers", broker.getBrokersAsString());
+        ReflectionTestUtils.setField(config, "securityProtocol", "PLAINTEXT");
+        ReflectionTestUtils.setField(config, "saslMechanism", "PLAIN");
+        // Unused over PLAINTEXT
+        ReflectionTestUtils.setField(config, "jaasConfig", "org.apache.kafka.common.security.plain.PlainLoginModule required;");
+        ReflectionTestUtils.setField(config, "producerProfile", "throughput");
+        ReflectionTestUtils.setField(config, "throughputBatchSize", 262144);
+        ReflectionTestUtils.setField(config, "throughputLingerMs", 20);
+        ReflectionTestUtils.setField(config, "throughputCompressionType", "lz4");
+        ReflectionTestUtils.setField(config, "throughputBufferMemory", 134217728L);
+        ReflectionTestUtils.setField(config, "throughputMaxInFlightRequests", 5);
+        ReflectionTestUtils.setField(config, "partitioner", "default");
+        ReflectionTestUtils.setField(config, "delivery", delivery.startsWith("exactly-once") ? "exactly-once" : delivery);
+        ReflectionTestUtils.setField(config, "transactionalIdPrefix", "publish-benchmark-");
+        ReflectionTestUtils.setField(config, "transactionTimeoutMs", 60000);
+        producerFactory = config.producerFactory();
+
+        recordLog = new RecordLog(registry);
+        ReflectionTestUtils.setField(recordLog, "queueCapacity", 10);
+        recordLog.start();
+        producer = new CsvKafkaProducer(new KafkaTemplate<>(producerFactory),
+                new TransactionSerializer("json", dir.resolve("schemas")), recordLog, registry);
+        ReflectionTestUtils.setField(producer, "topicName", TOPIC);
+        ReflectionTestUtils.setField(producer, "ingestMode", "streaming");
+        ReflectionTestUtils.setField(producer, "maxInFlightSends", 10000);
+        ReflectionTestUtils.setField(producer, "fileCompletionTimeoutMs", 60000L);
+        ReflectionTestUtils.setField(producer, "parallelMinFileBytes", Long.MAX_VALUE);
+        ReflectionTestUtils.setField(producer, "checkpointChunkBytes", chunkBytes);
+        ReflectionTestUtils.setField(producer, "transactionScope", delivery.endsWith("file") ? "file" : "chunk");
+        ReflectionTestUtils.invokeMethod(producer, "startChunkPool");
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws Exception {
+        ReflectionTestUtils.invokeMethod(producer, "stopChunkPool");
+        recordLog.stop();
+        producerFactory.reset();
+        broker.destroy();
+        try (var paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public FileSendReport publishFile() {
+        FileSendReport report = producer.sendCsvDataToKafka(file, FileCheckpoint.start("benchmark"), checkpoint -> { });
+        if (!report.allAcknowledged()) throw new IllegalStateException("Incomplete publish: " + report);
+        return report;
+    }
+}
@@ -0,0 +1,115 @@
+package com.kafka.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.kafka.consumer.model.Transaction;
+import com.kafka.consumer.query.TransactionPage;
+import com.kafka.consumer.query.TransactionQueryCache;
+import com.kafka.consumer.query.TransactionQueryService;
+import com.kafka.consumer.repository.TransactionBatchRepositoryImpl;
+import com.kafka.consumer.repository.TransactionQueryRepository;
+import com.kafka.consumer.repository.TransactionSchemaManager;
+import com.kafka.consumer.repository.TransactionShards;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// One op = the first 20-row page of one user's transactions through TransactionQueryService,
+// against 200000 rows in H2 (MySQL mode). Users are drawn Zipf-distributed (skew 1) from
+// 20000, so a few users take most reads, as with hot users in production; cache=off sends
+// every read to the database, cache=on keeps 2000 user heads.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class QueryBenchmark {
+
+    private static final int ROWS = 200_000;
+    private static final int USERS = 20_000;
+
+    @Param({"off", "on"})
+    private String cache;
+
+    private SingleConnectionDataSource dataSource;
+    private TransactionQueryService queries;
+    private final double[] cumulative = new double[USERS];
+    private final Random random = new Random(42);
+
+    @Setup(Level.Trial)
+    public void load() {
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:query;MODE=MySQL;DB_CLOSE_DELAY=-1", true);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS transaction");
+        new TransactionSchemaManager(jdbcTemplate).createTable("transaction");
+
+        double sum = 0;
+        for (int k = 0; k < USERS; k++) {
+            sum += 1.0 / (k + 1);
+            cumulative[k] = sum;
+        }
+        for (int k = 0; k < USERS; k++) {
+            cumulative[k] /= sum;
+        }
+        TransactionShards database = TransactionShards.single(jdbcTemplate, "multi-row", 500);
+        TransactionBatchRepositoryImpl rows = new TransactionBatchRepositoryImpl(database);
+        Random data = new Random(7);
+        List<Transaction> batch = new ArrayList<>(5000);
+        for (int i = 0; i < ROWS; i++) {
+            Transaction t = SyntheticTransactions.consumerTransaction(6000000 + i, data);
+            t.setUserId(String.valueOf(user()));
+            batch.add(t);
+            if (batch.size() == 5000) {
+                rows.insertIgnoreAll(batch);
+                batch.clear();
+            }
+        }
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TransactionQueryCache heads = new TransactionQueryCache(registry);
+        ReflectionTestUtils.setField(heads, "enabled", "on".equals(cache));
+        ReflectionTestUtils.setField(heads, "maxEntries", 2000L);
+        ReflectionTestUtils.setField(heads, "headRows", 100);
+        ReflectionTestUtils.setField(heads, "ttlMs", 600000L);
+        ReflectionTestUtils.invokeMethod(heads, "init");
+        queries = new TransactionQueryService(new TransactionQueryRepository(database), heads, registry);
+        ReflectionTestUtils.setField(queries, "maxPageSize", 500);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        dataSource.destroy();
+    }
+
+    @Benchmark
+    public TransactionPage firstUserPage() {
+        return queries.byUser(user(), null, 20);
+    }
+
+    private int user() {
+        int rank = Arrays.binarySearch(cumulative, random.nextDouble());
+        if (rank < 0) rank = Math.min(-rank - 1, USERS - 1);
+        return 250000 + rank;
+    }
+}
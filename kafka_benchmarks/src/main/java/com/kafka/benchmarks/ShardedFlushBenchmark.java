@@ -0,0 +1,92 @@
+package com.kafka.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.kafka.consumer.model.Transaction;
+import com.kafka.consumer.repository.TransactionBatchRepositoryImpl;
+import com.kafka.consumer.repository.TransactionSchemaManager;
+import com.kafka.consumer.repository.TransactionShards;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// One op = one 5000-row writer flush through TransactionShards over `shards` H2 databases (MySQL
+// mode), each with its own pool and writer threads, so the parts are written in parallel. Each
+// database is a separate engine with its own locks; how far throughput scales with shards is
+// bounded by the cores available to them, as it would be by the MySQL hosts.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class ShardedFlushBenchmark {
+
+    private static final int BATCH_SIZE = 5000;
+
+    @Param({"1", "2", "4"})
+    private int shards;
+
+    private TransactionShards databases;
+    private TransactionBatchRepositoryImpl repository;
+    private final Random random = new Random(42);
+    private long nextId;
+
+    @Setup(Level.Iteration)
+    public void open() {
+        MockEnvironment environment = new MockEnvironment();
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < shards; i++) {
+            names.add("s" + i);
+            // A fresh database per iteration keeps index depth comparable across iterations
+            environment.setProperty("consumer.sharding.shard.s" + i + ".url",
+                    "jdbc:h2:mem:sharded_" + i + "_" + System.nanoTime() + ";MODE=MySQL");
+        }
+        TransactionSchemaManager schema = new TransactionSchemaManager(null);
+        ReflectionTestUtils.setField(schema, "managed", true);
+        ReflectionTestUtils.setField(schema, "partitionsFrom", "2018-01");
+        databases = new TransactionShards(null, null, environment, schema, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(databases, "enabled", true);
+        ReflectionTestUtils.setField(databases, "names", names);
+        ReflectionTestUtils.setField(databases, "key", "transaction-id");
+        ReflectionTestUtils.setField(databases, "virtualNodes", 160);
+        ReflectionTestUtils.setField(databases, "poolSize", 2);
+        ReflectionTestUtils.setField(databases, "strategy", "multi-row");
+        ReflectionTestUtils.setField(databases, "rowsPerStatement", 500);
+        ReflectionTestUtils.invokeMethod(databases, "init");
+        repository = new TransactionBatchRepositoryImpl(databases);
+        nextId = 6000000;
+    }
+
+    @TearDown(Level.Iteration)
+    public void close() {
+        ReflectionTestUtils.invokeMethod(databases, "close");
+    }
+
+    @Benchmark
+    public int flush() {
+        List<Transaction> rows = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            rows.add(SyntheticTransactions.consumerTransaction(nextId++, random));
+        }
+        return repository.insertIgnoreAll(rows);
+    }
+}
@@ -0,0 +1,73 @@
+package com.kafka.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Random;
+
+// Rows in the transaction_data.csv layout with realistic field shapes and a fixed seed, so
+// every run parses and stores the same data
+public final class SyntheticTransactions {
+
+    public static final String HEADER =
+            "UserId,TransactionId,TransactionTime,ItemCode,ItemDescription,NumberOfItemsPurchased,CostPerItem,Country";
+
+    private static final String[] DESCRIPTIONS = {
+            "FAMILY ALBUM WHITE PICTURE FRAME",
+            "LONDON BUS COFFEE MUG",
+            "SET 12 COLOUR PENCILS DOLLY GIRL",
+            "UNION JACK FLAG LUGGAGE TAG",
+            "WASHROOM METAL SIGN",
+    };
+    private static final String[] COUNTRIES = {
+            "United Kingdom", "United Kingdom", "United Kingdom", "France", "Germany", "EIRE", "Spain", "Netherlands",
+    };
+    private static final String[] DAYS = {"Mon", "Tue", "Wed", "Thu", "Fri", "Sat", "Sun"};
+    private static final String[] MONTHS = {"Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"};
+
+    private SyntheticTransactions() {
+    }
+
+    static byte[] csv(int rows) {
+        StringBuilder csv = new StringBuilder(rows * 110);
+        csv.append(HEADER).append('\n');
+        Random random = new Random(42);
+        for (int i = 0; i < rows; i++) {
+            appendRow(csv, 250000 + random.nextInt(100000), 6000000 + i, random);
+        }
+        return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static void appendRow(StringBuilder csv, long userId, long transactionId, Random random) {
+        csv.append(userId).append(',')
+           .append(transactionId).append(',')
+           .append(time(random)).append(',')
+           .append(400000 + random.nextInt(90000)).append(',')
+           .append(DESCRIPTIONS[random.nextInt(DESCRIPTIONS.length)]).append(',')
+           .append(1 + random.nextInt(24)).append(',')
+           .append(String.format("%.2f", 0.5 + random.nextInt(2000) / 100.0)).append(',')
+           .append(COUNTRIES[random.nextInt(COUNTRIES.length)]).append('\n');
+    }
+
+    static com.kafka.consumer.model.Transaction consumerTransaction(long id, Random random) {
+        return new com.kafka.consumer.model.Transaction(String.valueOf(id), String.valueOf(250000 + random.nextInt(100000)),
+                time(random), String.valueOf(400000 + random.nextInt(90000)), DESCRIPTIONS[random.nextInt(DESCRIPTIONS.length)],
+                1 + random.nextInt(24), 0.5 + random.nextInt(2000) / 100.0, COUNTRIES[random.nextInt(COUNTRIES.length)]);
+    }
+
+    static com.kafka.producer.model.Transaction producerTransaction(long id, Random random) {
+        com.kafka.consumer.model.Transaction t = consumerTransaction(id, random);
+        return new com.kafka.producer.model.Transaction(t.getUserId(), t.getTransactionId(), t.getTransactionTime(),
+                t.getItemCode(), t.getItemDescription(), t.getNumberOfItemPurchased(), t.getCostPerItem(), t.getCountry());
+    }
+
+    // The weekday has to match the date, or the consumer cannot parse the time and rejects the row
+    private static String time(Random random) {
+        int month = random.nextInt(12);
+        int day = 1 + random.nextInt(28);
+        int hour = random.nextInt(24);
+        int minute = random.nextInt(60);
+        int year = 2018 + random.nextInt(2);
+        String weekday = DAYS[LocalDate.of(year, month + 1, day).getDayOfWeek().ordinal()];
+        return String.format("%s %s %02d %02d:%02d:00 IST %d", weekday, MONTHS[month], day, hour, minute, year);
+    }
+}
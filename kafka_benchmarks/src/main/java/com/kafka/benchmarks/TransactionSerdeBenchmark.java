@@ -0,0 +1,103 @@
+package com.kafka.benchmarks;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kafka.consumer.serialization.TransactionDeserializer;
+import com.kafka.producer.serialization.TransactionSerializer;
+
+// Per-record serde of both Transaction models with a shared ObjectMapper, plus the producer
+// serializer → consumer deserializer pair that runs on the wire, in JSON and binary format
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class TransactionSerdeBenchmark {
+
+    private static final int POOL = 1024;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final com.kafka.producer.model.Transaction[] producerTransactions = new com.kafka.producer.model.Transaction[POOL];
+    private final com.kafka.consumer.model.Transaction[] consumerTransactions = new com.kafka.consumer.model.Transaction[POOL];
+    private final byte[][] json = new byte[POOL][];
+    private final byte[][] binary = new byte[POOL][];
+    private TransactionSerializer jsonSerializer;
+    private TransactionSerializer binarySerializer;
+    private TransactionDeserializer deserializer;
+    private int next;
+
+    @Setup
+    public void prepare() throws Exception {
+        Path registry = Files.createTempDirectory("benchmark-schemas");
+        jsonSerializer = new TransactionSerializer("json", registry);
+        binarySerializer = new TransactionSerializer("binary", registry);
+        deserializer = new TransactionDeserializer("auto", registry);
+        Random random = new Random(42);
+        for (int i = 0; i < POOL; i++) {
+            producerTransactions[i] = SyntheticTransactions.producerTransaction(6000000 + i, random);
+            consumerTransactions[i] = SyntheticTransactions.consumerTransaction(6000000 + i, random);
+            json[i] = objectMapper.writeValueAsBytes(producerTransactions[i]);
+            binary[i] = binarySerializer.serialize("transactions", producerTransactions[i]);
+        }
+    }
+
+    @Benchmark
+    public byte[] producerModelToJson() throws Exception {
+        return objectMapper.writeValueAsBytes(producerTransactions[nextIndex()]);
+    }
+
+    @Benchmark
+    public Object producerModelFromJson() throws Exception {
+        return objectMapper.readValue(json[nextIndex()], com.kafka.producer.model.Transaction.class);
+    }
+
+    @Benchmark
+    public byte[] consumerModelToJson() throws Exception {
+        return objectMapper.writeValueAsBytes(consumerTransactions[nextIndex()]);
+    }
+
+    @Benchmark
+    public Object consumerModelFromJson() throws Exception {
+        return objectMapper.readValue(json[nextIndex()], com.kafka.consumer.model.Transaction.class);
+    }
+
+    @Benchmark
+    public Object wireRoundTripJson() {
+        return deserializer.deserialize("transactions", jsonSerializer.serialize("transactions", producerTransactions[nextIndex()]));
+    }
+
+    @Benchmark
+    public Object wireRoundTripBinary() {
+        return deserializer.deserialize("transactions", binarySerializer.serialize("transactions", producerTransactions[nextIndex()]));
+    }
+
+    @Benchmark
+    public Object consumerDecodeJson() {
+        return deserializer.deserialize("transactions", json[nextIndex()]);
+    }
+
+    @Benchmark
+    public Object consumerDecodeBinary() {
+        return deserializer.deserialize("transactions", binary[nextIndex()]);
+    }
+
+    private int nextIndex() {
+        return next++ & (POOL - 1);
+    }
+}
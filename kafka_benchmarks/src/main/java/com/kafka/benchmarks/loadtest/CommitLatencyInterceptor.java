@@ -0,0 +1,36 @@
+package com.kafka.benchmarks.loadtest;
+
+import java.util.Map;
+
+import org.apache.kafka.clients.consumer.ConsumerInterceptor;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+// Installed in the consumer under test through spring.kafka.consumer.properties.interceptor.classes
+public class CommitLatencyInterceptor implements ConsumerInterceptor<Object, Object> {
+
+    @Override
+    public ConsumerRecords<Object, Object> onConsume(ConsumerRecords<Object, Object> records) {
+        for (TopicPartition partition : records.partitions()) {
+            for (ConsumerRecord<Object, Object> record : records.records(partition)) {
+                EndToEndLatency.consumed(partition, record.offset(), record.timestamp());
+            }
+        }
+        return records;
+    }
+
+    @Override
+    public void onCommit(Map<TopicPartition, OffsetAndMetadata> offsets) {
+        offsets.forEach((partition, offset) -> EndToEndLatency.committed(partition, offset.offset()));
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+    }
+}
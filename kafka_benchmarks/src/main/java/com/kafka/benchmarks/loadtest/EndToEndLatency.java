@@ -0,0 +1,107 @@
+package com.kafka.benchmarks.loadtest;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.kafka.common.TopicPartition;
+
+// Send-to-commit latency of every record of the load-test topic. The record's CreateTime,
+// stamped by the producer in send(), is remembered when the consumer polls it; when the
+// consumer commits past its offset (which it only does once the row is stored), the elapsed
+// time is recorded. Both hooks run in CommitLatencyInterceptor on the consumer threads.
+final class EndToEndLatency {
+
+    private static String topic;
+    private static final Map<TopicPartition, PartitionStamps> pending = new HashMap<>();
+    private static long[] latencies = new long[1 << 16];
+    private static int count;
+    private static long lastCommitMillis;
+
+    private EndToEndLatency() {
+    }
+
+    static synchronized void reset(String loadTestTopic) {
+        topic = loadTestTopic;
+        pending.clear();
+        count = 0;
+        lastCommitMillis = 0;
+    }
+
+    static synchronized void consumed(TopicPartition partition, long offset, long createTime) {
+        if (!partition.topic().equals(topic)) return;
+        pending.computeIfAbsent(partition, p -> new PartitionStamps()).add(offset, createTime);
+    }
+
+    static synchronized void committed(TopicPartition partition, long nextOffset) {
+        PartitionStamps stamps = pending.get(partition);
+        if (stamps == null) return;
+        long now = System.currentTimeMillis();
+        while (stamps.size() > 0 && stamps.firstOffset() < nextOffset) {
+            record(now - stamps.removeFirst());
+        }
+        lastCommitMillis = now;
+    }
+
+    static synchronized long recorded() {
+        return count;
+    }
+
+    static synchronized long lastCommitMillis() {
+        return lastCommitMillis;
+    }
+
+    // Percentile in ms, 0..100
+    static synchronized long percentile(double percentile) {
+        if (count == 0) return 0;
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(count * percentile / 100.0);
+        return sorted[Math.max(0, Math.min(count, rank) - 1)];
+    }
+
+    private static void record(long millis) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = Math.max(0, millis);
+    }
+
+    // Offsets arrive in increasing order per partition; a re-poll after a rebalance repeats
+    // offsets that are already pending and is ignored
+    private static final class PartitionStamps {
+        private long[] offsets = new long[1024];
+        private long[] times = new long[1024];
+        private int head;
+        private int tail;
+
+        void add(long offset, long createTime) {
+            if (tail > head && offset <= offsets[tail - 1]) return;
+            if (tail == offsets.length) {
+                int size = tail - head;
+                if (size * 2 > offsets.length) {
+                    offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                    times = Arrays.copyOf(times, times.length * 2);
+                }
+                System.arraycopy(offsets, head, offsets, 0, size);
+                System.arraycopy(times, head, times, 0, size);
+                head = 0;
+                tail = size;
+            }
+            offsets[tail] = offset;
+            times[tail++] = createTime;
+        }
+
+        int size() {
+            return tail - head;
+        }
+
+        long firstOffset() {
+            return offsets[head];
+        }
+
+        long removeFirst() {
+            return times[head++];
+        }
+    }
+}
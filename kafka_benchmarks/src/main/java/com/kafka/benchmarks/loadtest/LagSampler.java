@@ -0,0 +1,57 @@
+package com.kafka.benchmarks.loadtest;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.IntStream;
+
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+// Produced (log-end) and committed offsets of the consumer group, summed over the topic
+final class LagSampler implements AutoCloseable {
+
+    record Sample(long elapsedMs, long produced, long committed) {
+        long lag() {
+            return produced - committed;
+        }
+    }
+
+    private final Admin admin;
+    private final String groupId;
+    private final List<TopicPartition> partitions;
+
+    LagSampler(String bootstrapServers, String topic, int partitionCount, String groupId) {
+        this.admin = Admin.create(Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers));
+        this.groupId = groupId;
+        this.partitions = IntStream.range(0, partitionCount)
+                .mapToObj(p -> new TopicPartition(topic, p))
+                .toList();
+    }
+
+    Sample sample(long elapsedMs) throws ExecutionException, InterruptedException {
+        Map<TopicPartition, OffsetSpec> latest = new HashMap<>();
+        partitions.forEach(p -> latest.put(p, OffsetSpec.latest()));
+        long produced = 0;
+        for (var info : admin.listOffsets(latest).all().get().values()) {
+            produced += info.offset();
+        }
+        long committed = 0;
+        Map<TopicPartition, OffsetAndMetadata> offsets =
+                admin.listConsumerGroupOffsets(groupId).partitionsToOffsetAndMetadata().get();
+        for (TopicPartition partition : partitions) {
+            OffsetAndMetadata offset = offsets.get(partition);
+            if (offset != null) committed += offset.offset();
+        }
+        return new Sample(elapsedMs, produced, committed);
+    }
+
+    @Override
+    public void close() {
+        admin.close();
+    }
+}
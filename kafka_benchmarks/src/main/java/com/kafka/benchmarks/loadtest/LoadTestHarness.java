@@ -0,0 +1,229 @@
+package com.kafka.benchmarks.loadtest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import com.kafka.consumer.KafkaConsumerApplication;
+import com.kafka.consumer.archive.ArchiveScanner;
+import com.kafka.consumer.archive.TransactionArchive;
+import com.kafka.producer.KafkaProducerApplication;
+
+// Offline end-to-end run: an embedded Kafka broker and an H2 database in MySQL mode, the
+// producer (FolderWatcher) and the consumer (KafkaTransactionConsumer) as two Spring contexts
+// in this JVM, and synthetic CSVs dropped into the watched folder. Reports send → committed
+// latency percentiles, records/sec and consumer lag per second, and exits non-zero when a row
+// is missing or a threshold is missed, so CI can run it as a throughput regression check:
+//
+//   mvn -B -pl kafka_benchmarks -am -Ploadtest -DskipTests verify -Dloadtest.args="rows=50000 min-throughput=5000"
+//   java -cp kafka_benchmarks/target/benchmarks.jar com.kafka.benchmarks.loadtest.LoadTestHarness files=8 skew=1.2
+//
+// Options (key=value): files, rows (per file), users, skew (Zipf exponent of the userId key,
+// 0 = uniform), partitions, file-interval-ms, format (json|binary), delivery
+// (at-least-once|exactly-once), transaction-scope (chunk|file), timeout-s, min-throughput
+// (records/sec), max-p99-ms, work-dir, quiet (silences the apps' stdout while running).
+public final class LoadTestHarness {
+
+    private static final String TOPIC = "loadtest";
+    private static final String GROUP_ID = "loadtest-consumer-group";
+
+    private final LoadTestOptions options;
+    private final PrintStream console = System.out;
+    private final List<LagSampler.Sample> samples = new ArrayList<>();
+    private volatile ConfigurableApplicationContext producerContext;
+
+    private LoadTestHarness(LoadTestOptions options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        boolean passed = new LoadTestHarness(LoadTestOptions.parse(args)).run();
+        System.exit(passed ? 0 : 1);
+    }
+
+    private boolean run() throws Exception {
+        Path work = options.workDir();
+        deleteRecursively(work);
+        Path staging = work.resolve("staging");
+        Path incoming = work.resolve("data/incoming");
+        Files.createDirectories(incoming);
+
+        console.printf("🧪 Generating %d files × %d rows (%d users, skew %.2f) in %s%n", options.files(),
+                options.rowsPerFile(), options.users(), options.skew(), staging);
+        List<Path> files = new SkewedCsvGenerator(options.users(), options.skew())
+                .write(staging, options.files(), options.rowsPerFile());
+
+        EndToEndLatency.reset(TOPIC);
+        EmbeddedKafkaBroker broker = new EmbeddedKafkaKraftBroker(1, options.partitions(), TOPIC)
+                // The transaction log defaults to 3 replicas, which a single broker cannot host
+                .brokerProperties(Map.of("transaction.state.log.replication.factor", "1",
+                        "transaction.state.log.min.isr", "1"));
+        broker.afterPropertiesSet();
+        String bootstrap = broker.getBrokersAsString();
+
+        ConfigurableApplicationContext consumerContext = null;
+        long storedRows = -1;
+        long archivedRows = -1;
+        long startMillis = 0;
+        boolean completed = false;
+        if (options.quiet()) {
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        }
+        try (LagSampler lag = new LagSampler(bootstrap, TOPIC, options.partitions(), GROUP_ID)) {
+            consumerContext = new SpringApplicationBuilder(KafkaConsumerApplication.class).run(
+                    "--spring.config.name=loadtest-consumer",
+                    "--spring.kafka.bootstrap-servers=" + bootstrap,
+                    "--spring.kafka.consumer.properties.interceptor.classes=" + CommitLatencyInterceptor.class.getName(),
+                    "--consumer.spool.dir=" + work.resolve("data/spool"),
+                    "--consumer.archive.dir=" + work.resolve("data/archive"),
+                    "--transaction.schema.registry.dir=" + work.resolve("schemas"));
+
+            // FolderWatcher never returns from its runner, so the producer gets its own thread
+            if (options.fileIntervalMs() <= 0) {
+                for (Path file : files) drop(file, incoming);
+            } else {
+                drop(files.get(0), incoming);
+            }
+            startMillis = System.currentTimeMillis();
+            Thread producer = new Thread(() -> new SpringApplicationBuilder(KafkaProducerApplication.class)
+                    .initializers(context -> producerContext = context)
+                    .run("--spring.config.name=loadtest-producer",
+                            "--spring.kafka.bootstrap-servers=" + bootstrap,
+                            "--producer.incoming.dir=" + incoming,
+                            "--producer.processed.dir=" + work.resolve("data/processed"),
+                            "--producer.checkpoint.dir=" + work.resolve("data/checkpoints"),
+                            "--transaction.value.format=" + options.valueFormat(),
+                            "--producer.delivery=" + options.delivery(),
+                            "--producer.transaction.scope=" + options.transactionScope(),
+                            "--transaction.schema.registry.dir=" + work.resolve("schemas")),
+                    "loadtest-producer");
+            producer.setDaemon(true);
+            producer.start();
+
+            int dropped = options.fileIntervalMs() <= 0 ? files.size() : 1;
+            long deadline = startMillis + options.timeoutSeconds() * 1000;
+            while (System.currentTimeMillis() < deadline) {
+                Thread.sleep(1000);
+                long elapsed = System.currentTimeMillis() - startMillis;
+                while (dropped < files.size() && elapsed >= dropped * options.fileIntervalMs()) {
+                    drop(files.get(dropped++), incoming);
+                }
+                LagSampler.Sample sample = lag.sample(elapsed);
+                samples.add(sample);
+                console.printf("⏱️ %5.1fs produced %d, committed %d, lag %d%n", elapsed / 1000.0,
+                        sample.produced(), sample.committed(), sample.lag());
+                // Transaction markers take offsets too, so committed offsets can run ahead of the rows
+                if (sample.committed() >= options.totalRows() && storedRows(consumerContext) >= options.totalRows()) {
+                    completed = true;
+                    break;
+                }
+            }
+            storedRows = storedRows(consumerContext);
+            archivedRows = archivedRows(consumerContext, work.resolve("data/archive"));
+        } finally {
+            if (producerContext != null) producerContext.close();
+            if (consumerContext != null) consumerContext.close();
+            broker.destroy();
+            System.setOut(console);
+        }
+
+        return report(completed, storedRows, archivedRows, startMillis);
+    }
+
+    private boolean report(boolean completed, long storedRows, long archivedRows, long startMillis) throws IOException {
+        long endMillis = completed ? EndToEndLatency.lastCommitMillis() : System.currentTimeMillis();
+        double seconds = Math.max(1, endMillis - startMillis) / 1000.0;
+        double recordsPerSecond = (completed ? options.totalRows() : lastCommitted()) / seconds;
+        long p99 = EndToEndLatency.percentile(99);
+
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Load test: %d files × %d rows, %d users, skew %.2f, %d partitions, %s values, %s%n",
+                options.files(), options.rowsPerFile(), options.users(), options.skew(), options.partitions(),
+                options.valueFormat(), "exactly-once".equalsIgnoreCase(options.delivery())
+                        ? "exactly-once (" + options.transactionScope() + " transactions)" : options.delivery()));
+        report.append(String.format("Committed %d / %d records in %.1f s → %.0f records/sec; %d rows in the database, %d archived%n",
+                lastCommitted(), options.totalRows(), seconds, recordsPerSecond, storedRows, archivedRows));
+        report.append(String.format("Send → committed latency over %d records: p50 %d ms, p99 %d ms, p999 %d ms, max %d ms%n",
+                EndToEndLatency.recorded(), EndToEndLatency.percentile(50), p99, EndToEndLatency.percentile(99.9),
+                EndToEndLatency.percentile(100)));
+        report.append(String.format("Peak consumer lag %d%n%n", samples.stream().mapToLong(LagSampler.Sample::lag).max().orElse(0)));
+        report.append(String.format("%8s %12s %12s %10s %12s%n", "t(s)", "produced", "committed", "lag", "records/s"));
+        long previousCommitted = 0;
+        long previousMs = 0;
+        for (LagSampler.Sample sample : samples) {
+            double interval = Math.max(1, sample.elapsedMs() - previousMs) / 1000.0;
+            report.append(String.format("%8.1f %12d %12d %10d %12.0f%n", sample.elapsedMs() / 1000.0, sample.produced(),
+                    sample.committed(), sample.lag(), (sample.committed() - previousCommitted) / interval));
+            previousCommitted = sample.committed();
+            previousMs = sample.elapsedMs();
+        }
+
+        List<String> failures = new ArrayList<>();
+        if (!completed) failures.add("timed out after " + options.timeoutSeconds() + " s");
+        if (storedRows != options.totalRows()) failures.add(storedRows + " rows stored, expected " + options.totalRows());
+        if (archivedRows >= 0 && archivedRows != options.totalRows()) {
+            failures.add(archivedRows + " rows archived, expected " + options.totalRows());
+        }
+        if (options.minRecordsPerSecond() > 0 && recordsPerSecond < options.minRecordsPerSecond()) {
+            failures.add(String.format("%.0f records/sec < min-throughput %.0f", recordsPerSecond, options.minRecordsPerSecond()));
+        }
+        if (options.maxP99Ms() > 0 && p99 > options.maxP99Ms()) {
+            failures.add(String.format("p99 %d ms > max-p99-ms %.0f", p99, options.maxP99Ms()));
+        }
+        report.append(System.lineSeparator()).append(failures.isEmpty() ? "PASSED" : "FAILED: " + String.join("; ", failures))
+                .append(System.lineSeparator());
+
+        Path reportFile = options.workDir().resolve("loadtest-report.txt");
+        Files.writeString(reportFile, report, StandardCharsets.UTF_8);
+        console.print(report);
+        console.println("📄 Report written to " + reportFile);
+        return failures.isEmpty();
+    }
+
+    private static long storedRows(ConfigurableApplicationContext consumerContext) {
+        return consumerContext.getBean(JdbcTemplate.class).queryForObject("SELECT COUNT(*) FROM transaction", Long.class);
+    }
+
+    // Rolls what is pending, then counts every committed archive row; -1 when archiving is off
+    private static long archivedRows(ConfigurableApplicationContext consumerContext, Path dir) throws IOException {
+        TransactionArchive archive = consumerContext.getBean(TransactionArchive.class);
+        if (!archive.isEnabled()) return -1;
+        archive.roll();
+        ArchiveScanner.Aggregate all = new ArchiveScanner(dir)
+                .scan(new ArchiveScanner.Filter(null, null, null, null, null, ArchiveScanner.GroupBy.NONE)).groups().get("all");
+        return all == null ? 0 : all.rows();
+    }
+
+    private long lastCommitted() {
+        return samples.isEmpty() ? 0 : samples.get(samples.size() - 1).committed();
+    }
+
+    // A move within one file system is atomic, so the watcher never sees a half-written file
+    private static void drop(Path file, Path incoming) throws IOException {
+        Files.move(file, incoming.resolve(file.getFileName()), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) return;
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.kafka.benchmarks.loadtest;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+// key=value command-line options of the load test; anything not given keeps its default
+record LoadTestOptions(
+        int files,
+        int rowsPerFile,
+        int users,
+        double skew,
+        int partitions,
+        long fileIntervalMs,
+        String valueFormat,
+        String delivery,
+        String transactionScope,
+        long timeoutSeconds,
+        double minRecordsPerSecond,
+        double maxP99Ms,
+        Path workDir,
+        boolean quiet) {
+
+    private static final Set<String> KEYS = Set.of("files", "rows", "users", "skew", "partitions",
+            "file-interval-ms", "format", "delivery", "transaction-scope", "timeout-s", "min-throughput", "max-p99-ms", "work-dir", "quiet");
+
+    static LoadTestOptions parse(String... args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            values.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        LoadTestOptions options = new LoadTestOptions(
+                Integer.parseInt(values.getOrDefault("files", "4")),
+                Integer.parseInt(values.getOrDefault("rows", "100000")),
+                Integer.parseInt(values.getOrDefault("users", "50000")),
+                Double.parseDouble(values.getOrDefault("skew", "1.0")),
+                Integer.parseInt(values.getOrDefault("partitions", "6")),
+                Long.parseLong(values.getOrDefault("file-interval-ms", "0")),
+                values.getOrDefault("format", "json"),
+                values.getOrDefault("delivery", "at-least-once"),
+                values.getOrDefault("transaction-scope", "chunk"),
+                Long.parseLong(values.getOrDefault("timeout-s", "600")),
+                Double.parseDouble(values.getOrDefault("min-throughput", "0")),
+                Double.parseDouble(values.getOrDefault("max-p99-ms", "0")),
+                Path.of(values.getOrDefault("work-dir", "target/loadtest")).toAbsolutePath(),
+                Boolean.parseBoolean(values.getOrDefault("quiet", "true")));
+        values.keySet().removeAll(KEYS);
+        if (!values.isEmpty()) throw new IllegalArgumentException("Unknown options: " + values.keySet());
+        return options;
+    }
+
+    long totalRows() {
+        return (long) files * rowsPerFile;
+    }
+}
@@ -0,0 +1,57 @@
+package com.kafka.benchmarks.loadtest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import com.kafka.benchmarks.SyntheticTransactions;
+
+// Synthetic CSVs whose userIds (the Kafka key) follow a Zipf distribution: user rank k is
+// drawn with probability ∝ 1 / k^skew, so skew 0 is uniform and skew ≥ 1 puts a large share
+// of the rows on a few keys and therefore on a few partitions. Transaction ids are unique
+// across files so every row is stored exactly once.
+final class SkewedCsvGenerator {
+
+    private final double[] cumulative;
+    private final Random random = new Random(42);
+    private long nextTransactionId = 6000000;
+
+    SkewedCsvGenerator(int users, double skew) {
+        cumulative = new double[users];
+        double sum = 0;
+        for (int k = 0; k < users; k++) {
+            sum += 1.0 / Math.pow(k + 1, skew);
+            cumulative[k] = sum;
+        }
+        for (int k = 0; k < users; k++) {
+            cumulative[k] /= sum;
+        }
+    }
+
+    List<Path> write(Path dir, int files, int rowsPerFile) throws IOException {
+        Files.createDirectories(dir);
+        List<Path> written = new ArrayList<>(files);
+        for (int f = 0; f < files; f++) {
+            StringBuilder csv = new StringBuilder(rowsPerFile * 110);
+            csv.append(SyntheticTransactions.HEADER).append('\n');
+            for (int i = 0; i < rowsPerFile; i++) {
+                SyntheticTransactions.appendRow(csv, userId(), nextTransactionId++, random);
+            }
+            Path file = dir.resolve(String.format("loadtest-%03d.csv", f));
+            Files.writeString(file, csv, StandardCharsets.UTF_8);
+            written.add(file);
+        }
+        return written;
+    }
+
+    private long userId() {
+        int rank = Arrays.binarySearch(cumulative, random.nextDouble());
+        if (rank < 0) rank = Math.min(-rank - 1, cumulative.length - 1);
+        return 250000 + rank;
+    }
+}
@@ -0,0 +1,37 @@
+package com.kafka.consumer.aggregation;
+
+import com.kafka.consumer.model.Transaction;
+
+// Grouping keys of the windowed aggregates, each flushed to its own summary table
+public enum Dimension {
+
+    COUNTRY("transaction_revenue_by_country", "country", 255),
+    ITEM_CODE("transaction_revenue_by_item", "item_code", 64);
+
+    private final String table;
+    private final String column;
+    private final int columnLength;
+
+    Dimension(String table, String column, int columnLength) {
+        this.table = table;
+        this.column = column;
+        this.columnLength = columnLength;
+    }
+
+    public String table() {
+        return table;
+    }
+
+    public String column() {
+        return column;
+    }
+
+    int columnLength() {
+        return columnLength;
+    }
+
+    String groupOf(Transaction transaction) {
+        String group = this == COUNTRY ? transaction.getCountry() : transaction.getItemCode();
+        return group != null ? group : "";
+    }
+}
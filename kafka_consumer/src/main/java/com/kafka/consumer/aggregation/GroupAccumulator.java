@@ -0,0 +1,68 @@
+package com.kafka.consumer.aggregation;
+
+// Open-addressing map from a non-zero long group key to (revenue, count), kept in parallel
+// primitive arrays so that accumulating a row allocates nothing
+final class GroupAccumulator {
+
+    interface Visitor {
+        void accept(long key, double revenue, long count);
+    }
+
+    private long[] keys;
+    private double[] revenue;
+    private long[] counts;
+    private int size;
+
+    GroupAccumulator() {
+        allocate(64);
+    }
+
+    void add(long key, double amount, long count) {
+        if ((size + 1) * 2 > keys.length) {
+            rehash();
+        }
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        while (keys[i] != 0 && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        if (keys[i] == 0) {
+            keys[i] = key;
+            size++;
+        }
+        revenue[i] += amount;
+        counts[i] += count;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void forEach(Visitor visitor) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) visitor.accept(keys[i], revenue[i], counts[i]);
+        }
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        double[] oldRevenue = revenue;
+        long[] oldCounts = counts;
+        allocate(oldKeys.length * 2);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) add(oldKeys[i], oldRevenue[i], oldCounts[i]);
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        revenue = new double[capacity];
+        counts = new long[capacity];
+    }
+
+    private static int slot(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,8 @@
+package com.kafka.consumer.aggregation;
+
+import java.time.Instant;
+
+// Revenue (numberOfItemPurchased * costPerItem) and transaction count of one group in one window
+public record WindowAggregate(String window, Instant start, Instant end, Dimension dimension, String group,
+                              double revenue, long count) {
+}
@@ -0,0 +1,86 @@
+package com.kafka.consumer.aggregation;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+// Summary tables of the windows. Rows are merged additively, so a window flushed again with
+// more or late data adds to what is already stored. Alongside, the next offset of each source
+// partition whose rows are in those totals, written in the same transaction.
+@Repository
+public class WindowSummaryRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public WindowSummaryRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void createTables() {
+        for (Dimension dimension : Dimension.values()) {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + dimension.table() + " (" +
+                    "window_name VARCHAR(32) NOT NULL, " +
+                    "window_start DATETIME NOT NULL, " +
+                    "window_end DATETIME NOT NULL, " +
+                    dimension.column() + " VARCHAR(" + dimension.columnLength() + ") NOT NULL, " +
+                    "revenue DOUBLE NOT NULL, " +
+                    "transaction_count BIGINT NOT NULL, " +
+                    "PRIMARY KEY (window_name, window_start, " + dimension.column() + "))");
+        }
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS window_aggregation_offset (" +
+                "topic VARCHAR(249) NOT NULL, " +
+                "partition_id INT NOT NULL, " +
+                "next_offset BIGINT NOT NULL, " +
+                "PRIMARY KEY (topic, partition_id))");
+    }
+
+    public Map<TopicPartition, Long> loadOffsets(Collection<TopicPartition> partitions) {
+        Map<TopicPartition, Long> offsets = new HashMap<>();
+        for (TopicPartition partition : partitions) {
+            jdbcTemplate.query("SELECT next_offset FROM window_aggregation_offset WHERE topic = ? AND partition_id = ?",
+                    rs -> {
+                        offsets.put(partition, rs.getLong(1));
+                    }, partition.topic(), partition.partition());
+        }
+        return offsets;
+    }
+
+    @Transactional
+    public void merge(List<WindowAggregate> aggregates, Map<TopicPartition, Long> offsets) {
+        for (Dimension dimension : Dimension.values()) {
+            List<WindowAggregate> rows = new ArrayList<>();
+            for (WindowAggregate aggregate : aggregates) {
+                if (aggregate.dimension() == dimension) rows.add(aggregate);
+            }
+            if (rows.isEmpty()) continue;
+            jdbcTemplate.batchUpdate("INSERT INTO " + dimension.table() +
+                    " (window_name, window_start, window_end, " + dimension.column() + ", revenue, transaction_count)" +
+                    " VALUES (?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE" +
+                    " revenue = revenue + VALUES(revenue), transaction_count = transaction_count + VALUES(transaction_count)",
+                    rows, 500, (ps, a) -> {
+                        ps.setString(1, a.window());
+                        ps.setTimestamp(2, Timestamp.from(a.start()));
+                        ps.setTimestamp(3, Timestamp.from(a.end()));
+                        ps.setString(4, a.group());
+                        ps.setDouble(5, a.revenue());
+                        ps.setLong(6, a.count());
+                    });
+        }
+        if (offsets.isEmpty()) return;
+        jdbcTemplate.batchUpdate("INSERT INTO window_aggregation_offset (topic, partition_id, next_offset) VALUES (?, ?, ?)" +
+                " ON DUPLICATE KEY UPDATE next_offset = VALUES(next_offset)",
+                List.copyOf(offsets.entrySet()), 500, (ps, offset) -> {
+                    ps.setString(1, offset.getKey().topic());
+                    ps.setInt(2, offset.getKey().partition());
+                    ps.setLong(3, offset.getValue());
+                });
+    }
+}
@@ -0,0 +1,366 @@
+package com.kafka.consumer.aggregation;
+
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.kafka.consumer.model.Transaction;
+import com.kafka.consumer.model.TransactionTime;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// Incremental revenue and count per country and per item code over event-time windows on
+// transactionTime: a tumbling window and a hopping window (size > slide, so a row lands in
+// size / slide windows). Groups are dictionary-encoded to ints and accumulated in primitive
+// maps, one per open window.
+//
+// The watermark trails the highest event time seen by allowed-lateness. Windows ending at or
+// before it are closed and leave memory. A late row still within max-lateness reopens its
+// window as a delta; anything older is dropped and counted.
+//
+// Every flush merges what each window gained since the last one into the summary tables,
+// together with the next offset of each source partition, in one transaction: a row counts
+// once per offset, so redeliveries add nothing, and after a crash the listeners re-read from
+// the merged offsets (see resumeOffset) so the rows whose deltas were lost are counted again.
+@Component
+public class WindowedAggregator {
+
+    static final DateTimeFormatter TRANSACTION_TIME = TransactionTime.FORMAT;
+
+    record WindowSpec(String name, long sizeMs, long slideMs) {
+    }
+
+    private final WindowSummaryRepository summaryRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${consumer.aggregation.enabled:true}")
+    private boolean enabled;
+
+    @Value("${consumer.aggregation.tumbling.size.ms:60000}")
+    private long tumblingSizeMs;
+
+    @Value("${consumer.aggregation.hopping.size.ms:300000}")
+    private long hoppingSizeMs;
+
+    @Value("${consumer.aggregation.hopping.slide.ms:60000}")
+    private long hoppingSlideMs;
+
+    @Value("${consumer.aggregation.allowed-lateness.ms:60000}")
+    private long allowedLatenessMs;
+
+    @Value("${consumer.aggregation.max-lateness.ms:86400000}")
+    private long maxLatenessMs;
+
+    private final List<WindowSpec> specs = new ArrayList<>();
+    // Totals of the open windows, for the read API
+    private final Map<WindowSpec, TreeMap<Long, GroupAccumulator>> open = new HashMap<>();
+    // Not yet merged, per source partition; null for rows without one
+    private Map<TopicPartition, Map<WindowSpec, TreeMap<Long, GroupAccumulator>>> pending = new HashMap<>();
+    // Next offset per partition not yet aggregated, and the part of that already merged
+    private final Map<TopicPartition, Long> aggregated = new HashMap<>();
+    private final Map<TopicPartition, Long> merged = new HashMap<>();
+    // Re-reads below this offset were stored before a crash, so INSERT IGNORE skipping them is expected
+    private final Map<TopicPartition, Long> replayUntil = new HashMap<>();
+    private final Map<Dimension, Map<String, Integer>> groupIds = new EnumMap<>(Dimension.class);
+    private final Map<Dimension, List<String>> groupNames = new EnumMap<>(Dimension.class);
+    private long maxEventTime = Long.MIN_VALUE;
+
+    private Counter aggregatedRows;
+    private Counter lateAccepted;
+    private Counter lateDropped;
+    private Counter unparseable;
+
+    public WindowedAggregator(WindowSummaryRepository summaryRepository, MeterRegistry meterRegistry) {
+        this.summaryRepository = summaryRepository;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void init() {
+        specs.add(new WindowSpec("tumbling", tumblingSizeMs, tumblingSizeMs));
+        specs.add(new WindowSpec("hopping", hoppingSizeMs, hoppingSlideMs));
+        for (WindowSpec spec : specs) {
+            open.put(spec, new TreeMap<>());
+        }
+        for (Dimension dimension : Dimension.values()) {
+            groupIds.put(dimension, new HashMap<>());
+            List<String> names = new ArrayList<>();
+            names.add(null); // id 0 is reserved as the empty key
+            groupNames.put(dimension, names);
+        }
+
+        aggregatedRows = Counter.builder("consumer.aggregation.records").register(meterRegistry);
+        lateAccepted = Counter.builder("consumer.aggregation.late").tag("result", "accepted").register(meterRegistry);
+        lateDropped = Counter.builder("consumer.aggregation.late").tag("result", "dropped").register(meterRegistry);
+        unparseable = Counter.builder("consumer.aggregation.unparseable").register(meterRegistry);
+        Gauge.builder("consumer.aggregation.open.windows", this, WindowedAggregator::openWindowCount)
+                .register(meterRegistry);
+
+        if (enabled) {
+            summaryRepository.createTables();
+        }
+    }
+
+    // Called by the writers after a flush with the whole batch and the rows of it that were
+    // stored or spooled, and by the retry listener for each stored record. Rows at offsets already
+    // aggregated are redeliveries. A row that was not stored this time (MySQL or the duplicate
+    // filter already had it) is only counted when it is re-read after a crash.
+    public synchronized void add(TopicPartition partition, List<Transaction> rows, long[] offsets, List<Transaction> stored) {
+        if (!enabled || rows.isEmpty()) return;
+        long next = aggregated.getOrDefault(partition, -1L);
+        long replay = replayUntil.getOrDefault(partition, -1L);
+        Set<Transaction> fresh = null;
+        if (stored.size() != rows.size()) {
+            fresh = Collections.newSetFromMap(new IdentityHashMap<>());
+            fresh.addAll(stored);
+        }
+        Map<WindowSpec, TreeMap<Long, GroupAccumulator>> deltas = pendingFor(partition);
+        for (int i = 0; i < rows.size(); i++) {
+            if (offsets[i] < next) continue;
+            if (fresh != null && offsets[i] >= replay && !fresh.contains(rows.get(i))) continue;
+            accumulate(rows.get(i), 1, deltas);
+        }
+        aggregated.put(partition, Math.max(next, offsets[rows.size() - 1] + 1));
+    }
+
+    // Rows with no source offset to deduplicate by
+    public synchronized void add(List<Transaction> rows) {
+        if (!enabled) return;
+        Map<WindowSpec, TreeMap<Long, GroupAccumulator>> deltas = pendingFor(null);
+        for (Transaction t : rows) {
+            accumulate(t, 1, deltas);
+        }
+    }
+
+    // Takes back spooled rows that were counted when spooled but could not be stored after all
+    public synchronized void retract(List<Transaction> rows) {
+        if (!enabled) return;
+        Map<WindowSpec, TreeMap<Long, GroupAccumulator>> deltas = pendingFor(null);
+        for (Transaction t : rows) {
+            accumulate(t, -1, deltas);
+        }
+    }
+
+    private void accumulate(Transaction t, int sign, Map<WindowSpec, TreeMap<Long, GroupAccumulator>> deltas) {
+        if (t.getEventTime() == null) {
+            unparseable.increment();
+            return;
+        }
+        long eventTime = t.getEventTime().toEpochMilli();
+        if (eventTime > maxEventTime) {
+            maxEventTime = eventTime;
+        } else if (eventTime < maxEventTime - allowedLatenessMs) {
+            if (eventTime < maxEventTime - allowedLatenessMs - maxLatenessMs) {
+                lateDropped.increment();
+                return;
+            }
+            lateAccepted.increment();
+        }
+
+        double amount = sign * t.getNumberOfItemPurchased() * t.getCostPerItem();
+        long countryKey = groupKey(Dimension.COUNTRY, t);
+        long itemKey = groupKey(Dimension.ITEM_CODE, t);
+        for (WindowSpec spec : specs) {
+            TreeMap<Long, GroupAccumulator> windows = open.get(spec);
+            TreeMap<Long, GroupAccumulator> windowDeltas = deltas.get(spec);
+            long lastStart = Math.floorDiv(eventTime, spec.slideMs()) * spec.slideMs();
+            for (long start = lastStart; start > eventTime - spec.sizeMs(); start -= spec.slideMs()) {
+                GroupAccumulator accumulator = windows.computeIfAbsent(start, s -> new GroupAccumulator());
+                accumulator.add(countryKey, amount, sign);
+                accumulator.add(itemKey, amount, sign);
+                GroupAccumulator delta = windowDeltas.computeIfAbsent(start, s -> new GroupAccumulator());
+                delta.add(countryKey, amount, sign);
+                delta.add(itemKey, amount, sign);
+            }
+        }
+        aggregatedRows.increment();
+    }
+
+    private Map<WindowSpec, TreeMap<Long, GroupAccumulator>> pendingFor(TopicPartition partition) {
+        return pending.computeIfAbsent(partition, p -> {
+            Map<WindowSpec, TreeMap<Long, GroupAccumulator>> deltas = new HashMap<>();
+            for (WindowSpec spec : specs) {
+                deltas.put(spec, new TreeMap<>());
+            }
+            return deltas;
+        });
+    }
+
+    // After an assignment: the offset to re-read the partition from, or -1. Rows past the merged
+    // offset were stored by the previous owner, but their deltas were lost with it.
+    public synchronized long resumeOffset(TopicPartition partition, long position) {
+        if (!enabled) return -1;
+        discard(List.of(partition));
+        Long stored;
+        try {
+            stored = summaryRepository.loadOffsets(List.of(partition)).get(partition);
+        } catch (RuntimeException e) {
+            System.err.printf("⚠️ Could not load aggregated offset of %s, aggregating from %d: %s%n",
+                    partition, position, e.getMessage());
+            return -1;
+        }
+        if (stored == null) return -1;
+        aggregated.put(partition, stored);
+        merged.put(partition, stored);
+        if (stored >= position) return -1;
+        replayUntil.put(partition, position);
+        return stored;
+    }
+
+    // On revoke: merge what these partitions added, or leave it to the next owner's re-read
+    public void release(Collection<TopicPartition> partitions) {
+        if (!flush()) discard(partitions);
+    }
+
+    public synchronized void discard(Collection<TopicPartition> partitions) {
+        for (TopicPartition partition : partitions) {
+            pending.remove(partition);
+            aggregated.remove(partition);
+            merged.remove(partition);
+            replayUntil.remove(partition);
+        }
+    }
+
+    public synchronized long watermark() {
+        return maxEventTime == Long.MIN_VALUE ? Long.MIN_VALUE : maxEventTime - allowedLatenessMs;
+    }
+
+    @Scheduled(fixedDelayString = "${consumer.aggregation.flush.interval.ms:5000}")
+    public void flushClosed() {
+        flush();
+    }
+
+    @PreDestroy
+    void flushAll() {
+        flush();
+    }
+
+    // Partial windows are safe to write because the summary tables are merged additively
+    private boolean flush() {
+        if (!enabled) return true;
+        Map<TopicPartition, Map<WindowSpec, TreeMap<Long, GroupAccumulator>>> flushed;
+        Map<TopicPartition, Long> offsets = new HashMap<>();
+        List<WindowAggregate> deltas = new ArrayList<>();
+        synchronized (this) {
+            long watermark = watermark();
+            for (WindowSpec spec : specs) {
+                if (watermark != Long.MIN_VALUE) open.get(spec).headMap(watermark - spec.sizeMs(), true).clear();
+            }
+            aggregated.forEach((partition, offset) -> {
+                if (!offset.equals(merged.get(partition))) offsets.put(partition, offset);
+            });
+            if (pending.isEmpty() && offsets.isEmpty()) return true;
+            flushed = pending;
+            pending = new HashMap<>();
+            for (Map<WindowSpec, TreeMap<Long, GroupAccumulator>> windows : flushed.values()) {
+                windows.forEach((spec, byStart) -> byStart.forEach((start, accumulator) -> collect(spec, start, accumulator, deltas)));
+            }
+        }
+
+        try {
+            summaryRepository.merge(deltas, offsets);
+            synchronized (this) {
+                offsets.forEach((partition, offset) -> {
+                    if (aggregated.containsKey(partition)) merged.put(partition, offset);
+                });
+            }
+            if (!deltas.isEmpty()) {
+                System.out.printf("📊 Flushed %d window aggregates (watermark %s)%n", deltas.size(),
+                        Instant.ofEpochMilli(watermark()));
+            }
+            return true;
+        } catch (RuntimeException e) {
+            System.err.printf("❌ Window flush failed, keeping %d aggregates for the next attempt: %s%n",
+                    deltas.size(), e.getMessage());
+            restore(flushed);
+            return false;
+        }
+    }
+
+    // Read API: the current contents of all open windows of one spec, from memory
+    public synchronized List<WindowAggregate> openWindows(String window, Dimension dimension) {
+        List<WindowAggregate> result = new ArrayList<>();
+        for (WindowSpec spec : specs) {
+            if (!spec.name().equals(window)) continue;
+            for (Map.Entry<Long, GroupAccumulator> entry : open.get(spec).entrySet()) {
+                List<WindowAggregate> all = new ArrayList<>();
+                collect(spec, entry.getKey(), entry.getValue(), all);
+                for (WindowAggregate aggregate : all) {
+                    if (aggregate.dimension() == dimension) result.add(aggregate);
+                }
+            }
+        }
+        return result;
+    }
+
+    public List<WindowAggregate> openWindows(String window, Dimension dimension, String group) {
+        return openWindows(window, dimension).stream()
+                .filter(aggregate -> aggregate.group().equals(group))
+                .toList();
+    }
+
+    public synchronized int openWindowCount() {
+        int count = 0;
+        for (TreeMap<Long, GroupAccumulator> windows : open.values()) {
+            count += windows.size();
+        }
+        return count;
+    }
+
+    // Partitions discarded meanwhile are left out: their next owner re-reads them
+    private synchronized void restore(Map<TopicPartition, Map<WindowSpec, TreeMap<Long, GroupAccumulator>>> flushed) {
+        flushed.forEach((partition, windows) -> {
+            if (partition != null && !aggregated.containsKey(partition)) return;
+            Map<WindowSpec, TreeMap<Long, GroupAccumulator>> deltas = pendingFor(partition);
+            windows.forEach((spec, byStart) -> byStart.forEach((start, accumulator) -> {
+                GroupAccumulator delta = deltas.get(spec).computeIfAbsent(start, s -> new GroupAccumulator());
+                accumulator.forEach(delta::add);
+            }));
+        });
+    }
+
+    private void collect(WindowSpec spec, long start, GroupAccumulator accumulator, List<WindowAggregate> out) {
+        Instant from = Instant.ofEpochMilli(start);
+        Instant to = Instant.ofEpochMilli(start + spec.sizeMs());
+        Dimension[] dimensions = Dimension.values();
+        accumulator.forEach((key, revenue, count) -> {
+            Dimension dimension = dimensions[(int) (key >>> 32)];
+            String group = groupNames.get(dimension).get((int) key);
+            out.add(new WindowAggregate(spec.name(), from, to, dimension, group, revenue, count));
+        });
+    }
+
+    // Dimension ordinal in the high half, dictionary id (never 0) in the low half
+    private long groupKey(Dimension dimension, Transaction transaction) {
+        return groupKey(dimension, dimension.groupOf(transaction));
+    }
+
+    private long groupKey(Dimension dimension, String group) {
+        Integer id = groupIds.get(dimension).get(group);
+        if (id == null) {
+            List<String> names = groupNames.get(dimension);
+            id = names.size();
+            names.add(group);
+            groupIds.get(dimension).put(group, id);
+        }
+        return ((long) dimension.ordinal() << 32) | id;
+    }
+}
@@ -0,0 +1,375 @@
+package com.kafka.consumer.archive;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.github.luben.zstd.Zstd;
+import com.kafka.consumer.model.Transaction;
+import com.kafka.consumer.model.TransactionTime;
+
+// One immutable columnar file of transactions, laid out like a single-row-group Parquet file:
+// each column is a separately zstd-compressed chunk, followed by a footer that gives every
+// chunk's position and statistics, the footer's length and the magic "TXC1". A reader fetches
+// the footer, decides from the statistics whether the file can match at all, and then reads
+// only the chunks its query touches.
+//
+// Rows are sorted by (transaction_time, transaction_id), so both are stored as zigzag varint
+// deltas from the previous row. Other integers are varints of zigzag + 1 with 0 for null,
+// cost_per_item plain 8-byte doubles, and the two strings dictionary-encoded: the distinct
+// values once, then a varint code per row (0 for null). Statistics hold the min, max and null
+// count of each column (the dictionary's smallest and largest string for text).
+public final class ArchiveFile implements Closeable {
+
+    public static final String SUFFIX = ".txc";
+    public static final int NULL_INT = Integer.MIN_VALUE;
+    private static final int MAGIC = 0x54584331;
+    private static final int TRAILER_BYTES = 8;
+
+    public enum Column {
+        TRANSACTION_ID, TRANSACTION_TIME, USER_ID, ITEM_CODE, ITEM_DESCRIPTION, NUMBER_OF_ITEM_PURCHASED,
+        COST_PER_ITEM, COUNTRY
+    }
+
+    // min and max are numeric for number columns and text for string ones
+    public record Chunk(long offset, int length, int rawLength, int nulls, int distinct,
+                        double min, double max, String minText, String maxText) {
+    }
+
+    // codes[row] indexes values; values[0] is null
+    public record Strings(String[] values, int[] codes) {
+    }
+
+    private static final Comparator<Transaction> FILE_ORDER = Comparator.comparing(Transaction::getEventTime)
+            .thenComparingLong(t -> Long.parseLong(t.getTransactionId()));
+
+    private final FileChannel channel;
+    private final int rows;
+    private final Map<Column, Chunk> chunks;
+
+    private ArchiveFile(FileChannel channel, int rows, Map<Column, Chunk> chunks) {
+        this.channel = channel;
+        this.rows = rows;
+        this.chunks = chunks;
+    }
+
+    // Rows must have a numeric transaction id and a parsed transaction time
+    public static void write(Path file, List<Transaction> transactions, int level) throws IOException {
+        List<Transaction> rows = new ArrayList<>(transactions);
+        rows.sort(FILE_ORDER);
+        Map<Column, Chunk> chunks = new EnumMap<>(Column.class);
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            long offset = 0;
+            for (Column column : Column.values()) {
+                Encoded encoded = encode(column, rows);
+                byte[] compressed = Zstd.compress(encoded.bytes.toByteArray(), level);
+                writeFully(out, ByteBuffer.wrap(compressed));
+                chunks.put(column, new Chunk(offset, compressed.length, encoded.bytes.size(), encoded.nulls, encoded.distinct,
+                        encoded.min, encoded.max, encoded.minText, encoded.maxText));
+                offset += compressed.length;
+            }
+            ByteArrayOutputStream footer = new ByteArrayOutputStream();
+            try (DataOutputStream data = new DataOutputStream(footer)) {
+                data.writeInt(rows.size());
+                for (Column column : Column.values()) {
+                    Chunk chunk = chunks.get(column);
+                    data.writeLong(chunk.offset());
+                    data.writeInt(chunk.length());
+                    data.writeInt(chunk.rawLength());
+                    data.writeInt(chunk.nulls());
+                    data.writeInt(chunk.distinct());
+                    data.writeDouble(chunk.min());
+                    data.writeDouble(chunk.max());
+                    writeText(data, chunk.minText());
+                    writeText(data, chunk.maxText());
+                }
+            }
+            writeFully(out, ByteBuffer.wrap(footer.toByteArray()));
+            writeFully(out, ByteBuffer.allocate(TRAILER_BYTES).putInt(footer.size()).putInt(MAGIC).flip());
+            out.force(true);
+        }
+    }
+
+    public static ArchiveFile open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < TRAILER_BYTES) throw new IOException(file + " is not an archive file");
+            ByteBuffer trailer = read(channel, size - TRAILER_BYTES, TRAILER_BYTES);
+            int footerLength = trailer.getInt(0);
+            if (trailer.getInt(4) != MAGIC || footerLength < 4 || footerLength > size - TRAILER_BYTES) {
+                throw new IOException(file + " is not an archive file");
+            }
+            ByteBuffer footer = read(channel, size - TRAILER_BYTES - footerLength, footerLength);
+            DataInputStream data = new DataInputStream(new ByteArrayInputStream(footer.array()));
+            int rows = data.readInt();
+            Map<Column, Chunk> chunks = new EnumMap<>(Column.class);
+            for (Column column : Column.values()) {
+                chunks.put(column, new Chunk(data.readLong(), data.readInt(), data.readInt(), data.readInt(), data.readInt(),
+                        data.readDouble(), data.readDouble(), readText(data), readText(data)));
+            }
+            return new ArchiveFile(channel, rows, chunks);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    public Chunk chunk(Column column) {
+        return chunks.get(column);
+    }
+
+    // TRANSACTION_ID and TRANSACTION_TIME (epoch millis)
+    public long[] longs(Column column) throws IOException {
+        Varints in = new Varints(decompress(column));
+        long[] values = new long[rows];
+        long previous = 0;
+        for (int i = 0; i < rows; i++) {
+            previous += unzigzag(in.next());
+            values[i] = previous;
+        }
+        return values;
+    }
+
+    // USER_ID, ITEM_CODE and NUMBER_OF_ITEM_PURCHASED; NULL_INT for null
+    public int[] ints(Column column) throws IOException {
+        Varints in = new Varints(decompress(column));
+        int[] values = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            long value = in.next();
+            values[i] = value == 0 ? NULL_INT : (int) unzigzag(value - 1);
+        }
+        return values;
+    }
+
+    // COST_PER_ITEM
+    public double[] doubles(Column column) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(decompress(column));
+        double[] values = new double[rows];
+        for (int i = 0; i < rows; i++) {
+            values[i] = in.getDouble();
+        }
+        return values;
+    }
+
+    // ITEM_DESCRIPTION and COUNTRY
+    public Strings strings(Column column) throws IOException {
+        byte[] raw = decompress(column);
+        Varints in = new Varints(raw);
+        String[] values = new String[(int) in.next() + 1];
+        for (int i = 1; i < values.length; i++) {
+            int length = (int) in.next();
+            values[i] = new String(raw, in.position, length, StandardCharsets.UTF_8);
+            in.position += length;
+        }
+        int[] codes = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            codes[i] = (int) in.next();
+        }
+        return new Strings(values, codes);
+    }
+
+    // Every row back as a Transaction, in file order
+    public List<Transaction> readAll() throws IOException {
+        long[] ids = longs(Column.TRANSACTION_ID);
+        long[] times = longs(Column.TRANSACTION_TIME);
+        int[] users = ints(Column.USER_ID);
+        int[] items = ints(Column.ITEM_CODE);
+        Strings descriptions = strings(Column.ITEM_DESCRIPTION);
+        int[] quantities = ints(Column.NUMBER_OF_ITEM_PURCHASED);
+        double[] costs = doubles(Column.COST_PER_ITEM);
+        Strings countries = strings(Column.COUNTRY);
+        List<Transaction> transactions = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            transactions.add(new Transaction(String.valueOf(ids[i]), text(users[i]),
+                    TransactionTime.format(Instant.ofEpochMilli(times[i])), text(items[i]),
+                    descriptions.values()[descriptions.codes()[i]], quantities[i], costs[i],
+                    countries.values()[countries.codes()[i]]));
+        }
+        return transactions;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private byte[] decompress(Column column) throws IOException {
+        Chunk chunk = chunks.get(column);
+        byte[] compressed = read(channel, chunk.offset(), chunk.length()).array();
+        return Zstd.decompress(compressed, chunk.rawLength());
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) throw new IOException("Truncated archive file");
+        }
+        return buffer;
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    private static String text(int value) {
+        return value == NULL_INT ? null : String.valueOf(value);
+    }
+
+    private static void writeText(DataOutputStream data, String text) throws IOException {
+        data.writeBoolean(text != null);
+        if (text != null) data.writeUTF(text);
+    }
+
+    private static String readText(DataInputStream data) throws IOException {
+        return data.readBoolean() ? data.readUTF() : null;
+    }
+
+    // One column of the sorted rows, with its statistics
+    private static final class Encoded {
+        final VarintBuffer bytes = new VarintBuffer();
+        int nulls;
+        int distinct;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        String minText;
+        String maxText;
+
+        void observe(double value) {
+            if (value < min) min = value;
+            if (value > max) max = value;
+        }
+    }
+
+    private static Encoded encode(Column column, List<Transaction> rows) {
+        Encoded encoded = new Encoded();
+        switch (column) {
+            case TRANSACTION_ID, TRANSACTION_TIME -> {
+                long previous = 0;
+                for (Transaction t : rows) {
+                    long value = column == Column.TRANSACTION_ID
+                            ? Long.parseLong(t.getTransactionId()) : t.getEventTime().toEpochMilli();
+                    encoded.bytes.put(zigzag(value - previous));
+                    encoded.observe(value);
+                    previous = value;
+                }
+            }
+            case USER_ID, ITEM_CODE, NUMBER_OF_ITEM_PURCHASED -> {
+                for (Transaction t : rows) {
+                    Integer value = column == Column.NUMBER_OF_ITEM_PURCHASED ? Integer.valueOf(t.getNumberOfItemPurchased())
+                            : code(column == Column.USER_ID ? t.getUserId() : t.getItemCode());
+                    if (value == null) {
+                        encoded.bytes.put(0);
+                        encoded.nulls++;
+                    } else {
+                        encoded.bytes.put(zigzag(value) + 1);
+                        encoded.observe(value);
+                    }
+                }
+            }
+            case COST_PER_ITEM -> {
+                for (Transaction t : rows) {
+                    encoded.bytes.putDouble(t.getCostPerItem());
+                    encoded.observe(t.getCostPerItem());
+                }
+            }
+            case ITEM_DESCRIPTION, COUNTRY -> {
+                Map<String, Integer> dictionary = new LinkedHashMap<>();
+                int[] codes = new int[rows.size()];
+                for (int i = 0; i < rows.size(); i++) {
+                    Transaction t = rows.get(i);
+                    String value = column == Column.COUNTRY ? t.getCountry() : t.getItemDescription();
+                    if (value == null) {
+                        encoded.nulls++;
+                    } else {
+                        codes[i] = dictionary.computeIfAbsent(value, v -> dictionary.size() + 1);
+                    }
+                }
+                encoded.bytes.put(dictionary.size());
+                for (String value : dictionary.keySet()) {
+                    byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+                    encoded.bytes.put(utf8.length);
+                    encoded.bytes.write(utf8, 0, utf8.length);
+                    if (encoded.minText == null || value.compareTo(encoded.minText) < 0) encoded.minText = value;
+                    if (encoded.maxText == null || value.compareTo(encoded.maxText) > 0) encoded.maxText = value;
+                }
+                for (int code : codes) {
+                    encoded.bytes.put(code);
+                }
+                encoded.distinct = dictionary.size();
+            }
+        }
+        return encoded;
+    }
+
+    // Ids that do not fit an int are kept out of the archive by the sink
+    private static Integer code(String value) {
+        return value == null ? null : Integer.valueOf(value);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static final class VarintBuffer extends ByteArrayOutputStream {
+
+        void put(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void putDouble(double value) {
+            long bits = Double.doubleToRawLongBits(value);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                write((int) (bits >>> shift));
+            }
+        }
+    }
+
+    private static final class Varints {
+        private final byte[] bytes;
+        int position;
+
+        Varints(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        long next() {
+            long value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = bytes[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) return value;
+            }
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.kafka.consumer.archive;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.kafka.consumer.archive.ArchiveFile.Column;
+import com.kafka.consumer.archive.ArchiveFile.Strings;
+
+// Filtered aggregates (rows, quantity, revenue = quantity × cost) over the committed files of a
+// TransactionArchive, grouped by country, item code or nothing. Files are pruned before they
+// are opened by their country directory, and after reading only their footer by the min/max
+// of transaction_time, item_code and user_id; within a file the time range is found by binary
+// search, since rows are in time order. Only the columns a query needs are decompressed.
+//
+// From the command line, with the consumer's classes on the class path (the benchmarks jar has
+// them):
+//   java -cp kafka_benchmarks/target/benchmarks.jar com.kafka.consumer.archive.ArchiveScanner \
+//       dir=data/archive from=2019-02-01T00:00:00Z to=2019-03-01T00:00:00Z country=France group-by=item
+public class ArchiveScanner {
+
+    public enum GroupBy { COUNTRY, ITEM, NONE }
+
+    // null fields do not filter; [from, to)
+    public record Filter(Set<String> countries, Instant from, Instant to, Integer itemCode, Integer userId, GroupBy groupBy) {
+    }
+
+    public record Aggregate(long rows, long quantity, double revenue) {
+
+        Aggregate plus(Aggregate other) {
+            return new Aggregate(rows + other.rows, quantity + other.quantity, revenue + other.revenue);
+        }
+    }
+
+    public record Result(Map<String, Aggregate> groups, int filesScanned, int filesSkipped, long rowsScanned) {
+    }
+
+    private final Path root;
+
+    public ArchiveScanner(Path root) {
+        this.root = root;
+    }
+
+    public Result scan(Filter filter) throws IOException {
+        Map<String, Aggregate> groups = new TreeMap<>();
+        int scanned = 0;
+        int skipped = 0;
+        long rowsScanned = 0;
+        for (Path path : TransactionArchive.committedFiles(root)) {
+            if (!countryMatches(path, filter.countries())) {
+                skipped++;
+                continue;
+            }
+            try (ArchiveFile file = ArchiveFile.open(path)) {
+                if (!statsMatch(file, filter)) {
+                    skipped++;
+                    continue;
+                }
+                scanned++;
+                rowsScanned += aggregate(file, filter, groups);
+            }
+        }
+        return new Result(groups, scanned, skipped, rowsScanned);
+    }
+
+    private static long aggregate(ArchiveFile file, Filter filter, Map<String, Aggregate> groups) throws IOException {
+        int from = 0;
+        int to = file.rows();
+        if (filter.from() != null || filter.to() != null) {
+            long[] times = file.longs(Column.TRANSACTION_TIME);
+            if (filter.from() != null) from = firstAtOrAfter(times, filter.from().toEpochMilli());
+            if (filter.to() != null) to = firstAtOrAfter(times, filter.to().toEpochMilli());
+        }
+        if (from >= to) return 0;
+        int[] items = filter.itemCode() != null || filter.groupBy() == GroupBy.ITEM ? file.ints(Column.ITEM_CODE) : null;
+        int[] users = filter.userId() != null ? file.ints(Column.USER_ID) : null;
+        Strings countries = filter.groupBy() == GroupBy.COUNTRY ? file.strings(Column.COUNTRY) : null;
+        int[] quantities = file.ints(Column.NUMBER_OF_ITEM_PURCHASED);
+        double[] costs = file.doubles(Column.COST_PER_ITEM);
+        // Grouped by dictionary code / item code within a file, named once per file
+        Map<Integer, Aggregate> byCode = new HashMap<>();
+        for (int i = from; i < to; i++) {
+            if (items != null && filter.itemCode() != null && items[i] != filter.itemCode()) continue;
+            if (users != null && users[i] != filter.userId()) continue;
+            int code = switch (filter.groupBy()) {
+                case COUNTRY -> countries.codes()[i];
+                case ITEM -> items[i];
+                case NONE -> 0;
+            };
+            byCode.merge(code, new Aggregate(1, quantities[i], quantities[i] * costs[i]), Aggregate::plus);
+        }
+        for (Map.Entry<Integer, Aggregate> entry : byCode.entrySet()) {
+            String key = switch (filter.groupBy()) {
+                case COUNTRY -> String.valueOf(countries.values()[entry.getKey()]);
+                case ITEM -> entry.getKey() == ArchiveFile.NULL_INT ? "null" : String.valueOf(entry.getKey());
+                case NONE -> "all";
+            };
+            groups.merge(key, entry.getValue(), Aggregate::plus);
+        }
+        return to - from;
+    }
+
+    private static boolean countryMatches(Path path, Set<String> countries) {
+        if (countries == null) return true;
+        String directory = path.getParent().getFileName().toString();
+        for (String country : countries) {
+            if (directory.equals("country=" + TransactionArchive.partitionValue(country))) return true;
+        }
+        return false;
+    }
+
+    private static boolean statsMatch(ArchiveFile file, Filter filter) {
+        if (file.rows() == 0) return false;
+        ArchiveFile.Chunk time = file.chunk(Column.TRANSACTION_TIME);
+        if (filter.from() != null && time.max() < filter.from().toEpochMilli()) return false;
+        if (filter.to() != null && time.min() >= filter.to().toEpochMilli()) return false;
+        return within(file.chunk(Column.ITEM_CODE), filter.itemCode()) && within(file.chunk(Column.USER_ID), filter.userId());
+    }
+
+    private static boolean within(ArchiveFile.Chunk chunk, Integer value) {
+        return value == null || (value >= chunk.min() && value <= chunk.max());
+    }
+
+    private static int firstAtOrAfter(long[] sorted, long value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sorted[middle] < value) low = middle + 1;
+            else high = middle;
+        }
+        return low;
+    }
+
+    // dir=<archive dir> [country=A,B] [from=<instant>] [to=<instant>] [item=<code>] [user=<id>] [group-by=country|item|none]
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (equals < 0) throw new IllegalArgumentException("Expected key=value, got " + arg);
+            options.put(arg.substring(0, equals), arg.substring(equals + 1));
+        }
+        Filter filter = new Filter(
+                options.containsKey("country") ? Set.copyOf(Arrays.asList(options.get("country").split(","))) : null,
+                options.containsKey("from") ? Instant.parse(options.get("from")) : null,
+                options.containsKey("to") ? Instant.parse(options.get("to")) : null,
+                options.containsKey("item") ? Integer.valueOf(options.get("item")) : null,
+                options.containsKey("user") ? Integer.valueOf(options.get("user")) : null,
+                GroupBy.valueOf(options.getOrDefault("group-by", "country").toUpperCase()));
+        long start = System.nanoTime();
+        Result result = new ArchiveScanner(Paths.get(options.getOrDefault("dir", "data/archive"))).scan(filter);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        System.out.printf("%-40s %10s %12s %16s%n", filter.groupBy().name().toLowerCase(), "rows", "quantity", "revenue");
+        for (Map.Entry<String, Aggregate> group : result.groups().entrySet()) {
+            System.out.printf("%-40s %10d %12d %16.2f%n", group.getKey(), group.getValue().rows(),
+                    group.getValue().quantity(), group.getValue().revenue());
+        }
+        System.out.printf("%d files scanned, %d skipped, %d rows read in %d ms%n",
+                result.filesScanned(), result.filesSkipped(), result.rowsScanned(), millis);
+    }
+}
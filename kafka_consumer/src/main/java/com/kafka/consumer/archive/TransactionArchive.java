@@ -0,0 +1,336 @@
+package com.kafka.consumer.archive;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLEncoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.kafka.consumer.model.Transaction;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+
+// Second sink next to MySQL: every flushed batch is also kept in compressed columnar files
+// (ArchiveFile) for scans and long-term retention, under
+//   <dir>/hour=<yyyy-MM-dd-HH>/country=<country>/part-<roll id>.txc
+// where the hour is the UTC hour the rows were archived in. Batches collect in memory and are
+// rolled into one file per country when roll.max-rows rows are pending, roll.interval.ms after
+// the first of them, at the turn of the hour, and before partitions are revoked.
+//
+// A roll commits atomically with the Kafka offsets it covers: the data files are written and
+// renamed into place first, then _commits/<roll id>.commit lists them together with the next
+// offset of every partition in the roll, and only its rename makes them part of the archive.
+// ArchiveScanner reads committed files only. A crash loses the pending rows, so on assignment
+// the consumer seeks back to the archive's offset when it is behind; the re-read rows are
+// archived again and absorbed by INSERT IGNORE in MySQL, while rows the archive already has
+// (Kafka's commit can trail a roll) are skipped by offset. The offsets come from all commits
+// under dir, so it must be shared by every instance of the group (or used by a single one).
+@Component
+public class TransactionArchive {
+
+    static final String COMMITS = "_commits";
+    private static final String COMMIT_SUFFIX = ".commit";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final DateTimeFormatter HOUR = DateTimeFormatter.ofPattern("yyyy-MM-dd-HH").withZone(ZoneOffset.UTC);
+    private static final DateTimeFormatter ROLL_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss").withZone(ZoneOffset.UTC);
+    // Uncommitted data files older than this are left over from a crashed roll
+    private static final Duration ORPHAN_AGE = Duration.ofHours(1);
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${consumer.archive.enabled:false}")
+    private boolean enabled;
+
+    @Value("${consumer.archive.dir:data/archive}")
+    private String archiveDir;
+
+    @Value("${consumer.archive.roll.max-rows:200000}")
+    private int rollMaxRows;
+
+    @Value("${consumer.archive.roll.interval.ms:300000}")
+    private long rollIntervalMs;
+
+    @Value("${consumer.archive.compression-level:3}")
+    private int compressionLevel;
+
+    private final String instance = UUID.randomUUID().toString().substring(0, 8);
+    private final Map<TopicPartition, Long> archived = new ConcurrentHashMap<>();
+    // Guarded by this
+    private final Map<TopicPartition, List<Transaction>> pending = new HashMap<>();
+    private final Map<TopicPartition, Long> pendingOffsets = new HashMap<>();
+    private int pendingRows;
+    private Instant pendingSince;
+    private long sequence;
+
+    private Path root;
+    private Counter archivedRows;
+    private Counter skippedRows;
+    private Counter failedRolls;
+    private Timer rolls;
+
+    public TransactionArchive(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void init() throws IOException {
+        if (!enabled) return;
+        root = Paths.get(archiveDir);
+        Files.createDirectories(root.resolve(COMMITS));
+        List<Path> committed = new ArrayList<>();
+        for (Properties commit : commits(root)) {
+            for (String key : commit.stringPropertyNames()) {
+                if (key.startsWith("offset.")) {
+                    archived.merge(partition(key.substring("offset.".length())), Long.parseLong(commit.getProperty(key)), Math::max);
+                } else if (key.startsWith("file.")) {
+                    committed.add(root.resolve(commit.getProperty(key)));
+                }
+            }
+        }
+        removeLeftovers(committed);
+        archivedRows = Counter.builder("consumer.archive.rows").tag("result", "archived").register(meterRegistry);
+        skippedRows = Counter.builder("consumer.archive.rows").tag("result", "skipped")
+                .description("Rows whose id or time does not fit the archive's typed columns").register(meterRegistry);
+        failedRolls = Counter.builder("consumer.archive.roll.failures").register(meterRegistry);
+        rolls = Timer.builder("consumer.archive.roll").register(meterRegistry);
+        Gauge.builder("consumer.archive.pending.rows", this, TransactionArchive::pendingRows).register(meterRegistry);
+        System.out.printf("🗄️ Archiving to %s (%d committed files, offsets for %d partitions)%n",
+                root.toAbsolutePath(), committed.size(), archived.size());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Called by a writer with every flushed batch of a partition; offsets[i] is the offset of rows[i].
+    // Rows before the partition's archived or pending offset were re-read and are already in.
+    public synchronized void append(TopicPartition partition, List<Transaction> rows, long[] offsets) {
+        if (!enabled || rows.isEmpty()) return;
+        long done = Math.max(archived.getOrDefault(partition, -1L), pendingOffsets.getOrDefault(partition, -1L));
+        long nextOffset = offsets[rows.size() - 1] + 1;
+        if (nextOffset <= done) return;
+        Instant now = Instant.now();
+        if (pendingSince != null && !HOUR.format(pendingSince).equals(HOUR.format(now))) {
+            roll();
+        }
+        List<Transaction> kept = pending.computeIfAbsent(partition, p -> new ArrayList<>());
+        for (int i = 0; i < rows.size(); i++) {
+            if (offsets[i] < done) continue;
+            if (archivable(rows.get(i))) {
+                kept.add(rows.get(i));
+                pendingRows++;
+            } else {
+                skippedRows.increment();
+            }
+        }
+        pendingOffsets.merge(partition, nextOffset, Math::max);
+        if (pendingSince == null) pendingSince = now;
+        if (pendingRows >= rollMaxRows) roll();
+    }
+
+    @Scheduled(fixedDelayString = "${consumer.archive.roll.check.ms:1000}")
+    public synchronized void rollIfDue() {
+        if (!enabled || pendingSince == null) return;
+        Instant now = Instant.now();
+        if (now.toEpochMilli() - pendingSince.toEpochMilli() >= rollIntervalMs
+                || !HOUR.format(pendingSince).equals(HOUR.format(now))) {
+            roll();
+        }
+    }
+
+    // Before the partitions move to another consumer: their pending rows are committed now, or
+    // dropped if that fails, since the new owner resumes from the archive's offset either way
+    public synchronized void release(Collection<TopicPartition> partitions) {
+        if (!enabled || roll()) return;
+        discard(partitions);
+    }
+
+    // Lost partitions are re-read by their new owner from the archive's offset
+    public synchronized void discard(Collection<TopicPartition> partitions) {
+        for (TopicPartition partition : partitions) {
+            List<Transaction> rows = pending.remove(partition);
+            if (rows != null) pendingRows -= rows.size();
+            pendingOffsets.remove(partition);
+        }
+        if (pendingOffsets.isEmpty()) pendingSince = null;
+    }
+
+    public Map<TopicPartition, Long> archivedOffsets(Collection<TopicPartition> partitions) {
+        Map<TopicPartition, Long> offsets = new HashMap<>();
+        for (TopicPartition partition : partitions) {
+            Long offset = archived.get(partition);
+            if (offset != null) offsets.put(partition, offset);
+        }
+        return offsets;
+    }
+
+    // Writes every pending row and commits it with its offsets; false (rows kept) when that fails
+    public synchronized boolean roll() {
+        if (!enabled || pendingOffsets.isEmpty()) return true;
+        long start = System.nanoTime();
+        String rollId = ROLL_TIME.format(Instant.now()) + "-" + instance + "-" + String.format("%06d", ++sequence);
+        String hour = "hour=" + HOUR.format(pendingSince);
+        Map<String, List<Transaction>> byCountry = new TreeMap<>();
+        for (List<Transaction> rows : pending.values()) {
+            for (Transaction t : rows) {
+                byCountry.computeIfAbsent(t.getCountry() == null ? "" : t.getCountry(), c -> new ArrayList<>()).add(t);
+            }
+        }
+        Properties commit = new Properties();
+        try {
+            int index = 0;
+            for (Map.Entry<String, List<Transaction>> country : byCountry.entrySet()) {
+                Path directory = root.resolve(hour).resolve("country=" + partitionValue(country.getKey()));
+                Files.createDirectories(directory);
+                Path file = directory.resolve("part-" + rollId + ArchiveFile.SUFFIX);
+                Path temp = file.resolveSibling(file.getFileName() + TEMP_SUFFIX);
+                ArchiveFile.write(temp, country.getValue(), compressionLevel);
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+                commit.setProperty("file." + index++, root.relativize(file).toString().replace('\\', '/'));
+            }
+            for (Map.Entry<TopicPartition, Long> offset : pendingOffsets.entrySet()) {
+                commit.setProperty("offset." + offset.getKey(), Long.toString(offset.getValue()));
+            }
+            commit.setProperty("rows", Integer.toString(pendingRows));
+            writeCommit(root.resolve(COMMITS).resolve(rollId + COMMIT_SUFFIX), commit);
+        } catch (IOException | RuntimeException e) {
+            failedRolls.increment();
+            System.err.printf("❌ Archive roll %s failed, keeping %d rows pending: %s%n", rollId, pendingRows, e.getMessage());
+            if (pendingRows >= 4L * rollMaxRows) {
+                // The consumer seeks back to the archive's offset after a restart, so nothing is lost for good
+                System.err.printf("⚠️ Archive dropping %d pending rows; they are re-read on the next restart%n", pendingRows);
+                discard(List.copyOf(pendingOffsets.keySet()));
+            }
+            return false;
+        }
+        pendingOffsets.forEach((partition, offset) -> archived.merge(partition, offset, Math::max));
+        archivedRows.increment(pendingRows);
+        long nanos = System.nanoTime() - start;
+        rolls.record(nanos, TimeUnit.NANOSECONDS);
+        System.out.printf("🗄️ Archived %d rows of %d partitions into %d files under %s in %d ms%n",
+                pendingRows, pendingOffsets.size(), byCountry.size(), hour, nanos / 1_000_000);
+        pending.clear();
+        pendingOffsets.clear();
+        pendingRows = 0;
+        pendingSince = null;
+        return true;
+    }
+
+    synchronized int pendingRows() {
+        return pendingRows;
+    }
+
+    // Data files of every commit under root, in commit order
+    static List<Path> committedFiles(Path root) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (Properties commit : commits(root)) {
+            for (int i = 0; commit.getProperty("file." + i) != null; i++) {
+                files.add(root.resolve(commit.getProperty("file." + i)));
+            }
+        }
+        return files;
+    }
+
+    private static List<Properties> commits(Path root) throws IOException {
+        Path directory = root.resolve(COMMITS);
+        if (!Files.isDirectory(directory)) return List.of();
+        List<Path> names;
+        try (Stream<Path> listing = Files.list(directory)) {
+            names = listing.filter(p -> p.getFileName().toString().endsWith(COMMIT_SUFFIX)).sorted().toList();
+        }
+        List<Properties> commits = new ArrayList<>(names.size());
+        for (Path name : names) {
+            Properties commit = new Properties();
+            try (InputStream in = Files.newInputStream(name)) {
+                commit.load(in);
+            }
+            commits.add(commit);
+        }
+        return commits;
+    }
+
+    private static void writeCommit(Path commit, Properties properties) throws IOException {
+        Path temp = commit.resolveSibling(commit.getFileName() + TEMP_SUFFIX);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+             OutputStream out = Channels.newOutputStream(channel)) {
+            properties.store(out, null);
+            channel.force(true);
+        }
+        Files.move(temp, commit, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Temp files and data files no commit lists, from rolls that crashed part way
+    private void removeLeftovers(List<Path> committed) throws IOException {
+        Instant cutoff = Instant.now().minus(ORPHAN_AGE);
+        Set<Path> keep = new HashSet<>(committed);
+        List<Path> leftovers;
+        try (Stream<Path> files = Files.walk(root)) {
+            leftovers = files.filter(Files::isRegularFile)
+                    .filter(p -> p.getFileName().toString().endsWith(TEMP_SUFFIX)
+                            || (p.getFileName().toString().endsWith(ArchiveFile.SUFFIX) && !keep.contains(p)))
+                    .toList();
+        }
+        for (Path leftover : leftovers) {
+            if (Files.getLastModifiedTime(leftover).toInstant().isBefore(cutoff)) {
+                Files.deleteIfExists(leftover);
+            }
+        }
+    }
+
+    // The typed columns need a numeric id, a parsed time and int-sized user and item codes
+    static boolean archivable(Transaction t) {
+        if (t.getEventTime() == null || t.getTransactionId() == null) return false;
+        try {
+            Long.parseLong(t.getTransactionId());
+            if (t.getUserId() != null) Integer.parseInt(t.getUserId());
+            if (t.getItemCode() != null) Integer.parseInt(t.getItemCode());
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    // Hive-style escaping keeps any country name a single directory
+    static String partitionValue(String country) {
+        return country.isEmpty() ? "__null__" : URLEncoder.encode(country, StandardCharsets.UTF_8);
+    }
+
+    private static TopicPartition partition(String text) {
+        int dash = text.lastIndexOf('-');
+        return new TopicPartition(text.substring(0, dash), Integer.parseInt(text.substring(dash + 1)));
+    }
+}
@@ -0,0 +1,100 @@
+package com.kafka.consumer.config;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.CommonContainerStoppingErrorHandler;
+import org.springframework.kafka.listener.CommonDelegatingErrorHandler;
+import org.springframework.kafka.listener.CommonErrorHandler;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import com.kafka.consumer.aggregation.WindowedAggregator;
+import com.kafka.consumer.pipeline.PipelineFailedException;
+import com.kafka.consumer.retry.RetryRebalanceListener;
+import com.kafka.consumer.retry.RetryTopics;
+import com.kafka.consumer.serialization.TransactionDeserializer;
+
+@Configuration
+@EnableScheduling // ListenerConcurrencyAutoscaler, AdaptiveBatchController, WindowedAggregator, TransactionArchive
+public class KafkaConsumerConfig {
+
+    // auto (detect per record), json or binary
+    @Value("${transaction.value.format:auto}")
+    private String valueFormat;
+
+    @Value("${transaction.schema.registry.dir:data/schemas}")
+    private String schemaRegistryDir;
+
+    @Bean
+    public TransactionDeserializer transactionDeserializer() {
+        return new TransactionDeserializer(valueFormat, Path.of(schemaRegistryDir));
+    }
+
+    @Value("${consumer.retry.topic.partitions:3}")
+    private int retryTopicPartitions;
+
+    // Retry tiers and dead-letter topic carry raw value bytes, like the main topic
+    @Bean
+    public ProducerFactory<String, byte[]> retryProducerFactory(KafkaProperties kafkaProperties) {
+        Map<String, Object> props = kafkaProperties.buildProducerProperties(null);
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        props.put(ProducerConfig.ACKS_CONFIG, "all");
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        return new DefaultKafkaProducerFactory<>(props);
+    }
+
+    @Bean
+    public KafkaTemplate<String, byte[]> retryKafkaTemplate(ProducerFactory<String, byte[]> retryProducerFactory) {
+        return new KafkaTemplate<>(retryProducerFactory);
+    }
+
+    // Record listener with manual acks, so RetryListener can nack a record that is not due yet
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> retryListenerContainerFactory(
+            ConsumerFactory<Object, Object> consumerFactory, WindowedAggregator aggregator) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setConsumerRebalanceListener(new RetryRebalanceListener(aggregator));
+        return factory;
+    }
+
+    // Picked up by the main listener's container factory: Boot's default handling, except that a
+    // failed pipeline stops the container instead of retrying and then committing past the poll
+    @Bean
+    public CommonErrorHandler listenerErrorHandler() {
+        CommonDelegatingErrorHandler handler = new CommonDelegatingErrorHandler(new DefaultErrorHandler());
+        handler.setCauseChainTraversing(true);
+        handler.addDelegate(PipelineFailedException.class, new CommonContainerStoppingErrorHandler());
+        return handler;
+    }
+
+    @Bean
+    public KafkaAdmin.NewTopics retryTopicDeclarations(RetryTopics retryTopics) {
+        NewTopic[] declarations = new NewTopic[retryTopics.tiers() + 1];
+        for (int tier = 0; tier < retryTopics.tiers(); tier++) {
+            declarations[tier] = new NewTopic(retryTopics.tierTopic(tier), Optional.of(retryTopicPartitions), Optional.empty());
+        }
+        declarations[retryTopics.tiers()] = new NewTopic(retryTopics.deadLetterTopic(), Optional.of(retryTopicPartitions),
+                Optional.empty());
+        return new KafkaAdmin.NewTopics(declarations);
+    }
+}
@@ -0,0 +1,119 @@
+package com.kafka.consumer.logging;
+
+import java.io.PrintStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// Per-record and per-batch console lines, kept off the hot path: at most per-second lines are
+// accepted in each one-second window and the rest are only counted (and summarized once the
+// window rolls over). Accepted lines are formatted and printed by a daemon thread, so a slow
+// console never blocks a caller; when its queue is full the line is dropped instead.
+@Component
+public class RecordLog {
+
+    private record Line(PrintStream stream, String format, Object[] args) {
+    }
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${logging.records.per-second:20}")
+    private int linesPerSecond;
+
+    @Value("${logging.records.queue-capacity:1000}")
+    private int queueCapacity;
+
+    private final AtomicLong window = new AtomicLong();
+    private final AtomicInteger windowLines = new AtomicInteger();
+    private final AtomicInteger windowSuppressed = new AtomicInteger();
+    private BlockingQueue<Line> queue;
+    private Thread printer;
+    private Counter printed;
+    private Counter suppressed;
+    private Counter dropped;
+
+    public RecordLog(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        printed = Counter.builder("consumer.log.lines").tag("result", "printed").register(meterRegistry);
+        suppressed = Counter.builder("consumer.log.lines").tag("result", "suppressed").register(meterRegistry);
+        dropped = Counter.builder("consumer.log.lines").tag("result", "dropped").register(meterRegistry);
+        printer = new Thread(this::print, "record-log");
+        printer.setDaemon(true);
+        printer.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        printer.interrupt();
+        drain();
+    }
+
+    public void info(String format, Object... args) {
+        offer(System.out, format, args);
+    }
+
+    public void error(String format, Object... args) {
+        offer(System.err, format, args);
+    }
+
+    private void offer(PrintStream stream, String format, Object[] args) {
+        long second = System.currentTimeMillis() / 1000;
+        long current = window.get();
+        if (second != current && window.compareAndSet(current, second)) {
+            windowLines.set(0);
+            int skipped = windowSuppressed.getAndSet(0);
+            if (skipped > 0) {
+                enqueue(new Line(System.out, "🔇 %d record log lines suppressed (logging.records.per-second=%d)%n",
+                        new Object[] {skipped, linesPerSecond}));
+            }
+        }
+        if (windowLines.incrementAndGet() > linesPerSecond) {
+            windowSuppressed.incrementAndGet();
+            suppressed.increment();
+            return;
+        }
+        enqueue(new Line(stream, format, args));
+    }
+
+    private void enqueue(Line line) {
+        if (!queue.offer(line)) {
+            dropped.increment();
+        }
+    }
+
+    private void print() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                write(queue.take());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drain() {
+        Line line;
+        while ((line = queue.poll()) != null) {
+            write(line);
+        }
+    }
+
+    private void write(Line line) {
+        line.stream().printf(line.format(), line.args());
+        printed.increment();
+    }
+}
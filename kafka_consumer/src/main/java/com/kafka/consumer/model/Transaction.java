@@ -1,16 +1,26 @@
 package com.kafka.consumer.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Transient;
+import java.time.Instant;
 import java.util.Objects;
 
+// Ids and codes keep the text form they arrive in; the table stores them as numbers (see
+// TransactionSchemaManager). transactionTime is stored as eventTime, parsed when it is set.
 @Entity
 public class Transaction {
 
     @Id
     private String transactionId;
     private String userId;
+    @Transient
     private String transactionTime;
+    @Column(name = "transaction_time")
+    private Instant eventTime;
     private String itemCode;
     private String itemDescription;
     private int numberOfItemPurchased;
@@ -25,6 +35,7 @@ public class Transaction {
         this.transactionId = transactionId;
         this.userId = userId;
         this.transactionTime = transactionTime;
+        this.eventTime = TransactionTime.parse(transactionTime);
         this.itemCode = itemCode;
         this.itemDescription = itemDescription;
         this.numberOfItemPurchased = numberOfItemPurchased;
@@ -51,6 +62,13 @@ public class Transaction {
     }
     public void setTransactionTime(String transactionTime) {
         this.transactionTime = transactionTime;
+        this.eventTime = TransactionTime.parse(transactionTime);
+    }
+
+    // null when transactionTime is missing or unparseable; derived, so not part of the JSON form
+    @JsonIgnore
+    public Instant getEventTime() {
+        return eventTime;
     }
 
     public String getItemCode() {
@@ -0,0 +1,58 @@
+package com.kafka.consumer.model;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.format.TextStyle;
+import java.util.Locale;
+import java.util.Set;
+
+// transactionTime as the producer sends it ("Sat Feb 02 12:50:00 IST 2019", IST read as
+// Asia/Kolkata), parsed to an Instant once when a Transaction is built. Rows of one file share
+// a handful of timestamps, so parses go through a direct-mapped cache of text → Instant that
+// decode threads share without locking, like StringCache: a racing write only costs a miss.
+public final class TransactionTime {
+
+    public static final DateTimeFormatter FORMAT = new DateTimeFormatterBuilder()
+            .appendPattern("EEE MMM dd HH:mm:ss ")
+            .appendZoneText(TextStyle.SHORT, Set.of(ZoneId.of("Asia/Kolkata")))
+            .appendPattern(" yyyy")
+            .toFormatter(Locale.US);
+
+    private static final DateTimeFormatter IST = FORMAT.withZone(ZoneId.of("Asia/Kolkata"));
+
+    private record Parsed(String text, Instant time) {
+    }
+
+    private static final int SLOTS = 1024;
+    private static final Parsed[] CACHE = new Parsed[SLOTS];
+
+    private TransactionTime() {
+    }
+
+    // null when the text is missing or not in FORMAT
+    public static Instant parse(String text) {
+        if (text == null) return null;
+        int slot = (text.hashCode() ^ (text.hashCode() >>> 16)) & (SLOTS - 1);
+        Parsed cached = CACHE[slot];
+        if (cached != null && cached.text().equals(text)) {
+            return cached.time();
+        }
+        Instant time;
+        try {
+            time = ZonedDateTime.parse(text, FORMAT).toInstant();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+        CACHE[slot] = new Parsed(text, time);
+        return time;
+    }
+
+    // The wire form of a stored time, in IST like the source files
+    public static String format(Instant time) {
+        return IST.format(time);
+    }
+}
@@ -0,0 +1,153 @@
+package com.kafka.consumer.pipeline;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+// AIMD control of the writers' batch size: a full batch that flushed within the target
+// latency grows the size by a fixed step; a flush slower than the target cuts it by a
+// factor. When input is too slow to fill a batch within the flush interval, batching only
+// adds latency, so the time trigger drops to the low-rate interval.
+@Component
+public class AdaptiveBatchController {
+
+    private final MeterRegistry meterRegistry;
+    private final AtomicLong receivedRows = new AtomicLong();
+
+    @Value("${consumer.adaptive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${consumer.batch.size:50}")
+    private int initialBatchSize;
+
+    @Value("${consumer.adaptive.min-batch-size:50}")
+    private int minBatchSize;
+
+    @Value("${consumer.adaptive.max-batch-size:5000}")
+    private int maxBatchSize;
+
+    @Value("${consumer.adaptive.target-flush-latency-ms:200}")
+    private double targetFlushLatencyMs;
+
+    @Value("${consumer.adaptive.increase-step:50}")
+    private int increaseStep;
+
+    @Value("${consumer.adaptive.decrease-factor:0.5}")
+    private double decreaseFactor;
+
+    @Value("${consumer.flush.interval.ms:60000}")
+    private long flushIntervalMs;
+
+    @Value("${consumer.adaptive.low-rate-flush-interval-ms:1000}")
+    private long lowRateFlushIntervalMs;
+
+    private volatile int batchSize;
+    private volatile long effectiveFlushIntervalMs;
+    private volatile double inputRowsPerSecond;
+    private volatile String lastChangeReason = "initial";
+    private long lastDecreaseNanos;
+    private long lastRateSampleNanos = System.nanoTime();
+    private long lastRateSampleRows;
+
+    public AdaptiveBatchController(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void init() {
+        batchSize = initialBatchSize;
+        effectiveFlushIntervalMs = flushIntervalMs;
+        Gauge.builder("consumer.batch.size.current", this, AdaptiveBatchController::batchSize)
+                .description("Current adaptive flush batch size")
+                .register(meterRegistry);
+        Gauge.builder("consumer.flush.interval.effective", this, AdaptiveBatchController::flushIntervalMs)
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("consumer.input.rate", this, AdaptiveBatchController::inputRowsPerSecond)
+                .baseUnit("rows/s")
+                .register(meterRegistry);
+    }
+
+    public int batchSize() {
+        return batchSize;
+    }
+
+    public long flushIntervalMs() {
+        return effectiveFlushIntervalMs;
+    }
+
+    public double inputRowsPerSecond() {
+        return inputRowsPerSecond;
+    }
+
+    public String lastChangeReason() {
+        return lastChangeReason;
+    }
+
+    public void onRowsReceived(int rows) {
+        receivedRows.addAndGet(rows);
+    }
+
+    // sizeTriggered → the batch was flushed because it was full (not by timer or revoke)
+    public synchronized void onFlush(int rows, long startNanos, long durationNanos, boolean sizeTriggered) {
+        if (!enabled) return;
+        double millis = durationNanos / 1_000_000.0;
+
+        if (millis > targetFlushLatencyMs) {
+            // One cut per congestion signal: ignore slow flushes that started before the last cut
+            if (startNanos < lastDecreaseNanos) return;
+            int next = Math.max(minBatchSize, (int) (batchSize * decreaseFactor));
+            lastDecreaseNanos = System.nanoTime();
+            change(next, "decrease", String.format("flush of %d rows took %.0f ms > target %.0f ms", rows, millis, targetFlushLatencyMs));
+        } else if (sizeTriggered && rows >= batchSize) {
+            int next = Math.min(maxBatchSize, batchSize + increaseStep);
+            change(next, "increase", String.format("full batch of %d rows flushed in %.0f ms", rows, millis));
+        }
+    }
+
+    @Scheduled(fixedRate = 1000)
+    public synchronized void sampleInputRate() {
+        long now = System.nanoTime();
+        long rows = receivedRows.get();
+        double seconds = (now - lastRateSampleNanos) / 1_000_000_000.0;
+        if (seconds <= 0) return;
+
+        double rate = (rows - lastRateSampleRows) / seconds;
+        inputRowsPerSecond = 0.3 * rate + 0.7 * inputRowsPerSecond;
+        lastRateSampleNanos = now;
+        lastRateSampleRows = rows;
+
+        if (!enabled) return;
+        boolean lowRate = inputRowsPerSecond * flushIntervalMs / 1000.0 < batchSize;
+        long interval = lowRate ? Math.min(lowRateFlushIntervalMs, flushIntervalMs) : flushIntervalMs;
+        if (interval != effectiveFlushIntervalMs) {
+            effectiveFlushIntervalMs = interval;
+            String reason = lowRate ? "interval-low-rate" : "interval-normal";
+            countChange(reason);
+            lastChangeReason = String.format("%s: input %.1f rows/s → flush interval %d ms", reason, inputRowsPerSecond, interval);
+        }
+    }
+
+    private void change(int next, String reason, String detail) {
+        if (next == batchSize) return;
+        System.out.printf("📐 Batch size %d → %d (%s)%n", batchSize, next, detail);
+        batchSize = next;
+        countChange(reason);
+        lastChangeReason = reason + ": " + detail;
+    }
+
+    private void countChange(String reason) {
+        Counter.builder("consumer.batch.adjustments")
+                .description("Adaptive batching changes by reason")
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+}
@@ -0,0 +1,76 @@
+package com.kafka.consumer.pipeline;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+// Bulk mode for draining a large backlog (after an outage, or a reset to earliest): once
+// consumer lag reaches enter-lag the writers buffer batch-rows rows per partition and load
+// them with LOAD DATA instead of INSERT IGNORE statements; below exit-lag they go back to
+// adaptive batches. The gap between the two thresholds keeps the mode from flapping.
+@Component
+public class CatchUpMode {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${consumer.catchup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${consumer.catchup.enter-lag:500000}")
+    private long enterLag;
+
+    @Value("${consumer.catchup.exit-lag:50000}")
+    private long exitLag;
+
+    @Value("${consumer.catchup.batch-rows:20000}")
+    private int batchRows;
+
+    private volatile boolean active;
+    private Counter loadedRows;
+
+    public CatchUpMode(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void init() {
+        loadedRows = Counter.builder("consumer.catchup.rows")
+                .description("Rows written by bulk loads while catching up").register(meterRegistry);
+        Gauge.builder("consumer.catchup.active", this, mode -> mode.isActive() ? 1 : 0)
+                .description("1 while the writers bulk-load a backlog").register(meterRegistry);
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public int batchRows() {
+        return batchRows;
+    }
+
+    // Called with the total lag of this instance's partitions
+    public synchronized void onLag(long lag) {
+        if (!enabled) return;
+        if (!active && lag >= enterLag) {
+            active = true;
+            System.out.printf("🚚 Catch-up mode on: lag %d ≥ %d, bulk-loading batches of %d rows%n", lag, enterLag, batchRows);
+            countSwitch("on");
+        } else if (active && lag < exitLag) {
+            active = false;
+            System.out.printf("🚚 Catch-up mode off: lag %d < %d, back to batched inserts%n", lag, exitLag);
+            countSwitch("off");
+        }
+    }
+
+    void recordLoad(int rows) {
+        loadedRows.increment(rows);
+    }
+
+    private void countSwitch(String state) {
+        Counter.builder("consumer.catchup.switches").tag("state", state).register(meterRegistry).increment();
+    }
+}
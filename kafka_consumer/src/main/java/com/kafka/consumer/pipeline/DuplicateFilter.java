@@ -0,0 +1,306 @@
+package com.kafka.consumer.pipeline;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.kafka.consumer.model.Transaction;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+// Remembers recently persisted transaction ids so that redeliveries and re-dropped files are
+// dropped before they reach MySQL. Ids are held exactly as primitive longs; anything that is
+// not a plain number is never remembered, since a lossy key would drop a distinct transaction
+// on collision, and passes straight through to validation (and the DLT). Each segment is an open-addressing table plus an insertion
+// ring that evicts the oldest id when full or older than the TTL, and a two-generation Bloom
+// filter that answers most lookups for new ids without probing the table.
+//
+// A miss only costs an INSERT IGNORE, so the filter errs that way; it is per process, and
+// INSERT IGNORE stays the backstop for everything it does not remember.
+@Component
+public class DuplicateFilter {
+
+    static final long UNKEYED = 0;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${consumer.dedup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${consumer.dedup.capacity:1000000}")
+    private int capacity;
+
+    @Value("${consumer.dedup.ttl.ms:3600000}")
+    private long ttlMs;
+
+    @Value("${consumer.dedup.segments:16}")
+    private int segmentCount;
+
+    @Value("${consumer.dedup.bloom.fpp:0.01}")
+    private double bloomFpp;
+
+    @Value("${consumer.dedup.warmup.rows:200000}")
+    private int warmupRows;
+
+    private Segment[] segments;
+    private Counter hits;
+    private Counter misses;
+    private Counter bloomNegatives;
+
+    public DuplicateFilter(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void init() {
+        int count = Integer.highestOneBit(Math.max(1, segmentCount));
+        int perSegment = Math.max(1, capacity / count);
+        segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(perSegment, ttlMs, bloomFpp);
+        }
+        hits = Counter.builder("consumer.dedup.lookups").tag("result", "hit")
+                .description("Transaction ids already seen, dropped before MySQL").register(meterRegistry);
+        misses = Counter.builder("consumer.dedup.lookups").tag("result", "miss").register(meterRegistry);
+        bloomNegatives = Counter.builder("consumer.dedup.bloom.negatives")
+                .description("Misses answered by the Bloom filter without a table probe").register(meterRegistry);
+        Gauge.builder("consumer.dedup.size", this, DuplicateFilter::size).register(meterRegistry);
+
+        if (enabled && warmupRows > 0 && jdbcTemplate != null) {
+            warm();
+        }
+    }
+
+    // Rows whose ids the filter has not seen; all of them when it is disabled
+    public List<Transaction> unseen(List<Transaction> rows) {
+        if (!enabled) return rows;
+        long now = System.currentTimeMillis();
+        List<Transaction> fresh = new ArrayList<>(rows.size());
+        for (Transaction t : rows) {
+            long key = key(t.getTransactionId());
+            if (key == UNKEYED) {
+                fresh.add(t);
+            } else if (segmentFor(key).contains(key, now, bloomNegatives)) {
+                hits.increment();
+            } else {
+                misses.increment();
+                fresh.add(t);
+            }
+        }
+        return fresh;
+    }
+
+    // Called once the rows are stored, so a failed insert is never remembered
+    public void markSeen(List<Transaction> rows) {
+        if (!enabled) return;
+        long now = System.currentTimeMillis();
+        for (Transaction t : rows) {
+            long key = key(t.getTransactionId());
+            if (key != UNKEYED) segmentFor(key).add(key, now);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    // Transaction ids grow over time, so the highest ids are the most recently written rows
+    void warm() {
+        long start = System.nanoTime();
+        long now = System.currentTimeMillis();
+        int[] loaded = new int[1];
+        try {
+            jdbcTemplate.query("SELECT transaction_id FROM transaction ORDER BY transaction_id DESC LIMIT ?",
+                    rs -> {
+                        long key = key(rs.getString(1));
+                        if (key != UNKEYED) {
+                            segmentFor(key).add(key, now);
+                            loaded[0]++;
+                        }
+                    }, warmupRows);
+            System.out.printf("🧠 Duplicate filter warmed with %d recent ids in %d ms%n",
+                    loaded[0], (System.nanoTime() - start) / 1_000_000);
+        } catch (DataAccessException e) {
+            System.err.printf("⚠️ Duplicate filter warm-up skipped, starting cold: %s%n", e.getMessage());
+        }
+    }
+
+    private Segment segmentFor(long key) {
+        return segments[(int) (mix(key) >>> 40) & (segments.length - 1)];
+    }
+
+    // Numeric ids map to id + 1 (0 marks an empty slot). Leading zeros would make two ids share
+    // a key, so those, like anything non-numeric or too long for a long, are UNKEYED.
+    static long key(String id) {
+        int length = id == null ? 0 : id.length();
+        if (length == 0 || length > 18 || (length > 1 && id.charAt(0) == '0')) return UNKEYED;
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') return UNKEYED;
+            value = value * 10 + (c - '0');
+        }
+        return value + 1;
+    }
+
+    static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static final class Segment {
+        private final int capacity;
+        private final long ttlMs;
+        private final double bloomFpp;
+        private final long[] slots;
+        private final int mask;
+        private final long[] ringKeys;
+        private final long[] ringTimes;
+        private int head;
+        private int count;
+        private BloomFilter current;
+        private BloomFilter previous;
+        private int bloomInserts;
+
+        Segment(int capacity, long ttlMs, double bloomFpp) {
+            this.capacity = capacity;
+            this.ttlMs = ttlMs;
+            this.bloomFpp = bloomFpp;
+            int tableSize = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) << 1; // load factor ≤ 0.5
+            this.slots = new long[tableSize];
+            this.mask = tableSize - 1;
+            this.ringKeys = new long[capacity];
+            this.ringTimes = new long[capacity];
+            this.current = new BloomFilter(capacity, bloomFpp);
+            this.previous = new BloomFilter(capacity, bloomFpp);
+        }
+
+        synchronized boolean contains(long key, long now, Counter bloomNegatives) {
+            expire(now);
+            if (!current.mightContain(key) && !previous.mightContain(key)) {
+                bloomNegatives.increment();
+                return false;
+            }
+            return indexOf(key) >= 0;
+        }
+
+        synchronized void add(long key, long now) {
+            expire(now);
+            if (indexOf(key) >= 0) return;
+            if (count == capacity) {
+                evictOldest();
+            }
+            int i = home(key);
+            while (slots[i] != 0) i = (i + 1) & mask;
+            slots[i] = key;
+            int tail = (head + count) % capacity;
+            ringKeys[tail] = key;
+            ringTimes[tail] = now;
+            count++;
+
+            // Every id in the table was added within the last `capacity` inserts, so it is
+            // always in one of the two generations
+            current.put(key);
+            if (++bloomInserts >= capacity) {
+                previous = current;
+                current = new BloomFilter(capacity, bloomFpp);
+                bloomInserts = 0;
+            }
+        }
+
+        synchronized int size() {
+            return count;
+        }
+
+        private void expire(long now) {
+            while (count > 0 && now - ringTimes[head] > ttlMs) {
+                evictOldest();
+            }
+        }
+
+        private void evictOldest() {
+            int index = indexOf(ringKeys[head]);
+            if (index >= 0) deleteSlot(index);
+            head = (head + 1) % capacity;
+            count--;
+        }
+
+        private int indexOf(long key) {
+            int i = home(key);
+            while (slots[i] != 0) {
+                if (slots[i] == key) return i;
+                i = (i + 1) & mask;
+            }
+            return -1;
+        }
+
+        // Backward-shift deletion keeps linear probe chains intact without tombstones
+        private void deleteSlot(int hole) {
+            int j = hole;
+            while (true) {
+                j = (j + 1) & mask;
+                if (slots[j] == 0) break;
+                int home = home(slots[j]);
+                boolean stays = hole <= j ? (hole < home && home <= j) : (hole < home || home <= j);
+                if (!stays) {
+                    slots[hole] = slots[j];
+                    hole = j;
+                }
+            }
+            slots[hole] = 0;
+        }
+
+        private int home(long key) {
+            return (int) mix(key) & mask;
+        }
+    }
+
+    private static final class BloomFilter {
+        private final long[] bits;
+        private final long bitCount;
+        private final int hashes;
+
+        BloomFilter(int expected, double fpp) {
+            long m = (long) Math.ceil(-expected * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+            this.bits = new long[(int) Math.max(1, (m + 63) >>> 6)];
+            this.bitCount = bits.length * 64L;
+            this.hashes = Math.max(1, (int) Math.round((double) bitCount / expected * Math.log(2)));
+        }
+
+        void put(long key) {
+            long h1 = mix(key);
+            long h2 = mix(h1) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+                bits[(int) (bit >>> 6)] |= 1L << bit;
+            }
+        }
+
+        boolean mightContain(long key) {
+            long h1 = mix(key);
+            long h2 = mix(h1) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+                if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package com.kafka.consumer.pipeline;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.kafka.consumer.aggregation.WindowedAggregator;
+import com.kafka.consumer.archive.TransactionArchive;
+import com.kafka.consumer.logging.RecordLog;
+import com.kafka.consumer.model.Transaction;
+import com.kafka.consumer.pipeline.PipelineMessages.Decoded;
+import com.kafka.consumer.pipeline.PipelineMessages.FlushBarrier;
+import com.kafka.consumer.pipeline.PipelineMessages.RawBatch;
+import com.kafka.consumer.query.TransactionQueryCache;
+import com.kafka.consumer.repository.ConsumerOffsetRepository;
+import com.kafka.consumer.repository.TransactionRepository;
+import com.kafka.consumer.retry.FailureCause;
+import com.kafka.consumer.retry.RetryPublisher;
+import com.kafka.consumer.serialization.TransactionDeserializer;
+import com.kafka.consumer.spool.TransactionSpool;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// consume → deserialize → persist, each stage on its own threads and joined by bounded
+// queues. The consumer thread only registers offsets and enqueues the raw poll; a full
+// queue blocks it, which is the backpressure that keeps memory bounded when MySQL is slow.
+//
+//   listener thread ──RawBatch──▶ dispatcher (parallel decode on decodePool)
+//                                   └──Decoded, routed by partition──▶ writer-N ──▶ MySQL
+//
+// Routing by partition keeps each partition on one writer, in offset order.
+@Component
+public class IngestPipeline {
+
+    private final TransactionRepository repository;
+    private final TransactionDeserializer transactionDeserializer;
+    private final OffsetTracker offsetTracker;
+    private final PipelineStats stats;
+    private final AdaptiveBatchController batching;
+    private final DuplicateFilter duplicates;
+    private final WindowedAggregator aggregator;
+    private final TransactionQueryCache queryCache;
+    private final TransactionArchive archive;
+    private final TransactionSpool spool;
+    private final RetryPublisher retries;
+    private final RecordLog recordLog;
+    private final ConsumerOffsetRepository offsetStore;
+    private final CatchUpMode catchUp;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${consumer.pipeline.decode.threads:0}")
+    private int decodeThreads;
+
+    @Value("${consumer.pipeline.writer.threads:4}")
+    private int writerThreads;
+
+    @Value("${consumer.pipeline.raw.queue.capacity:8}")
+    private int rawQueueCapacity;
+
+    @Value("${consumer.pipeline.writer.queue.capacity:10000}")
+    private int writerQueueCapacity;
+
+    private BlockingQueue<Object> rawQueue;
+    private ForkJoinPool decodePool;
+    private Thread dispatcher;
+    private volatile Throwable failure; // set when the dispatcher dies; submit then throws
+    private final List<TransactionWriter> writers = new ArrayList<>();
+    private final List<BlockingQueue<Object>> writerQueues = new ArrayList<>();
+    private final List<Thread> writerThreadList = new ArrayList<>();
+
+    public IngestPipeline(TransactionRepository repository, TransactionDeserializer transactionDeserializer,
+                          OffsetTracker offsetTracker, PipelineStats stats, AdaptiveBatchController batching,
+                          DuplicateFilter duplicates, WindowedAggregator aggregator, TransactionQueryCache queryCache,
+                          TransactionArchive archive, TransactionSpool spool, RetryPublisher retries, RecordLog recordLog,
+                          ConsumerOffsetRepository offsetStore, CatchUpMode catchUp, MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.transactionDeserializer = transactionDeserializer;
+        this.offsetTracker = offsetTracker;
+        this.stats = stats;
+        this.batching = batching;
+        this.duplicates = duplicates;
+        this.aggregator = aggregator;
+        this.queryCache = queryCache;
+        this.archive = archive;
+        this.spool = spool;
+        this.retries = retries;
+        this.recordLog = recordLog;
+        this.offsetStore = offsetStore;
+        this.catchUp = catchUp;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void start() {
+        rawQueue = new ArrayBlockingQueue<>(rawQueueCapacity);
+        decodePool = new ForkJoinPool(decodeThreads > 0 ? decodeThreads : Runtime.getRuntime().availableProcessors());
+
+        for (int i = 0; i < writerThreads; i++) {
+            BlockingQueue<Object> queue = new ArrayBlockingQueue<>(writerQueueCapacity);
+            TransactionWriter writer = new TransactionWriter("writer-" + i, queue, repository, offsetTracker,
+                    stats, batching, duplicates, aggregator, queryCache, archive, spool, retries, recordLog, offsetStore, catchUp);
+            Thread thread = new Thread(writer, "txn-writer-" + i);
+            thread.start();
+            writerQueues.add(queue);
+            writers.add(writer);
+            writerThreadList.add(thread);
+        }
+
+        dispatcher = new Thread(this::dispatch, "txn-dispatcher");
+        dispatcher.start();
+
+        Gauge.builder("consumer.pipeline.queue.depth", rawQueue, BlockingQueue::size).tag("stage", "raw")
+                .description("Polls waiting to be decoded").register(meterRegistry);
+        Gauge.builder("consumer.pipeline.queue.depth", this, IngestPipeline::writerQueueDepth).tag("stage", "writer")
+                .description("Decoded records waiting for a writer").register(meterRegistry);
+        Gauge.builder("consumer.pipeline.buffered.rows", this, IngestPipeline::bufferedRows)
+                .description("Rows in writer buffers, not yet flushed").register(meterRegistry);
+        Gauge.builder("consumer.pipeline.failed", this, pipeline -> pipeline.failure == null ? 0 : 1)
+                .description("1 once the dispatcher has died and the pipeline accepts no more polls").register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        dispatcher.interrupt();
+        writers.forEach(TransactionWriter::stop);
+        for (Thread thread : writerThreadList) {
+            thread.interrupt();
+            thread.join(5000);
+        }
+        decodePool.shutdownNow();
+    }
+
+    // Consumer thread: hand the poll over (blocks when full, but not past a dispatcher failure,
+    // which is rethrown instead). Its offsets are registered by the dispatcher once it is queued.
+    public void submit(List<ConsumerRecord<String, byte[]>> records) throws InterruptedException {
+        checkRunning();
+        RawBatch batch = new RawBatch(records);
+        while (!rawQueue.offer(batch, 1, TimeUnit.SECONDS)) {
+            checkRunning();
+        }
+        batching.onRowsReceived(records.size());
+    }
+
+    public boolean isFailed() {
+        return failure != null;
+    }
+
+    private void checkRunning() {
+        Throwable cause = failure;
+        if (cause != null) throw new PipelineFailedException(cause);
+    }
+
+    // Waits until everything submitted so far for these partitions has been flushed
+    public boolean flush(Collection<TopicPartition> partitions, long timeoutMs) throws InterruptedException {
+        if (failure != null) return false;
+        CountDownLatch done = new CountDownLatch(writers.size());
+        if (!rawQueue.offer(new FlushBarrier(new HashSet<>(partitions), done), timeoutMs, TimeUnit.MILLISECONDS)) {
+            return false;
+        }
+        return done.await(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    private int writerQueueDepth() {
+        int depth = 0;
+        for (BlockingQueue<Object> queue : writerQueues) {
+            depth += queue.size();
+        }
+        return depth;
+    }
+
+    private int bufferedRows() {
+        int rows = 0;
+        for (TransactionWriter writer : writers) {
+            rows += writer.bufferedRows();
+        }
+        return rows;
+    }
+
+    private void dispatch() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Object item = rawQueue.take();
+                if (item instanceof RawBatch batch) {
+                    register(batch.records());
+                    route(batch.records(), decodePool.submit(() -> batch.records().parallelStream()
+                            .map(this::decode)
+                            .toList()).get());
+                } else if (item instanceof FlushBarrier barrier) {
+                    for (BlockingQueue<Object> queue : writerQueues) {
+                        queue.put(barrier);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable e) {
+            // Part of the batch may already be routed, so skipping it would stall its partitions'
+            // commits for good; instead the listener is failed and the polls are re-read on restart
+            Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+            failure = cause;
+            StackTraceElement[] trace = cause.getStackTrace();
+            recordLog.error("❌ Dispatcher stopped, pipeline failed: %s at %s%n", cause, trace.length > 0 ? trace[0] : "?");
+        }
+    }
+
+    // In queue order, so each partition's offsets arrive ascending; before any writer can complete them
+    private void register(List<ConsumerRecord<String, byte[]>> records) {
+        TopicPartition partition = null;
+        for (ConsumerRecord<String, byte[]> record : records) {
+            partition = partitionOf(record, partition);
+            offsetTracker.dispatched(partition, record.offset());
+        }
+    }
+
+    private void route(List<ConsumerRecord<String, byte[]>> records, List<Transaction> decoded)
+            throws InterruptedException {
+        TopicPartition partition = null;
+        for (int i = 0; i < records.size(); i++) {
+            ConsumerRecord<String, byte[]> record = records.get(i);
+            partition = partitionOf(record, partition);
+            Transaction transaction = decoded.get(i);
+
+            if (transaction != null) {
+                recordLog.info(
+                    "📥 Thread %s buffered Txn: %s | 🕒 %s | Partition: %d | Offset: %d | Key: %s%n",
+                    Thread.currentThread().getName(),
+                    transaction.getTransactionId(),
+                    Instant.ofEpochMilli(record.timestamp()),
+                    record.partition(),
+                    record.offset(),
+                    record.key()
+                );
+            }
+            writerQueues.get(Math.floorMod(partition.hashCode(), writerQueues.size()))
+                    .put(new Decoded(partition, record.offset(), transaction));
+        }
+    }
+
+    // A poll returns records grouped by partition, so consecutive records share one key object
+    private static TopicPartition partitionOf(ConsumerRecord<?, ?> record, TopicPartition previous) {
+        if (previous != null && previous.partition() == record.partition() && previous.topic().equals(record.topic())) {
+            return previous;
+        }
+        return new TopicPartition(record.topic(), record.partition());
+    }
+
+    // null marks a record that could not be decoded; it is dead-lettered and its offset completed
+    private Transaction decode(ConsumerRecord<String, byte[]> record) {
+        long start = System.nanoTime();
+        try {
+            Transaction transaction = transactionDeserializer.deserialize(record.topic(), record.value());
+            stats.recordDecode(System.nanoTime() - start);
+            return transaction;
+        } catch (Exception e) {
+            stats.recordFailure("decode", FailureCause.DESERIALIZATION);
+            recordLog.error("❌ Failed to process record %s-%d@%d: %s%n",
+                    record.topic(), record.partition(), record.offset(), e.getMessage());
+            try {
+                retries.deadLetter(record, FailureCause.DESERIALIZATION, e);
+            } catch (RuntimeException sendFailure) {
+                System.err.printf("❌ Could not dead-letter %s-%d@%d: %s%n",
+                        record.topic(), record.partition(), record.offset(), sendFailure.getMessage());
+            }
+            return null;
+        }
+    }
+}
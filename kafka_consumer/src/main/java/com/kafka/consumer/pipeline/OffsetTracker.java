@@ -0,0 +1,135 @@
+package com.kafka.consumer.pipeline;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.stereotype.Component;
+
+// Tracks, per partition, which dispatched offsets have been persisted. Stages may finish
+// records out of order; a partition is only ever committed up to its highest contiguous
+// persisted offset, so a crash never skips a record that was not written.
+@Component
+public class OffsetTracker {
+
+    private final Map<TopicPartition, PartitionOffsets> partitions = new ConcurrentHashMap<>();
+
+    // Dispatcher thread, in offset order, before the record reaches a writer. A poll handed over
+    // again (the listener retried after a failed commit) is already tracked and ignored.
+    public void dispatched(TopicPartition partition, long offset) {
+        partitions.computeIfAbsent(partition, tp -> new PartitionOffsets()).dispatch(offset);
+    }
+
+    public void completed(TopicPartition partition, long offset) {
+        PartitionOffsets offsets = partitions.get(partition);
+        if (offsets != null) { // null → partition revoked meanwhile
+            offsets.complete(offset);
+        }
+    }
+
+    // New commit points since the last call, for the given partitions only
+    public Map<TopicPartition, OffsetAndMetadata> takeCommittable(Collection<TopicPartition> assigned) {
+        Map<TopicPartition, OffsetAndMetadata> commits = new HashMap<>();
+        for (TopicPartition partition : assigned) {
+            PartitionOffsets offsets = partitions.get(partition);
+            long next = offsets != null ? offsets.takeCommittable() : -1;
+            if (next >= 0) {
+                commits.put(partition, new OffsetAndMetadata(next));
+            }
+        }
+        return commits;
+    }
+
+    // A commit that failed is handed out again by the next takeCommittable
+    public void commitFailed(Map<TopicPartition, OffsetAndMetadata> offsets) {
+        offsets.forEach((partition, offset) -> {
+            PartitionOffsets tracked = partitions.get(partition);
+            if (tracked != null) tracked.commitFailed(offset.offset());
+        });
+    }
+
+    public long pending() {
+        long pending = 0;
+        for (PartitionOffsets offsets : partitions.values()) {
+            pending += offsets.pending();
+        }
+        return pending;
+    }
+
+    public void remove(Collection<TopicPartition> revoked) {
+        revoked.forEach(partitions::remove);
+    }
+
+    // Ring buffer of dispatched offsets (ascending) with a persisted flag per slot
+    static final class PartitionOffsets {
+
+        private long[] offsets = new long[1024];
+        private boolean[] done = new boolean[1024];
+        private int head;
+        private int size;
+        private long safe = -1;       // next offset after the contiguous persisted prefix
+        private long committed = -1;  // last value handed out by takeCommittable
+        private long last = -1;       // highest offset dispatched
+
+        synchronized void dispatch(long offset) {
+            if (offset <= last) return;
+            last = offset;
+            if (size == offsets.length) grow();
+            int slot = (head + size) % offsets.length;
+            offsets[slot] = offset;
+            done[slot] = false;
+            size++;
+        }
+
+        synchronized void complete(long offset) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                long value = offsets[(head + mid) % offsets.length];
+                if (value < offset) low = mid + 1;
+                else if (value > offset) high = mid - 1;
+                else {
+                    done[(head + mid) % offsets.length] = true;
+                    break;
+                }
+            }
+            while (size > 0 && done[head]) {
+                safe = offsets[head] + 1;
+                head = (head + 1) % offsets.length;
+                size--;
+            }
+        }
+
+        synchronized long takeCommittable() {
+            if (safe > committed) {
+                committed = safe;
+                return safe;
+            }
+            return -1;
+        }
+
+        synchronized void commitFailed(long offset) {
+            if (committed == offset) committed = -1;
+        }
+
+        synchronized int pending() {
+            return size;
+        }
+
+        private void grow() {
+            long[] newOffsets = new long[offsets.length * 2];
+            boolean[] newDone = new boolean[done.length * 2];
+            for (int i = 0; i < size; i++) {
+                newOffsets[i] = offsets[(head + i) % offsets.length];
+                newDone[i] = done[(head + i) % done.length];
+            }
+            offsets = newOffsets;
+            done = newDone;
+            head = 0;
+        }
+    }
+}
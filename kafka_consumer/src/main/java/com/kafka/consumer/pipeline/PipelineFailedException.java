@@ -0,0 +1,10 @@
+package com.kafka.consumer.pipeline;
+
+// Thrown to the listener once the dispatcher has died; the container is stopped on it (see
+// KafkaConsumerConfig) rather than retrying, since no later poll could be processed either
+public class PipelineFailedException extends IllegalStateException {
+
+    public PipelineFailedException(Throwable cause) {
+        super("Ingest pipeline failed: " + cause, cause);
+    }
+}
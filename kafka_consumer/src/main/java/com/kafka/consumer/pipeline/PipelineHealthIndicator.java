@@ -0,0 +1,22 @@
+package com.kafka.consumer.pipeline;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+// DOWN once the dispatcher has died, so /actuator/health tells the orchestrator to restart the
+// instance whose listener container was stopped on PipelineFailedException
+@Component("pipeline")
+public class PipelineHealthIndicator implements HealthIndicator {
+
+    private final IngestPipeline pipeline;
+
+    public PipelineHealthIndicator(IngestPipeline pipeline) {
+        this.pipeline = pipeline;
+    }
+
+    @Override
+    public Health health() {
+        return pipeline.isFailed() ? Health.down().build() : Health.up().build();
+    }
+}
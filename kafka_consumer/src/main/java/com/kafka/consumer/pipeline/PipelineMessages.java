@@ -0,0 +1,29 @@
+package com.kafka.consumer.pipeline;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+
+import com.kafka.consumer.model.Transaction;
+
+// Items passed between pipeline stages through bounded queues
+final class PipelineMessages {
+
+    private PipelineMessages() {
+    }
+
+    // Consumer thread → decode stage: one poll's raw records
+    record RawBatch(List<ConsumerRecord<String, byte[]>> records) {
+    }
+
+    // Decode stage → writer; transaction is null when the record could not be decoded
+    record Decoded(TopicPartition partition, long offset, Transaction transaction) {
+    }
+
+    // Travels behind earlier records; each writer flushes the partitions and counts down
+    record FlushBarrier(Set<TopicPartition> partitions, CountDownLatch done) {
+    }
+}
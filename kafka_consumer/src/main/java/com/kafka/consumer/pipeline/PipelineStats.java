@@ -0,0 +1,96 @@
+package com.kafka.consumer.pipeline;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+import com.kafka.consumer.retry.FailureCause;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+// Flush measurements shared by the writers and the components that tune the consumer, and the
+// pipeline's Micrometer timers and counters (histograms are switched on per prefix through
+// management.metrics.distribution.percentiles-histogram)
+@Component
+public class PipelineStats {
+
+    private static final double EWMA_ALPHA = 0.2;
+
+    private final MeterRegistry meterRegistry;
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong flushedRows = new AtomicLong();
+    private volatile double flushLatencyMillis;
+
+    private final Timer decodeTimer;
+    private final Timer insertTimer;
+    private final Timer bulkLoadTimer;
+    private final Timer sizeFlushTimer;
+    private final Timer timerFlushTimer;
+    private final Counter insertedRows;
+    private final Counter ignoredRows;
+
+    public PipelineStats(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        decodeTimer = Timer.builder("consumer.decode")
+                .description("Deserializing one record value").register(meterRegistry);
+        insertTimer = Timer.builder("consumer.insert")
+                .description("One INSERT IGNORE batch against the database").register(meterRegistry);
+        bulkLoadTimer = Timer.builder("consumer.catchup.load")
+                .description("One LOAD DATA batch in catch-up mode").register(meterRegistry);
+        sizeFlushTimer = Timer.builder("consumer.flush").tag("trigger", "size")
+                .description("Writer flush: dedup, insert or spool, offset completion").register(meterRegistry);
+        timerFlushTimer = Timer.builder("consumer.flush").tag("trigger", "timer").register(meterRegistry);
+        insertedRows = Counter.builder("consumer.insert.rows").tag("result", "inserted").register(meterRegistry);
+        ignoredRows = Counter.builder("consumer.insert.rows").tag("result", "ignored")
+                .description("Rows INSERT IGNORE skipped as already stored").register(meterRegistry);
+    }
+
+    public synchronized void recordFlush(int rows, long nanos) {
+        double millis = nanos / 1_000_000.0;
+        flushLatencyMillis = flushes.getAndIncrement() == 0
+                ? millis
+                : EWMA_ALPHA * millis + (1 - EWMA_ALPHA) * flushLatencyMillis;
+        flushedRows.addAndGet(rows);
+        insertTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    // Kept out of the flush latency average: a bulk load is slow by design, and the autoscaler
+    // must not read a catch-up as a database in trouble
+    public void recordBulkLoad(int rows, long nanos) {
+        flushedRows.addAndGet(rows);
+        bulkLoadTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordInserted(int rows, int inserted) {
+        insertedRows.increment(inserted);
+        ignoredRows.increment(Math.max(0, rows - inserted));
+    }
+
+    public void recordDecode(long nanos) {
+        decodeTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordBatch(long nanos, boolean sizeTriggered) {
+        (sizeTriggered ? sizeFlushTimer : timerFlushTimer).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordFailure(String stage, FailureCause cause) {
+        meterRegistry.counter("consumer.failures", "stage", stage, "cause", cause.name()).increment();
+    }
+
+    // Exponentially weighted average of recent flush durations, bulk loads excepted
+    public double flushLatencyMillis() {
+        return flushLatencyMillis;
+    }
+
+    public long flushes() {
+        return flushes.get();
+    }
+
+    public long flushedRows() {
+        return flushedRows.get();
+    }
+}
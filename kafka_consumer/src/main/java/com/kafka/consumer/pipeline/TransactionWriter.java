@@ -0,0 +1,311 @@
+package com.kafka.consumer.pipeline;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+import org.apache.kafka.common.TopicPartition;
+
+import com.kafka.consumer.aggregation.WindowedAggregator;
+import com.kafka.consumer.archive.TransactionArchive;
+import com.kafka.consumer.logging.RecordLog;
+import com.kafka.consumer.model.Transaction;
+import com.kafka.consumer.pipeline.PipelineMessages.Decoded;
+import com.kafka.consumer.pipeline.PipelineMessages.FlushBarrier;
+import com.kafka.consumer.query.TransactionQueryCache;
+import com.kafka.consumer.repository.ConsumerOffsetRepository;
+import com.kafka.consumer.repository.TransactionRepository;
+import com.kafka.consumer.retry.FailureCause;
+import com.kafka.consumer.retry.RetryPublisher;
+import com.kafka.consumer.spool.TransactionSpool;
+
+// Persist stage: one thread per writer. Each partition is routed to exactly one writer, so
+// its buffer is thread-confined and its records are written in offset order. A buffer is
+// flushed at the adaptive batch size or when its oldest row has waited the flush interval.
+// In catch-up mode it is flushed at the catch-up batch size and bulk-loaded instead.
+final class TransactionWriter implements Runnable {
+
+    private static final long RETRY_BACKOFF_MS = 1000;
+    // Longest idle wait, so a flush interval that shrinks meanwhile takes effect within this long
+    private static final long MAX_IDLE_WAIT_MS = 1000;
+
+    private final String name;
+    private final BlockingQueue<Object> queue;
+    private final TransactionRepository repository;
+    private final OffsetTracker offsetTracker;
+    private final PipelineStats stats;
+    private final AdaptiveBatchController batching;
+    private final DuplicateFilter duplicates;
+    private final WindowedAggregator aggregator;
+    private final TransactionQueryCache queryCache;
+    private final TransactionArchive archive;
+    private final TransactionSpool spool;
+    private final RetryPublisher retries;
+    private final RecordLog recordLog;
+    private final ConsumerOffsetRepository offsetStore;
+    private final CatchUpMode catchUp;
+    private final Map<TopicPartition, PartitionBuffer> buffers = new HashMap<>();
+    private long nextDeadline = Long.MAX_VALUE; // earliest time a buffer may need a timed flush
+    private volatile boolean running = true;
+    private volatile int bufferedRows; // read by the buffered-rows gauge
+
+    TransactionWriter(String name, BlockingQueue<Object> queue, TransactionRepository repository,
+                      OffsetTracker offsetTracker, PipelineStats stats, AdaptiveBatchController batching,
+                      DuplicateFilter duplicates, WindowedAggregator aggregator, TransactionQueryCache queryCache,
+                      TransactionArchive archive, TransactionSpool spool, RetryPublisher retries, RecordLog recordLog,
+                      ConsumerOffsetRepository offsetStore, CatchUpMode catchUp) {
+        this.name = name;
+        this.queue = queue;
+        this.repository = repository;
+        this.offsetTracker = offsetTracker;
+        this.stats = stats;
+        this.batching = batching;
+        this.duplicates = duplicates;
+        this.aggregator = aggregator;
+        this.queryCache = queryCache;
+        this.archive = archive;
+        this.spool = spool;
+        this.retries = retries;
+        this.recordLog = recordLog;
+        this.offsetStore = offsetStore;
+        this.catchUp = catchUp;
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                Object item = queue.poll(millisUntilNextDeadline(), TimeUnit.MILLISECONDS);
+                if (item instanceof Decoded decoded) {
+                    accept(decoded);
+                } else if (item instanceof FlushBarrier barrier) {
+                    flushAll(barrier.partitions());
+                    barrier.done().countDown();
+                }
+                // An idle wake-up re-checks the buffers, since the deadline may predate a shorter interval
+                if (item == null || System.currentTimeMillis() >= nextDeadline) {
+                    flushExpired();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // Rows stay buffered and are retried; their offsets are not committed meanwhile
+                System.err.printf("❌ Writer %s flush failed, retrying: %s%n", name, e.getMessage());
+                sleepQuietly();
+            }
+        }
+    }
+
+    void stop() {
+        running = false;
+    }
+
+    int bufferedRows() {
+        return bufferedRows;
+    }
+
+    private void accept(Decoded decoded) {
+        if (decoded.transaction() == null) {
+            offsetTracker.completed(decoded.partition(), decoded.offset());
+            return;
+        }
+        PartitionBuffer buffer = buffers.computeIfAbsent(decoded.partition(), tp -> new PartitionBuffer());
+        if (buffer.rows.isEmpty()) {
+            buffer.firstBufferedAt = System.currentTimeMillis();
+            nextDeadline = Math.min(nextDeadline, buffer.firstBufferedAt + batching.flushIntervalMs());
+        }
+        buffer.add(decoded.transaction(), decoded.offset());
+        bufferedRows++;
+        if (buffer.rows.size() >= (catchUp.isActive() ? catchUp.batchRows() : batching.batchSize())) {
+            flush(decoded.partition(), buffer, true);
+        }
+    }
+
+    private void flushExpired() {
+        long now = System.currentTimeMillis();
+        long flushIntervalMs = batching.flushIntervalMs();
+        nextDeadline = Long.MAX_VALUE;
+        for (Map.Entry<TopicPartition, PartitionBuffer> entry : buffers.entrySet()) {
+            PartitionBuffer buffer = entry.getValue();
+            if (buffer.rows.isEmpty()) continue;
+            if (now - buffer.firstBufferedAt >= flushIntervalMs) {
+                try {
+                    flush(entry.getKey(), buffer, false);
+                    continue;
+                } catch (RuntimeException e) {
+                    nextDeadline = now; // retry on the next pass
+                    throw e;
+                }
+            }
+            nextDeadline = Math.min(nextDeadline, buffer.firstBufferedAt + flushIntervalMs);
+        }
+    }
+
+    private void flushAll(Iterable<TopicPartition> partitions) {
+        for (TopicPartition partition : partitions) {
+            PartitionBuffer buffer = buffers.remove(partition);
+            if (buffer != null && !buffer.rows.isEmpty()) {
+                try {
+                    flush(partition, buffer, false);
+                } catch (RuntimeException e) {
+                    bufferedRows -= buffer.rows.size();
+                    System.err.printf("❌ Writer %s could not flush revoked %s: %s%n", name, partition, e.getMessage());
+                }
+            }
+        }
+    }
+
+    // While MySQL is failing or slow (or earlier batches are still spooled) the batch goes to
+    // the spool instead. A batch rejected for its content is retried row by row and only the
+    // failing rows leave for the retry/dead-letter topics. Either way its offsets are complete
+    // once this returns.
+    private void flush(TopicPartition partition, PartitionBuffer buffer, boolean sizeTriggered) {
+        long flushStart = System.nanoTime();
+        long nextOffset = buffer.offsets[buffer.offsetCount - 1] + 1;
+        List<Transaction> rows = duplicates.unseen(buffer.rows);
+        List<Transaction> stored = rows;
+        int inserted = 0;
+        double millis = 0;
+        boolean offsetStored = false;
+        boolean spooled = !rows.isEmpty() && spool.shouldSpool() && spool.append(rows);
+        boolean bulk = catchUp.isActive();
+        if (!rows.isEmpty() && !spooled) {
+            long start = System.nanoTime();
+            try {
+                inserted = insert(partition, rows, nextOffset, bulk);
+                offsetStored = true;
+            } catch (RuntimeException e) {
+                FailureCause cause = FailureCause.classify(e);
+                stats.recordFailure("insert", cause);
+                if (cause == FailureCause.TRANSIENT_DB) {
+                    spool.degrade();
+                    if (spool.append(rows)) {
+                        spooled = true;
+                    } else {
+                        retries.reroute(rows, 0, e, partition.toString());
+                        stored = List.of();
+                    }
+                } else {
+                    stored = insertRowByRow(partition, rows);
+                    inserted = stored.size();
+                }
+            }
+            long nanos = System.nanoTime() - start;
+            if (!spooled) {
+                stats.recordInserted(stored.size(), inserted);
+                // A bulk load is slow by design; it must neither shrink the batch size, trip the spool
+                // nor lower the listener concurrency
+                if (bulk) {
+                    stats.recordBulkLoad(rows.size(), nanos);
+                    catchUp.recordLoad(stored.size());
+                } else {
+                    stats.recordFlush(rows.size(), nanos);
+                    batching.onFlush(buffer.rows.size(), start, nanos, sizeTriggered);
+                    spool.recordFlush(nanos);
+                }
+                millis = nanos / 1_000_000.0;
+            }
+        }
+        rows = stored;
+        // Spooled rows are stored later by the replayer; until then Kafka's commit is the position
+        if (!spooled && !offsetStored) {
+            storeOffset(partition, nextOffset);
+        }
+
+        if (spooled) {
+            recordLog.info("📼 Writer %s spooled batch of %d transactions for %s (%d batches pending replay)%n",
+                    name, rows.size(), partition, spool.pendingBatches());
+        } else {
+            duplicates.markSeen(rows);
+            queryCache.onStored(rows);
+            recordLog.info(
+                "💾 Writer %s inserted batch of %d transactions for %s (%d new, %d filtered in memory) in %.1f ms (%.0f rows/sec)%n",
+                name,
+                buffer.rows.size(),
+                partition,
+                inserted,
+                buffer.rows.size() - rows.size(),
+                millis,
+                rows.size() * 1000.0 / Math.max(millis, 0.001)
+            );
+        }
+
+        // Spooled rows count as stored; rerouted ones are counted by the retry listener that stores them
+        aggregator.add(partition, buffer.rows, buffer.offsets, rows);
+        // The archive keeps every consumed row, whichever way MySQL took it
+        archive.append(partition, buffer.rows, buffer.offsets);
+        stats.recordBatch(System.nanoTime() - flushStart, sizeTriggered);
+        bufferedRows -= buffer.rows.size();
+        for (int i = 0; i < buffer.offsetCount; i++) {
+            offsetTracker.completed(partition, buffer.offsets[i]);
+        }
+        buffer.rows.clear();
+        buffer.offsetCount = 0;
+    }
+
+    // With offsets kept in MySQL the batch and its partition's next offset commit together
+    private int insert(TopicPartition partition, List<Transaction> rows, long nextOffset, boolean bulk) {
+        IntSupplier write = bulk ? () -> repository.loadIgnoreAll(rows) : () -> repository.insertIgnoreAll(rows);
+        if (!offsetStore.isEnabled()) return write.getAsInt();
+        return offsetStore.insertAndStore(partition, nextOffset, write);
+    }
+
+    // Filtered or rerouted batches have nothing to insert; a lost update only means a re-read
+    private void storeOffset(TopicPartition partition, long nextOffset) {
+        if (!offsetStore.isEnabled()) return;
+        try {
+            offsetStore.store(partition, nextOffset);
+        } catch (RuntimeException e) {
+            System.err.printf("⚠️ Writer %s could not store offset %d for %s: %s%n", name, nextOffset, partition, e.getMessage());
+        }
+    }
+
+    private List<Transaction> insertRowByRow(TopicPartition partition, List<Transaction> rows) {
+        List<Transaction> stored = new ArrayList<>(rows.size());
+        for (Transaction row : rows) {
+            try {
+                repository.insertIgnoreAll(List.of(row));
+                stored.add(row);
+            } catch (RuntimeException e) {
+                retries.reroute(List.of(row), 0, e, partition.toString());
+            }
+        }
+        System.out.printf("⚠️ Writer %s isolated %d failing rows of %d for %s%n",
+                name, rows.size() - stored.size(), rows.size(), partition);
+        return stored;
+    }
+
+    // Capped by the current interval, which may have shrunk since the deadline was set
+    private long millisUntilNextDeadline() {
+        long interval = Math.min(MAX_IDLE_WAIT_MS, batching.flushIntervalMs());
+        if (nextDeadline == Long.MAX_VALUE) return interval;
+        return Math.max(1, Math.min(interval, nextDeadline - System.currentTimeMillis()));
+    }
+
+    private static void sleepQuietly() {
+        try {
+            Thread.sleep(RETRY_BACKOFF_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class PartitionBuffer {
+        private final List<Transaction> rows = new ArrayList<>();
+        private long[] offsets = new long[64];
+        private int offsetCount;
+        private long firstBufferedAt;
+
+        void add(Transaction transaction, long offset) {
+            rows.add(transaction);
+            if (offsetCount == offsets.length) offsets = Arrays.copyOf(offsets, offsetCount * 2);
+            offsets[offsetCount++] = offset;
+        }
+    }
+}
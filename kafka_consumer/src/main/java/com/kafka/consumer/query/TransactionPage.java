@@ -0,0 +1,10 @@
+package com.kafka.consumer.query;
+
+import java.util.List;
+
+import com.kafka.consumer.model.Transaction;
+
+// One page of a query; next is the cursor to pass as `after` for the following page, or null
+// when this page was the last
+public record TransactionPage(List<Transaction> rows, String next) {
+}
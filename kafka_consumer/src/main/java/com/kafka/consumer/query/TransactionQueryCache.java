@@ -0,0 +1,129 @@
+package com.kafka.consumer.query;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kafka.consumer.model.Transaction;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+
+// The newest head-rows rows of hot users and items, so their first pages (and the next ones
+// while they fall inside the head) are answered without MySQL. Caffeine bounds it to
+// max-entries with W-TinyLFU: a key is only admitted over the eviction candidate when it has
+// been asked for more often, so a scan of one-off users cannot flush the hot ones.
+//
+// Every path that stores rows calls onStored, which merges them into the heads already cached
+// for their user and item (absent keys are not loaded). Rows stored by other consumer
+// instances are not seen here, so entries also expire ttl.ms after they were last written.
+@Component
+public class TransactionQueryCache {
+
+    enum Lookup { USER, ITEM }
+
+    record Key(Lookup lookup, int id) {
+    }
+
+    // Newest first by transaction id; complete when no older rows exist for the key
+    record Head(List<Transaction> rows, boolean complete) {
+
+        Head plus(Transaction row, int maxRows) {
+            long id = Long.parseLong(row.getTransactionId());
+            int index = 0;
+            while (index < rows.size()) {
+                long cached = Long.parseLong(rows.get(index).getTransactionId());
+                if (cached == id) return this; // redelivery
+                if (cached < id) break;
+                index++;
+            }
+            if (index == rows.size() && !complete) return this; // older than every cached row
+            List<Transaction> merged = new ArrayList<>(rows.size() + 1);
+            merged.addAll(rows);
+            merged.add(index, row);
+            if (merged.size() <= maxRows) return new Head(merged, complete);
+            merged.remove(merged.size() - 1);
+            return new Head(merged, false);
+        }
+    }
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${consumer.query.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${consumer.query.cache.max-entries:10000}")
+    private long maxEntries;
+
+    @Value("${consumer.query.cache.head-rows:100}")
+    private int headRows;
+
+    @Value("${consumer.query.cache.ttl.ms:30000}")
+    private long ttlMs;
+
+    private Cache<Key, Head> heads;
+
+    public TransactionQueryCache(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void init() {
+        if (!enabled) return;
+        heads = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build();
+        // cache.gets{result=hit|miss}, cache.evictions, cache.size, ... tagged cache=transaction.query
+        CaffeineCacheMetrics.monitor(meterRegistry, heads, "transaction.query");
+        Gauge.builder("consumer.query.cache.hit.ratio", heads, cache -> cache.stats().hitRate())
+                .description("Share of cached-key lookups answered from the cache").register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    int headRows() {
+        return headRows;
+    }
+
+    Head head(Key key, Function<Key, Head> loader) {
+        return heads.get(key, loader);
+    }
+
+    // Cursor pages read the head only when it is already cached
+    Head cachedHead(Key key) {
+        return heads.getIfPresent(key);
+    }
+
+    // Called with rows that were just stored
+    public void onStored(List<Transaction> rows) {
+        if (!enabled) return;
+        for (Transaction row : rows) {
+            update(Lookup.USER, row.getUserId(), row);
+            update(Lookup.ITEM, row.getItemCode(), row);
+        }
+    }
+
+    // Runs under the key's lock, so it waits for a head being loaded and then merges into it
+    private void update(Lookup lookup, String id, Transaction row) {
+        if (id == null) return;
+        int key;
+        try {
+            key = Integer.parseInt(id);
+        } catch (NumberFormatException e) {
+            return;
+        }
+        heads.asMap().computeIfPresent(new Key(lookup, key), (k, head) -> head.plus(row, headRows));
+    }
+}
@@ -0,0 +1,56 @@
+package com.kafka.consumer.query;
+
+import java.time.Instant;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+// GET /transactions/users/{userId}?limit=50&after=<cursor>
+// GET /transactions/items/{itemCode}?limit=50&after=<cursor>
+// GET /transactions?from=2019-02-01T00:00:00Z&to=2019-03-01T00:00:00Z&limit=50&after=<cursor>
+// Each response is {"rows": [...], "next": "<cursor>" | null}.
+@RestController
+@RequestMapping("/transactions")
+public class TransactionQueryController {
+
+    private final TransactionQueryService queries;
+
+    public TransactionQueryController(TransactionQueryService queries) {
+        this.queries = queries;
+    }
+
+    @GetMapping("/users/{userId}")
+    public TransactionPage byUser(@PathVariable int userId,
+                                  @RequestParam(required = false) String after,
+                                  @RequestParam(defaultValue = "50") int limit) {
+        return queries.byUser(userId, after, limit);
+    }
+
+    @GetMapping("/items/{itemCode}")
+    public TransactionPage byItem(@PathVariable int itemCode,
+                                  @RequestParam(required = false) String after,
+                                  @RequestParam(defaultValue = "50") int limit) {
+        return queries.byItem(itemCode, after, limit);
+    }
+
+    @GetMapping
+    public TransactionPage byTimeRange(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                       @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+                                       @RequestParam(required = false) String after,
+                                       @RequestParam(defaultValue = "50") int limit) {
+        return queries.byTimeRange(from, to, after, limit);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public String badRequest(IllegalArgumentException e) {
+        return e.getMessage();
+    }
+}
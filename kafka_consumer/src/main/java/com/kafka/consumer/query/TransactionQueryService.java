@@ -0,0 +1,141 @@
+package com.kafka.consumer.query;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.kafka.consumer.model.Transaction;
+import com.kafka.consumer.query.TransactionQueryCache.Head;
+import com.kafka.consumer.query.TransactionQueryCache.Key;
+import com.kafka.consumer.query.TransactionQueryCache.Lookup;
+import com.kafka.consumer.repository.TransactionQueryRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+// Transactions by user, by item and by time range, one keyset page at a time. User and item
+// pages are served from TransactionQueryCache while they fall inside the cached head; deeper
+// pages and time ranges go to MySQL. Latency is recorded as consumer.query{lookup, source}.
+//
+// Cursors are opaque to callers: the last transaction id for user and item pages, and
+// "<epoch millis>:<transaction id>" of the last row for time ranges.
+@Service
+public class TransactionQueryService {
+
+    private final TransactionQueryRepository repository;
+    private final TransactionQueryCache cache;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${consumer.query.max-page-size:500}")
+    private int maxPageSize;
+
+    public TransactionQueryService(TransactionQueryRepository repository, TransactionQueryCache cache,
+                                   MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.cache = cache;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public TransactionPage byUser(int userId, String after, int limit) {
+        return byKey(Lookup.USER, userId, after, limit);
+    }
+
+    public TransactionPage byItem(int itemCode, String after, int limit) {
+        return byKey(Lookup.ITEM, itemCode, after, limit);
+    }
+
+    // [from, to), oldest first
+    public TransactionPage byTimeRange(Instant from, Instant to, String after, int limit) {
+        int size = pageSize(limit);
+        LocalDateTime afterTime = null;
+        long afterId = 0;
+        if (after != null) {
+            int colon = after.indexOf(':');
+            if (colon < 0) throw new IllegalArgumentException("Invalid cursor: " + after);
+            afterTime = utc(Instant.ofEpochMilli(parseLong(after.substring(0, colon), after)));
+            afterId = parseLong(after.substring(colon + 1), after);
+        }
+        long start = System.nanoTime();
+        List<Transaction> rows = repository.byTimeRange(utc(from), utc(to), afterTime, afterId, size);
+        record("time-range", "database", start);
+        String next = null;
+        if (rows.size() == size) {
+            Transaction last = rows.get(rows.size() - 1);
+            next = last.getEventTime().toEpochMilli() + ":" + last.getTransactionId();
+        }
+        return new TransactionPage(rows, next);
+    }
+
+    private TransactionPage byKey(Lookup lookup, int id, String after, int limit) {
+        int size = pageSize(limit);
+        long beforeId = after == null ? Long.MAX_VALUE : parseLong(after, after);
+        String name = lookup.name().toLowerCase(Locale.ROOT);
+        long start = System.nanoTime();
+        if (cache.isEnabled() && size <= cache.headRows()) {
+            Key key = new Key(lookup, id);
+            Head head = after == null ? cache.head(key, this::loadHead) : cache.cachedHead(key);
+            TransactionPage page = head == null ? null : fromHead(head, beforeId, size);
+            if (page != null) {
+                record(name, "cache", start);
+                return page;
+            }
+        }
+        List<Transaction> rows = query(lookup, id, beforeId, size);
+        record(name, "database", start);
+        return new TransactionPage(rows, rows.size() == size ? rows.get(rows.size() - 1).getTransactionId() : null);
+    }
+
+    // null when the head does not hold the whole page
+    private static TransactionPage fromHead(Head head, long beforeId, int size) {
+        List<Transaction> rows = head.rows();
+        int from = 0;
+        while (from < rows.size() && Long.parseLong(rows.get(from).getTransactionId()) >= beforeId) {
+            from++;
+        }
+        int available = rows.size() - from;
+        if (available >= size) {
+            List<Transaction> page = List.copyOf(rows.subList(from, from + size));
+            return new TransactionPage(page, page.get(size - 1).getTransactionId());
+        }
+        return head.complete() ? new TransactionPage(List.copyOf(rows.subList(from, rows.size())), null) : null;
+    }
+
+    // One row past the head tells whether older rows exist
+    private Head loadHead(Key key) {
+        int headRows = cache.headRows();
+        List<Transaction> rows = query(key.lookup(), key.id(), Long.MAX_VALUE, headRows + 1);
+        return rows.size() > headRows ? new Head(List.copyOf(rows.subList(0, headRows)), false) : new Head(rows, true);
+    }
+
+    private List<Transaction> query(Lookup lookup, int id, long beforeId, int size) {
+        return lookup == Lookup.USER ? repository.byUser(id, beforeId, size) : repository.byItem(id, beforeId, size);
+    }
+
+    private int pageSize(int limit) {
+        if (limit < 1) throw new IllegalArgumentException("limit must be at least 1");
+        return Math.min(limit, maxPageSize);
+    }
+
+    private void record(String lookup, String source, long startNanos) {
+        Timer.builder("consumer.query").tag("lookup", lookup).tag("source", source)
+                .register(meterRegistry).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static long parseLong(String text, String cursor) {
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    private static LocalDateTime utc(Instant time) {
+        return LocalDateTime.ofInstant(time, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,87 @@
+package com.kafka.consumer.repository;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntSupplier;
+
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+
+// Next offset to read per group and partition, stored in MySQL in the same DB transaction as
+// the rows of each batch. Rows and position then move together: a batch is either stored with
+// its offset or not at all, whatever happens to the Kafka commit that follows. On assignment
+// the consumer seeks forward to the stored offset when Kafka's committed one is behind it.
+@Repository
+public class ConsumerOffsetRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    // kafka → offsets are only committed to Kafka; mysql → also stored with each batch
+    @Value("${consumer.offsets.store:kafka}")
+    private String store;
+
+    @Value("${spring.kafka.consumer.group-id:}")
+    private String groupId;
+
+    public ConsumerOffsetRepository(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionManager == null ? null : new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    void init() {
+        if (isEnabled()) {
+            createTable();
+        }
+    }
+
+    public boolean isEnabled() {
+        return "mysql".equalsIgnoreCase(store);
+    }
+
+    public void createTable() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS consumer_offset (" +
+                "group_id VARCHAR(255) NOT NULL, " +
+                "topic VARCHAR(249) NOT NULL, " +
+                "partition_id INT NOT NULL, " +
+                "next_offset BIGINT NOT NULL, " +
+                "updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, " +
+                "PRIMARY KEY (group_id, topic, partition_id))");
+    }
+
+    // The insert joins this transaction (REQUIRED), so its rows commit or roll back with the offset
+    public int insertAndStore(TopicPartition partition, long nextOffset, IntSupplier insert) {
+        return transactionTemplate.execute(status -> {
+            int inserted = insert.getAsInt();
+            store(partition, nextOffset);
+            return inserted;
+        });
+    }
+
+    // Never moves backwards, so a replayed older batch cannot rewind the stored position
+    public void store(TopicPartition partition, long nextOffset) {
+        jdbcTemplate.update("INSERT INTO consumer_offset (group_id, topic, partition_id, next_offset, updated_at)" +
+                " VALUES (?, ?, ?, ?, CURRENT_TIMESTAMP) ON DUPLICATE KEY UPDATE" +
+                " next_offset = GREATEST(next_offset, VALUES(next_offset)), updated_at = CURRENT_TIMESTAMP",
+                groupId, partition.topic(), partition.partition(), nextOffset);
+    }
+
+    public Map<TopicPartition, Long> load(Collection<TopicPartition> partitions) {
+        Map<TopicPartition, Long> offsets = new HashMap<>();
+        for (TopicPartition partition : partitions) {
+            jdbcTemplate.query("SELECT next_offset FROM consumer_offset WHERE group_id = ? AND topic = ? AND partition_id = ?",
+                    rs -> {
+                        offsets.put(partition, rs.getLong(1));
+                    }, groupId, partition.topic(), partition.partition());
+        }
+        return offsets;
+    }
+}
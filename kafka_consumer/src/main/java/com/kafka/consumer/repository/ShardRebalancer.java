@@ -0,0 +1,118 @@
+package com.kafka.consumer.repository;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.kafka.consumer.model.Transaction;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// Moves rows to the shard the current ring assigns them, after a shard was added: add its name
+// to consumer.sharding.shards and its url, set consumer.sharding.rebalance.enabled=true on one
+// instance and restart. New rows already go to their new shard; this thread then walks every
+// shard in primary-key order, batch-rows at a time, and copies each row another shard now owns
+// there (INSERT IGNORE, in that shard's transaction) before deleting it where it was. A crash
+// between the two leaves the row on both shards, which reads merge and the next run clears up,
+// so the walk can simply run again; a run that finds nothing to move moves nothing.
+@Component
+public class ShardRebalancer implements Runnable {
+
+    private static final String FIRST_PAGE = TransactionQueryRepository.SELECT +
+            "ORDER BY transaction_id, transaction_time LIMIT ?";
+    private static final String NEXT_PAGE = TransactionQueryRepository.SELECT +
+            "WHERE transaction_id > ? OR (transaction_id = ? AND transaction_time > ?) " +
+            "ORDER BY transaction_id, transaction_time LIMIT ?";
+    private static final String DELETE = "DELETE FROM transaction WHERE transaction_id = ? AND transaction_time = ?";
+
+    private final TransactionShards shards;
+
+    @Value("${consumer.sharding.rebalance.enabled:false}")
+    private boolean enabled;
+
+    @Value("${consumer.sharding.rebalance.batch-rows:5000}")
+    private int batchRows;
+
+    private Thread thread;
+    private volatile boolean running = true;
+
+    public ShardRebalancer(TransactionShards shards) {
+        this.shards = shards;
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled || !shards.isSharded()) return;
+        thread = new Thread(this, "txn-shard-rebalancer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        if (thread == null) return;
+        thread.interrupt();
+        thread.join(5000);
+    }
+
+    @Override
+    public void run() {
+        try {
+            rebalance();
+        } catch (RuntimeException e) {
+            System.err.printf("❌ Shard rebalance stopped, restart to resume: %s%n", e.getMessage());
+        }
+    }
+
+    // Returns the number of rows moved
+    public long rebalance() {
+        long start = System.nanoTime();
+        long moved = 0;
+        for (TransactionShard shard : shards.shards()) {
+            moved += drain(shard);
+        }
+        System.out.printf("🧩 Shard rebalance done: moved %d rows in %d ms%n", moved, (System.nanoTime() - start) / 1_000_000);
+        return moved;
+    }
+
+    private long drain(TransactionShard source) {
+        long scanned = 0;
+        long moved = 0;
+        List<Transaction> rows = source.jdbcTemplate().query(FIRST_PAGE, TransactionQueryRepository.ROW, batchRows);
+        while (!rows.isEmpty() && running) {
+            Map<TransactionShard, List<Transaction>> leaving = new LinkedHashMap<>();
+            for (Transaction t : rows) {
+                TransactionShard owner = shards.shardFor(t);
+                if (owner != source) leaving.computeIfAbsent(owner, s -> new ArrayList<>()).add(t);
+            }
+            for (Map.Entry<TransactionShard, List<Transaction>> move : leaving.entrySet()) {
+                move.getKey().insertIgnoreAll(move.getValue());
+                source.jdbcTemplate().batchUpdate(DELETE, move.getValue(), batchRows,
+                        (ps, t) -> {
+                            ps.setLong(1, Long.parseLong(t.getTransactionId()));
+                            ps.setObject(2, utc(t));
+                        });
+                moved += move.getValue().size();
+            }
+            scanned += rows.size();
+            Transaction last = rows.get(rows.size() - 1);
+            long lastId = Long.parseLong(last.getTransactionId());
+            rows = source.jdbcTemplate().query(NEXT_PAGE, TransactionQueryRepository.ROW,
+                    lastId, lastId, utc(last), batchRows);
+        }
+        System.out.printf("🧩 Shard %s: moved %d of %d rows to other shards%n", source.name(), moved, scanned);
+        return moved;
+    }
+
+    private static LocalDateTime utc(Transaction t) {
+        return LocalDateTime.ofInstant(t.getEventTime(), ZoneOffset.UTC);
+    }
+}
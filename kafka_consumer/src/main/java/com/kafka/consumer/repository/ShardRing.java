@@ -0,0 +1,53 @@
+package com.kafka.consumer.repository;
+
+import java.util.Arrays;
+import java.util.List;
+
+// Consistent-hash ring over shard names: each shard owns virtualNodes points, and a key belongs
+// to the first point at or after its hash. Points depend only on the shard's name, so adding a
+// shard takes about 1/N of the keys from each existing one and moves nothing else, and every
+// instance configured with the same names routes the same way. Keys and names are hashed with
+// 64-bit FNV-1a plus a finalizer, which unlike String.hashCode spreads similar ids apart.
+final class ShardRing {
+
+    private final long[] points;
+    private final int[] owners;
+
+    ShardRing(List<String> names, int virtualNodes) {
+        if (names.isEmpty()) throw new IllegalArgumentException("A shard ring needs at least one shard");
+        long[][] entries = new long[names.size() * virtualNodes][];
+        int n = 0;
+        for (int shard = 0; shard < names.size(); shard++) {
+            for (int node = 0; node < virtualNodes; node++) {
+                entries[n++] = new long[] {hash(names.get(shard) + "#" + node), shard};
+            }
+        }
+        Arrays.sort(entries, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        points = new long[entries.length];
+        owners = new int[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            points[i] = entries[i][0];
+            owners[i] = (int) entries[i][1];
+        }
+    }
+
+    // Index into the names the ring was built from
+    int owner(String key) {
+        int index = Arrays.binarySearch(points, hash(key));
+        if (index < 0) index = -index - 1;
+        return owners[index == points.length ? 0 : index];
+    }
+
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+}
@@ -0,0 +1,15 @@
+package com.kafka.consumer.repository;
+
+import java.util.List;
+
+import com.kafka.consumer.model.Transaction;
+
+// Fragment of TransactionRepository for writing a whole flush in as few round trips as possible
+public interface TransactionBatchRepository {
+
+    // INSERT IGNORE semantics: duplicates are skipped. Returns the number of rows actually inserted.
+    int insertIgnoreAll(List<Transaction> transactions);
+
+    // Same semantics through LOAD DATA LOCAL INFILE ... IGNORE, for large catch-up batches
+    int loadIgnoreAll(List<Transaction> transactions);
+}
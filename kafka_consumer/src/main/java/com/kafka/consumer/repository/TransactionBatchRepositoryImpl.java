@@ -0,0 +1,27 @@
+package com.kafka.consumer.repository;
+
+import java.util.List;
+
+import com.kafka.consumer.model.Transaction;
+
+// Writes through TransactionShards: straight to Spring's datasource with sharding off, split
+// across the shard databases and written in parallel with it on. TransactionShard holds the
+// INSERT IGNORE / LOAD DATA strategies.
+public class TransactionBatchRepositoryImpl implements TransactionBatchRepository {
+
+    private final TransactionShards shards;
+
+    public TransactionBatchRepositoryImpl(TransactionShards shards) {
+        this.shards = shards;
+    }
+
+    @Override
+    public int insertIgnoreAll(List<Transaction> transactions) {
+        return shards.insertIgnoreAll(transactions);
+    }
+
+    @Override
+    public int loadIgnoreAll(List<Transaction> transactions) {
+        return shards.loadIgnoreAll(transactions);
+    }
+}
@@ -0,0 +1,77 @@
+package com.kafka.consumer.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import com.kafka.consumer.model.Transaction;
+
+// Insert column list of the transaction table and the conversion of a Transaction's text fields
+// to its typed columns (see TransactionSchemaManager). A value that does not fit its column
+// throws SQLDataException — a CONSTRAINT failure, so the row goes to the dead-letter topic
+// rather than being stored as 0 by INSERT IGNORE, which turns conversion errors into warnings.
+final class TransactionColumns {
+
+    static final String INSERT_COLUMNS =
+            "(transaction_id, cost_per_item, country, item_code, item_description, number_of_item_purchased, transaction_time, user_id)";
+    static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private TransactionColumns() {
+    }
+
+    static int bind(PreparedStatement ps, int index, Transaction t) throws SQLException {
+        ps.setLong(index++, transactionId(t));
+        ps.setDouble(index++, t.getCostPerItem());
+        ps.setString(index++, t.getCountry());
+        setCode(ps, index++, t.getItemCode(), "item_code");
+        ps.setString(index++, t.getItemDescription());
+        ps.setInt(index++, t.getNumberOfItemPurchased());
+        ps.setObject(index++, transactionTime(t));
+        setCode(ps, index++, t.getUserId(), "user_id");
+        return index;
+    }
+
+    // Checks every typed column without binding, for paths that write the text forms directly
+    static void validate(Transaction t) throws SQLDataException {
+        transactionId(t);
+        code(t.getItemCode(), "item_code");
+        transactionTime(t);
+        code(t.getUserId(), "user_id");
+    }
+
+    static long transactionId(Transaction t) throws SQLDataException {
+        try {
+            return Long.parseLong(t.getTransactionId());
+        } catch (NumberFormatException e) {
+            throw new SQLDataException("transaction_id is not numeric: " + t.getTransactionId());
+        }
+    }
+
+    // Stored as a UTC wall-clock DATETIME, so partition bounds are UTC months
+    static LocalDateTime transactionTime(Transaction t) throws SQLDataException {
+        if (t.getEventTime() == null) {
+            throw new SQLDataException("transaction_time is not a valid timestamp: " + t.getTransactionTime());
+        }
+        return LocalDateTime.ofInstant(t.getEventTime(), ZoneOffset.UTC);
+    }
+
+    private static void setCode(PreparedStatement ps, int index, String value, String column) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.INTEGER);
+        } else {
+            ps.setInt(index, code(value, column));
+        }
+    }
+
+    private static int code(String value, String column) throws SQLDataException {
+        if (value == null) return 0;
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new SQLDataException(column + " is not a numeric INT: " + value);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.kafka.consumer.repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import com.kafka.consumer.model.Transaction;
+import com.kafka.consumer.model.TransactionTime;
+
+// Keyset-paginated reads of the transaction table: each page starts after the last row of the
+// previous one instead of at an OFFSET, so page N costs the same as page 1. By user and by
+// item, pages run newest id first; InnoDB secondary indexes end with the primary key, so
+// user_idx and item_idx already hold (key, transaction_id) in order and need no sort. By time
+// range, pages run oldest first on (transaction_time, transaction_id) over time_idx, and on
+// MySQL only the partitions of the range are read.
+//
+// With sharding on, every shard answers the page and the merged rows are cut to the limit: a
+// user's rows sit on several shards when sharding by transaction id, and any row can sit on its
+// old shard (or, for a moment, on both) while ShardRebalancer moves it.
+@Repository
+public class TransactionQueryRepository {
+
+    static final String SELECT = "SELECT transaction_id, user_id, transaction_time, item_code, item_description, " +
+            "number_of_item_purchased, cost_per_item, country FROM transaction ";
+    static final RowMapper<Transaction> ROW = (rs, n) -> new Transaction(String.valueOf(rs.getLong(1)),
+            code(rs, 2), TransactionTime.format(rs.getObject(3, LocalDateTime.class).toInstant(ZoneOffset.UTC)),
+            code(rs, 4), rs.getString(5), rs.getInt(6), rs.getDouble(7), rs.getString(8));
+
+    private static final Comparator<Transaction> NEWEST_ID_FIRST =
+            Comparator.comparingLong((Transaction t) -> Long.parseLong(t.getTransactionId())).reversed();
+    private static final Comparator<Transaction> OLDEST_TIME_FIRST = Comparator.comparing(Transaction::getEventTime)
+            .thenComparingLong(t -> Long.parseLong(t.getTransactionId()));
+
+    private final TransactionShards shards;
+
+    public TransactionQueryRepository(TransactionShards shards) {
+        this.shards = shards;
+    }
+
+    public List<Transaction> byUser(int userId, long beforeId, int limit) {
+        return query(SELECT + "WHERE user_id = ? AND transaction_id < ? ORDER BY transaction_id DESC LIMIT ?",
+                NEWEST_ID_FIRST, limit, userId, beforeId, limit);
+    }
+
+    public List<Transaction> byItem(int itemCode, long beforeId, int limit) {
+        return query(SELECT + "WHERE item_code = ? AND transaction_id < ? ORDER BY transaction_id DESC LIMIT ?",
+                NEWEST_ID_FIRST, limit, itemCode, beforeId, limit);
+    }
+
+    // [from, to) in UTC; afterTime and afterId are the last row of the previous page, or null for the first page
+    public List<Transaction> byTimeRange(LocalDateTime from, LocalDateTime to, LocalDateTime afterTime, long afterId, int limit) {
+        if (afterTime == null) {
+            return query(SELECT + "WHERE transaction_time >= ? AND transaction_time < ? " +
+                    "ORDER BY transaction_time, transaction_id LIMIT ?", OLDEST_TIME_FIRST, limit, from, to, limit);
+        }
+        return query(SELECT + "WHERE transaction_time >= ? AND transaction_time < ? " +
+                "AND (transaction_time > ? OR (transaction_time = ? AND transaction_id > ?)) " +
+                "ORDER BY transaction_time, transaction_id LIMIT ?", OLDEST_TIME_FIRST, limit,
+                from, to, afterTime, afterTime, afterId, limit);
+    }
+
+    // Each shard returns its own first limit rows, so the first limit of their merge are the page's
+    private List<Transaction> query(String sql, Comparator<Transaction> order, int limit, Object... args) {
+        List<TransactionShard> all = shards.shards();
+        if (all.size() == 1) return all.get(0).jdbcTemplate().query(sql, ROW, args);
+        List<Transaction> merged = new ArrayList<>();
+        for (TransactionShard shard : all) {
+            merged.addAll(shard.jdbcTemplate().query(sql, ROW, args));
+        }
+        merged.sort(order);
+        List<Transaction> page = new ArrayList<>(Math.min(limit, merged.size()));
+        for (Transaction t : merged) {
+            if (page.size() == limit) break;
+            // A row being moved by the rebalancer can be on both shards; copies sort next to each other
+            if (!page.isEmpty() && page.get(page.size() - 1).getTransactionId().equals(t.getTransactionId())) continue;
+            page.add(t);
+        }
+        return page;
+    }
+
+    private static String code(ResultSet rs, int column) throws SQLException {
+        int value = rs.getInt(column);
+        return rs.wasNull() ? null : String.valueOf(value);
+    }
+}
@@ -0,0 +1,221 @@
+package com.kafka.consumer.repository;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.kafka.consumer.model.Transaction;
+
+import jakarta.annotation.PostConstruct;
+
+// Owns the layout of the transaction table (Hibernate no longer creates it):
+//   transaction_id BIGINT, user_id / item_code INT, transaction_time a UTC DATETIME parsed at
+//   ingest, secondary indexes on user_id, country and item_code, and on transaction_time for
+//   the keyset-paginated range queries of TransactionQueryRepository.
+// On MySQL the table is RANGE-partitioned by month of transaction_time, so inserts touch the
+// current month's partition and time-range queries prune the rest. Months run from
+// partitions.from to ahead-months past the current one, with pbefore and pfuture catching rows
+// outside them; a daily check splits new months off pfuture before they start. MySQL requires
+// the partitioning column in every unique key, hence PRIMARY KEY (transaction_id,
+// transaction_time): a redelivered row repeats both, so INSERT IGNORE still drops it.
+//
+// A table in the old all-VARCHAR layout is migrated at startup, before the listeners start:
+// rows are copied in transaction_id order, batch-rows at a time, into transaction_typed, which
+// then replaces it; the old table is kept as transaction_legacy, along with any row whose
+// values do not fit the typed columns. The copy uses INSERT IGNORE, so an interrupted
+// migration simply runs again on the next start.
+@Component
+public class TransactionSchemaManager {
+
+    static final String TABLE = "transaction";
+    private static final String MIGRATION_TABLE = "transaction_typed";
+    private static final String LEGACY_TABLE = "transaction_legacy";
+    private static final String FUTURE_PARTITION = "pfuture";
+    private static final DateTimeFormatter PARTITION_MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+    // The same table on each shard database (TransactionShards)
+    private final List<TransactionSchemaManager> shards = new CopyOnWriteArrayList<>();
+
+    // false → the table is left as it is (created and maintained elsewhere)
+    @Value("${consumer.schema.managed:true}")
+    private boolean managed;
+
+    @Value("${consumer.schema.partitions.from:2018-01}")
+    private String partitionsFrom;
+
+    @Value("${consumer.schema.partitions.ahead-months:3}")
+    private int aheadMonths;
+
+    @Value("${consumer.schema.migration.batch-rows:10000}")
+    private int migrationBatchRows;
+
+    private boolean mysql;
+
+    public TransactionSchemaManager(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    void init() {
+        if (!managed) return;
+        mysql = Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                connection.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT).contains("mysql")));
+        Boolean legacy = hasLegacyLayout();
+        if (legacy == null) {
+            createTable(TABLE);
+            System.out.printf("🗂️ Created table %s%s%n", TABLE, mysql ? " partitioned by month" : "");
+        } else if (legacy) {
+            migrate();
+        }
+        addMonthlyPartitions();
+    }
+
+    // Creates, migrates and partitions the table on a shard's database like on this one; the
+    // daily partition check then covers it too
+    public void manage(JdbcTemplate shard) {
+        TransactionSchemaManager manager = new TransactionSchemaManager(shard);
+        manager.managed = managed;
+        manager.partitionsFrom = partitionsFrom;
+        manager.aheadMonths = aheadMonths;
+        manager.migrationBatchRows = migrationBatchRows;
+        manager.init();
+        shards.add(manager);
+    }
+
+    public void createTable(String table) {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + table + " (" +
+                "transaction_id BIGINT NOT NULL, " +
+                "transaction_time DATETIME NOT NULL, " +
+                "user_id INT, " +
+                "item_code INT, " +
+                "item_description VARCHAR(255), " +
+                "number_of_item_purchased INT NOT NULL, " +
+                "cost_per_item DOUBLE NOT NULL, " +
+                "country VARCHAR(64), " +
+                "PRIMARY KEY (transaction_id, transaction_time), " +
+                "KEY " + table + "_user_idx (user_id), " +
+                "KEY " + table + "_country_idx (country), " +
+                "KEY " + table + "_item_idx (item_code), " +
+                "KEY " + table + "_time_idx (transaction_time))" +
+                (mysql ? partitionClause(YearMonth.parse(partitionsFrom), currentMonth().plusMonths(aheadMonths)) : ""));
+    }
+
+    // Splits the months up to ahead-months from now off pfuture; a no-op on other databases
+    @Scheduled(fixedDelayString = "${consumer.schema.partitions.check.ms:86400000}",
+            initialDelayString = "${consumer.schema.partitions.check.ms:86400000}")
+    public synchronized void addMonthlyPartitions() {
+        for (TransactionSchemaManager shard : shards) {
+            shard.addMonthlyPartitions();
+        }
+        if (!managed || !mysql) return;
+        List<String> partitions = jdbcTemplate.queryForList("SELECT PARTITION_NAME FROM INFORMATION_SCHEMA.PARTITIONS " +
+                "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL", String.class, TABLE);
+        if (!partitions.contains(FUTURE_PARTITION)) return; // not partitioned by this class
+        YearMonth last = YearMonth.parse(partitionsFrom).minusMonths(1);
+        for (String partition : partitions) {
+            if (partition.matches("p\\d{6}")) {
+                YearMonth month = YearMonth.parse(partition.substring(1), PARTITION_MONTH);
+                if (month.isAfter(last)) last = month;
+            }
+        }
+        YearMonth until = currentMonth().plusMonths(aheadMonths);
+        if (!last.isBefore(until)) return;
+        StringBuilder sql = new StringBuilder("ALTER TABLE " + TABLE + " REORGANIZE PARTITION " + FUTURE_PARTITION + " INTO (");
+        appendMonths(sql, last.plusMonths(1), until);
+        sql.append("PARTITION ").append(FUTURE_PARTITION).append(" VALUES LESS THAN (MAXVALUE))");
+        jdbcTemplate.execute(sql.toString());
+        System.out.printf("🗂️ Added monthly partitions %s..%s to %s%n", last.plusMonths(1), until, TABLE);
+    }
+
+    static String partitionClause(YearMonth from, YearMonth until) {
+        StringBuilder sql = new StringBuilder(" PARTITION BY RANGE COLUMNS (transaction_time) (");
+        sql.append("PARTITION pbefore VALUES LESS THAN ('").append(from.atDay(1)).append("'), ");
+        appendMonths(sql, from, until);
+        sql.append("PARTITION ").append(FUTURE_PARTITION).append(" VALUES LESS THAN (MAXVALUE))");
+        return sql.toString();
+    }
+
+    private static void appendMonths(StringBuilder sql, YearMonth from, YearMonth until) {
+        for (YearMonth month = from; !month.isAfter(until); month = month.plusMonths(1)) {
+            sql.append("PARTITION p").append(PARTITION_MONTH.format(month))
+               .append(" VALUES LESS THAN ('").append(month.plusMonths(1).atDay(1)).append("'), ");
+        }
+    }
+
+    private static YearMonth currentMonth() {
+        return YearMonth.now(ZoneOffset.UTC);
+    }
+
+    // null when there is no transaction table yet; true when transaction_time is still text
+    private Boolean hasLegacyLayout() {
+        return jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            try (ResultSet columns = metaData.getColumns(connection.getCatalog(), null,
+                    identifier(metaData, TABLE), identifier(metaData, "transaction_time"))) {
+                if (!columns.next()) return null;
+                int type = columns.getInt("DATA_TYPE");
+                return type != Types.TIMESTAMP && type != Types.TIMESTAMP_WITH_TIMEZONE;
+            }
+        });
+    }
+
+    private static String identifier(DatabaseMetaData metaData, String name) throws SQLException {
+        return metaData.storesUpperCaseIdentifiers() ? name.toUpperCase(Locale.ROOT) : name;
+    }
+
+    void migrate() {
+        long start = System.nanoTime();
+        System.out.printf("🗂️ Migrating %s to the typed layout in batches of %d rows%n", TABLE, migrationBatchRows);
+        createTable(MIGRATION_TABLE);
+        String select = "SELECT transaction_id, user_id, transaction_time, item_code, item_description, " +
+                "number_of_item_purchased, cost_per_item, country FROM " + TABLE +
+                " WHERE transaction_id > ? ORDER BY transaction_id LIMIT ?";
+        String insert = "INSERT IGNORE INTO " + MIGRATION_TABLE + " " + TransactionColumns.INSERT_COLUMNS +
+                " VALUES " + TransactionColumns.ROW_PLACEHOLDERS;
+        String after = "";
+        long copied = 0;
+        long skipped = 0;
+        while (true) {
+            List<Transaction> rows = jdbcTemplate.query(select, (rs, n) -> new Transaction(rs.getString(1), rs.getString(2),
+                    rs.getString(3), rs.getString(4), rs.getString(5), rs.getInt(6), rs.getDouble(7), rs.getString(8)),
+                    after, migrationBatchRows);
+            if (rows.isEmpty()) break;
+            List<Transaction> typed = new ArrayList<>(rows.size());
+            for (Transaction t : rows) {
+                try {
+                    TransactionColumns.validate(t);
+                    typed.add(t);
+                } catch (SQLDataException e) {
+                    skipped++;
+                }
+            }
+            jdbcTemplate.batchUpdate(insert, typed, migrationBatchRows, (ps, t) -> TransactionColumns.bind(ps, 1, t));
+            copied += typed.size();
+            after = rows.get(rows.size() - 1).getTransactionId();
+        }
+        if (mysql) {
+            jdbcTemplate.execute("RENAME TABLE " + TABLE + " TO " + LEGACY_TABLE + ", " + MIGRATION_TABLE + " TO " + TABLE);
+        } else {
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " RENAME TO " + LEGACY_TABLE);
+            jdbcTemplate.execute("ALTER TABLE " + MIGRATION_TABLE + " RENAME TO " + TABLE);
+        }
+        System.out.printf("🗂️ Migrated %d rows in %d ms; %d rows that do not fit the typed columns stay in %s%n",
+                copied, (System.nanoTime() - start) / 1_000_000, skipped, LEGACY_TABLE);
+    }
+}
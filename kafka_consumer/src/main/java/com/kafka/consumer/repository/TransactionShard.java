@@ -0,0 +1,177 @@
+package com.kafka.consumer.repository;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.IntSupplier;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.StatementCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.kafka.consumer.model.Transaction;
+import com.mysql.cj.jdbc.JdbcStatement;
+import com.zaxxer.hikari.HikariDataSource;
+
+// One database holding a share of the transaction table, and the batched writer for it.
+//
+// multi-row   → one "INSERT IGNORE ... VALUES (..), (..), .." per rowsPerStatement rows
+// jdbc-batch  → single-row statement sent as a JDBC batch (add rewriteBatchedStatements=true
+//               to the MySQL URL so the driver rewrites it into multi-row inserts)
+// Both run on one connection inside one transaction.
+//
+// loadIgnoreAll streams the batch through LOAD DATA LOCAL INFILE from memory (needs
+// allowLoadLocalInfile=true on the URL and local_infile=ON on the server). Where that is not
+// available (another database, or local infile disabled) it falls back to insertIgnoreAll.
+//
+// The primary shard is Spring's own datasource, whose transaction an enclosing one (the offset
+// store's) joins; a configured shard has its own connection pool, transactions and writer threads.
+public final class TransactionShard {
+
+    private static final String INSERT_IGNORE = "INSERT IGNORE INTO transaction " + TransactionColumns.INSERT_COLUMNS + " VALUES ";
+    private static final String ROW_PLACEHOLDERS = TransactionColumns.ROW_PLACEHOLDERS;
+    // The file name is not opened: the driver reads the stream set on the statement instead
+    private static final String LOAD_DATA_IGNORE = "LOAD DATA LOCAL INFILE 'transactions.tsv' IGNORE INTO TABLE transaction " +
+            "CHARACTER SET utf8mb4 FIELDS TERMINATED BY '\\t' ESCAPED BY '\\\\' LINES TERMINATED BY '\\n' " +
+            TransactionColumns.INSERT_COLUMNS;
+    private static final int ER_NOT_ALLOWED_COMMAND = 1148;
+    private static final int ER_CLIENT_LOCAL_FILES_DISABLED = 3948;
+
+    private final String name;
+    private final JdbcTemplate jdbcTemplate;
+    private final String strategy;
+    private final int rowsPerStatement;
+    // null when writes run in the caller's transaction, if any
+    private final TransactionTemplate transactionTemplate;
+    // null for the primary shard, which is written on the caller's thread
+    private final ExecutorService writers;
+    private final HikariDataSource pool;
+    private volatile boolean loadDataUnavailable;
+
+    TransactionShard(String name, JdbcTemplate jdbcTemplate, String strategy, int rowsPerStatement,
+                     TransactionTemplate transactionTemplate, ExecutorService writers, HikariDataSource pool) {
+        this.name = name;
+        this.jdbcTemplate = jdbcTemplate;
+        this.strategy = strategy;
+        this.rowsPerStatement = rowsPerStatement;
+        this.transactionTemplate = transactionTemplate;
+        this.writers = writers;
+        this.pool = pool;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public JdbcTemplate jdbcTemplate() {
+        return jdbcTemplate;
+    }
+
+    public int insertIgnoreAll(List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return 0;
+        }
+        return inTransaction(() -> "jdbc-batch".equalsIgnoreCase(strategy)
+                ? insertWithJdbcBatch(transactions)
+                : insertWithMultiRowStatements(transactions));
+    }
+
+    public int loadIgnoreAll(List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return 0;
+        }
+        return inTransaction(() -> {
+            Integer loaded = loadDataUnavailable ? null
+                    : jdbcTemplate.execute((StatementCallback<Integer>) statement -> loadData(statement, transactions));
+            return loaded != null ? loaded : insertIgnoreAll(transactions);
+        });
+    }
+
+    Future<Integer> submit(Callable<Integer> write) {
+        return writers.submit(write);
+    }
+
+    void close() {
+        if (writers != null) writers.shutdown();
+        if (pool != null) pool.close();
+    }
+
+    private int inTransaction(IntSupplier write) {
+        if (transactionTemplate == null) return write.getAsInt();
+        return transactionTemplate.execute(status -> write.getAsInt());
+    }
+
+    // null when LOAD DATA LOCAL cannot be used on this connection
+    private Integer loadData(Statement statement, List<Transaction> transactions) throws SQLException {
+        if (!statement.isWrapperFor(JdbcStatement.class)) {
+            markLoadDataUnavailable("not a MySQL connection");
+            return null;
+        }
+        // LOAD DATA IGNORE would store bad values as 0 with a warning, so reject them up front
+        for (Transaction t : transactions) {
+            TransactionColumns.validate(t);
+        }
+        JdbcStatement mysql = statement.unwrap(JdbcStatement.class);
+        mysql.setLocalInfileInputStream(new TransactionTsvStream(transactions));
+        try {
+            return statement.executeUpdate(LOAD_DATA_IGNORE);
+        } catch (SQLException e) {
+            if (e.getErrorCode() != ER_NOT_ALLOWED_COMMAND && e.getErrorCode() != ER_CLIENT_LOCAL_FILES_DISABLED) throw e;
+            markLoadDataUnavailable(e.getMessage());
+            return null;
+        } finally {
+            mysql.setLocalInfileInputStream(null);
+        }
+    }
+
+    private void markLoadDataUnavailable(String reason) {
+        if (loadDataUnavailable) return;
+        loadDataUnavailable = true;
+        System.err.printf("⚠️ LOAD DATA LOCAL INFILE unavailable on shard %s (%s), bulk loads use multi-row inserts%n",
+                name, reason);
+    }
+
+    private int insertWithMultiRowStatements(List<Transaction> transactions) {
+        int inserted = 0;
+        String fullStatement = null;
+        for (int from = 0; from < transactions.size(); from += rowsPerStatement) {
+            List<Transaction> rows = transactions.subList(from, Math.min(from + rowsPerStatement, transactions.size()));
+            // Full-size chunks share one SQL string so the driver can reuse the prepared statement
+            String sql = rows.size() == rowsPerStatement
+                    ? (fullStatement != null ? fullStatement : (fullStatement = multiRowInsert(rowsPerStatement)))
+                    : multiRowInsert(rows.size());
+            inserted += jdbcTemplate.update(sql, ps -> {
+                int index = 1;
+                for (Transaction t : rows) {
+                    index = TransactionColumns.bind(ps, index, t);
+                }
+            });
+        }
+        return inserted;
+    }
+
+    private int insertWithJdbcBatch(List<Transaction> transactions) {
+        int[][] counts = jdbcTemplate.batchUpdate(INSERT_IGNORE + ROW_PLACEHOLDERS, transactions, rowsPerStatement,
+                (ps, t) -> TransactionColumns.bind(ps, 1, t));
+        int inserted = 0;
+        for (int[] chunk : counts) {
+            for (int count : chunk) {
+                if (count > 0) inserted += count; // rewritten batches report SUCCESS_NO_INFO
+            }
+        }
+        return inserted;
+    }
+
+    private static String multiRowInsert(int rows) {
+        StringBuilder sql = new StringBuilder(INSERT_IGNORE.length() + rows * (ROW_PLACEHOLDERS.length() + 2));
+        sql.append(INSERT_IGNORE);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) sql.append(", ");
+            sql.append(ROW_PLACEHOLDERS);
+        }
+        return sql.toString();
+    }
+}
@@ -0,0 +1,218 @@
+package com.kafka.consumer.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.kafka.consumer.model.Transaction;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// The databases the transaction table is spread over. With sharding off there is one shard,
+// Spring's datasource, and writes run exactly as before. With it on, each configured shard gets
+// its own Hikari pool of pool-size connections and as many writer threads, and a row goes to
+// the shard a ShardRing over the shard names picks for its transaction id (or user id). A
+// flush is split by shard and the parts are written in parallel, each in its own transaction
+// on its own shard; the flush returns once every part has committed or one has failed.
+//
+// Rows and offsets then no longer share one transaction: ConsumerOffsetRepository stores the
+// offset on the primary datasource after every shard committed, so a crash in between replays
+// the batch, and the replayed rows are dropped by INSERT IGNORE on the shard that has them.
+@Component
+public class TransactionShards {
+
+    static final String PRIMARY = "primary";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Environment environment;
+    private final TransactionSchemaManager schema;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${consumer.sharding.enabled:false}")
+    private boolean enabled;
+
+    // Names only: consumer.sharding.shard.<name>.url (and .username, .password) locate each one
+    @Value("${consumer.sharding.shards:}")
+    private List<String> names;
+
+    // transaction-id or user-id (rows without a user id fall back to their transaction id)
+    @Value("${consumer.sharding.key:transaction-id}")
+    private String key;
+
+    @Value("${consumer.sharding.virtual-nodes:160}")
+    private int virtualNodes;
+
+    @Value("${consumer.sharding.pool-size:4}")
+    private int poolSize;
+
+    @Value("${consumer.insert.strategy:multi-row}")
+    private String strategy;
+
+    @Value("${consumer.insert.rows-per-statement:500}")
+    private int rowsPerStatement;
+
+    private List<TransactionShard> shards;
+    private ShardRing ring;
+    private boolean byUser;
+
+    public TransactionShards(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                             Environment environment, TransactionSchemaManager schema, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionManager = transactionManager;
+        this.environment = environment;
+        this.schema = schema;
+        this.meterRegistry = meterRegistry;
+    }
+
+    // Sharding off, on the given database: for tests and tools
+    public static TransactionShards single(JdbcTemplate jdbcTemplate, String strategy, int rowsPerStatement) {
+        TransactionShards single = new TransactionShards(jdbcTemplate, null, null, null, null);
+        single.strategy = strategy;
+        single.rowsPerStatement = rowsPerStatement;
+        single.init();
+        return single;
+    }
+
+    @PostConstruct
+    void init() {
+        byUser = "user-id".equalsIgnoreCase(key);
+        if (!enabled) {
+            TransactionTemplate transactions = transactionManager == null ? null : new TransactionTemplate(transactionManager);
+            shards = List.of(new TransactionShard(PRIMARY, jdbcTemplate, strategy, rowsPerStatement, transactions, null, null));
+            ring = new ShardRing(List.of(PRIMARY), 1);
+            return;
+        }
+        if (names.isEmpty()) throw new IllegalStateException("consumer.sharding.enabled needs consumer.sharding.shards");
+        List<TransactionShard> opened = new ArrayList<>(names.size());
+        for (String name : names) {
+            opened.add(open(name));
+        }
+        shards = List.copyOf(opened);
+        ring = new ShardRing(names, virtualNodes);
+        System.out.printf("🧩 Writing transactions to %d shards %s by %s%n", shards.size(), names, byUser ? "user id" : "transaction id");
+    }
+
+    private TransactionShard open(String name) {
+        String prefix = "consumer.sharding.shard." + name + ".";
+        String url = environment.getProperty(prefix + "url");
+        if (url == null) throw new IllegalStateException("Shard " + name + " has no " + prefix + "url");
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName("shard-" + name);
+        pool.setJdbcUrl(url);
+        pool.setUsername(environment.getProperty(prefix + "username", environment.getProperty("spring.datasource.username")));
+        pool.setPassword(environment.getProperty(prefix + "password", environment.getProperty("spring.datasource.password")));
+        pool.setMaximumPoolSize(poolSize);
+        JdbcTemplate shardTemplate = new JdbcTemplate(pool);
+        if (schema != null) schema.manage(shardTemplate);
+        AtomicInteger threads = new AtomicInteger();
+        ExecutorService writers = Executors.newFixedThreadPool(poolSize, task -> {
+            Thread thread = new Thread(task, "shard-" + name + "-writer-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        return new TransactionShard(name, shardTemplate, strategy, rowsPerStatement,
+                new TransactionTemplate(new DataSourceTransactionManager(pool)), writers, pool);
+    }
+
+    @PreDestroy
+    void close() {
+        for (TransactionShard shard : shards) {
+            shard.close();
+        }
+    }
+
+    public boolean isSharded() {
+        return enabled;
+    }
+
+    public List<TransactionShard> shards() {
+        return shards;
+    }
+
+    public TransactionShard shardFor(Transaction t) {
+        return shards.get(ring.owner(routingKey(t)));
+    }
+
+    public int insertIgnoreAll(List<Transaction> transactions) {
+        return write(transactions, false);
+    }
+
+    public int loadIgnoreAll(List<Transaction> transactions) {
+        return write(transactions, true);
+    }
+
+    private int write(List<Transaction> transactions, boolean bulk) {
+        if (shards.size() == 1) return write(shards.get(0), transactions, bulk);
+        List<List<Transaction>> parts = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            parts.add(new ArrayList<>());
+        }
+        int first = -1;
+        boolean spread = false;
+        for (Transaction t : transactions) {
+            int shard = ring.owner(routingKey(t));
+            parts.get(shard).add(t);
+            if (first == -1) first = shard;
+            else if (shard != first) spread = true;
+        }
+        if (first == -1) return 0;
+        // All on one shard (a single-row retry, say): no hand-off
+        if (!spread) return write(shards.get(first), transactions, bulk);
+        List<Future<Integer>> writes = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            TransactionShard shard = shards.get(i);
+            List<Transaction> part = parts.get(i);
+            if (!part.isEmpty()) writes.add(shard.submit(() -> write(shard, part, bulk)));
+        }
+        // Wait for every part, so a failed flush retried row by row does not race its own writes
+        int inserted = 0;
+        RuntimeException failure = null;
+        for (Future<Integer> write : writes) {
+            try {
+                inserted += write.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof Error error) throw error;
+                if (failure == null) failure = e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TransientDataAccessResourceException("Interrupted waiting for shard writes", e);
+            }
+        }
+        if (failure != null) throw failure;
+        return inserted;
+    }
+
+    private int write(TransactionShard shard, List<Transaction> part, boolean bulk) {
+        long start = System.nanoTime();
+        int inserted = bulk ? shard.loadIgnoreAll(part) : shard.insertIgnoreAll(part);
+        if (enabled && meterRegistry != null) {
+            Timer.builder("consumer.shard.write").description("Time to write one flush's rows to one shard")
+                    .tag("shard", shard.name()).register(meterRegistry).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        return inserted;
+    }
+
+    private String routingKey(Transaction t) {
+        if (byUser && t.getUserId() != null) return t.getUserId();
+        return t.getTransactionId() != null ? t.getTransactionId() : "";
+    }
+}
@@ -0,0 +1,84 @@
+package com.kafka.consumer.repository;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.List;
+
+import com.kafka.consumer.model.Transaction;
+
+// The rows of a batch as the tab-separated text LOAD DATA reads, encoded one row at a time
+// while the driver pulls it, so a large batch never exists as one big buffer. Columns are in
+// TransactionColumns.INSERT_COLUMNS order, from rows already validated against it, with
+// transaction_time as UTC "yyyy-MM-dd HH:mm:ss"; tab, newline, carriage return, NUL and
+// backslash are escaped with a backslash and null is written as \N, matching FIELDS ESCAPED BY '\\'.
+final class TransactionTsvStream extends InputStream {
+
+    private static final DateTimeFormatter DATETIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final Iterator<Transaction> rows;
+    private final StringBuilder line = new StringBuilder(256);
+    private byte[] buffer = new byte[0];
+    private int position;
+
+    TransactionTsvStream(List<Transaction> rows) {
+        this.rows = rows.iterator();
+    }
+
+    @Override
+    public int read() {
+        if (!fill()) return -1;
+        return buffer[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] target, int offset, int length) {
+        if (length == 0) return 0;
+        int copied = 0;
+        while (copied < length && fill()) {
+            int n = Math.min(length - copied, buffer.length - position);
+            System.arraycopy(buffer, position, target, offset + copied, n);
+            position += n;
+            copied += n;
+        }
+        return copied == 0 ? -1 : copied;
+    }
+
+    private boolean fill() {
+        if (position < buffer.length) return true;
+        if (!rows.hasNext()) return false;
+        Transaction t = rows.next();
+        line.setLength(0);
+        text(t.getTransactionId()).append('\t');
+        line.append(t.getCostPerItem()).append('\t');
+        text(t.getCountry()).append('\t');
+        text(t.getItemCode()).append('\t');
+        text(t.getItemDescription()).append('\t');
+        line.append(t.getNumberOfItemPurchased()).append('\t');
+        DATETIME.formatTo(LocalDateTime.ofInstant(t.getEventTime(), ZoneOffset.UTC), line);
+        line.append('\t');
+        text(t.getUserId()).append('\n');
+        buffer = line.toString().getBytes(StandardCharsets.UTF_8);
+        position = 0;
+        return true;
+    }
+
+    private StringBuilder text(String value) {
+        if (value == null) return line.append("\\N");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\t' -> line.append("\\t");
+                case '\n' -> line.append("\\n");
+                case '\r' -> line.append("\\r");
+                case '\0' -> line.append("\\0");
+                case '\\' -> line.append("\\\\");
+                default -> line.append(c);
+            }
+        }
+        return line;
+    }
+}
@@ -0,0 +1,40 @@
+package com.kafka.consumer.retry;
+
+import java.sql.SQLDataException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+
+// Why a record could not be stored, which decides where it goes next:
+// DESERIALIZATION and CONSTRAINT fail the same way every time → dead-letter topic;
+// TRANSIENT_DB (and anything unrecognised) → retry tiers, then dead-letter topic.
+public enum FailureCause {
+
+    DESERIALIZATION,
+    CONSTRAINT,
+    TRANSIENT_DB;
+
+    public static FailureCause classify(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof DataIntegrityViolationException
+                    || t instanceof SQLIntegrityConstraintViolationException
+                    || t instanceof SQLDataException) {
+                return CONSTRAINT;
+            }
+            if (t instanceof TransientDataAccessException
+                    || t instanceof RecoverableDataAccessException
+                    || t instanceof DataAccessResourceFailureException
+                    || t instanceof SQLTransientException
+                    || t instanceof SQLRecoverableException) {
+                return TRANSIENT_DB;
+            }
+        }
+        return error instanceof NonTransientDataAccessException ? CONSTRAINT : TRANSIENT_DB;
+    }
+}
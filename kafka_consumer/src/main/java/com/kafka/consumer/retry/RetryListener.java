@@ -0,0 +1,96 @@
+package com.kafka.consumer.retry;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import com.kafka.consumer.aggregation.WindowedAggregator;
+import com.kafka.consumer.logging.RecordLog;
+import com.kafka.consumer.model.Transaction;
+import com.kafka.consumer.pipeline.DuplicateFilter;
+import com.kafka.consumer.query.TransactionQueryCache;
+import com.kafka.consumer.repository.TransactionRepository;
+import com.kafka.consumer.serialization.TransactionDeserializer;
+
+// Consumes every retry tier in its own consumer group, so a waiting retry never holds up the
+// main topic. Each tier has a single delay, so its records are due in offset order: a record
+// that is not due yet is nacked, which pauses just that partition until it is.
+@Component
+public class RetryListener {
+
+    private final TransactionDeserializer transactionDeserializer;
+    private final TransactionRepository repository;
+    private final DuplicateFilter duplicates;
+    private final WindowedAggregator aggregator;
+    private final TransactionQueryCache queryCache;
+    private final RetryPublisher publisher;
+    private final RecordLog recordLog;
+
+    @Value("${consumer.retry.max-pause.ms:30000}")
+    private long maxPauseMs;
+
+    public RetryListener(TransactionDeserializer transactionDeserializer, TransactionRepository repository,
+                         DuplicateFilter duplicates, WindowedAggregator aggregator, TransactionQueryCache queryCache,
+                         RetryPublisher publisher, RecordLog recordLog) {
+        this.transactionDeserializer = transactionDeserializer;
+        this.repository = repository;
+        this.duplicates = duplicates;
+        this.aggregator = aggregator;
+        this.queryCache = queryCache;
+        this.publisher = publisher;
+        this.recordLog = recordLog;
+    }
+
+    @KafkaListener(
+        id = "transaction-retry",
+        topics = "#{@retryTopics.tierTopics()}",
+        groupId = "${spring.kafka.consumer.group-id}-retry",
+        containerFactory = "retryListenerContainerFactory",
+        autoStartup = "${consumer.retry.enabled:true}"
+    )
+    public void onRetry(ConsumerRecord<String, byte[]> record, Acknowledgment ack) {
+        long wait = longHeader(record, RetryPublisher.DUE_AT_HEADER) - System.currentTimeMillis();
+        if (wait > 0) {
+            ack.nack(Duration.ofMillis(Math.min(wait, maxPauseMs)));
+            return;
+        }
+
+        Transaction transaction;
+        try {
+            transaction = transactionDeserializer.deserialize(record.topic(), record.value());
+        } catch (Exception e) {
+            publisher.deadLetter(record, FailureCause.DESERIALIZATION, e);
+            ack.acknowledge();
+            return;
+        }
+
+        List<Transaction> rows = List.of(transaction);
+        try {
+            int inserted = repository.insertIgnoreAll(rows);
+            duplicates.markSeen(rows);
+            // A redelivered record finds its row already stored, unless it is re-read after a crash
+            aggregator.add(new TopicPartition(record.topic(), record.partition()), rows, new long[] {record.offset()},
+                    inserted > 0 ? rows : List.of());
+            queryCache.onStored(rows);
+            recordLog.info("✅ Retry %d stored Txn %s from %s%n", longHeader(record, RetryPublisher.ATTEMPT_HEADER),
+                    transaction.getTransactionId(), record.topic());
+        } catch (RuntimeException e) {
+            publisher.reroute(rows, (int) longHeader(record, RetryPublisher.ATTEMPT_HEADER), e,
+                    record.topic() + "-" + record.partition() + "@" + record.offset());
+        }
+        ack.acknowledge();
+    }
+
+    private static long longHeader(ConsumerRecord<?, ?> record, String name) {
+        Header header = record.headers().lastHeader(name);
+        return header != null ? Long.parseLong(new String(header.value(), StandardCharsets.UTF_8)) : 0;
+    }
+}
@@ -0,0 +1,106 @@
+package com.kafka.consumer.retry;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kafka.consumer.logging.RecordLog;
+import com.kafka.consumer.model.Transaction;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Hands records that could not be stored over to the retry tiers or the dead-letter topic,
+// so the partition they came from keeps moving. Sends are synchronous: the caller completes
+// the record's offset only once the broker has it.
+@Component
+public class RetryPublisher {
+
+    public static final String ATTEMPT_HEADER = "retry-attempt";
+    public static final String DUE_AT_HEADER = "retry-due-at";
+    public static final String CAUSE_HEADER = "failure-cause";
+    public static final String MESSAGE_HEADER = "failure-message";
+    public static final String ORIGIN_HEADER = "failure-origin";
+
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final RetryTopics topics;
+    private final RecordLog recordLog;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Value("${consumer.retry.enabled:true}")
+    private boolean enabled;
+
+    @Value("${consumer.retry.send.timeout.ms:30000}")
+    private long sendTimeoutMs;
+
+    public RetryPublisher(KafkaTemplate<String, byte[]> kafkaTemplate, RetryTopics topics, RecordLog recordLog,
+                          MeterRegistry meterRegistry) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.topics = topics;
+        this.recordLog = recordLog;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // attempts = retry tiers the rows have already been through; rethrows when disabled
+    public void reroute(List<Transaction> rows, int attempts, RuntimeException error, String origin) {
+        if (!enabled) throw error;
+        FailureCause cause = FailureCause.classify(error);
+        for (Transaction t : rows) {
+            try {
+                send(t.getUserId(), objectMapper.writeValueAsBytes(t), attempts, cause, error, origin);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    // Raw value kept as received, for records that cannot be decoded at all
+    public void deadLetter(ConsumerRecord<String, byte[]> record, FailureCause cause, Throwable error) {
+        if (!enabled) return;
+        send(record.key(), record.value(), topics.tiers(), cause, error,
+                record.topic() + "-" + record.partition() + "@" + record.offset());
+    }
+
+    private void send(String key, byte[] value, int attempts, FailureCause cause, Throwable error, String origin) {
+        boolean dead = cause != FailureCause.TRANSIENT_DB || attempts >= topics.tiers();
+        String topic = dead ? topics.deadLetterTopic() : topics.tierTopic(attempts);
+        ProducerRecord<String, byte[]> record = new ProducerRecord<>(topic, key, value);
+        record.headers().add(ATTEMPT_HEADER, bytes(String.valueOf(attempts + 1)));
+        if (!dead) {
+            record.headers().add(DUE_AT_HEADER, bytes(String.valueOf(System.currentTimeMillis() + topics.delayMs(attempts))));
+        }
+        record.headers().add(CAUSE_HEADER, bytes(cause.name()));
+        record.headers().add(MESSAGE_HEADER, bytes(String.valueOf(error.getMessage())));
+        record.headers().add(ORIGIN_HEADER, bytes(origin));
+
+        try {
+            kafkaTemplate.send(record).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new KafkaException("Interrupted while routing to " + topic, e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new KafkaException("Could not route record to " + topic, e);
+        }
+        meterRegistry.counter("consumer.retry.routed", "target", dead ? "dlt" : "retry", "cause", cause.name()).increment();
+        recordLog.info("🔁 Routed record key=%s from %s to %s (%s: %s)%n", key, origin, topic, cause, error.getMessage());
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,43 @@
+package com.kafka.consumer.retry;
+
+import java.util.Collection;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+
+import com.kafka.consumer.aggregation.WindowedAggregator;
+
+// Set on the retry listener's container factory only (a second bean of this type would hide
+// TransactionRebalanceListener from Boot's factory). Retry records counted into window deltas
+// that were lost with a crash are re-read from the aggregated offset.
+public class RetryRebalanceListener implements ConsumerAwareRebalanceListener {
+
+    private final WindowedAggregator aggregator;
+
+    public RetryRebalanceListener(WindowedAggregator aggregator) {
+        this.aggregator = aggregator;
+    }
+
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        for (TopicPartition partition : partitions) {
+            long position = consumer.position(partition);
+            long offset = aggregator.resumeOffset(partition, position);
+            if (offset >= 0) {
+                consumer.seek(partition, offset);
+                System.out.printf("⏪ %s resumes at %d for the aggregates (position was %d)%n", partition, offset, position);
+            }
+        }
+    }
+
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        aggregator.release(partitions);
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        aggregator.discard(partitions);
+    }
+}
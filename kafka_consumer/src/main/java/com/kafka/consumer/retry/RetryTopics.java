@@ -0,0 +1,45 @@
+package com.kafka.consumer.retry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// <topic>-retry-<delayMs> per configured back-off, in escalating order, then <topic>-dlt
+@Component
+public class RetryTopics {
+
+    private final String topic;
+    private final long[] backoffMs;
+
+    public RetryTopics(@Value("${kafka.topic.name}") String topic,
+                       @Value("${consumer.retry.backoff.ms:1000,10000,60000}") long[] backoffMs) {
+        this.topic = topic;
+        this.backoffMs = backoffMs.clone();
+    }
+
+    public int tiers() {
+        return backoffMs.length;
+    }
+
+    public String tierTopic(int tier) {
+        return topic + "-retry-" + backoffMs[tier];
+    }
+
+    public long delayMs(int tier) {
+        return backoffMs[tier];
+    }
+
+    public String deadLetterTopic() {
+        return topic + "-dlt";
+    }
+
+    public String[] tierTopics() {
+        List<String> names = new ArrayList<>();
+        for (int tier = 0; tier < backoffMs.length; tier++) {
+            names.add(tierTopic(tier));
+        }
+        return names.toArray(String[]::new);
+    }
+}
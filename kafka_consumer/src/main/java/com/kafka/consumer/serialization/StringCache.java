@@ -0,0 +1,74 @@
+package com.kafka.consumer.serialization;
+
+import java.nio.charset.StandardCharsets;
+
+// Direct-mapped cache of decoded field values, so repeated values (countries, item codes,
+// descriptions, timestamps of one file) share a single String instead of allocating one per
+// record. A slot holds the last value that hashed to it; a collision simply replaces it.
+// Slots hold immutable Strings, so decode threads can share a cache without locking: a racing
+// write only costs a miss.
+final class StringCache {
+
+    private final String[] slots;
+    private final int mask;
+
+    StringCache(int size) {
+        int capacity = Integer.highestOneBit(Math.max(2, size) - 1) << 1;
+        this.slots = new String[capacity];
+        this.mask = capacity - 1;
+    }
+
+    String get(char[] chars, int offset, int length) {
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + chars[offset + i];
+        }
+        int slot = spread(hash) & mask;
+        String cached = slots[slot];
+        if (cached != null && cached.hashCode() == hash && matches(cached, chars, offset, length)) {
+            return cached;
+        }
+        String value = new String(chars, offset, length);
+        slots[slot] = value;
+        return value;
+    }
+
+    // UTF-8 input; the hash equals String.hashCode() for ASCII, which is all a hit can be
+    String get(byte[] bytes, int offset, int length) {
+        int hash = 0;
+        boolean ascii = true;
+        for (int i = 0; i < length; i++) {
+            byte b = bytes[offset + i];
+            ascii &= b >= 0;
+            hash = 31 * hash + b;
+        }
+        int slot = spread(hash) & mask;
+        String cached = slots[slot];
+        if (ascii && cached != null && cached.hashCode() == hash && matches(cached, bytes, offset, length)) {
+            return cached;
+        }
+        String value = new String(bytes, offset, length, StandardCharsets.UTF_8);
+        if (ascii) slots[slot] = value;
+        return value;
+    }
+
+    private static boolean matches(String cached, char[] chars, int offset, int length) {
+        if (cached.length() != length) return false;
+        for (int i = 0; i < length; i++) {
+            if (cached.charAt(i) != chars[offset + i]) return false;
+        }
+        return true;
+    }
+
+    private static boolean matches(String cached, byte[] bytes, int offset, int length) {
+        if (cached.length() != length) return false;
+        for (int i = 0; i < length; i++) {
+            if (cached.charAt(i) != bytes[offset + i]) return false;
+        }
+        return true;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
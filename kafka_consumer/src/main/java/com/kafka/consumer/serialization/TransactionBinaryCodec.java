@@ -0,0 +1,136 @@
+package com.kafka.consumer.serialization;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.apache.kafka.common.errors.SerializationException;
+
+import com.kafka.consumer.model.Transaction;
+
+// Decodes the binary wire format written by com.kafka.producer.serialization.TransactionBinaryCodec:
+// magic byte 0x00, 4-byte schema id, then the writer schema's fields in order. Fields the
+// consumer does not know are skipped, so producers can add fields without breaking it.
+public final class TransactionBinaryCodec {
+
+    public static final byte MAGIC_BYTE = 0x00;
+
+    private final FileSchemaRegistry registry;
+    private final TransactionFieldCaches caches;
+    private final int currentSchemaId = TransactionSchema.CURRENT.id();
+
+    public TransactionBinaryCodec(FileSchemaRegistry registry) {
+        this(registry, new TransactionFieldCaches());
+    }
+
+    TransactionBinaryCodec(FileSchemaRegistry registry, TransactionFieldCaches caches) {
+        this.registry = registry;
+        this.caches = caches;
+    }
+
+    public Transaction decode(byte[] data) {
+        Reader in = new Reader(data);
+        if (in.readByte() != MAGIC_BYTE) {
+            throw new SerializationException("Not a binary transaction record");
+        }
+        int schemaId = in.readFixedInt();
+        Transaction t = new Transaction();
+
+        if (schemaId == currentSchemaId) {
+            t.setTransactionId(in.readString(null));
+            t.setUserId(in.readString(caches.userId()));
+            t.setTransactionTime(in.readString(caches.transactionTime()));
+            t.setItemCode(in.readString(caches.itemCode()));
+            t.setItemDescription(in.readString(caches.itemDescription()));
+            t.setNumberOfItemPurchased(in.readVarInt());
+            t.setCostPerItem(in.readDouble());
+            t.setCountry(in.readString(caches.country()));
+            return t;
+        }
+
+        List<TransactionSchema.Field> fields = registry.lookup(TransactionSchema.CURRENT.subject(), schemaId).fields();
+        for (TransactionSchema.Field field : fields) {
+            Object value = switch (field.type()) {
+                case "string" -> in.readString(caches.forField(field.name()));
+                case "int" -> in.readVarInt();
+                case "double" -> in.readDouble();
+                default -> throw new SerializationException("Unsupported field type " + field.type());
+            };
+            switch (field.name()) {
+                case "transactionId" -> t.setTransactionId((String) value);
+                case "userId" -> t.setUserId((String) value);
+                case "transactionTime" -> t.setTransactionTime((String) value);
+                case "itemCode" -> t.setItemCode((String) value);
+                case "itemDescription" -> t.setItemDescription((String) value);
+                case "numberOfItemPurchased" -> t.setNumberOfItemPurchased((Integer) value);
+                case "costPerItem" -> t.setCostPerItem((Double) value);
+                case "country" -> t.setCountry((String) value);
+                default -> { } // unknown to this consumer version
+            }
+        }
+        return t;
+    }
+
+    private static final class Reader {
+
+        private final byte[] data;
+        private int position;
+
+        Reader(byte[] data) {
+            this.data = data;
+        }
+
+        byte readByte() {
+            require(1);
+            return data[position++];
+        }
+
+        int readFixedInt() {
+            require(4);
+            return ((data[position++] & 0xFF) << 24) | ((data[position++] & 0xFF) << 16)
+                    | ((data[position++] & 0xFF) << 8) | (data[position++] & 0xFF);
+        }
+
+        int readVarInt() {
+            int raw = readUnsignedVarInt();
+            return (raw >>> 1) ^ -(raw & 1); // zigzag
+        }
+
+        int readUnsignedVarInt() {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                byte b = readByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new SerializationException("Malformed varint at " + position);
+        }
+
+        double readDouble() {
+            long high = readFixedInt() & 0xFFFFFFFFL;
+            long low = readFixedInt() & 0xFFFFFFFFL;
+            return Double.longBitsToDouble((high << 32) | low);
+        }
+
+        // Repeating fields are resolved through their cache straight from the record bytes
+        String readString(StringCache cache) {
+            int length = readUnsignedVarInt() - 1;
+            if (length < 0) {
+                return null;
+            }
+            require(length);
+            String value = cache != null
+                    ? cache.get(data, position, length)
+                    : new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        private void require(int bytes) {
+            if (position + bytes > data.length) {
+                throw new SerializationException("Truncated transaction record at " + position);
+            }
+        }
+    }
+}
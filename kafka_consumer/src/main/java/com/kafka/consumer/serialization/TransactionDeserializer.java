@@ -0,0 +1,67 @@
+package com.kafka.consumer.serialization;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import com.kafka.consumer.model.Transaction;
+
+// Reads a Transaction written as JSON or as the binary format. With transaction.value.format=auto
+// the format is picked per record from the first byte, so JSON and binary producers can run
+// side by side during the migration. Both decoders share one set of field caches, so the
+// values repeated across records (country, item, description, timestamp) are not
+// reallocated per record.
+public class TransactionDeserializer implements Deserializer<Transaction> {
+
+    public static final String FORMAT_CONFIG = "transaction.value.format";
+    public static final String REGISTRY_DIR_CONFIG = "transaction.schema.registry.dir";
+
+    private String format = "auto";
+    private TransactionJsonReader jsonReader;
+    private TransactionBinaryCodec binaryCodec;
+
+    public TransactionDeserializer() {
+    }
+
+    public TransactionDeserializer(String format, Path registryDir) {
+        init(format, registryDir);
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        Object format = configs.get(FORMAT_CONFIG);
+        Object registryDir = configs.get(REGISTRY_DIR_CONFIG);
+        init(format != null ? format.toString() : "auto", Path.of(registryDir != null ? registryDir.toString() : "data/schemas"));
+    }
+
+    private void init(String format, Path registryDir) {
+        this.format = format.toLowerCase();
+        FileSchemaRegistry registry = new FileSchemaRegistry(registryDir);
+        registry.register(TransactionSchema.CURRENT);
+        TransactionFieldCaches caches = new TransactionFieldCaches();
+        this.jsonReader = new TransactionJsonReader(caches);
+        this.binaryCodec = new TransactionBinaryCodec(registry, caches);
+    }
+
+    @Override
+    public Transaction deserialize(String topic, byte[] data) {
+        if (data == null || data.length == 0) {
+            return null;
+        }
+        boolean binary = switch (format) {
+            case "binary" -> true;
+            case "json" -> false;
+            default -> data[0] == TransactionBinaryCodec.MAGIC_BYTE;
+        };
+        if (binary) {
+            return binaryCodec.decode(data);
+        }
+        try {
+            return jsonReader.read(data);
+        } catch (Exception e) {
+            throw new SerializationException("JSON conversion failed for record on " + topic, e);
+        }
+    }
+}
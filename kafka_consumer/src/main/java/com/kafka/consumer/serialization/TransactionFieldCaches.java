@@ -0,0 +1,23 @@
+package com.kafka.consumer.serialization;
+
+// One StringCache per repeating Transaction field, shared by the JSON and binary decoders.
+// The transaction id is unique per row and is never cached.
+record TransactionFieldCaches(StringCache userId, StringCache transactionTime, StringCache itemCode,
+                              StringCache itemDescription, StringCache country) {
+
+    TransactionFieldCaches() {
+        this(new StringCache(8192), new StringCache(1024), new StringCache(8192), new StringCache(8192),
+                new StringCache(256));
+    }
+
+    StringCache forField(String name) {
+        return switch (name) {
+            case "userId" -> userId;
+            case "transactionTime" -> transactionTime;
+            case "itemCode" -> itemCode;
+            case "itemDescription" -> itemDescription;
+            case "country" -> country;
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,83 @@
+package com.kafka.consumer.serialization;
+
+import java.io.IOException;
+
+import org.apache.kafka.common.errors.SerializationException;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.kafka.consumer.model.Transaction;
+
+// Streaming decode of a JSON value straight from the record bytes into a Transaction, without
+// databind's per-call context and reflection. Field names come back canonicalized from the
+// parser's symbol table, and repeated values are resolved through the field caches from the
+// parser's char buffer, so only the transaction id and the row itself are new per record.
+// Accepts what the ObjectMapper path accepted: unknown fields are an error, scalars are
+// coerced between strings and numbers, and null leaves a field at its default.
+final class TransactionJsonReader {
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final TransactionFieldCaches caches;
+
+    TransactionJsonReader(TransactionFieldCaches caches) {
+        this.caches = caches;
+    }
+
+    Transaction read(byte[] data) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(data)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new SerializationException("Expected a JSON object");
+            }
+            Transaction t = new Transaction();
+            String name;
+            while ((name = parser.nextFieldName()) != null) {
+                JsonToken value = parser.nextToken();
+                switch (name) {
+                    case "transactionId" -> t.setTransactionId(text(parser, value, null));
+                    case "userId" -> t.setUserId(text(parser, value, caches.userId()));
+                    case "transactionTime" -> t.setTransactionTime(text(parser, value, caches.transactionTime()));
+                    case "itemCode" -> t.setItemCode(text(parser, value, caches.itemCode()));
+                    case "itemDescription" -> t.setItemDescription(text(parser, value, caches.itemDescription()));
+                    case "numberOfItemPurchased" -> t.setNumberOfItemPurchased(intValue(parser, value));
+                    case "costPerItem" -> t.setCostPerItem(doubleValue(parser, value));
+                    case "country" -> t.setCountry(text(parser, value, caches.country()));
+                    default -> throw new SerializationException("Unrecognized field \"" + name + "\"");
+                }
+            }
+            if (parser.currentToken() != JsonToken.END_OBJECT) {
+                throw new SerializationException("Malformed JSON object");
+            }
+            return t;
+        }
+    }
+
+    private static String text(JsonParser parser, JsonToken token, StringCache cache) throws IOException {
+        return switch (token) {
+            case VALUE_NULL -> null;
+            case VALUE_STRING -> cache == null
+                    ? parser.getText()
+                    : cache.get(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+            case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT, VALUE_TRUE, VALUE_FALSE -> parser.getText();
+            default -> throw new SerializationException("Expected a string, got " + token);
+        };
+    }
+
+    private static int intValue(JsonParser parser, JsonToken token) throws IOException {
+        return switch (token) {
+            case VALUE_NULL -> 0;
+            case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> parser.getValueAsInt();
+            case VALUE_STRING -> Integer.parseInt(parser.getText().trim());
+            default -> throw new SerializationException("Expected an int, got " + token);
+        };
+    }
+
+    private static double doubleValue(JsonParser parser, JsonToken token) throws IOException {
+        return switch (token) {
+            case VALUE_NULL -> 0;
+            case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> parser.getDoubleValue();
+            case VALUE_STRING -> Double.parseDouble(parser.getText().trim());
+            default -> throw new SerializationException("Expected a number, got " + token);
+        };
+    }
+}
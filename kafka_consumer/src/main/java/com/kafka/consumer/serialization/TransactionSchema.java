@@ -0,0 +1,56 @@
+package com.kafka.consumer.serialization;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Ordered field list of the binary Transaction wire format. The schema id is a fingerprint
+// of the canonical JSON, so producer and consumer agree on ids without a registry round trip.
+// Keep in sync with com.kafka.producer.serialization.TransactionSchema.
+public record TransactionSchema(String subject, List<Field> fields) {
+
+    public record Field(String name, String type) {
+    }
+
+    public static final TransactionSchema CURRENT = new TransactionSchema("transaction", List.of(
+            new Field("transactionId", "string"),
+            new Field("userId", "string"),
+            new Field("transactionTime", "string"),
+            new Field("itemCode", "string"),
+            new Field("itemDescription", "string"),
+            new Field("numberOfItemPurchased", "int"),
+            new Field("costPerItem", "double"),
+            new Field("country", "string")
+    ));
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public String toJson() {
+        try {
+            return MAPPER.writeValueAsString(this);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot write schema " + subject, e);
+        }
+    }
+
+    public static TransactionSchema fromJson(String json) {
+        try {
+            return MAPPER.readValue(json, TransactionSchema.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid schema: " + json, e);
+        }
+    }
+
+    public int id() {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(toJson().getBytes(StandardCharsets.UTF_8));
+            return ((digest[0] & 0xFF) << 24) | ((digest[1] & 0xFF) << 16) | ((digest[2] & 0xFF) << 8) | (digest[3] & 0xFF);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
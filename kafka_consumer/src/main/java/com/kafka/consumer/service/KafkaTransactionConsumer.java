@@ -1,107 +1,84 @@
 package com.kafka.consumer.service;
 
-import java.time.Instant;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
-import org.springframework.beans.factory.annotation.Value;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.context.event.EventListener;
 import org.springframework.kafka.annotation.KafkaListener;
-import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.event.ListenerContainerIdleEvent;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.kafka.consumer.model.Transaction;
+import com.kafka.consumer.pipeline.IngestPipeline;
+import com.kafka.consumer.pipeline.OffsetTracker;
 
-import com.kafka.consumer.repository.TransactionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 
 @Service
 public class KafkaTransactionConsumer {
 
-    private final TransactionRepository nativeRepository;
-    private final ObjectMapper objectMapper = new ObjectMapper();
-
-    @Value("${consumer.batch.size:50}")
-    private int batchSize;
-
-    @Value("${consumer.flush.interval.ms:60000}")
-    private long flushIntervalMs;
-
-    // ThreadLocal buffer → one buffer per consumer thread
-    private final ThreadLocal<List<Transaction>> transactionBuffer =
-            ThreadLocal.withInitial(ArrayList::new);
-
-    // Last flush timestamp for each thread
-    private final ThreadLocal<Long> lastFlushTime =
-            ThreadLocal.withInitial(System::currentTimeMillis);
-
-    public KafkaTransactionConsumer(TransactionRepository nativeRepository) {
-        this.nativeRepository = nativeRepository;
+    private final IngestPipeline pipeline;
+    private final OffsetTracker offsetTracker;
+    private final Timer consumeTimer;
+    private final Counter consumedRecords;
+    private final Counter consumedBytes;
+
+    public KafkaTransactionConsumer(IngestPipeline pipeline, OffsetTracker offsetTracker, MeterRegistry meterRegistry) {
+        this.pipeline = pipeline;
+        this.offsetTracker = offsetTracker;
+        this.consumeTimer = Timer.builder("consumer.consume")
+                .description("Listener call per poll: hand-off to the pipeline (incl. backpressure) and commit")
+                .register(meterRegistry);
+        this.consumedRecords = Counter.builder("consumer.records").register(meterRegistry);
+        this.consumedBytes = Counter.builder("consumer.bytes").baseUnit("bytes").register(meterRegistry);
     }
 
-    @Transactional //If even one fails → all records are rolled back ❌, so no partial writes.
     @KafkaListener(
+        id = ListenerConcurrencyAutoscaler.LISTENER_ID,
+        idIsGroup = false,
         topics = "${kafka.topic.name}",
         groupId = "${spring.kafka.consumer.group-id}",
-        concurrency = "2" // Two consumer threads per instance
+        concurrency = "${consumer.concurrency.initial:2}", // Starting point; ListenerConcurrencyAutoscaler adjusts it
+        batch = "true" // Whole poll (up to max-poll-records) per call
     )
-    public void consume(ConsumerRecord<String, String> record, Acknowledgment acknowledgment) {
-        try {
-            Transaction transaction = objectMapper.readValue(record.value(), Transaction.class);
-
-            // Add to thread-local buffer
-            List<Transaction> buffer = transactionBuffer.get();
-            buffer.add(transaction);
-
-            System.out.printf(
-                "📥 Thread %s buffered Txn: %s | 🕒 %s | Partition: %d | Offset: %d | Key: %s%n",
-                Thread.currentThread().getName(),
-                transaction.getTransactionId(),
-                Instant.ofEpochMilli(record.timestamp()),
-                record.partition(),
-                record.offset(),
-                record.key(),record.value()
-            );
-
-            long now = System.currentTimeMillis();
-
-            // Flush if batch size reached or time exceeded
-            if (buffer.size() >= batchSize || now - lastFlushTime.get() >= flushIntervalMs) {
-                flushAndCommit(buffer, acknowledgment);
-                lastFlushTime.set(now);
-            }
-
-        } catch (Exception e) {
-            System.err.printf("❌ Failed to process record: %s%n", e.getMessage());
-            e.printStackTrace();
+    public void consume(List<ConsumerRecord<String, byte[]>> records, Consumer<?, ?> consumer) throws InterruptedException {
+        // Decoding and DB writes happen on the pipeline's threads; this thread goes back to polling
+        long start = System.nanoTime();
+        long bytes = 0;
+        for (ConsumerRecord<String, byte[]> record : records) {
+            if (record.value() != null) bytes += record.value().length;
         }
+        pipeline.submit(records);
+        commitPersisted(consumer);
+        consumeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        consumedRecords.increment(records.size());
+        consumedBytes.increment(bytes);
+    }
+
+    // Quiet partitions are flushed by the writers' timers; their offsets are committed here
+    @EventListener
+    public void onIdle(ListenerContainerIdleEvent event) {
+        commitPersisted(event.getConsumer());
     }
 
-    private void flushAndCommit(List<Transaction> buffer, Acknowledgment acknowledgment) {
-        if (!buffer.isEmpty()) {
-            for (Transaction t : buffer) {
-                // Use INSERT IGNORE to skip duplicates
-                nativeRepository.insertIgnore(
-                        t.getTransactionId(),
-                        t.getCostPerItem(),
-                        t.getCountry(),
-                        t.getItemCode(),
-                        t.getItemDescription(),
-                        t.getNumberOfItemPurchased(),
-                        t.getTransactionTime(),
-                        t.getUserId()
-                );
-            }
-
-            System.out.printf(
-                "💾 Thread %s inserted batch of %d transactions (duplicates skipped)%n",
-                Thread.currentThread().getName(),
-                buffer.size()
-            );
-
-            buffer.clear();
-            acknowledgment.acknowledge(); // Commit Kafka offset
+    // Must run on the consumer thread: each partition up to its highest contiguous persisted offset.
+    // A failed commit (e.g. a rebalance in progress) is retried with the next one rather than
+    // thrown, which would have the error handler hand the same poll over again.
+    private void commitPersisted(Consumer<?, ?> consumer) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = offsetTracker.takeCommittable(consumer.assignment());
+        if (offsets.isEmpty()) return;
+        try {
+            consumer.commitSync(offsets);
+        } catch (KafkaException e) {
+            offsetTracker.commitFailed(offsets);
+            System.err.printf("⚠️ Commit of %s failed, retrying with the next one: %s%n", offsets, e.getMessage());
         }
     }
 }
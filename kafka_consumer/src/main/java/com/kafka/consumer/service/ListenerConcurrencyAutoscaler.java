@@ -0,0 +1,145 @@
+package com.kafka.consumer.service;
+
+import java.util.Map;
+
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.kafka.consumer.pipeline.CatchUpMode;
+import com.kafka.consumer.pipeline.PipelineStats;
+
+// Grows or shrinks the listener container's concurrency from consumer lag and flush latency.
+// Scale up needs sustained lag while MySQL keeps up (more pollers would not help a slow DB);
+// scale down on sustained low lag or when flushes get slow. Each direction needs
+// `hysteresis` consecutive votes, changes are spaced by a cooldown, and concurrency never
+// exceeds the partitions assigned to this instance. Changing concurrency restarts the
+// container, which revokes (flushes and commits) its partitions first. The same lag, sampled
+// more often, switches the writers' catch-up mode.
+@Component
+public class ListenerConcurrencyAutoscaler {
+
+    public static final String LISTENER_ID = "transactionListener";
+
+    private final KafkaListenerEndpointRegistry registry;
+    private final PipelineStats stats;
+    private final CatchUpMode catchUp;
+
+    @Value("${consumer.autoscale.enabled:true}")
+    private boolean enabled;
+
+    @Value("${consumer.autoscale.min:1}")
+    private int minConcurrency;
+
+    @Value("${consumer.autoscale.max:8}")
+    private int maxConcurrency;
+
+    @Value("${consumer.autoscale.scale-up-lag:10000}")
+    private long scaleUpLag;
+
+    @Value("${consumer.autoscale.scale-down-lag:1000}")
+    private long scaleDownLag;
+
+    @Value("${consumer.autoscale.max-flush-latency-ms:2000}")
+    private double maxFlushLatencyMs;
+
+    @Value("${consumer.autoscale.hysteresis:3}")
+    private int hysteresis;
+
+    @Value("${consumer.autoscale.cooldown.ms:60000}")
+    private long cooldownMs;
+
+    private int upVotes;
+    private int downVotes;
+    private long lastChangeAt;
+    private volatile boolean restarting;
+
+    public ListenerConcurrencyAutoscaler(KafkaListenerEndpointRegistry registry, PipelineStats stats,
+                                         CatchUpMode catchUp) {
+        this.registry = registry;
+        this.stats = stats;
+        this.catchUp = catchUp;
+    }
+
+    @Scheduled(fixedDelayString = "${consumer.autoscale.interval.ms:30000}")
+    public void evaluate() {
+        if (enabled && registry.getListenerContainer(LISTENER_ID) instanceof ConcurrentMessageListenerContainer<?, ?> container) {
+            evaluate(container);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${consumer.catchup.interval.ms:5000}")
+    public void sampleLag() {
+        if (!restarting && registry.getListenerContainer(LISTENER_ID) instanceof ConcurrentMessageListenerContainer<?, ?> container
+                && container.isRunning()) {
+            catchUp.onLag(totalLag(container));
+        }
+    }
+
+    public synchronized void evaluate(ConcurrentMessageListenerContainer<?, ?> container) {
+        if (restarting || !container.isRunning()) return;
+        if (System.currentTimeMillis() - lastChangeAt < cooldownMs) return;
+
+        int current = container.getConcurrency();
+        int assigned = container.getAssignedPartitions() != null ? container.getAssignedPartitions().size() : 0;
+        long lag = totalLag(container);
+        int target = decide(current, assigned, lag, stats.flushLatencyMillis());
+
+        if (target != current) {
+            System.out.printf("⚖️ Listener concurrency %d → %d (lag %d, flush %.1f ms, %d partitions assigned)%n",
+                    current, target, lag, stats.flushLatencyMillis(), assigned);
+            lastChangeAt = System.currentTimeMillis();
+            restarting = true;
+            container.stop(() -> {
+                container.setConcurrency(target);
+                container.start();
+                restarting = false;
+            });
+        }
+    }
+
+    int decide(int current, int assignedPartitions, long lag, double flushLatencyMs) {
+        int cap = Math.max(minConcurrency, Math.min(maxConcurrency, assignedPartitions > 0 ? assignedPartitions : current));
+        if (current > cap) {
+            // Threads beyond the partition count would sit idle
+            upVotes = downVotes = 0;
+            return cap;
+        }
+
+        if (lag >= scaleUpLag && flushLatencyMs <= maxFlushLatencyMs) {
+            downVotes = 0;
+            if (++upVotes >= hysteresis) {
+                upVotes = 0;
+                return Math.min(current + 1, cap);
+            }
+        } else if (lag <= scaleDownLag || flushLatencyMs > maxFlushLatencyMs) {
+            upVotes = 0;
+            if (++downVotes >= hysteresis) {
+                downVotes = 0;
+                return Math.max(current - 1, minConcurrency);
+            }
+        } else {
+            upVotes = downVotes = 0;
+        }
+        return current;
+    }
+
+    // Sum of the per-partition records-lag metrics of all child consumers
+    static long totalLag(ConcurrentMessageListenerContainer<?, ?> container) {
+        double lag = 0;
+        for (Map<MetricName, ? extends Metric> metrics : container.metrics().values()) {
+            for (Map.Entry<MetricName, ? extends Metric> entry : metrics.entrySet()) {
+                MetricName name = entry.getKey();
+                if ("records-lag".equals(name.name()) && name.tags().containsKey("partition")
+                        && entry.getValue().metricValue() instanceof Double value && !value.isNaN()) {
+                    lag += value;
+                }
+            }
+        }
+        return (long) lag;
+    }
+}
@@ -0,0 +1,124 @@
+package com.kafka.consumer.service;
+
+import java.util.Collection;
+import java.util.Map;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Component;
+
+import com.kafka.consumer.aggregation.WindowedAggregator;
+import com.kafka.consumer.archive.TransactionArchive;
+import com.kafka.consumer.pipeline.IngestPipeline;
+import com.kafka.consumer.pipeline.OffsetTracker;
+import com.kafka.consumer.repository.ConsumerOffsetRepository;
+
+// Picked up by Spring Boot's listener container factory. On revoke, the pipeline is drained
+// for those partitions and their exact persisted offsets committed before the new owner starts,
+// so the next owner does not re-read (and re-insert) everything since the last commit. On
+// assign, offsets stored in MySQL with the rows win over Kafka's when they are further ahead,
+// and the archive's and the window aggregates' win when they are behind, since their pending
+// rows are lost with a crash.
+@Component
+public class TransactionRebalanceListener implements ConsumerAwareRebalanceListener {
+
+    private final IngestPipeline pipeline;
+    private final OffsetTracker offsetTracker;
+    private final ConsumerOffsetRepository offsetStore;
+    private final TransactionArchive archive;
+    private final WindowedAggregator aggregator;
+
+    @Value("${consumer.pipeline.revoke.timeout.ms:30000}")
+    private long revokeTimeoutMs;
+
+    public TransactionRebalanceListener(IngestPipeline pipeline, OffsetTracker offsetTracker,
+                                        ConsumerOffsetRepository offsetStore, TransactionArchive archive,
+                                        WindowedAggregator aggregator) {
+        this.pipeline = pipeline;
+        this.offsetTracker = offsetTracker;
+        this.offsetStore = offsetStore;
+        this.archive = archive;
+        this.aggregator = aggregator;
+    }
+
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        if (partitions.isEmpty()) return;
+        // Tracking starts over from wherever the partition resumes, which may be behind a previous assignment
+        offsetTracker.remove(partitions);
+        if (offsetStore.isEnabled()) seekToStoredOffsets(consumer, partitions);
+        seekBack(consumer, partitions);
+    }
+
+    // Kafka's offset is behind when a batch was stored but its commit was lost; only seek forward,
+    // since spooled batches advance Kafka's offset without storing one here
+    private void seekToStoredOffsets(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        try {
+            for (Map.Entry<TopicPartition, Long> stored : offsetStore.load(partitions).entrySet()) {
+                long position = consumer.position(stored.getKey());
+                if (stored.getValue() > position) {
+                    consumer.seek(stored.getKey(), stored.getValue());
+                    System.out.printf("⏩ %s resumes at %d from MySQL (Kafka had %d)%n",
+                            stored.getKey(), stored.getValue(), position);
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.printf("⚠️ Could not apply stored offsets for %s, resuming from Kafka's: %s%n",
+                    partitions, e.getMessage());
+        }
+    }
+
+    // Rows past the archive's offset and before the position were in a roll that never committed,
+    // and rows past the aggregated offset in window deltas never merged. A partition with no
+    // commit yet is archived or aggregated from wherever it stands.
+    private void seekBack(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        Map<TopicPartition, Long> archived = archive.isEnabled() ? archive.archivedOffsets(partitions) : Map.of();
+        for (TopicPartition partition : partitions) {
+            long position = consumer.position(partition);
+            long target = position;
+            Long archivedOffset = archived.get(partition);
+            if (archivedOffset != null && archivedOffset < target) target = archivedOffset;
+            long aggregatedOffset = aggregator.resumeOffset(partition, position);
+            if (aggregatedOffset >= 0 && aggregatedOffset < target) target = aggregatedOffset;
+            if (target < position) {
+                consumer.seek(partition, target);
+                System.out.printf("⏪ %s resumes at %d for the archive/aggregates (position was %d)%n",
+                        partition, target, position);
+            }
+        }
+    }
+
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        try {
+            if (!pipeline.flush(partitions, revokeTimeoutMs)) {
+                System.err.printf("⚠️ Pipeline did not drain %s within %d ms, committing what is persisted%n",
+                        partitions, revokeTimeoutMs);
+            }
+            Map<TopicPartition, OffsetAndMetadata> offsets = offsetTracker.takeCommittable(partitions);
+            if (!offsets.isEmpty()) {
+                consumer.commitSync(offsets);
+                System.out.printf("🔁 Committed %s before revoke%n", offsets);
+            }
+            archive.release(partitions);
+            aggregator.release(partitions);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            System.err.printf("❌ Flush on revoke of %s failed, records will be redelivered: %s%n", partitions, e.getMessage());
+        } finally {
+            offsetTracker.remove(partitions);
+        }
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        // Can no longer commit for these; the new owner re-reads from the last committed offset
+        offsetTracker.remove(partitions);
+        archive.discard(partitions);
+        aggregator.discard(partitions);
+    }
+}
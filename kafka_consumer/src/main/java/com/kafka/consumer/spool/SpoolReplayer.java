@@ -0,0 +1,148 @@
+package com.kafka.consumer.spool;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.kafka.consumer.aggregation.WindowedAggregator;
+import com.kafka.consumer.model.Transaction;
+import com.kafka.consumer.pipeline.DuplicateFilter;
+import com.kafka.consumer.query.TransactionQueryCache;
+import com.kafka.consumer.repository.TransactionRepository;
+import com.kafka.consumer.retry.FailureCause;
+import com.kafka.consumer.retry.RetryPublisher;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// Drains the spool into MySQL in append order, one batch at a time. A batch that fails for a
+// transient reason stays at the head of the spool and is retried after a back-off; one rejected
+// for its content is replayed row by row, like TransactionWriter does, and once every row has
+// resolved the failing ones leave for the retry topics (or are dropped when those are disabled)
+// so they cannot hold up the spool behind them.
+@Component
+public class SpoolReplayer implements Runnable {
+
+    private final TransactionSpool spool;
+    private final TransactionRepository repository;
+    private final DuplicateFilter duplicates;
+    private final WindowedAggregator aggregator;
+    private final TransactionQueryCache queryCache;
+    private final RetryPublisher retries;
+    private final Counter replayed;
+    private final Counter isolated;
+    private final Counter dropped;
+
+    @Value("${consumer.spool.replay.backoff.ms:2000}")
+    private long backoffMs;
+
+    private Thread thread;
+    private volatile boolean running = true;
+
+    public SpoolReplayer(TransactionSpool spool, TransactionRepository repository, DuplicateFilter duplicates,
+                         WindowedAggregator aggregator, TransactionQueryCache queryCache, RetryPublisher retries,
+                         MeterRegistry meterRegistry) {
+        this.spool = spool;
+        this.repository = repository;
+        this.duplicates = duplicates;
+        this.aggregator = aggregator;
+        this.queryCache = queryCache;
+        this.retries = retries;
+        this.replayed = Counter.builder("consumer.spool.batches").tag("result", "replayed").register(meterRegistry);
+        this.isolated = Counter.builder("consumer.spool.batches").tag("result", "isolated").register(meterRegistry);
+        this.dropped = Counter.builder("consumer.spool.rows").tag("result", "dropped")
+                .description("Unstorable spooled rows dropped because the retry topics are disabled").register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        thread = new Thread(this, "txn-spool-replayer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        thread.interrupt();
+        thread.join(5000);
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                List<Transaction> rows = spool.peek(1000);
+                if (rows == null) continue;
+                long start = System.nanoTime();
+                int inserted;
+                try {
+                    inserted = repository.insertIgnoreAll(rows);
+                } catch (RuntimeException e) {
+                    if (FailureCause.classify(e) == FailureCause.TRANSIENT_DB) throw e;
+                    Map<Transaction, RuntimeException> rejected = new LinkedHashMap<>();
+                    rows = replayRowByRow(rows, rejected);
+                    inserted = rows.size();
+                    routeRejected(rejected);
+                }
+                spool.acknowledge();
+                duplicates.markSeen(rows);
+                queryCache.onStored(rows);
+                replayed.increment();
+                System.out.printf("♻️ Replayed spooled batch of %d transactions (%d new) in %.1f ms, %d batches left%n",
+                        rows.size(), inserted, (System.nanoTime() - start) / 1_000_000.0, spool.pendingBatches());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                System.err.printf("❌ Spool replay failed, retrying in %d ms: %s%n", backoffMs, e.getMessage());
+                try {
+                    Thread.sleep(backoffMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    // Probes every row before anything leaves the spool: a row failing for a transient reason
+    // rethrows, so the batch is retried whole after the back-off (rows already stored by then
+    // are ignored on the second pass) and nothing has been rerouted or retracted twice
+    private List<Transaction> replayRowByRow(List<Transaction> rows, Map<Transaction, RuntimeException> rejected) {
+        List<Transaction> stored = new ArrayList<>(rows.size());
+        for (Transaction row : rows) {
+            try {
+                repository.insertIgnoreAll(List.of(row));
+                stored.add(row);
+            } catch (RuntimeException e) {
+                if (FailureCause.classify(e) == FailureCause.TRANSIENT_DB) throw e;
+                rejected.put(row, e);
+            }
+        }
+        isolated.increment();
+        System.out.printf("⚠️ Spool replay isolated %d failing rows of %d%n", rejected.size(), rows.size());
+        return stored;
+    }
+
+    // Right before the batch is acknowledged. Without retry topics there is nowhere to send the
+    // rows, and keeping them would hold up the spool for good, so they are dropped and counted.
+    private void routeRejected(Map<Transaction, RuntimeException> rejected) {
+        if (rejected.isEmpty()) return;
+        if (retries.isEnabled()) {
+            rejected.forEach((row, error) -> retries.reroute(List.of(row), 0, error, "spool"));
+        } else {
+            dropped.increment(rejected.size());
+            rejected.forEach((row, error) -> System.err.printf("❌ Dropped spooled Txn %s, retry topics disabled: %s%n",
+                    row.getTransactionId(), error.getMessage()));
+        }
+        // The writer counted them when they were spooled
+        aggregator.retract(List.copyOf(rejected.keySet()));
+    }
+}
@@ -0,0 +1,377 @@
+package com.kafka.consumer.spool;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.kafka.consumer.model.Transaction;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// Write-ahead spool for batches MySQL could not take in time. Batches are appended to
+// memory-mapped segment files as [length][crc32][payload] and forced to disk before the
+// writer completes their offsets, so Kafka can commit past them. SpoolReplayer reads them
+// back in order; its position is kept in a checkpoint file replaced atomically.
+//
+// Recovery scans every segment and stops at the first record with a bad length or CRC (a
+// write torn by a crash); the next append overwrites it. Segments the replayer has passed
+// are deleted, and a fully drained spool drops all of its files.
+@Component
+public class TransactionSpool {
+
+    private static final int HEADER_BYTES = 8;
+    private static final String SEGMENT_SUFFIX = ".spool";
+    private static final String CHECKPOINT = "checkpoint";
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${consumer.spool.enabled:true}")
+    private boolean enabled;
+
+    @Value("${consumer.spool.dir:data/spool}")
+    private String dir;
+
+    @Value("${consumer.spool.segment.bytes:67108864}")
+    private int segmentBytes;
+
+    @Value("${consumer.spool.max.bytes:1073741824}")
+    private long maxBytes;
+
+    // A failed or slower flush sends the writers to the spool for at least this long
+    @Value("${consumer.spool.degraded.cooldown.ms:5000}")
+    private long degradedCooldownMs;
+
+    @Value("${consumer.spool.slow-flush-ms:2000}")
+    private long slowFlushMs;
+
+    private Path directory;
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private Segment writeSegment;
+    private long nextSegmentId;
+    private long readSegmentId;
+    private int readPosition;
+    private int peekedBytes = -1;
+    private long pendingBatches;
+    private volatile long degradedUntil;
+
+    private Counter spooled;
+    private Counter rejected;
+
+    public TransactionSpool(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        spooled = Counter.builder("consumer.spool.batches").tag("result", "spooled").register(meterRegistry);
+        rejected = Counter.builder("consumer.spool.batches").tag("result", "rejected").register(meterRegistry);
+        Gauge.builder("consumer.spool.pending", this, TransactionSpool::pendingBatches).register(meterRegistry);
+        Gauge.builder("consumer.spool.bytes", this, TransactionSpool::sizeBytes).baseUnit("bytes").register(meterRegistry);
+        if (!enabled) return;
+
+        directory = Path.of(dir);
+        Files.createDirectories(directory);
+        recover();
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        for (Segment segment : segments.values()) {
+            segment.channel.close();
+        }
+        segments.clear();
+        writeSegment = null;
+    }
+
+    public boolean shouldSpool() {
+        return enabled && (System.currentTimeMillis() < degradedUntil || pendingBatches() > 0);
+    }
+
+    public void degrade() {
+        degradedUntil = System.currentTimeMillis() + degradedCooldownMs;
+    }
+
+    public void recordFlush(long nanos) {
+        if (nanos > slowFlushMs * 1_000_000) degrade();
+    }
+
+    // false → disabled, full, or the batch is larger than a segment; the caller must persist it
+    public synchronized boolean append(List<Transaction> rows) {
+        if (!enabled) return false;
+        byte[] payload = encode(rows);
+        int needed = HEADER_BYTES + payload.length;
+        if (needed > segmentBytes) {
+            rejected.increment();
+            return false;
+        }
+        try {
+            if (writeSegment == null || writeSegment.writePosition + needed > segmentBytes) {
+                if ((long) (segments.size() + 1) * segmentBytes > maxBytes) {
+                    rejected.increment();
+                    return false;
+                }
+                roll();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        MappedByteBuffer buffer = writeSegment.buffer;
+        int position = writeSegment.writePosition;
+        buffer.putInt(position + 4, (int) crc.getValue());
+        buffer.put(position + HEADER_BYTES, payload);
+        buffer.putInt(position, payload.length);
+        buffer.force(position, needed);
+        writeSegment.writePosition += needed;
+        pendingBatches++;
+        spooled.increment();
+        notifyAll();
+        return true;
+    }
+
+    // Replayer thread: the oldest spooled batch, or null if none arrived within the timeout
+    public synchronized List<Transaction> peek(long timeoutMs) throws InterruptedException {
+        if (pendingBatches == 0) wait(timeoutMs);
+        if (pendingBatches == 0) return null;
+
+        Segment segment = segments.get(readSegmentId);
+        while (readPosition >= segment.writePosition) {
+            readSegmentId = segments.higherKey(readSegmentId);
+            readPosition = 0;
+            segment = segments.get(readSegmentId);
+        }
+        ByteBuffer buffer = segment.buffer;
+        int length = buffer.getInt(readPosition);
+        byte[] payload = new byte[length];
+        buffer.get(readPosition + HEADER_BYTES, payload);
+        peekedBytes = HEADER_BYTES + length;
+        return decode(payload);
+    }
+
+    // The peeked batch is in MySQL: move past it and drop what is no longer needed
+    public synchronized void acknowledge() {
+        if (peekedBytes < 0) return;
+        readPosition += peekedBytes;
+        peekedBytes = -1;
+        pendingBatches--;
+        try {
+            List<Segment> consumed = compact();
+            // Checkpoint before deleting, so a crash in between cannot point into a reused id
+            writeCheckpoint();
+            for (Segment segment : consumed) {
+                segment.delete();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public synchronized long pendingBatches() {
+        return pendingBatches;
+    }
+
+    public synchronized long sizeBytes() {
+        return (long) segments.size() * segmentBytes;
+    }
+
+    // Unlinks segments behind the read position; all of them once the spool is drained
+    private List<Segment> compact() {
+        List<Segment> consumed = new ArrayList<>();
+        if (pendingBatches == 0) {
+            consumed.addAll(segments.values());
+            segments.clear();
+            writeSegment = null;
+            readSegmentId = nextSegmentId;
+            readPosition = 0;
+            return consumed;
+        }
+        Segment head = segments.get(readSegmentId);
+        while (head != writeSegment && readPosition >= head.writePosition) {
+            consumed.add(segments.remove(readSegmentId));
+            readSegmentId = segments.firstKey();
+            readPosition = 0;
+            head = segments.get(readSegmentId);
+        }
+        return consumed;
+    }
+
+    private void roll() throws IOException {
+        Segment segment = Segment.open(directory.resolve(String.format("%020d%s", nextSegmentId, SEGMENT_SUFFIX)),
+                segmentBytes);
+        if (segments.isEmpty()) {
+            readSegmentId = nextSegmentId;
+            readPosition = 0;
+        }
+        segments.put(nextSegmentId++, segment);
+        writeSegment = segment;
+    }
+
+    private void recover() throws IOException {
+        long checkpointSegment = -1;
+        int checkpointPosition = 0;
+        Path checkpoint = directory.resolve(CHECKPOINT);
+        if (Files.exists(checkpoint)) {
+            ByteBuffer saved = ByteBuffer.wrap(Files.readAllBytes(checkpoint));
+            checkpointSegment = saved.getLong();
+            checkpointPosition = saved.getInt();
+            nextSegmentId = checkpointSegment;
+        }
+
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(p -> p.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().toList();
+        }
+        for (Path file : files) {
+            long id = Long.parseLong(file.getFileName().toString().replace(SEGMENT_SUFFIX, ""));
+            nextSegmentId = Math.max(nextSegmentId, id + 1);
+            if (id < checkpointSegment) {
+                Files.delete(file); // replayed before the crash, deletion did not happen yet
+                continue;
+            }
+            Segment segment = Segment.open(file, (int) Math.max(segmentBytes, Files.size(file)));
+            segment.writePosition = validLength(segment.buffer);
+            segments.put(id, segment);
+        }
+        if (segments.isEmpty()) {
+            readSegmentId = nextSegmentId;
+            return;
+        }
+
+        readSegmentId = segments.containsKey(checkpointSegment) ? checkpointSegment : segments.firstKey();
+        readPosition = readSegmentId == checkpointSegment ? checkpointPosition : 0;
+        for (Map.Entry<Long, Segment> entry : segments.tailMap(readSegmentId, true).entrySet()) {
+            int position = entry.getKey() == readSegmentId ? readPosition : 0;
+            while (position < entry.getValue().writePosition) {
+                position += HEADER_BYTES + entry.getValue().buffer.getInt(position);
+                pendingBatches++;
+            }
+        }
+        writeSegment = segments.lastEntry().getValue();
+        if (pendingBatches == 0) {
+            writeCheckpoint();
+            for (Segment segment : compact()) {
+                segment.delete();
+            }
+        }
+        System.out.printf("📼 Spool recovered %d pending batches from %d segments%n", pendingBatches, segments.size());
+    }
+
+    // End of the last record whose length and CRC check out
+    private static int validLength(MappedByteBuffer buffer) {
+        int position = 0;
+        while (position + HEADER_BYTES <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + HEADER_BYTES + length > buffer.capacity()) break;
+            byte[] payload = new byte[length];
+            buffer.get(position + HEADER_BYTES, payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != buffer.getInt(position + 4)) break;
+            position += HEADER_BYTES + length;
+        }
+        // Clear a torn header so a later scan cannot mistake it for a record
+        if (position + HEADER_BYTES <= buffer.capacity()) {
+            buffer.putLong(position, 0L);
+        }
+        return position;
+    }
+
+    private void writeCheckpoint() throws IOException {
+        ByteBuffer state = ByteBuffer.allocate(12).putLong(readSegmentId).putInt(readPosition);
+        Path temp = directory.resolve(CHECKPOINT + ".tmp");
+        Files.write(temp, state.array());
+        Files.move(temp, directory.resolve(CHECKPOINT), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static byte[] encode(List<Transaction> rows) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(rows.size() * 128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(rows.size());
+            for (Transaction t : rows) {
+                writeString(out, t.getTransactionId());
+                writeString(out, t.getUserId());
+                writeString(out, t.getTransactionTime());
+                writeString(out, t.getItemCode());
+                writeString(out, t.getItemDescription());
+                out.writeInt(t.getNumberOfItemPurchased());
+                out.writeDouble(t.getCostPerItem());
+                writeString(out, t.getCountry());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static List<Transaction> decode(byte[] payload) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            int count = in.readInt();
+            List<Transaction> rows = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                rows.add(new Transaction(readString(in), readString(in), readString(in), readString(in),
+                        readString(in), in.readInt(), in.readDouble(), readString(in)));
+            }
+            return rows;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static final class Segment {
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private int writePosition;
+
+        private Segment(Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        static Segment open(Path path, int size) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            return new Segment(path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        }
+
+        void delete() throws IOException {
+            channel.close();
+            Files.deleteIfExists(path);
+        }
+    }
+}
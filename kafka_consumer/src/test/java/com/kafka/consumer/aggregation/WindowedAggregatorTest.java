@@ -0,0 +1,166 @@
+package com.kafka.consumer.aggregation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.kafka.consumer.model.Transaction;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class WindowedAggregatorTest {
+
+	private static final TopicPartition P0 = new TopicPartition("topic_0", 0);
+
+	private JdbcTemplate jdbcTemplate;
+	private SimpleMeterRegistry registry;
+	private WindowedAggregator aggregator;
+
+	@BeforeEach
+	void setUp() {
+		jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:windows;MODE=MySQL;DB_CLOSE_DELAY=-1"));
+		for (Dimension dimension : Dimension.values()) {
+			jdbcTemplate.execute("DROP TABLE IF EXISTS " + dimension.table());
+		}
+		jdbcTemplate.execute("DROP TABLE IF EXISTS window_aggregation_offset");
+		registry = new SimpleMeterRegistry();
+		aggregator = newAggregator();
+	}
+
+	private WindowedAggregator newAggregator() {
+		WindowedAggregator aggregator = new WindowedAggregator(new WindowSummaryRepository(jdbcTemplate), registry);
+		ReflectionTestUtils.setField(aggregator, "enabled", true);
+		ReflectionTestUtils.setField(aggregator, "tumblingSizeMs", 60_000L);
+		ReflectionTestUtils.setField(aggregator, "hoppingSizeMs", 300_000L);
+		ReflectionTestUtils.setField(aggregator, "hoppingSlideMs", 60_000L);
+		ReflectionTestUtils.setField(aggregator, "allowedLatenessMs", 60_000L);
+		ReflectionTestUtils.setField(aggregator, "maxLatenessMs", 3_600_000L);
+		aggregator.init();
+		return aggregator;
+	}
+
+	@Test
+	void parsesTransactionTimeAsIndianStandardTime() {
+		assertEquals(Instant.parse("2019-02-02T07:20:00Z"),
+				ZonedDateTime.parse("Sat Feb 02 12:50:00 IST 2019", WindowedAggregator.TRANSACTION_TIME).toInstant());
+	}
+
+	@Test
+	void accumulatesTumblingAndHoppingWindowsByCountryAndItem() {
+		aggregator.add(List.of(
+				txn("12:50:10", "465549", 6, 2.0, "United Kingdom"),
+				txn("12:50:40", "465549", 1, 3.0, "France"),
+				txn("12:50:59", "482370", 2, 1.5, "United Kingdom")));
+
+		List<WindowAggregate> byCountry = aggregator.openWindows("tumbling", Dimension.COUNTRY);
+		assertEquals(2, byCountry.size());
+		WindowAggregate uk = aggregator.openWindows("tumbling", Dimension.COUNTRY, "United Kingdom").get(0);
+		assertEquals(15.0, uk.revenue(), 1e-9);
+		assertEquals(2, uk.count());
+		assertEquals(Instant.parse("2019-02-02T07:20:00Z"), uk.start());
+
+		// Each row falls into size / slide = 5 hopping windows
+		List<WindowAggregate> item = aggregator.openWindows("hopping", Dimension.ITEM_CODE, "465549");
+		assertEquals(5, item.size());
+		item.forEach(a -> assertEquals(15.0, a.revenue(), 1e-9));
+	}
+
+	@Test
+	void closedWindowsAreMergedIntoSummaryTablesAndLateRowsAddToThem() {
+		aggregator.add(List.of(txn("12:50:10", "465549", 6, 2.0, "United Kingdom")));
+		aggregator.add(List.of(txn("12:52:30", "465549", 1, 1.0, "United Kingdom")));
+		aggregator.flushClosed();
+
+		// Watermark 12:51:30 closes only the 12:50 tumbling window; the open 12:52 one is merged so far
+		assertEquals(Map.of("revenue", 12.0, "count", 1L), stored("tumbling", "United Kingdom", "12:50:00"));
+		assertEquals(Map.of("revenue", 1.0, "count", 1L), stored("tumbling", "United Kingdom", "12:52:00"));
+		assertEquals(2, count("transaction_revenue_by_country"));
+		assertEquals(List.of(at("12:52:00")), aggregator.openWindows("tumbling", Dimension.COUNTRY).stream().map(WindowAggregate::start).toList());
+
+		aggregator.add(List.of(txn("12:50:20", "465549", 1, 5.0, "United Kingdom")));
+		aggregator.flushClosed();
+
+		assertEquals(Map.of("revenue", 17.0, "count", 2L), stored("tumbling", "United Kingdom", "12:50:00"));
+		assertEquals(Map.of("revenue", 1.0, "count", 1L), stored("tumbling", "United Kingdom", "12:52:00"));
+		assertEquals(1.0, registry.get("consumer.aggregation.late").tag("result", "accepted").counter().count());
+	}
+
+	@Test
+	void redeliveredOffsetsAndRowsThatWereNotStoredAreNotCounted() {
+		List<Transaction> batch = List.of(txn("12:50:10", "465549", 6, 2.0, "United Kingdom"),
+				txn("12:50:20", "465549", 1, 3.0, "United Kingdom"), txn("12:50:30", "465549", 2, 1.0, "United Kingdom"));
+		// The second row was rerouted, so only the retry listener counts it
+		aggregator.add(P0, batch, new long[] {10, 11, 12}, List.of(batch.get(0), batch.get(2)));
+		// Redelivered past the duplicate filter: same offsets, INSERT IGNORE stores nothing
+		aggregator.add(P0, batch, new long[] {10, 11, 12}, batch);
+		aggregator.flushClosed();
+
+		assertEquals(Map.of("revenue", 14.0, "count", 2L), stored("tumbling", "United Kingdom", "12:50:00"));
+		assertEquals(13L, jdbcTemplate.queryForObject("SELECT next_offset FROM window_aggregation_offset WHERE partition_id = 0", Long.class));
+	}
+
+	@Test
+	void rowsWhoseDeltasWereLostAreCountedWhenReReadAfterACrash() {
+		List<Transaction> first = List.of(txn("12:50:10", "465549", 6, 2.0, "United Kingdom"));
+		aggregator.add(P0, first, new long[] {0}, first);
+		aggregator.flushClosed();
+		List<Transaction> second = List.of(txn("12:50:20", "465549", 1, 3.0, "United Kingdom"),
+				txn("12:50:30", "465549", 2, 1.0, "United Kingdom"));
+		aggregator.add(P0, second, new long[] {1, 2}, second);
+		// Crash: the rows are in MySQL and the commit went through, the second delta was never merged
+
+		WindowedAggregator restarted = newAggregator();
+		assertEquals(1, restarted.resumeOffset(P0, 3));
+		// Re-read: the duplicate filter or INSERT IGNORE skips them, they are counted all the same
+		restarted.add(P0, second, new long[] {1, 2}, List.of());
+		// Past the re-read, a row the duplicate filter drops (a re-dropped file) is not
+		List<Transaction> redropped = List.of(txn("12:50:40", "465549", 6, 2.0, "United Kingdom"));
+		restarted.add(P0, redropped, new long[] {3}, List.of());
+		restarted.flushClosed();
+
+		assertEquals(Map.of("revenue", 17.0, "count", 3L), stored("tumbling", "United Kingdom", "12:50:00"));
+		assertEquals(-1, newAggregator().resumeOffset(P0, 4));
+	}
+
+	@Test
+	void rowsBeyondMaxLatenessAreDroppedAndCounted() {
+		aggregator.add(List.of(txn("14:00:00", "465549", 1, 1.0, "France")));
+		aggregator.add(List.of(txn("12:00:00", "465549", 1, 1.0, "France"),
+				new Transaction("1", "2", "not a time", "465549", "FRAME", 1, 1.0, "France")));
+
+		assertEquals(1.0, registry.get("consumer.aggregation.late").tag("result", "dropped").counter().count());
+		assertEquals(1.0, registry.get("consumer.aggregation.unparseable").counter().count());
+		assertTrue(aggregator.openWindows("tumbling", Dimension.COUNTRY).stream()
+				.allMatch(a -> a.start().equals(Instant.parse("2019-02-02T08:30:00Z"))));
+	}
+
+	private Map<String, Object> stored(String window, String country, String start) {
+		Map<String, Object> row = jdbcTemplate.queryForMap("SELECT revenue, transaction_count FROM transaction_revenue_by_country "
+				+ "WHERE window_name = ? AND country = ? AND window_start = ?", window, country,
+				java.sql.Timestamp.from(ZonedDateTime.parse("Sat Feb 02 " + start + " IST 2019", WindowedAggregator.TRANSACTION_TIME).toInstant()));
+		return Map.of("revenue", ((Number) row.get("REVENUE")).doubleValue(), "count", ((Number) row.get("TRANSACTION_COUNT")).longValue());
+	}
+
+	private static Instant at(String time) {
+		return ZonedDateTime.parse("Sat Feb 02 " + time + " IST 2019", WindowedAggregator.TRANSACTION_TIME).toInstant();
+	}
+
+	private int count(String table) {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table + " WHERE window_name = 'tumbling'", Integer.class);
+	}
+
+	private static Transaction txn(String time, String itemCode, int items, double cost, String country) {
+		return new Transaction("6355745", "278166", "Sat Feb 02 " + time + " IST 2019", itemCode, "FRAME", items, cost, country);
+	}
+}
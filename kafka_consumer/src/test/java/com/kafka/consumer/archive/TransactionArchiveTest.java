@@ -0,0 +1,244 @@
+package com.kafka.consumer.archive;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.kafka.consumer.archive.ArchiveFile.Column;
+import com.kafka.consumer.archive.ArchiveScanner.Aggregate;
+import com.kafka.consumer.archive.ArchiveScanner.Filter;
+import com.kafka.consumer.archive.ArchiveScanner.GroupBy;
+import com.kafka.consumer.model.Transaction;
+import com.kafka.consumer.model.TransactionTime;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class TransactionArchiveTest {
+
+	private static final TopicPartition P0 = new TopicPartition("transactions", 0);
+	private static final TopicPartition P1 = new TopicPartition("transactions", 1);
+	private static final Instant START = Instant.parse("2019-01-01T00:00:00Z");
+	private static final List<String> COUNTRIES = List.of("United Kingdom", "France", "EIRE", "Côte d'Ivoire");
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void rollsOneFilePerCountryUnderTheHourWithDictionariesAndStats() throws Exception {
+		TransactionArchive archive = open(1000);
+		List<Transaction> first = transactions(0, 40);
+		List<Transaction> second = transactions(40, 60);
+		second.set(0, new Transaction("6000040", null, second.get(0).getTransactionTime(), null, null, 2, 1.5, null));
+		// Files are written in time order whatever order the batches came in
+		Collections.shuffle(first, new Random(1));
+		archive.append(P0, first, offsets(100, first.size()));
+		archive.append(P1, second, offsets(7, second.size()));
+		assertTrue(archive.roll());
+		assertEquals(0, archive.pendingRows());
+
+		List<Path> files = TransactionArchive.committedFiles(dir);
+		assertEquals(COUNTRIES.size() + 1, files.size());
+		Set<Transaction> read = new HashSet<>();
+		for (Path file : files) {
+			assertTrue(dir.relativize(file).getName(0).toString().startsWith("hour="));
+			String partition = file.getParent().getFileName().toString();
+			try (ArchiveFile archived = ArchiveFile.open(file)) {
+				List<Transaction> rows = archived.readAll();
+				read.addAll(rows);
+				for (int i = 1; i < rows.size(); i++) {
+					assertFalse(rows.get(i).getEventTime().isBefore(rows.get(i - 1).getEventTime()));
+				}
+				ArchiveFile.Chunk country = archived.chunk(Column.COUNTRY);
+				ArchiveFile.Chunk time = archived.chunk(Column.TRANSACTION_TIME);
+				assertEquals(rows.get(0).getEventTime().toEpochMilli(), (long) time.min());
+				assertEquals(rows.get(rows.size() - 1).getEventTime().toEpochMilli(), (long) time.max());
+				if (partition.equals("country=__null__")) {
+					assertEquals(1, rows.size());
+					assertEquals(1, country.nulls());
+					assertEquals(1, archived.chunk(Column.USER_ID).nulls());
+				} else {
+					assertEquals("country=" + TransactionArchive.partitionValue(country.minText()), partition);
+					assertEquals(1, country.distinct());
+					// Every row of a country repeats one of two descriptions
+					assertEquals(2, archived.chunk(Column.ITEM_DESCRIPTION).distinct());
+					assertTrue(country.rawLength() < rows.size() * 2 + 32);
+				}
+			}
+		}
+		List<Transaction> all = new ArrayList<>(first);
+		all.addAll(second);
+		assertEquals(new HashSet<>(all), read);
+		assertEquals(Map.of(P0, 140L, P1, 27L), archive.archivedOffsets(List.of(P0, P1)));
+	}
+
+	@Test
+	void reloadsOffsetsFromCommitsAndSkipsRowsItAlreadyHas() throws Exception {
+		TransactionArchive archive = open(1000);
+		archive.append(P0, transactions(0, 10), offsets(0, 10));
+		assertTrue(archive.roll());
+		// A replayed flush within the pending offsets is not taken twice either
+		archive.append(P0, transactions(10, 15), offsets(10, 5));
+		archive.append(P0, transactions(10, 15), offsets(10, 5));
+		assertEquals(5, archive.pendingRows());
+
+		// Restart: the pending rows are lost, the committed offset is what the consumer seeks back to
+		TransactionArchive restarted = open(1000);
+		assertEquals(Map.of(P0, 10L), restarted.archivedOffsets(List.of(P0, P1)));
+		restarted.append(P0, transactions(5, 15), offsets(5, 10));
+		assertEquals(5, restarted.pendingRows());
+		restarted.append(P0, transactions(0, 5), offsets(0, 5));
+		assertEquals(5, restarted.pendingRows());
+		assertTrue(restarted.roll());
+
+		List<String> ids = new ArrayList<>();
+		for (Path file : TransactionArchive.committedFiles(dir)) {
+			try (ArchiveFile archived = ArchiveFile.open(file)) {
+				archived.readAll().forEach(t -> ids.add(t.getTransactionId()));
+			}
+		}
+		assertEquals(15, ids.size());
+		assertEquals(15, new HashSet<>(ids).size());
+		assertEquals(Map.of(P0, 15L), restarted.archivedOffsets(List.of(P0)));
+	}
+
+	@Test
+	void rollsAtMaxRowsAndLeavesUncommittedFilesOutUntilTheyAreCleanedUp() throws Exception {
+		TransactionArchive archive = open(30);
+		archive.append(P0, transactions(0, 20), offsets(0, 20));
+		assertEquals(0, TransactionArchive.committedFiles(dir).size());
+		archive.append(P0, transactions(20, 40), offsets(20, 20));
+		assertEquals(0, archive.pendingRows());
+		int committed = TransactionArchive.committedFiles(dir).size();
+
+		// A crashed roll: its data file is in place but no commit lists it
+		Path orphan = dir.resolve("hour=2019-01-01-00").resolve("country=France").resolve("part-crashed" + ArchiveFile.SUFFIX);
+		Files.createDirectories(orphan.getParent());
+		ArchiveFile.write(orphan, transactions(40, 50), 3);
+		assertEquals(committed, TransactionArchive.committedFiles(dir).size());
+		Filter everything = new Filter(null, null, null, null, null, GroupBy.NONE);
+		assertEquals(40, new ArchiveScanner(dir).scan(everything).groups().get("all").rows());
+
+		open(30);
+		assertTrue(Files.exists(orphan));
+		Files.setLastModifiedTime(orphan, FileTime.from(Instant.now().minus(Duration.ofHours(2))));
+		open(30);
+		assertFalse(Files.exists(orphan));
+		assertEquals(committed, TransactionArchive.committedFiles(dir).size());
+	}
+
+	@Test
+	void scannerMatchesABruteForceAggregateAndPrunesFiles() throws Exception {
+		TransactionArchive archive = open(100000);
+		List<Transaction> all = transactions(0, 3000);
+		// Three rolls, each spanning its own third of the year
+		for (int roll = 0; roll < 3; roll++) {
+			List<Transaction> rows = all.subList(roll * 1000, roll * 1000 + 1000);
+			archive.append(P0, rows, offsets(roll * 1000, 1000));
+			assertTrue(archive.roll());
+		}
+		ArchiveScanner scanner = new ArchiveScanner(dir);
+		Instant from = START.plus(Duration.ofDays(20));
+		Instant to = START.plus(Duration.ofDays(90));
+
+		Filter byCountry = new Filter(null, from, to, null, null, GroupBy.COUNTRY);
+		ArchiveScanner.Result result = scanner.scan(byCountry);
+		assertAggregates(expected(all, byCountry), result.groups());
+		// The last two rolls start after `to`; their footers are enough to skip them
+		assertEquals(4, result.filesScanned());
+		assertEquals(8, result.filesSkipped());
+
+		Filter oneCountry = new Filter(Set.of("France"), null, null, 465549, null, GroupBy.ITEM);
+		result = scanner.scan(oneCountry);
+		assertAggregates(expected(all, oneCountry), result.groups());
+		assertEquals(3, result.filesScanned());
+		assertEquals(9, result.filesSkipped());
+
+		Filter oneUser = new Filter(null, null, null, null, 250007, GroupBy.NONE);
+		assertAggregates(expected(all, oneUser), scanner.scan(oneUser).groups());
+		Filter unknownUser = new Filter(null, null, null, null, 1, GroupBy.NONE);
+		assertEquals(0, scanner.scan(unknownUser).filesScanned());
+	}
+
+	private TransactionArchive open(int rollMaxRows) throws Exception {
+		TransactionArchive archive = new TransactionArchive(new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(archive, "enabled", true);
+		ReflectionTestUtils.setField(archive, "archiveDir", dir.toString());
+		ReflectionTestUtils.setField(archive, "rollMaxRows", rollMaxRows);
+		ReflectionTestUtils.setField(archive, "rollIntervalMs", 300000L);
+		ReflectionTestUtils.setField(archive, "compressionLevel", 3);
+		archive.init();
+		return archive;
+	}
+
+	private static Map<String, Aggregate> expected(List<Transaction> rows, Filter filter) {
+		Map<String, Aggregate> groups = new TreeMap<>();
+		for (Transaction t : rows) {
+			if (filter.countries() != null && !filter.countries().contains(t.getCountry())) continue;
+			if (filter.from() != null && t.getEventTime().isBefore(filter.from())) continue;
+			if (filter.to() != null && !t.getEventTime().isBefore(filter.to())) continue;
+			if (filter.itemCode() != null && !String.valueOf(filter.itemCode()).equals(t.getItemCode())) continue;
+			if (filter.userId() != null && !String.valueOf(filter.userId()).equals(t.getUserId())) continue;
+			String key = switch (filter.groupBy()) {
+				case COUNTRY -> t.getCountry();
+				case ITEM -> t.getItemCode();
+				case NONE -> "all";
+			};
+			int quantity = t.getNumberOfItemPurchased();
+			groups.merge(key, new Aggregate(1, quantity, quantity * t.getCostPerItem()), Aggregate::plus);
+		}
+		return groups;
+	}
+
+	private static void assertAggregates(Map<String, Aggregate> expected, Map<String, Aggregate> actual) {
+		assertFalse(expected.isEmpty());
+		assertEquals(expected.keySet(), actual.keySet());
+		for (Map.Entry<String, Aggregate> group : expected.entrySet()) {
+			Aggregate got = actual.get(group.getKey());
+			assertEquals(group.getValue().rows(), got.rows(), group.getKey());
+			assertEquals(group.getValue().quantity(), got.quantity(), group.getKey());
+			assertEquals(group.getValue().revenue(), got.revenue(), 1e-6, group.getKey());
+		}
+	}
+
+	private static long[] offsets(long first, int count) {
+		long[] offsets = new long[count];
+		for (int i = 0; i < count; i++) {
+			offsets[i] = first + i;
+		}
+		return offsets;
+	}
+
+	// Row i lands on day i / 10 of 2019, so consecutive ranges cover separate stretches of the year
+	private static List<Transaction> transactions(int from, int to) {
+		Random random = new Random(from);
+		List<Transaction> transactions = new ArrayList<>();
+		for (int i = from; i < to; i++) {
+			Instant time = START.plus(Duration.ofMinutes(i * 144L + random.nextInt(120)));
+			String country = COUNTRIES.get(i % COUNTRIES.size());
+			String item = i % 3 == 0 ? "465549" : "22423";
+			transactions.add(new Transaction(String.valueOf(6000000 + i), String.valueOf(250000 + i % 50),
+					TransactionTime.format(time), item, item.equals("465549") ? "FAMILY ALBUM WHITE PICTURE FRAME" : "REGENCY CAKESTAND 3 TIER",
+					1 + random.nextInt(12), 0.5 + random.nextInt(2000) / 100.0, country));
+		}
+		return transactions;
+	}
+}
@@ -0,0 +1,67 @@
+package com.kafka.consumer.logging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RecordLogTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private RecordLog log;
+
+	@AfterEach
+	void stop() {
+		log.stop();
+	}
+
+	@Test
+	void linesBeyondThePerSecondBudgetAreOnlyCounted() {
+		start(5, 100);
+		for (int i = 0; i < 50; i++) {
+			log.info("line %d%n", i);
+		}
+
+		// The burst may straddle a window boundary, which grants a second budget
+		double suppressed = lines("suppressed");
+		assertTrue(suppressed == 45 || suppressed == 40, "suppressed " + suppressed);
+	}
+
+	@Test
+	void fullQueueDropsInsteadOfBlocking() throws Exception {
+		start(1000, 1);
+		Thread printer = (Thread) ReflectionTestUtils.getField(log, "printer");
+		printer.interrupt();
+		printer.join(1000);
+
+		for (int i = 0; i < 10; i++) {
+			log.info("line %d%n", i);
+		}
+
+		assertEquals(9, lines("dropped"), 0.0);
+	}
+
+	@Test
+	void zeroBudgetSilencesRecordLines() {
+		start(0, 100);
+		log.info("line%n");
+		log.error("failure%n");
+
+		assertEquals(2, lines("suppressed"), 0.0);
+	}
+
+	private void start(int perSecond, int capacity) {
+		log = new RecordLog(registry);
+		ReflectionTestUtils.setField(log, "linesPerSecond", perSecond);
+		ReflectionTestUtils.setField(log, "queueCapacity", capacity);
+		log.start();
+	}
+
+	private double lines(String result) {
+		return registry.get("consumer.log.lines").tag("result", result).counter().count();
+	}
+}
@@ -0,0 +1,83 @@
+package com.kafka.consumer.pipeline;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AdaptiveBatchControllerTest {
+
+	private static final long MS = 1_000_000L;
+
+	private SimpleMeterRegistry registry;
+	private AdaptiveBatchController controller;
+
+	@BeforeEach
+	void setUp() {
+		registry = new SimpleMeterRegistry();
+		controller = new AdaptiveBatchController(registry);
+		ReflectionTestUtils.setField(controller, "enabled", true);
+		ReflectionTestUtils.setField(controller, "initialBatchSize", 100);
+		ReflectionTestUtils.setField(controller, "minBatchSize", 50);
+		ReflectionTestUtils.setField(controller, "maxBatchSize", 300);
+		ReflectionTestUtils.setField(controller, "targetFlushLatencyMs", 200.0);
+		ReflectionTestUtils.setField(controller, "increaseStep", 100);
+		ReflectionTestUtils.setField(controller, "decreaseFactor", 0.5);
+		ReflectionTestUtils.setField(controller, "flushIntervalMs", 60_000L);
+		ReflectionTestUtils.setField(controller, "lowRateFlushIntervalMs", 1_000L);
+		controller.init();
+	}
+
+	@Test
+	void growsAdditivelyUpToTheMaximumOnFastFullBatches() {
+		controller.onFlush(100, System.nanoTime(), 20 * MS, true);
+		assertEquals(200, controller.batchSize());
+		controller.onFlush(200, System.nanoTime(), 20 * MS, true);
+		controller.onFlush(300, System.nanoTime(), 20 * MS, true);
+		assertEquals(300, controller.batchSize());
+		assertEquals(300.0, registry.get("consumer.batch.size.current").gauge().value());
+		assertEquals(2.0, registry.get("consumer.batch.adjustments").tag("reason", "increase").counter().count());
+	}
+
+	@Test
+	void timerFlushesAndPartialBatchesDoNotGrow() {
+		controller.onFlush(100, System.nanoTime(), 20 * MS, false);
+		controller.onFlush(40, System.nanoTime(), 20 * MS, true);
+		assertEquals(100, controller.batchSize());
+	}
+
+	@Test
+	void cutsMultiplicativelyOncePerCongestionSignal() {
+		controller.onFlush(100, System.nanoTime(), 20 * MS, true);
+		long inFlightStart = System.nanoTime();
+		controller.onFlush(200, System.nanoTime(), 500 * MS, true);
+		assertEquals(100, controller.batchSize());
+
+		// Started before the cut, so it reflects the old size
+		controller.onFlush(200, inFlightStart, 500 * MS, true);
+		assertEquals(100, controller.batchSize());
+
+		controller.onFlush(100, System.nanoTime(), 500 * MS, true);
+		assertEquals(50, controller.batchSize());
+		controller.onFlush(50, System.nanoTime(), 500 * MS, true);
+		assertEquals(50, controller.batchSize());
+		assertTrue(controller.lastChangeReason().startsWith("decrease"));
+	}
+
+	@Test
+	void lowInputRateShortensTheFlushInterval() {
+		controller.sampleInputRate();
+		assertEquals(1_000L, controller.flushIntervalMs());
+		assertEquals(1.0, registry.get("consumer.batch.adjustments").tag("reason", "interval-low-rate").counter().count());
+
+		ReflectionTestUtils.setField(controller, "lastRateSampleNanos", System.nanoTime() - 1_000 * MS);
+		controller.onRowsReceived(1_000_000);
+		controller.sampleInputRate();
+		assertEquals(60_000L, controller.flushIntervalMs());
+		assertTrue(controller.lastChangeReason().startsWith("interval-normal"));
+	}
+}
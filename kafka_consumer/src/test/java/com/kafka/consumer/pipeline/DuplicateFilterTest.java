@@ -0,0 +1,113 @@
+package com.kafka.consumer.pipeline;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.kafka.consumer.model.Transaction;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class DuplicateFilterTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	@Test
+	void dropsIdsSeenInEarlierBatchesAndCountsHitsAndMisses() {
+		DuplicateFilter filter = filter(null, 1000, 60_000L, 0);
+
+		List<Transaction> first = transactions(0, 100);
+		assertEquals(first, filter.unseen(first));
+		filter.markSeen(first);
+
+		List<Transaction> fresh = filter.unseen(transactions(50, 150));
+		assertEquals(transactions(100, 150), fresh);
+		assertEquals(50.0, registry.get("consumer.dedup.lookups").tag("result", "hit").counter().count());
+		assertEquals(150.0, registry.get("consumer.dedup.lookups").tag("result", "miss").counter().count());
+		assertTrue(registry.get("consumer.dedup.bloom.negatives").counter().count() > 0);
+	}
+
+	@Test
+	void evictsOldestIdsBeyondCapacity() {
+		DuplicateFilter filter = filter(null, 100, 60_000L, 0);
+
+		filter.markSeen(transactions(0, 10_000));
+
+		assertEquals(100, filter.size());
+		assertEquals(transactions(0, 9_900), filter.unseen(transactions(0, 9_900)));
+		assertTrue(filter.unseen(transactions(9_900, 10_000)).isEmpty());
+	}
+
+	@Test
+	void forgetsIdsOlderThanTheTtl() throws InterruptedException {
+		DuplicateFilter filter = filter(null, 1000, 20L, 0);
+
+		filter.markSeen(transactions(0, 10));
+		Thread.sleep(50);
+
+		assertEquals(10, filter.unseen(transactions(0, 10)).size());
+		assertEquals(0, filter.size());
+	}
+
+	@Test
+	void nonNumericIdsBypassTheFilter() {
+		DuplicateFilter filter = filter(null, 1000, 60_000L, 0);
+		Transaction a = transaction("C536379");
+		Transaction b = transaction("C536380");
+
+		filter.markSeen(List.of(a));
+
+		assertEquals(List.of(a, b), filter.unseen(List.of(a, b)));
+		assertEquals(0, filter.size());
+		assertEquals(DuplicateFilter.UNKEYED, DuplicateFilter.key("C0"));
+		assertEquals(DuplicateFilter.UNKEYED, DuplicateFilter.key("06000000"));
+		assertNotEquals(DuplicateFilter.UNKEYED, DuplicateFilter.key("0"));
+	}
+
+	@Test
+	void warmsFromTheMostRecentStoredRows() {
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:dedup;MODE=MySQL;DB_CLOSE_DELAY=-1"));
+		jdbcTemplate.execute("DROP TABLE IF EXISTS transaction");
+		jdbcTemplate.execute("CREATE TABLE transaction (transaction_id VARCHAR(255) PRIMARY KEY)");
+		for (int i = 0; i < 30; i++) {
+			jdbcTemplate.update("INSERT INTO transaction VALUES (?)", String.valueOf(6000000 + i));
+		}
+
+		DuplicateFilter filter = filter(jdbcTemplate, 1000, 60_000L, 20);
+
+		assertEquals(20, filter.size());
+		assertEquals(transactions(0, 10), filter.unseen(transactions(0, 30)));
+	}
+
+	private DuplicateFilter filter(JdbcTemplate jdbcTemplate, int capacity, long ttlMs, int warmupRows) {
+		DuplicateFilter filter = new DuplicateFilter(jdbcTemplate, registry);
+		ReflectionTestUtils.setField(filter, "enabled", true);
+		ReflectionTestUtils.setField(filter, "capacity", capacity);
+		ReflectionTestUtils.setField(filter, "ttlMs", ttlMs);
+		ReflectionTestUtils.setField(filter, "segmentCount", 1);
+		ReflectionTestUtils.setField(filter, "bloomFpp", 0.01);
+		ReflectionTestUtils.setField(filter, "warmupRows", warmupRows);
+		filter.init();
+		return filter;
+	}
+
+	private static List<Transaction> transactions(int from, int to) {
+		List<Transaction> transactions = new ArrayList<>();
+		for (int i = from; i < to; i++) {
+			transactions.add(transaction(String.valueOf(6000000 + i)));
+		}
+		return transactions;
+	}
+
+	private static Transaction transaction(String id) {
+		return new Transaction(id, "278166", "Sat Feb 02 12:50:00 IST 2019", "465549", "FRAME", 6, 11.73, "United Kingdom");
+	}
+}
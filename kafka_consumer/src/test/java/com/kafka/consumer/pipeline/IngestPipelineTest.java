@@ -0,0 +1,271 @@
+package com.kafka.consumer.pipeline;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.kafka.consumer.aggregation.WindowedAggregator;
+import com.kafka.consumer.archive.TransactionArchive;
+import com.kafka.consumer.logging.RecordLog;
+import com.kafka.consumer.model.Transaction;
+import com.kafka.consumer.query.TransactionQueryCache;
+import com.kafka.consumer.repository.ConsumerOffsetRepository;
+import com.kafka.consumer.repository.TransactionRepository;
+import com.kafka.consumer.retry.FailureCause;
+import com.kafka.consumer.retry.RetryPublisher;
+import com.kafka.consumer.serialization.TransactionDeserializer;
+import com.kafka.consumer.spool.TransactionSpool;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class IngestPipelineTest {
+
+	private final TopicPartition p0 = new TopicPartition("topic_0", 0);
+	private final TopicPartition p1 = new TopicPartition("topic_0", 1);
+
+	@TempDir
+	java.nio.file.Path registryDir;
+
+	@TempDir
+	java.nio.file.Path spoolDir;
+
+	private TransactionRepository repository;
+	private OffsetTracker tracker;
+	private IngestPipeline pipeline;
+	private TransactionSpool spool;
+	private RetryPublisher retries;
+	private CatchUpMode catchUp;
+	private AdaptiveBatchController batching;
+	private RecordLog recordLog;
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	@BeforeEach
+	void start() throws Exception {
+		repository = mock(TransactionRepository.class);
+		tracker = new OffsetTracker();
+		batching = new AdaptiveBatchController(new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(batching, "enabled", false);
+		ReflectionTestUtils.setField(batching, "initialBatchSize", 3);
+		ReflectionTestUtils.setField(batching, "flushIntervalMs", 200L);
+		batching.init();
+		DuplicateFilter duplicates = new DuplicateFilter(null, new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(duplicates, "enabled", true);
+		ReflectionTestUtils.setField(duplicates, "capacity", 1000);
+		ReflectionTestUtils.setField(duplicates, "ttlMs", 60_000L);
+		ReflectionTestUtils.setField(duplicates, "segmentCount", 2);
+		ReflectionTestUtils.setField(duplicates, "bloomFpp", 0.01);
+		duplicates.init();
+		retries = mock(RetryPublisher.class);
+		spool = new TransactionSpool(new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(spool, "enabled", true);
+		ReflectionTestUtils.setField(spool, "dir", spoolDir.toString());
+		ReflectionTestUtils.setField(spool, "segmentBytes", 1 << 20);
+		ReflectionTestUtils.setField(spool, "maxBytes", 8L << 20);
+		ReflectionTestUtils.setField(spool, "degradedCooldownMs", 60_000L);
+		ReflectionTestUtils.setField(spool, "slowFlushMs", 60_000L);
+		spool.open();
+		recordLog = new RecordLog(registry);
+		ReflectionTestUtils.setField(recordLog, "linesPerSecond", 20);
+		ReflectionTestUtils.setField(recordLog, "queueCapacity", 100);
+		recordLog.start();
+		catchUp = new CatchUpMode(registry);
+		ReflectionTestUtils.setField(catchUp, "enabled", true);
+		ReflectionTestUtils.setField(catchUp, "enterLag", 1000L);
+		ReflectionTestUtils.setField(catchUp, "exitLag", 100L);
+		ReflectionTestUtils.setField(catchUp, "batchRows", 5);
+		catchUp.init();
+		pipeline = new IngestPipeline(repository, new TransactionDeserializer("auto", registryDir), tracker,
+				new PipelineStats(registry), batching, duplicates, mock(WindowedAggregator.class),
+				mock(TransactionQueryCache.class), mock(TransactionArchive.class), spool, retries,
+				recordLog, new ConsumerOffsetRepository(null, null), catchUp, registry);
+		ReflectionTestUtils.setField(pipeline, "writerThreads", 2);
+		ReflectionTestUtils.setField(pipeline, "rawQueueCapacity", 2);
+		ReflectionTestUtils.setField(pipeline, "writerQueueCapacity", 100);
+		pipeline.start();
+	}
+
+	@AfterEach
+	void stop() throws Exception {
+		pipeline.stop();
+		spool.close();
+		recordLog.stop();
+	}
+
+	@Test
+	void fullBatchIsPersistedAndCommittedWithoutWaitingForTheTimer() throws Exception {
+		pipeline.submit(List.of(record(p0, 0, "1"), record(p0, 1, "2"), record(p0, 2, "3")));
+
+		verify(repository, timeout(150)).insertIgnoreAll(anyList());
+		assertEquals(Map.of(p0, new OffsetAndMetadata(3)), awaitCommittable(p0));
+	}
+
+	@Test
+	void flushesAreTimedAndInsertedRowsCounted() throws Exception {
+		when(repository.insertIgnoreAll(anyList())).thenReturn(2);
+		pipeline.submit(List.of(record(p0, 0, "1"), record(p0, 1, "2"), record(p0, 2, "3")));
+		awaitCommittable(p0);
+
+		assertEquals(3, registry.get("consumer.decode").timer().count());
+		assertEquals(1, registry.get("consumer.insert").timer().count());
+		assertEquals(1, registry.get("consumer.flush").tag("trigger", "size").timer().count());
+		assertEquals(2, registry.get("consumer.insert.rows").tag("result", "inserted").counter().count());
+		assertEquals(1, registry.get("consumer.insert.rows").tag("result", "ignored").counter().count());
+		assertEquals(0, registry.get("consumer.pipeline.buffered.rows").gauge().value());
+	}
+
+	@Test
+	void backlogIsBulkLoadedInLargerBatchesUntilLagFalls() throws Exception {
+		catchUp.onLag(5000);
+		pipeline.submit(List.of(record(p0, 0, "1"), record(p0, 1, "2"), record(p0, 2, "3"), record(p0, 3, "4"),
+				record(p0, 4, "5")));
+
+		verify(repository, timeout(1000)).loadIgnoreAll(argThat(rows -> rows.size() == 5));
+		assertEquals(Map.of(p0, new OffsetAndMetadata(5)), awaitCommittable(p0));
+		assertEquals(5, registry.get("consumer.catchup.rows").counter().count());
+		// Timed apart from regular inserts, so the autoscaler's flush latency does not see it
+		assertEquals(1, registry.get("consumer.catchup.load").timer().count());
+		assertEquals(0, registry.get("consumer.insert").timer().count());
+
+		catchUp.onLag(500); // between the thresholds: still catching up
+		assertTrue(catchUp.isActive());
+		catchUp.onLag(50);
+		pipeline.submit(List.of(record(p0, 5, "6"), record(p0, 6, "7"), record(p0, 7, "8")));
+
+		verify(repository, timeout(150)).insertIgnoreAll(argThat(rows -> rows.size() == 3));
+		verify(repository, times(1)).loadIgnoreAll(anyList());
+	}
+
+	@Test
+	void quietPartitionIsFlushedWithinTheInterval() throws Exception {
+		pipeline.submit(List.of(record(p1, 40, "1")));
+
+		verify(repository, timeout(1000)).insertIgnoreAll(anyList());
+		assertEquals(Map.of(p1, new OffsetAndMetadata(41)), awaitCommittable(p1));
+	}
+
+	@Test
+	void bufferedRowsFollowAFlushIntervalThatShrankAfterTheyArrived() throws Exception {
+		ReflectionTestUtils.setField(batching, "effectiveFlushIntervalMs", 60_000L);
+		pipeline.submit(List.of(record(p1, 7, "1")));
+		Thread.sleep(300);
+
+		ReflectionTestUtils.setField(batching, "effectiveFlushIntervalMs", 100L);
+
+		verify(repository, timeout(1000)).insertIgnoreAll(anyList());
+	}
+
+	@Test
+	void flushDrainsPartitionsOnDemandAndSkipsUndecodableRecords() throws Exception {
+		List<ConsumerRecord<String, byte[]>> records = new ArrayList<>();
+		records.add(record(p0, 5, "1"));
+		records.add(new ConsumerRecord<>("topic_0", 0, 6, "k", "not json".getBytes(StandardCharsets.UTF_8)));
+
+		pipeline.submit(records);
+		assertTrue(pipeline.flush(List.of(p0), 1000));
+
+		assertEquals(Map.of(p0, new OffsetAndMetadata(7)), tracker.takeCommittable(List.of(p0)));
+		verify(retries).deadLetter(eq(records.get(1)), eq(FailureCause.DESERIALIZATION), any());
+	}
+
+	@Test
+	void deadDispatcherFailsLaterSubmitsInsteadOfBlockingThem() throws Exception {
+		doThrow(new AssertionError("dead-letter producer broken")).when(retries).deadLetter(any(), any(), any());
+
+		pipeline.submit(List.of(new ConsumerRecord<>("topic_0", 0, 0, "k", "not json".getBytes(StandardCharsets.UTF_8))));
+		long deadline = System.currentTimeMillis() + 2000;
+		while (registry.get("consumer.pipeline.failed").gauge().value() == 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+
+		assertTrue(pipeline.isFailed());
+		PipelineFailedException failed = assertThrows(PipelineFailedException.class, () -> pipeline.submit(List.of(record(p0, 1, "1"))));
+		assertTrue(failed.getCause() instanceof AssertionError);
+		assertFalse(pipeline.flush(List.of(p0), 100));
+	}
+
+	@Test
+	void poisonRowIsIsolatedAndRoutedWhileTheRestOfTheBatchIsStored() throws Exception {
+		when(repository.insertIgnoreAll(anyList())).thenAnswer(invocation -> {
+			List<Transaction> rows = invocation.getArgument(0);
+			if (rows.stream().anyMatch(t -> t.getTransactionId().equals("2"))) {
+				throw new DataIntegrityViolationException("Data too long for column 'country'");
+			}
+			return rows.size();
+		});
+
+		pipeline.submit(List.of(record(p0, 0, "1"), record(p0, 1, "2"), record(p0, 2, "3")));
+
+		assertEquals(Map.of(p0, new OffsetAndMetadata(3)), awaitCommittable(p0));
+		verify(repository, times(4)).insertIgnoreAll(anyList());
+		verify(retries).reroute(argThat(rows -> rows.size() == 1 && rows.get(0).getTransactionId().equals("2")), eq(0),
+				any(DataIntegrityViolationException.class), eq(p0.toString()));
+		assertEquals(0, spool.pendingBatches());
+	}
+
+	@Test
+	void redeliveredBatchIsCommittedWithoutReachingTheRepository() throws Exception {
+		pipeline.submit(List.of(record(p0, 0, "1"), record(p0, 1, "2"), record(p0, 2, "3")));
+		verify(repository, timeout(500)).insertIgnoreAll(anyList());
+		assertEquals(Map.of(p0, new OffsetAndMetadata(3)), awaitCommittable(p0));
+
+		pipeline.submit(List.of(record(p0, 3, "1"), record(p0, 4, "2"), record(p0, 5, "3")));
+		assertEquals(Map.of(p0, new OffsetAndMetadata(6)), awaitCommittable(p0));
+		verify(repository, times(1)).insertIgnoreAll(anyList());
+	}
+
+	@Test
+	void batchesAreSpooledAndCommittedWhileTheDatabaseIsDown() throws Exception {
+		when(repository.insertIgnoreAll(anyList())).thenThrow(new DataAccessResourceFailureException("MySQL down"));
+
+		pipeline.submit(List.of(record(p0, 0, "1"), record(p0, 1, "2"), record(p0, 2, "3")));
+		assertEquals(Map.of(p0, new OffsetAndMetadata(3)), awaitCommittable(p0));
+
+		// Later batches skip the database entirely until the spool is drained
+		pipeline.submit(List.of(record(p0, 3, "4"), record(p0, 4, "5"), record(p0, 5, "6")));
+		assertEquals(Map.of(p0, new OffsetAndMetadata(6)), awaitCommittable(p0));
+		verify(repository, times(1)).insertIgnoreAll(anyList());
+		assertEquals(2, spool.pendingBatches());
+	}
+
+	private Map<TopicPartition, OffsetAndMetadata> awaitCommittable(TopicPartition partition) throws InterruptedException {
+		for (int i = 0; i < 100; i++) {
+			Map<TopicPartition, OffsetAndMetadata> offsets = tracker.takeCommittable(List.of(partition));
+			if (!offsets.isEmpty()) return offsets;
+			Thread.sleep(10);
+		}
+		return Map.of();
+	}
+
+	private static ConsumerRecord<String, byte[]> record(TopicPartition partition, long offset, String id) {
+		String json = "{\"transactionId\":\"" + id + "\",\"userId\":\"278166\",\"transactionTime\":\"Sat Feb 02 12:50:00 IST 2019\","
+				+ "\"itemCode\":\"465549\",\"itemDescription\":\"FRAME\",\"numberOfItemPurchased\":1,\"costPerItem\":1.5,\"country\":\"France\"}";
+		return new ConsumerRecord<>(partition.topic(), partition.partition(), offset, "278166", json.getBytes(StandardCharsets.UTF_8));
+	}
+}
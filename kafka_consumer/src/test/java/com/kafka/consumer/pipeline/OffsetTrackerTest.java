@@ -0,0 +1,87 @@
+package com.kafka.consumer.pipeline;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+
+class OffsetTrackerTest {
+
+	private final TopicPartition p0 = new TopicPartition("topic_0", 0);
+	private final OffsetTracker tracker = new OffsetTracker();
+
+	@Test
+	void commitsOnlyUpToHighestContiguousPersistedOffset() {
+		// Gaps in the log (e.g. transaction markers) are fine: only dispatched offsets count
+		for (long offset : new long[] {10, 11, 13, 14}) {
+			tracker.dispatched(p0, offset);
+		}
+
+		tracker.completed(p0, 13);
+		tracker.completed(p0, 14);
+		assertTrue(tracker.takeCommittable(List.of(p0)).isEmpty());
+
+		tracker.completed(p0, 10);
+		assertEquals(Map.of(p0, new OffsetAndMetadata(11)), tracker.takeCommittable(List.of(p0)));
+
+		tracker.completed(p0, 11);
+		assertEquals(Map.of(p0, new OffsetAndMetadata(15)), tracker.takeCommittable(List.of(p0)));
+		assertTrue(tracker.takeCommittable(List.of(p0)).isEmpty());
+		assertEquals(0, tracker.pending());
+	}
+
+	@Test
+	void resubmittedBatchIsNotTrackedTwice() {
+		for (long offset = 0; offset < 3; offset++) {
+			tracker.dispatched(p0, offset);
+		}
+		tracker.completed(p0, 0);
+		// The listener retried the poll after a failed commit: same offsets, handed over again
+		for (long offset = 0; offset < 5; offset++) {
+			tracker.dispatched(p0, offset);
+		}
+		assertEquals(4, tracker.pending());
+
+		for (long offset = 0; offset < 5; offset++) {
+			tracker.completed(p0, offset);
+		}
+		assertEquals(Map.of(p0, new OffsetAndMetadata(5)), tracker.takeCommittable(List.of(p0)));
+		assertEquals(0, tracker.pending());
+	}
+
+	@Test
+	void failedCommitIsHandedOutAgain() {
+		tracker.dispatched(p0, 7);
+		tracker.completed(p0, 7);
+		Map<TopicPartition, OffsetAndMetadata> offsets = tracker.takeCommittable(List.of(p0));
+
+		tracker.commitFailed(offsets);
+		assertEquals(offsets, tracker.takeCommittable(List.of(p0)));
+		assertTrue(tracker.takeCommittable(List.of(p0)).isEmpty());
+	}
+
+	@Test
+	void windowGrowsBeyondInitialCapacity() {
+		for (long offset = 0; offset < 5000; offset++) {
+			tracker.dispatched(p0, offset);
+		}
+		for (long offset = 4999; offset >= 0; offset--) {
+			tracker.completed(p0, offset);
+		}
+		assertEquals(Map.of(p0, new OffsetAndMetadata(5000)), tracker.takeCommittable(List.of(p0)));
+	}
+
+	@Test
+	void revokedPartitionIgnoresLateCompletions() {
+		tracker.dispatched(p0, 1);
+		tracker.remove(List.of(p0));
+		tracker.completed(p0, 1);
+
+		assertTrue(tracker.takeCommittable(List.of(p0)).isEmpty());
+	}
+}
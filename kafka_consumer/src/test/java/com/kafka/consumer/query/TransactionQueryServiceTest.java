@@ -0,0 +1,127 @@
+package com.kafka.consumer.query;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.kafka.consumer.model.Transaction;
+import com.kafka.consumer.repository.TransactionBatchRepositoryImpl;
+import com.kafka.consumer.repository.TransactionQueryRepository;
+import com.kafka.consumer.repository.TransactionSchemaManager;
+import com.kafka.consumer.repository.TransactionShards;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class TransactionQueryServiceTest {
+
+	private static final int USER = 278166;
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private TransactionBatchRepositoryImpl rows;
+	private TransactionQueryCache cache;
+	private TransactionQueryService queries;
+
+	@BeforeEach
+	void createTable() {
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:query;MODE=MySQL;DB_CLOSE_DELAY=-1"));
+		jdbcTemplate.execute("DROP TABLE IF EXISTS transaction");
+		new TransactionSchemaManager(jdbcTemplate).createTable("transaction");
+		TransactionShards database = TransactionShards.single(jdbcTemplate, "multi-row", 500);
+		rows = new TransactionBatchRepositoryImpl(database);
+
+		cache = new TransactionQueryCache(registry);
+		ReflectionTestUtils.setField(cache, "enabled", true);
+		ReflectionTestUtils.setField(cache, "maxEntries", 100L);
+		ReflectionTestUtils.setField(cache, "headRows", 10);
+		ReflectionTestUtils.setField(cache, "ttlMs", 60000L);
+		cache.init();
+		queries = new TransactionQueryService(new TransactionQueryRepository(database), cache, registry);
+		ReflectionTestUtils.setField(queries, "maxPageSize", 100);
+	}
+
+	@Test
+	void userPagesRunNewestFirstWithoutGapsOrOverlap() {
+		// 25 rows of USER interleaved with 25 of another user
+		List<Transaction> stored = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			stored.add(transaction(6000000 + i, i % 2 == 0 ? USER : 250000, "465549", "Sat Feb 02 12:50:00 IST 2019"));
+		}
+		rows.insertIgnoreAll(stored);
+
+		List<String> ids = new ArrayList<>();
+		String after = null;
+		int pages = 0;
+		do {
+			TransactionPage page = queries.byUser(USER, after, 4);
+			page.rows().forEach(t -> ids.add(t.getTransactionId()));
+			after = page.next();
+			pages++;
+		} while (after != null);
+
+		assertEquals(25, ids.size());
+		assertEquals("6000048", ids.get(0));
+		assertEquals("6000000", ids.get(24));
+		assertEquals(7, pages);
+		// The first two pages and part of the third come from the 10-row head, the rest from MySQL
+		assertEquals(2, registry.get("consumer.query").tags("lookup", "user", "source", "cache").timer().count());
+		assertEquals(5, registry.get("consumer.query").tags("lookup", "user", "source", "database").timer().count());
+	}
+
+	@Test
+	void storedRowsUpdateCachedHeadsInPlace() {
+		rows.insertIgnoreAll(List.of(transaction(6000001, USER, "465549", "Sat Feb 02 12:50:00 IST 2019")));
+		assertEquals(1, queries.byItem(465549, null, 10).rows().size());
+
+		// Stored behind the cache's back: the cached head does not see it
+		Transaction unseen = transaction(6000002, USER, "465549", "Sat Feb 02 12:51:00 IST 2019");
+		rows.insertIgnoreAll(List.of(unseen));
+		assertEquals(1, queries.byItem(465549, null, 10).rows().size());
+
+		// Stored through the insert path: merged into the head, newest first
+		Transaction arrived = transaction(6000003, USER, "465549", "Sat Feb 02 12:52:00 IST 2019");
+		rows.insertIgnoreAll(List.of(arrived));
+		cache.onStored(List.of(arrived));
+
+		TransactionPage page = queries.byItem(465549, null, 10);
+		assertEquals(List.of("6000003", "6000001"), page.rows().stream().map(Transaction::getTransactionId).toList());
+		assertNull(page.next());
+		assertEquals(3, registry.get("consumer.query").tags("lookup", "item", "source", "cache").timer().count());
+		assertEquals(1.0 - 1.0 / 3, registry.get("consumer.query.cache.hit.ratio").gauge().value(), 1e-9);
+	}
+
+	@Test
+	void timeRangePagesFollowTransactionTimeWithinTheRange() {
+		rows.insertIgnoreAll(List.of(
+				transaction(6000001, USER, "465549", "Sat Feb 02 12:52:00 IST 2019"),
+				transaction(6000002, USER, "465549", "Sat Feb 02 12:50:00 IST 2019"),
+				transaction(6000003, USER, "465549", "Sat Feb 02 12:50:00 IST 2019"),
+				transaction(6000004, USER, "465549", "Fri Mar 01 12:50:00 IST 2019"),
+				transaction(6000005, USER, "465549", "Thu Jan 31 12:50:00 IST 2019")));
+		Instant from = Instant.parse("2019-02-01T00:00:00Z");
+		Instant to = Instant.parse("2019-03-01T00:00:00Z");
+
+		TransactionPage first = queries.byTimeRange(from, to, null, 2);
+		TransactionPage second = queries.byTimeRange(from, to, first.next(), 2);
+
+		assertEquals(List.of("6000002", "6000003"), first.rows().stream().map(Transaction::getTransactionId).toList());
+		assertEquals(List.of("6000001"), second.rows().stream().map(Transaction::getTransactionId).toList());
+		assertEquals("Sat Feb 02 12:52:00 IST 2019", second.rows().get(0).getTransactionTime());
+		assertNull(second.next());
+		assertThrows(IllegalArgumentException.class, () -> queries.byTimeRange(from, to, "not-a-cursor", 2));
+	}
+
+	private static Transaction transaction(long id, int userId, String itemCode, String time) {
+		return new Transaction(String.valueOf(id), String.valueOf(userId), time, itemCode,
+				"FAMILY ALBUM WHITE PICTURE FRAME", 6, 11.73, "United Kingdom");
+	}
+}
@@ -0,0 +1,84 @@
+package com.kafka.consumer.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.kafka.consumer.model.Transaction;
+
+class ConsumerOffsetRepositoryTest {
+
+	private final TopicPartition p0 = new TopicPartition("transactions", 0);
+	private final TopicPartition p1 = new TopicPartition("transactions", 1);
+
+	private JdbcTemplate jdbcTemplate;
+	private TransactionBatchRepositoryImpl rows;
+	private ConsumerOffsetRepository offsets;
+
+	@BeforeEach
+	void createTables() {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:offsets;MODE=MySQL;DB_CLOSE_DELAY=-1");
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("DROP TABLE IF EXISTS transaction");
+		jdbcTemplate.execute("DROP TABLE IF EXISTS consumer_offset");
+		new TransactionSchemaManager(jdbcTemplate).createTable("transaction");
+		rows = new TransactionBatchRepositoryImpl(TransactionShards.single(jdbcTemplate, "multi-row", 500));
+		offsets = new ConsumerOffsetRepository(jdbcTemplate, new DataSourceTransactionManager(dataSource));
+		ReflectionTestUtils.setField(offsets, "store", "mysql");
+		ReflectionTestUtils.setField(offsets, "groupId", "kafka-consumer-group");
+		offsets.init();
+	}
+
+	@Test
+	void rowsAndOffsetCommitTogether() {
+		assertEquals(20, offsets.insertAndStore(p0, 20, () -> rows.insertIgnoreAll(transactions(0, 20))));
+		assertEquals(5, offsets.insertAndStore(p1, 6, () -> rows.insertIgnoreAll(transactions(20, 25))));
+
+		assertEquals(25, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transaction", Integer.class));
+		assertEquals(Map.of(p0, 20L, p1, 6L), offsets.load(List.of(p0, p1)));
+	}
+
+	@Test
+	void failedBatchLeavesNeitherRowsNorOffset() {
+		offsets.insertAndStore(p0, 20, () -> rows.insertIgnoreAll(transactions(0, 20)));
+
+		assertThrows(QueryTimeoutException.class, () -> offsets.insertAndStore(p0, 40, () -> {
+			rows.insertIgnoreAll(transactions(20, 40));
+			throw new QueryTimeoutException("lock wait timeout");
+		}));
+
+		assertEquals(20, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transaction", Integer.class));
+		assertEquals(Map.of(p0, 20L), offsets.load(List.of(p0)));
+	}
+
+	@Test
+	void storedOffsetNeverMovesBackwards() {
+		offsets.store(p0, 120);
+		offsets.store(p0, 80);
+
+		assertEquals(Map.of(p0, 120L), offsets.load(List.of(p0, p1)));
+		assertTrue(offsets.load(List.of(p1)).isEmpty());
+	}
+
+	private static List<Transaction> transactions(int from, int to) {
+		List<Transaction> transactions = new ArrayList<>();
+		for (int i = from; i < to; i++) {
+			transactions.add(new Transaction(String.valueOf(6000000 + i), "278166", "Sat Feb 02 12:50:00 IST 2019",
+					"465549", "FAMILY ALBUM WHITE PICTURE FRAME", 6, 11.73, "United Kingdom"));
+		}
+		return transactions;
+	}
+}
@@ -0,0 +1,93 @@
+package com.kafka.consumer.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import com.kafka.consumer.model.Transaction;
+import com.kafka.consumer.retry.FailureCause;
+
+class TransactionBatchRepositoryImplTest {
+
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	void createTable() {
+		jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:batch;MODE=MySQL;DB_CLOSE_DELAY=-1"));
+		jdbcTemplate.execute("DROP TABLE IF EXISTS transaction");
+		new TransactionSchemaManager(jdbcTemplate).createTable("transaction");
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {"multi-row", "jdbc-batch"})
+	void insertsWholeBatchAndSkipsDuplicates(String strategy) {
+		TransactionBatchRepositoryImpl repository = new TransactionBatchRepositoryImpl(TransactionShards.single(jdbcTemplate, strategy, 7));
+
+		assertEquals(20, repository.insertIgnoreAll(transactions(0, 20)));
+		// 10 already stored, 15 new
+		assertEquals(15, repository.insertIgnoreAll(transactions(10, 35)));
+
+		assertEquals(35, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transaction", Integer.class));
+		assertEquals("United Kingdom",
+				jdbcTemplate.queryForObject("SELECT country FROM transaction WHERE transaction_id = 6000034", String.class));
+		// IST 12:50 stored as UTC
+		assertEquals(LocalDateTime.of(2019, 2, 2, 7, 20), jdbcTemplate.queryForObject(
+				"SELECT transaction_time FROM transaction WHERE transaction_id = 6000034", LocalDateTime.class));
+	}
+
+	@Test
+	void rowsThatDoNotFitTheTypedColumnsAreRejectedNotCoerced() {
+		TransactionBatchRepositoryImpl repository = new TransactionBatchRepositoryImpl(TransactionShards.single(jdbcTemplate, "multi-row", 7));
+		Transaction cancellation = new Transaction("C536379", "278166", "Sat Feb 02 12:50:00 IST 2019", "465549",
+				"FAMILY ALBUM WHITE PICTURE FRAME", 6, 11.73, "United Kingdom");
+		Transaction badTime = new Transaction("6000100", "278166", "02/02/2019 12:50", "465549",
+				"FAMILY ALBUM WHITE PICTURE FRAME", 6, 11.73, "United Kingdom");
+
+		assertEquals(FailureCause.CONSTRAINT, FailureCause.classify(
+				assertThrows(DataIntegrityViolationException.class, () -> repository.insertIgnoreAll(List.of(cancellation)))));
+		assertThrows(DataIntegrityViolationException.class, () -> repository.loadIgnoreAll(List.of(badTime)));
+		assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transaction", Integer.class));
+	}
+
+	@Test
+	void bulkLoadFallsBackToInsertIgnoreWithoutMySql() {
+		TransactionBatchRepositoryImpl repository = new TransactionBatchRepositoryImpl(TransactionShards.single(jdbcTemplate, "multi-row", 7));
+
+		assertEquals(20, repository.loadIgnoreAll(transactions(0, 20)));
+		assertEquals(5, repository.loadIgnoreAll(transactions(15, 25)));
+
+		assertEquals(25, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transaction", Integer.class));
+	}
+
+	@Test
+	void bulkLoadStreamEscapesTheLoadDataSpecialCharacters() throws Exception {
+		Transaction t = new Transaction("6000001", "278166", "Sat Feb 02 12:50:00 IST 2019", "465549",
+				"TAB\tNEWLINE\n BACKSLASH \\", 6, 11.73, null);
+
+		String text = new String(new TransactionTsvStream(List.of(t, t)).readAllBytes(), StandardCharsets.UTF_8);
+
+		String line = "6000001\t11.73\t\\N\t465549\tTAB\\tNEWLINE\\n BACKSLASH \\\\\t6\t2019-02-02 07:20:00\t278166\n";
+		assertEquals(line + line, text);
+	}
+
+	private static List<Transaction> transactions(int from, int to) {
+		List<Transaction> transactions = new ArrayList<>();
+		for (int i = from; i < to; i++) {
+			transactions.add(new Transaction(String.valueOf(6000000 + i), String.valueOf(250000 + i % 11),
+					"Sat Feb 02 12:50:00 IST 2019", "465549", "FAMILY ALBUM WHITE PICTURE FRAME", 6, 11.73, "United Kingdom"));
+		}
+		return transactions;
+	}
+}
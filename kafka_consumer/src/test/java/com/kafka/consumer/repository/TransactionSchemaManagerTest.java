@@ -0,0 +1,99 @@
+package com.kafka.consumer.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class TransactionSchemaManagerTest {
+
+	private JdbcTemplate jdbcTemplate;
+	private TransactionSchemaManager schema;
+
+	@BeforeEach
+	void dropTables() {
+		jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:schema;MODE=MySQL;DB_CLOSE_DELAY=-1"));
+		for (String table : new String[] {"transaction", "transaction_typed", "transaction_legacy"}) {
+			jdbcTemplate.execute("DROP TABLE IF EXISTS " + table);
+		}
+		schema = new TransactionSchemaManager(jdbcTemplate);
+		ReflectionTestUtils.setField(schema, "managed", true);
+		ReflectionTestUtils.setField(schema, "partitionsFrom", "2018-01");
+		ReflectionTestUtils.setField(schema, "aheadMonths", 3);
+		ReflectionTestUtils.setField(schema, "migrationBatchRows", 10);
+	}
+
+	@Test
+	void createsTheTypedTableWithSecondaryIndexes() {
+		schema.init();
+
+		jdbcTemplate.update("INSERT INTO transaction (transaction_id, transaction_time, user_id, item_code, "
+				+ "number_of_item_purchased, cost_per_item, country) VALUES (6355745, '2019-02-02 07:20:00', 278166, 465549, 6, 11.73, 'EIRE')");
+		assertEquals(6355745L, jdbcTemplate.queryForObject("SELECT transaction_id FROM transaction", Long.class));
+		assertTrue(indexedColumns().containsAll(Set.of("USER_ID", "COUNTRY", "ITEM_CODE")), indexedColumns().toString());
+	}
+
+	@Test
+	void migratesLegacyRowsAndKeepsTheOldTable() {
+		jdbcTemplate.execute("CREATE TABLE transaction (transaction_id VARCHAR(255) PRIMARY KEY, cost_per_item DOUBLE, "
+				+ "country VARCHAR(255), item_code VARCHAR(255), item_description VARCHAR(255), "
+				+ "number_of_item_purchased INT, transaction_time VARCHAR(255), user_id VARCHAR(255))");
+		for (int i = 0; i < 25; i++) {
+			legacyRow(String.valueOf(6000000 + i), "Sat Feb 02 12:50:00 IST 2019");
+		}
+		legacyRow("C536379", "Sat Feb 02 12:50:00 IST 2019");
+		legacyRow("6000100", "02/02/2019 12:50");
+
+		schema.init();
+
+		assertEquals(25, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transaction", Integer.class));
+		assertEquals(27, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transaction_legacy", Integer.class));
+		assertEquals(LocalDateTime.of(2019, 2, 2, 7, 20), jdbcTemplate.queryForObject(
+				"SELECT transaction_time FROM transaction WHERE transaction_id = 6000024", LocalDateTime.class));
+
+		// Already typed: a restart leaves it alone
+		schema.init();
+		assertEquals(25, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transaction", Integer.class));
+	}
+
+	@Test
+	void partitionsCoverEveryMonthBetweenTheOpenEnds() {
+		assertEquals(" PARTITION BY RANGE COLUMNS (transaction_time) ("
+				+ "PARTITION pbefore VALUES LESS THAN ('2018-12-01'), "
+				+ "PARTITION p201812 VALUES LESS THAN ('2019-01-01'), "
+				+ "PARTITION p201901 VALUES LESS THAN ('2019-02-01'), "
+				+ "PARTITION pfuture VALUES LESS THAN (MAXVALUE))",
+				TransactionSchemaManager.partitionClause(YearMonth.of(2018, 12), YearMonth.of(2019, 1)));
+	}
+
+	private void legacyRow(String id, String time) {
+		jdbcTemplate.update("INSERT INTO transaction VALUES (?, 11.73, 'United Kingdom', '465549', "
+				+ "'FAMILY ALBUM WHITE PICTURE FRAME', 6, ?, '278166')", id, time);
+	}
+
+	private Set<String> indexedColumns() {
+		return jdbcTemplate.execute((ConnectionCallback<Set<String>>) connection -> {
+			DatabaseMetaData metaData = connection.getMetaData();
+			Set<String> columns = new HashSet<>();
+			try (ResultSet indexes = metaData.getIndexInfo(connection.getCatalog(), null, "TRANSACTION", false, false)) {
+				while (indexes.next()) {
+					columns.add(indexes.getString("COLUMN_NAME").toUpperCase(Locale.ROOT));
+				}
+			}
+			return columns;
+		});
+	}
+}
@@ -0,0 +1,174 @@
+package com.kafka.consumer.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.kafka.consumer.model.Transaction;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class TransactionShardsTest {
+
+	private static final List<String> SHARDS = List.of("s0", "s1", "s2");
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final List<TransactionShards> opened = new ArrayList<>();
+	private TransactionSchemaManager schema;
+
+	@BeforeEach
+	void dropTables() {
+		for (String shard : SHARDS) {
+			new JdbcTemplate(new DriverManagerDataSource(url(shard))).execute("DROP TABLE IF EXISTS transaction");
+		}
+		schema = new TransactionSchemaManager(null);
+		ReflectionTestUtils.setField(schema, "managed", true);
+		ReflectionTestUtils.setField(schema, "partitionsFrom", "2018-01");
+		ReflectionTestUtils.setField(schema, "aheadMonths", 3);
+		ReflectionTestUtils.setField(schema, "migrationBatchRows", 1000);
+	}
+
+	@AfterEach
+	void closeShards() {
+		opened.forEach(TransactionShards::close);
+	}
+
+	@Test
+	void flushesAreSplitAcrossShardsAndReadBackAsOne() {
+		TransactionShards shards = shards("transaction-id", "s0", "s1", "s2");
+		TransactionBatchRepositoryImpl repository = new TransactionBatchRepositoryImpl(shards);
+		List<Transaction> rows = transactions(0, 3000);
+
+		assertEquals(3000, repository.insertIgnoreAll(rows));
+		assertEquals(0, repository.insertIgnoreAll(rows));
+
+		for (TransactionShard shard : shards.shards()) {
+			Set<String> stored = ids(shard);
+			// 160 virtual nodes per shard keep each within about a quarter of an even share
+			assertTrue(stored.size() > 750, shard.name() + " holds " + stored.size());
+			for (String id : stored) {
+				assertEquals(shard, shards.shardFor(transaction(Long.parseLong(id))));
+			}
+			assertEquals(2, registry.get("consumer.shard.write").tags("shard", shard.name()).timer().count());
+		}
+		assertEquals(3000, total(shards));
+
+		// User 250007 has every 50th row, spread over all shards; pages merge them newest first
+		List<Transaction> page = new TransactionQueryRepository(shards).byUser(250007, 6002000, 5);
+		assertEquals(List.of("6001957", "6001907", "6001857", "6001807", "6001757"),
+				page.stream().map(Transaction::getTransactionId).toList());
+	}
+
+	@Test
+	void userIdKeyKeepsEachUsersRowsOnOneShard() {
+		TransactionShards shards = shards("user-id", "s0", "s1", "s2");
+		new TransactionBatchRepositoryImpl(shards).insertIgnoreAll(transactions(0, 1000));
+
+		Map<String, Set<String>> shardsByUser = new HashMap<>();
+		for (TransactionShard shard : shards.shards()) {
+			for (String user : shard.jdbcTemplate().queryForList("SELECT DISTINCT user_id FROM transaction", String.class)) {
+				shardsByUser.computeIfAbsent(user, u -> new HashSet<>()).add(shard.name());
+			}
+		}
+		assertEquals(50, shardsByUser.size());
+		shardsByUser.values().forEach(names -> assertEquals(1, names.size()));
+	}
+
+	@Test
+	void addingAShardMovesOnlyTheRowsItNowOwns() {
+		TransactionShards before = shards("transaction-id", "s0", "s1");
+		new TransactionBatchRepositoryImpl(before).insertIgnoreAll(transactions(0, 2000));
+		Map<String, String> placed = placement(before);
+
+		TransactionShards after = shards("transaction-id", "s0", "s1", "s2");
+		ShardRebalancer rebalancer = new ShardRebalancer(after);
+		ReflectionTestUtils.setField(rebalancer, "batchRows", 300);
+		long moved = rebalancer.rebalance();
+
+		Map<String, String> now = placement(after);
+		assertEquals(2000, now.size());
+		assertEquals(2000, total(after));
+		int changed = 0;
+		for (Map.Entry<String, String> row : now.entrySet()) {
+			assertEquals(after.shardFor(transaction(Long.parseLong(row.getKey()))).name(), row.getValue());
+			if (!row.getValue().equals(placed.get(row.getKey()))) {
+				// Consistent hashing: a row only ever moves to the new shard
+				assertEquals("s2", row.getValue());
+				changed++;
+			}
+		}
+		assertEquals(changed, moved);
+		assertNotEquals(0, moved);
+		assertEquals(0, rebalancer.rebalance());
+	}
+
+	private TransactionShards shards(String key, String... names) {
+		MockEnvironment environment = new MockEnvironment();
+		for (String name : names) {
+			environment.setProperty("consumer.sharding.shard." + name + ".url", url(name));
+		}
+		TransactionShards shards = new TransactionShards(null, null, environment, schema, registry);
+		ReflectionTestUtils.setField(shards, "enabled", true);
+		ReflectionTestUtils.setField(shards, "names", List.of(names));
+		ReflectionTestUtils.setField(shards, "key", key);
+		ReflectionTestUtils.setField(shards, "virtualNodes", 160);
+		ReflectionTestUtils.setField(shards, "poolSize", 2);
+		ReflectionTestUtils.setField(shards, "strategy", "multi-row");
+		ReflectionTestUtils.setField(shards, "rowsPerStatement", 500);
+		shards.init();
+		opened.add(shards);
+		return shards;
+	}
+
+	private static String url(String shard) {
+		return "jdbc:h2:mem:shard_" + shard + ";MODE=MySQL;DB_CLOSE_DELAY=-1";
+	}
+
+	private static Set<String> ids(TransactionShard shard) {
+		return new HashSet<>(shard.jdbcTemplate().queryForList("SELECT transaction_id FROM transaction", String.class));
+	}
+
+	private static Map<String, String> placement(TransactionShards shards) {
+		Map<String, String> placement = new HashMap<>();
+		for (TransactionShard shard : shards.shards()) {
+			ids(shard).forEach(id -> placement.put(id, shard.name()));
+		}
+		return placement;
+	}
+
+	private static int total(TransactionShards shards) {
+		int total = 0;
+		for (TransactionShard shard : shards.shards()) {
+			total += shard.jdbcTemplate().queryForObject("SELECT COUNT(*) FROM transaction", Integer.class);
+		}
+		return total;
+	}
+
+	private static List<Transaction> transactions(int from, int to) {
+		List<Transaction> transactions = new ArrayList<>();
+		for (int i = from; i < to; i++) {
+			transactions.add(transaction(6000000 + i));
+		}
+		return transactions;
+	}
+
+	private static Transaction transaction(long id) {
+		return new Transaction(String.valueOf(id), String.valueOf(250000 + id % 50), "Sat Feb 02 12:50:00 IST 2019",
+				"465549", "FAMILY ALBUM WHITE PICTURE FRAME", 6, 11.73, "United Kingdom");
+	}
+}
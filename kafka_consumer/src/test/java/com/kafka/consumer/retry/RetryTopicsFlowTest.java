@@ -0,0 +1,196 @@
+package com.kafka.consumer.retry;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.AcknowledgingMessageListener;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.kafka.consumer.aggregation.WindowedAggregator;
+import com.kafka.consumer.logging.RecordLog;
+import com.kafka.consumer.model.Transaction;
+import com.kafka.consumer.pipeline.DuplicateFilter;
+import com.kafka.consumer.query.TransactionQueryCache;
+import com.kafka.consumer.repository.TransactionRepository;
+import com.kafka.consumer.serialization.TransactionDeserializer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RetryTopicsFlowTest {
+
+	private static EmbeddedKafkaBroker broker;
+
+	@TempDir
+	Path registryDir;
+
+	private final TransactionRepository repository = mock(TransactionRepository.class);
+	private RetryTopics topics;
+	private RetryPublisher publisher;
+	private RecordLog recordLog;
+	private ConcurrentMessageListenerContainer<String, byte[]> container;
+
+	@BeforeAll
+	static void startBroker() {
+		broker = new EmbeddedKafkaKraftBroker(1, 1);
+		broker.afterPropertiesSet();
+	}
+
+	@AfterAll
+	static void stopBroker() {
+		broker.destroy();
+	}
+
+	@AfterEach
+	void stopContainer() {
+		if (container != null) container.stop();
+		if (recordLog != null) recordLog.stop();
+	}
+
+	@Test
+	void transientFailureEscalatesThroughTheTiersUntilItIsStored() {
+		start();
+		when(repository.insertIgnoreAll(anyList()))
+				.thenThrow(new QueryTimeoutException("lock wait timeout"))
+				.thenReturn(1);
+
+		long start = System.currentTimeMillis();
+		publisher.reroute(List.of(transaction("6355745")), 0, new QueryTimeoutException("lock wait timeout"), "test");
+
+		verify(repository, timeout(15_000).times(2)).insertIgnoreAll(List.of(transaction("6355745")));
+		// 200 ms in the first tier, 400 ms in the second
+		assertTrue(System.currentTimeMillis() - start >= 600);
+	}
+
+	@Test
+	void constraintViolationGoesStraightToTheDeadLetterTopic() {
+		start();
+		publisher.reroute(List.of(transaction("6355746")), 0, new DataIntegrityViolationException("Data too long"), "test");
+
+		ConsumerRecord<String, byte[]> dead = awaitDeadLetter();
+		assertEquals("CONSTRAINT", header(dead, RetryPublisher.CAUSE_HEADER));
+		assertEquals(transaction("6355746"), new TransactionDeserializer("auto", registryDir).deserialize(dead.topic(), dead.value()));
+	}
+
+	@Test
+	void exhaustedRetriesEndInTheDeadLetterTopic() {
+		start();
+		when(repository.insertIgnoreAll(anyList())).thenThrow(new QueryTimeoutException("lock wait timeout"));
+
+		publisher.reroute(List.of(transaction("6355747")), 0, new QueryTimeoutException("lock wait timeout"), "test");
+
+		ConsumerRecord<String, byte[]> dead = awaitDeadLetter();
+		assertEquals("TRANSIENT_DB", header(dead, RetryPublisher.CAUSE_HEADER));
+		assertEquals("3", header(dead, RetryPublisher.ATTEMPT_HEADER));
+	}
+
+	@Test
+	void undecodableRecordIsDeadLetteredWithItsOriginalBytes() {
+		start();
+		byte[] garbage = "not json".getBytes(StandardCharsets.UTF_8);
+
+		publisher.deadLetter(new ConsumerRecord<>("transactions", 2, 41, "278166", garbage), FailureCause.DESERIALIZATION,
+				new IllegalArgumentException("Unrecognized token 'not'"));
+
+		ConsumerRecord<String, byte[]> dead = awaitDeadLetter();
+		assertArrayEquals(garbage, dead.value());
+		assertEquals("DESERIALIZATION", header(dead, RetryPublisher.CAUSE_HEADER));
+		assertEquals("transactions-2@41", header(dead, RetryPublisher.ORIGIN_HEADER));
+	}
+
+	// Each test gets its own topic family so leftovers of other tests are never consumed
+	private void start() {
+		String topic = "txn-" + UUID.randomUUID();
+		topics = new RetryTopics(topic, new long[] {200, 400});
+		broker.addTopics(topics.tierTopic(0), topics.tierTopic(1), topics.deadLetterTopic());
+
+		KafkaTemplate<String, byte[]> template = new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(Map.of(
+				ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString(),
+				ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+				ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class)));
+		recordLog = new RecordLog(new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(recordLog, "linesPerSecond", 20);
+		ReflectionTestUtils.setField(recordLog, "queueCapacity", 100);
+		recordLog.start();
+		publisher = new RetryPublisher(template, topics, recordLog, new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(publisher, "enabled", true);
+		ReflectionTestUtils.setField(publisher, "sendTimeoutMs", 10_000L);
+
+		RetryListener listener = new RetryListener(new TransactionDeserializer("auto", registryDir), repository,
+				mock(DuplicateFilter.class), mock(WindowedAggregator.class), mock(TransactionQueryCache.class), publisher,
+				recordLog);
+		ReflectionTestUtils.setField(listener, "maxPauseMs", 1000L);
+
+		ContainerProperties properties = new ContainerProperties(topics.tierTopics());
+		properties.setAckMode(ContainerProperties.AckMode.MANUAL);
+		properties.setMessageListener((AcknowledgingMessageListener<String, byte[]>) listener::onRetry);
+		container = new ConcurrentMessageListenerContainer<>(new DefaultKafkaConsumerFactory<>(
+				consumerProps(topic + "-retry-group")), properties);
+		container.start();
+	}
+
+	private ConsumerRecord<String, byte[]> awaitDeadLetter() {
+		try (KafkaConsumer<String, byte[]> consumer = new KafkaConsumer<>(consumerProps("dlt-reader-" + UUID.randomUUID()))) {
+			consumer.subscribe(List.of(topics.deadLetterTopic()));
+			long deadline = System.currentTimeMillis() + 15_000;
+			while (System.currentTimeMillis() < deadline) {
+				for (ConsumerRecord<String, byte[]> record : consumer.poll(Duration.ofMillis(200))) {
+					return record;
+				}
+			}
+		}
+		throw new AssertionError("nothing arrived on " + topics.deadLetterTopic());
+	}
+
+	private static Map<String, Object> consumerProps(String group) {
+		return Map.of(
+				ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString(),
+				ConsumerConfig.GROUP_ID_CONFIG, group,
+				ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest",
+				ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
+				ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+	}
+
+	private static String header(ConsumerRecord<?, ?> record, String name) {
+		return new String(record.headers().lastHeader(name).value(), StandardCharsets.UTF_8);
+	}
+
+	private static Transaction transaction(String id) {
+		return new Transaction(id, "278166", "Sat Feb 02 12:50:00 IST 2019", "465549",
+				"FAMILY ALBUM WHITE PICTURE FRAME", 6, 11.73, "United Kingdom");
+	}
+}
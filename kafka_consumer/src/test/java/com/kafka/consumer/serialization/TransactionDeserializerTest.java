@@ -0,0 +1,111 @@
+package com.kafka.consumer.serialization;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HexFormat;
+import java.util.List;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.kafka.consumer.model.Transaction;
+
+class TransactionDeserializerTest {
+
+	// Written by the producer's TransactionBinaryCodec (see TransactionSerializerTest)
+	static final String GOLDEN_V1 = "009328457a0836333535373435073237383136361d536174204665622030322031323a35303a3030204953542032303139073436353534392146414d494c5920414c42554d2057484954452050494354555245204652414d450c402775c28f5c28f60f556e69746564204b696e67646f6d";
+
+	@TempDir
+	Path registryDir;
+
+	private final Transaction expected = new Transaction("6355745", "278166", "Sat Feb 02 12:50:00 IST 2019",
+			"465549", "FAMILY ALBUM WHITE PICTURE FRAME", 6, 11.73, "United Kingdom");
+
+	@Test
+	void autoModeReadsBinaryAndJsonSideBySide() {
+		TransactionDeserializer deserializer = new TransactionDeserializer("auto", registryDir);
+		String json = "{\"userId\":\"278166\",\"transactionId\":\"6355745\",\"transactionTime\":\"Sat Feb 02 12:50:00 IST 2019\","
+				+ "\"itemCode\":\"465549\",\"itemDescription\":\"FAMILY ALBUM WHITE PICTURE FRAME\","
+				+ "\"numberOfItemPurchased\":6,\"costPerItem\":11.73,\"country\":\"United Kingdom\"}";
+
+		assertEquals(expected, deserializer.deserialize("topic_0", HexFormat.of().parseHex(GOLDEN_V1)));
+		assertEquals(expected, deserializer.deserialize("topic_0", json.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	@Test
+	void olderWriterSchemaIsResolvedThroughTheRegistry() throws Exception {
+		// A writer that only knew three fields, in a different order
+		TransactionSchema old = new TransactionSchema("transaction", List.of(
+				new TransactionSchema.Field("userId", "string"),
+				new TransactionSchema.Field("transactionId", "string"),
+				new TransactionSchema.Field("numberOfItemPurchased", "int")));
+		new FileSchemaRegistry(registryDir).register(old);
+		int id = old.id();
+		byte[] record = {0, (byte) (id >>> 24), (byte) (id >>> 16), (byte) (id >>> 8), (byte) id,
+				3, '4', '2', 2, '7', 0x05};
+
+		Transaction t = new TransactionDeserializer("auto", registryDir).deserialize("topic_0", record);
+
+		assertEquals("42", t.getUserId());
+		assertEquals("7", t.getTransactionId());
+		assertEquals(-3, t.getNumberOfItemPurchased());
+		assertTrue(Files.exists(registryDir.resolve(String.format("transaction-%08x.json", id))));
+	}
+
+	@Test
+	void truncatedBinaryRecordIsRejected() {
+		byte[] golden = HexFormat.of().parseHex(GOLDEN_V1);
+		byte[] truncated = java.util.Arrays.copyOf(golden, golden.length - 3);
+
+		assertThrows(SerializationException.class,
+				() -> new TransactionDeserializer("auto", registryDir).deserialize("topic_0", truncated));
+	}
+
+	@Test
+	void repeatedValuesAreSharedAcrossRecordsAndFormats() {
+		TransactionDeserializer deserializer = new TransactionDeserializer("auto", registryDir);
+		String json = "{\"userId\":\"278166\",\"transactionId\":\"6355745\",\"transactionTime\":\"Sat Feb 02 12:50:00 IST 2019\","
+				+ "\"itemCode\":\"465549\",\"itemDescription\":\"FAMILY ALBUM WHITE PICTURE FRAME\","
+				+ "\"numberOfItemPurchased\":6,\"costPerItem\":11.73,\"country\":\"United Kingdom\"}";
+
+		Transaction first = deserializer.deserialize("topic_0", json.getBytes(StandardCharsets.UTF_8));
+		Transaction second = deserializer.deserialize("topic_0", json.getBytes(StandardCharsets.UTF_8));
+		Transaction binary = deserializer.deserialize("topic_0", HexFormat.of().parseHex(GOLDEN_V1));
+
+		assertSame(first.getCountry(), second.getCountry());
+		assertSame(first.getItemDescription(), binary.getItemDescription());
+		assertSame(first.getTransactionTime(), binary.getTransactionTime());
+		assertNotSame(first.getTransactionId(), second.getTransactionId());
+	}
+
+	@Test
+	void jsonScalarsAreCoercedAndNullsLeaveDefaults() {
+		String json = "{\"userId\":278166,\"transactionId\":\"6355745\",\"transactionTime\":null,"
+				+ "\"numberOfItemPurchased\":\"6\",\"costPerItem\":\"11.73\",\"country\":null}";
+
+		Transaction t = new TransactionDeserializer("json", registryDir).deserialize("topic_0", json.getBytes(StandardCharsets.UTF_8));
+
+		assertEquals("278166", t.getUserId());
+		assertEquals(6, t.getNumberOfItemPurchased());
+		assertEquals(11.73, t.getCostPerItem());
+		assertNull(t.getTransactionTime());
+		assertNull(t.getCountry());
+	}
+
+	@Test
+	void unknownJsonFieldIsRejected() {
+		byte[] json = "{\"transactionId\":\"6355745\",\"discount\":0.1}".getBytes(StandardCharsets.UTF_8);
+
+		assertThrows(SerializationException.class,
+				() -> new TransactionDeserializer("json", registryDir).deserialize("topic_0", json));
+	}
+}
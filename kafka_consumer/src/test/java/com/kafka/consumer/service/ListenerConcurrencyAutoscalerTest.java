@@ -0,0 +1,124 @@
+package com.kafka.consumer.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.MessageListener;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.kafka.consumer.pipeline.PipelineStats;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ListenerConcurrencyAutoscalerTest {
+
+	private PipelineStats stats;
+	private ListenerConcurrencyAutoscaler autoscaler;
+
+	@BeforeEach
+	void setUp() {
+		stats = new PipelineStats(new SimpleMeterRegistry());
+		autoscaler = new ListenerConcurrencyAutoscaler(null, stats, null);
+		ReflectionTestUtils.setField(autoscaler, "minConcurrency", 1);
+		ReflectionTestUtils.setField(autoscaler, "maxConcurrency", 8);
+		ReflectionTestUtils.setField(autoscaler, "scaleUpLag", 1000L);
+		ReflectionTestUtils.setField(autoscaler, "scaleDownLag", 100L);
+		ReflectionTestUtils.setField(autoscaler, "maxFlushLatencyMs", 500.0);
+		ReflectionTestUtils.setField(autoscaler, "hysteresis", 2);
+		ReflectionTestUtils.setField(autoscaler, "cooldownMs", 0L);
+	}
+
+	@Test
+	void scalesUpOnlyAfterSustainedLagAndWithinPartitionCount() {
+		assertEquals(2, autoscaler.decide(2, 3, 5000, 10));
+		assertEquals(3, autoscaler.decide(2, 3, 5000, 10));
+		assertEquals(3, autoscaler.decide(3, 3, 5000, 10));
+		assertEquals(3, autoscaler.decide(3, 3, 5000, 10));
+	}
+
+	@Test
+	void slowDatabaseAndLowLagScaleDown() {
+		assertEquals(4, autoscaler.decide(4, 12, 5000, 900));
+		assertEquals(3, autoscaler.decide(4, 12, 5000, 900));
+		assertEquals(3, autoscaler.decide(3, 12, 10, 10));
+		assertEquals(2, autoscaler.decide(3, 12, 10, 10));
+	}
+
+	@Test
+	void mixedSignalsResetTheVotes() {
+		assertEquals(2, autoscaler.decide(2, 12, 5000, 10));
+		assertEquals(2, autoscaler.decide(2, 12, 500, 10));
+		assertEquals(2, autoscaler.decide(2, 12, 5000, 10));
+	}
+
+	@Test
+	void dropsIdleThreadsAboveAssignedPartitionsImmediately() {
+		assertEquals(2, autoscaler.decide(6, 2, 0, 10));
+	}
+
+	@Test
+	void growsContainerConcurrencyAgainstEmbeddedBrokerBacklog() throws Exception {
+		EmbeddedKafkaBroker broker = new EmbeddedKafkaKraftBroker(1, 4, "backlog");
+		broker.afterPropertiesSet();
+		ConcurrentMessageListenerContainer<String, String> container = null;
+		try {
+			try (KafkaProducer<String, String> producer = new KafkaProducer<>(Map.of(
+					ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString(),
+					ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+					ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class))) {
+				for (int i = 0; i < 20_000; i++) {
+					producer.send(new ProducerRecord<>("backlog", String.valueOf(i % 97), "txn-" + i));
+				}
+			}
+
+			ContainerProperties properties = new ContainerProperties("backlog");
+			// A deliberately slow listener keeps the synthetic backlog in place
+			properties.setMessageListener((MessageListener<String, String>) record -> sleep(5));
+			container = new ConcurrentMessageListenerContainer<>(new DefaultKafkaConsumerFactory<>(Map.of(
+					ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString(),
+					ConsumerConfig.GROUP_ID_CONFIG, "autoscaler-test",
+					ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest",
+					ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 10,
+					ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
+					ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class)), properties);
+			container.setConcurrency(1);
+			container.start();
+
+			long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(60);
+			while (container.getConcurrency() < 2 && System.currentTimeMillis() < deadline) {
+				autoscaler.evaluate(container);
+				Thread.sleep(500);
+			}
+
+			assertTrue(container.getConcurrency() >= 2, "concurrency stayed at " + container.getConcurrency());
+			assertTrue(container.getConcurrency() <= 4);
+		} finally {
+			if (container != null) container.stop();
+			broker.destroy();
+		}
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,170 @@
+package com.kafka.consumer.spool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Path;
+import java.sql.SQLDataException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.kafka.consumer.aggregation.WindowedAggregator;
+import com.kafka.consumer.model.Transaction;
+import com.kafka.consumer.pipeline.DuplicateFilter;
+import com.kafka.consumer.query.TransactionQueryCache;
+import com.kafka.consumer.repository.TransactionRepository;
+import com.kafka.consumer.retry.RetryPublisher;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class SpoolReplayerTest {
+
+	@TempDir
+	Path dir;
+
+	private TransactionSpool spool;
+	private TransactionRepository repository;
+	private RetryPublisher retries;
+	private WindowedAggregator aggregator;
+	private SpoolReplayer replayer;
+
+	@BeforeEach
+	void start() throws Exception {
+		spool = new TransactionSpool(new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(spool, "enabled", true);
+		ReflectionTestUtils.setField(spool, "dir", dir.toString());
+		ReflectionTestUtils.setField(spool, "segmentBytes", 1 << 20);
+		ReflectionTestUtils.setField(spool, "maxBytes", 8L << 20);
+		ReflectionTestUtils.setField(spool, "degradedCooldownMs", 5000L);
+		ReflectionTestUtils.setField(spool, "slowFlushMs", 2000L);
+		spool.open();
+		repository = mock(TransactionRepository.class);
+		// What the shards throw for a row TransactionColumns cannot bind
+		when(repository.insertIgnoreAll(anyList())).thenAnswer(invocation -> {
+			List<Transaction> rows = invocation.getArgument(0);
+			if (rows.stream().anyMatch(t -> t.getTransactionId().equals("not-a-number"))) {
+				throw new UncategorizedSQLException("insert", null, new SQLDataException("transaction_id is not numeric"));
+			}
+			return rows.size();
+		});
+		retries = mock(RetryPublisher.class);
+		when(retries.isEnabled()).thenReturn(true);
+		aggregator = mock(WindowedAggregator.class);
+		replayer = new SpoolReplayer(spool, repository, mock(DuplicateFilter.class), aggregator,
+				mock(TransactionQueryCache.class), retries, new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(replayer, "backoffMs", 50L);
+	}
+
+	@AfterEach
+	void stop() throws Exception {
+		replayer.stop();
+		spool.close();
+	}
+
+	@Test
+	void poisonRowIsRoutedAwayAndTheBatchesBehindItAreReplayed() throws Exception {
+		List<Transaction> poisoned = transactions(0, 3);
+		poisoned.set(1, poison());
+		spool.append(poisoned);
+		spool.append(transactions(3, 5));
+
+		replayer.start();
+
+		verify(repository, timeout(2000)).insertIgnoreAll(transactions(3, 5));
+		verify(repository).insertIgnoreAll(List.of(poisoned.get(0)));
+		verify(repository).insertIgnoreAll(List.of(poisoned.get(2)));
+		verify(retries).reroute(argThat(rows -> rows.equals(List.of(poisoned.get(1)))), eq(0),
+				any(UncategorizedSQLException.class), eq("spool"));
+		awaitDrained();
+	}
+
+	@Test
+	void poisonRowLeavesOnceWhenAnotherRowOfItsBatchFailsTransiently() throws Exception {
+		List<Transaction> batch = transactions(0, 3);
+		batch.set(1, poison());
+		Transaction flaky = batch.get(2);
+		AtomicBoolean down = new AtomicBoolean(true);
+		when(repository.insertIgnoreAll(List.of(flaky))).thenAnswer(invocation -> {
+			if (down.getAndSet(false)) throw new DataAccessResourceFailureException("MySQL down");
+			return 1;
+		});
+		spool.append(batch);
+
+		replayer.start();
+
+		awaitDrained();
+		verify(repository, times(2)).insertIgnoreAll(List.of(flaky));
+		verify(retries, times(1)).reroute(argThat(rows -> rows.equals(List.of(batch.get(1)))), eq(0),
+				any(UncategorizedSQLException.class), eq("spool"));
+		verify(aggregator, times(1)).retract(List.of(batch.get(1)));
+	}
+
+	@Test
+	void poisonRowIsDroppedWhenRetryTopicsAreDisabled() throws Exception {
+		when(retries.isEnabled()).thenReturn(false);
+		List<Transaction> batch = transactions(0, 3);
+		batch.set(1, poison());
+		spool.append(batch);
+		spool.append(transactions(3, 5));
+
+		replayer.start();
+
+		verify(repository, timeout(2000)).insertIgnoreAll(transactions(3, 5));
+		awaitDrained();
+		verify(retries, never()).reroute(anyList(), anyInt(), any(), any());
+		verify(aggregator).retract(List.of(batch.get(1)));
+	}
+
+	@Test
+	void batchStaysSpooledWhileTheDatabaseIsDown() throws Exception {
+		when(repository.insertIgnoreAll(anyList())).thenThrow(new DataAccessResourceFailureException("MySQL down"));
+		spool.append(transactions(0, 3));
+
+		replayer.start();
+
+		verify(repository, timeout(2000).atLeast(2)).insertIgnoreAll(transactions(0, 3));
+		verify(retries, never()).reroute(anyList(), eq(0), any(), any());
+		assertEquals(1, spool.pendingBatches());
+	}
+
+	private void awaitDrained() throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 2000;
+		while (spool.pendingBatches() > 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(0, spool.pendingBatches());
+	}
+
+	private static Transaction poison() {
+		return new Transaction("not-a-number", "278166", "Sat Feb 02 12:50:00 IST 2019", "465549", null, 6, 11.73,
+				"United Kingdom");
+	}
+
+	private static List<Transaction> transactions(int from, int to) {
+		List<Transaction> transactions = new ArrayList<>();
+		for (int i = from; i < to; i++) {
+			transactions.add(new Transaction(String.valueOf(6000000 + i), "278166", "Sat Feb 02 12:50:00 IST 2019",
+					"465549", "FAMILY ALBUM WHITE PICTURE FRAME", 6, 11.73, "United Kingdom"));
+		}
+		return transactions;
+	}
+}
@@ -0,0 +1,155 @@
+package com.kafka.consumer.spool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.kafka.consumer.model.Transaction;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class TransactionSpoolTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void replaysBatchesInOrderAndDropsFilesOnceDrained() throws Exception {
+		TransactionSpool spool = open(1 << 20, 8 << 20);
+
+		assertTrue(spool.append(transactions(0, 3)));
+		assertTrue(spool.append(transactions(3, 5)));
+		assertEquals(2, spool.pendingBatches());
+
+		assertEquals(transactions(0, 3), spool.peek(10));
+		// Not acknowledged → handed out again
+		assertEquals(transactions(0, 3), spool.peek(10));
+		spool.acknowledge();
+		assertEquals(transactions(3, 5), spool.peek(10));
+		spool.acknowledge();
+
+		assertNull(spool.peek(10));
+		assertEquals(0, segmentFiles());
+		spool.close();
+	}
+
+	@Test
+	void rollsSegmentsDeletesConsumedOnesAndRejectsBeyondTheSizeLimit() throws Exception {
+		TransactionSpool spool = open(4096, 3 * 4096);
+
+		int appended = 0;
+		while (spool.append(transactions(appended * 10, appended * 10 + 10))) {
+			appended++;
+		}
+		assertEquals(3, segmentFiles());
+		assertTrue(appended > 3);
+
+		int perSegment = appended / 3;
+		for (int i = 0; i < perSegment; i++) {
+			assertEquals(transactions(i * 10, i * 10 + 10), spool.peek(10));
+			spool.acknowledge();
+		}
+		assertEquals(2, segmentFiles());
+		assertTrue(spool.append(transactions(0, 10)));
+		spool.close();
+	}
+
+	@Test
+	void recoversPendingBatchesAfterACrashAndIgnoresATornWrite() throws Exception {
+		TransactionSpool spool = open(1 << 20, 8 << 20);
+		spool.append(transactions(0, 3));
+		spool.append(transactions(3, 6));
+		spool.append(transactions(6, 9));
+		spool.peek(10);
+		spool.acknowledge();
+
+		// Crash mid-append: a header promising more bytes than were written, then garbage
+		Path segment;
+		try (Stream<Path> files = Files.list(dir)) {
+			segment = files.filter(p -> p.toString().endsWith(".spool")).findFirst().orElseThrow();
+		}
+		long end = endOfRecords(segment);
+		try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+			file.seek(end);
+			file.writeInt(500);
+			file.writeInt(0xDEADBEEF);
+			file.write(new byte[] {1, 2, 3});
+		}
+
+		// Restart without a clean close
+		TransactionSpool recovered = open(1 << 20, 8 << 20);
+		assertEquals(2, recovered.pendingBatches());
+		assertTrue(recovered.append(transactions(9, 10)));
+
+		assertEquals(transactions(3, 6), recovered.peek(10));
+		recovered.acknowledge();
+		assertEquals(transactions(6, 9), recovered.peek(10));
+		recovered.acknowledge();
+		assertEquals(transactions(9, 10), recovered.peek(10));
+		recovered.acknowledge();
+		assertEquals(0, recovered.pendingBatches());
+		recovered.close();
+	}
+
+	@Test
+	void disabledSpoolNeverTakesBatches() throws Exception {
+		TransactionSpool spool = new TransactionSpool(new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(spool, "enabled", false);
+		spool.open();
+		spool.degrade();
+
+		assertFalse(spool.shouldSpool());
+		assertFalse(spool.append(transactions(0, 1)));
+	}
+
+	private TransactionSpool open(int segmentBytes, long maxBytes) throws Exception {
+		TransactionSpool spool = new TransactionSpool(new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(spool, "enabled", true);
+		ReflectionTestUtils.setField(spool, "dir", dir.toString());
+		ReflectionTestUtils.setField(spool, "segmentBytes", segmentBytes);
+		ReflectionTestUtils.setField(spool, "maxBytes", maxBytes);
+		ReflectionTestUtils.setField(spool, "degradedCooldownMs", 5000L);
+		ReflectionTestUtils.setField(spool, "slowFlushMs", 2000L);
+		spool.open();
+		return spool;
+	}
+
+	private long segmentFiles() throws Exception {
+		try (Stream<Path> files = Files.list(dir)) {
+			return files.filter(p -> p.toString().endsWith(".spool")).count();
+		}
+	}
+
+	private static long endOfRecords(Path segment) throws Exception {
+		try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "r")) {
+			long position = 0;
+			int length;
+			while ((length = file.readInt()) > 0) {
+				position += 8 + length;
+				file.seek(position);
+			}
+			return position;
+		}
+	}
+
+	private static List<Transaction> transactions(int from, int to) {
+		List<Transaction> transactions = new ArrayList<>();
+		for (int i = from; i < to; i++) {
+			transactions.add(new Transaction(String.valueOf(6000000 + i), "278166", "Sat Feb 02 12:50:00 IST 2019",
+					"465549", i % 2 == 0 ? "FAMILY ALBUM WHITE PICTURE FRAME" : null, 6, 11.73, "United Kingdom"));
+		}
+		return transactions;
+	}
+}
@@ -0,0 +1,10 @@
+package com.kafka.producer.checkpoint;
+
+// Acknowledged prefix of one CSV file: every row before byteOffset (rowNumber rows) is on the
+// broker. byteOffset is always a line start, 0 meaning nothing sent yet.
+public record FileCheckpoint(String contentHash, long byteOffset, long rowNumber) {
+
+    public static FileCheckpoint start(String contentHash) {
+        return new FileCheckpoint(contentHash, 0, 0);
+    }
+}
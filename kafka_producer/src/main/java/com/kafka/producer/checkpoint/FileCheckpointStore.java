@@ -0,0 +1,156 @@
+package com.kafka.producer.checkpoint;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+// Durable ingestion state, so a restarted producer neither resends rows the broker already
+// acknowledged nor ingests a file it finished before:
+//  - <file name>.checkpoint: content hash, byte offset and row number of the acknowledged
+//    prefix, replaced atomically (temp file, fsync, rename) as the prefix grows
+//  - processed.log: one line per completed file with its content hash; a file whose hash is
+//    listed is skipped whatever it is called
+@Component
+public class FileCheckpointStore {
+
+    private static final String LEDGER = "processed.log";
+    private static final String SUFFIX = ".checkpoint";
+
+    @Value("${producer.checkpoint.enabled:true}")
+    private boolean enabled;
+
+    @Value("${producer.checkpoint.dir:data/checkpoints}")
+    private String checkpointDir;
+
+    private final Set<String> processedHashes = ConcurrentHashMap.newKeySet();
+    private Path dir;
+
+    @PostConstruct
+    void init() throws IOException {
+        dir = Paths.get(checkpointDir);
+        if (!enabled) return;
+        Files.createDirectories(dir);
+        Path ledger = dir.resolve(LEDGER);
+        if (Files.exists(ledger)) {
+            // A line torn by a crash has no full hash and is ignored
+            for (String line : Files.readAllLines(ledger, StandardCharsets.UTF_8)) {
+                String hash = line.split("\t", 2)[0];
+                if (hash.length() == 64) processedHashes.add(hash);
+            }
+        }
+        System.out.printf("🔖 Checkpoints in %s (%d files already processed)%n", dir.toAbsolutePath(), processedHashes.size());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // SHA-256 of the whole file, read once before it is sent
+    public String contentHash(Path file) throws IOException {
+        MessageDigest digest = sha256();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) > 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public boolean isProcessed(String contentHash) {
+        return processedHashes.contains(contentHash);
+    }
+
+    // The last checkpoint of this file, or null when there is none or it belongs to other content
+    public FileCheckpoint load(Path file, String contentHash) {
+        Path sidecar = sidecarOf(file);
+        if (!Files.exists(sidecar)) return null;
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(sidecar)) {
+            properties.load(in);
+        } catch (IOException e) {
+            System.err.printf("⚠️ Unreadable checkpoint %s, sending %s from the start: %s%n", sidecar, file.getFileName(), e.getMessage());
+            return null;
+        }
+        if (!contentHash.equals(properties.getProperty("contentHash"))) {
+            return null;
+        }
+        return new FileCheckpoint(contentHash, Long.parseLong(properties.getProperty("byteOffset")),
+                Long.parseLong(properties.getProperty("rowNumber")));
+    }
+
+    // A failed write only means more rows are resent after a crash, so it is reported, not thrown
+    public void save(Path file, FileCheckpoint checkpoint) {
+        Properties properties = new Properties();
+        properties.setProperty("file", file.getFileName().toString());
+        properties.setProperty("contentHash", checkpoint.contentHash());
+        properties.setProperty("byteOffset", Long.toString(checkpoint.byteOffset()));
+        properties.setProperty("rowNumber", Long.toString(checkpoint.rowNumber()));
+        Path sidecar = sidecarOf(file);
+        Path temp = sidecar.resolveSibling(sidecar.getFileName() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+                 OutputStream out = Channels.newOutputStream(channel)) {
+                properties.store(out, null);
+                channel.force(true);
+            }
+            Files.move(temp, sidecar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.printf("⚠️ Checkpoint of %s not saved: %s%n", file.getFileName(), e.getMessage());
+        }
+    }
+
+    // Called once every row is acknowledged: the hash goes to the ledger, the sidecar away
+    public void complete(Path file, FileCheckpoint checkpoint) {
+        String line = String.join("\t", checkpoint.contentHash(), file.getFileName().toString(),
+                Long.toString(checkpoint.rowNumber()), Instant.now().toString()) + "\n";
+        try (FileChannel channel = FileChannel.open(dir.resolve(LEDGER), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+             Writer writer = Channels.newWriter(channel, StandardCharsets.UTF_8)) {
+            writer.write(line);
+            writer.flush();
+            channel.force(true);
+            processedHashes.add(checkpoint.contentHash());
+            Files.deleteIfExists(sidecarOf(file));
+        } catch (IOException e) {
+            System.err.printf("⚠️ Could not record %s as processed: %s%n", file.getFileName(), e.getMessage());
+        }
+    }
+
+    private Path sidecarOf(Path file) {
+        return dir.resolve(file.getFileName() + SUFFIX);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,26 +1,53 @@
 package com.kafka.producer.component;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
+import com.kafka.producer.checkpoint.FileCheckpoint;
+import com.kafka.producer.checkpoint.FileCheckpointStore;
 import com.kafka.producer.service.CsvKafkaProducer;
+import com.kafka.producer.service.FileSendReport;
 
 import java.io.IOException;
 import java.nio.file.*;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Stream;
 
 @Component
 public class FolderWatcher implements CommandLineRunner {
 
     private final CsvKafkaProducer producer;
+    private final FileCheckpointStore checkpoints;
 
-    public FolderWatcher(CsvKafkaProducer producer) {
+    // Files currently queued or in progress, so a path is never picked up twice
+    private final Set<Path> activeFiles = ConcurrentHashMap.newKeySet();
+
+    @Value("${producer.files.max.concurrent:2}")
+    private int maxConcurrentFiles;
+
+    @Value("${producer.incoming.dir:data/incoming}")
+    private String incomingDir;
+
+    @Value("${producer.processed.dir:data/processed}")
+    private String processedDir;
+
+    private ExecutorService fileExecutor;
+
+    public FolderWatcher(CsvKafkaProducer producer, FileCheckpointStore checkpoints) {
         this.producer = producer;
+        this.checkpoints = checkpoints;
     }
 
     @Override
     public void run(String... args) throws Exception {
-        Path watchDir = Paths.get("data/incoming");
-        Path processedDir = Paths.get("data/processed");
+        fileExecutor = Executors.newFixedThreadPool(maxConcurrentFiles);
+
+        Path watchDir = Paths.get(incomingDir);
+        Path processedDir = Paths.get(this.processedDir);
 
         createDirectoryIfNotExists(watchDir);
         createDirectoryIfNotExists(processedDir);
@@ -44,12 +71,13 @@ public class FolderWatcher implements CommandLineRunner {
 
                     if (fileName.toString().endsWith(".csv")) {
                         System.out.println("📄 New CSV detected: " + fullPath);
-                        processFile(fullPath, processedDir);
+                        submitFile(fullPath, processedDir);
                     }
                 }
             }
             if (!key.reset()) break;
         }
+        fileExecutor.shutdown();
     }
 
     private void createDirectoryIfNotExists(Path path) throws IOException {
@@ -64,19 +92,61 @@ public class FolderWatcher implements CommandLineRunner {
             files.filter(file -> file.toString().endsWith(".csv"))
                  .forEach(file -> {
                      System.out.println("⚡ Processing existing CSV: " + file);
-                     processFile(file, processedDir);
+                     submitFile(file, processedDir);
                  });
         }
     }
 
+    // Up to producer.files.max.concurrent files are ingested at the same time
+    private void submitFile(Path file, Path processedDir) {
+        if (!activeFiles.add(file)) return;
+        fileExecutor.execute(() -> {
+            try {
+                processFile(file, processedDir);
+            } finally {
+                activeFiles.remove(file);
+            }
+        });
+    }
+
+    // With checkpoints, a file whose content was already sent is moved without sending, and an
+    // interrupted one resumes after its acknowledged prefix
     private void processFile(Path file, Path processedDir) {
         try {
-            producer.sendCsvDataToKafka(file);
-            Path targetPath = processedDir.resolve(file.getFileName());
-            Files.move(file, targetPath, StandardCopyOption.REPLACE_EXISTING);
-            System.out.println("📦 Moved to processed: " + targetPath);
+            FileSendReport report;
+            if (checkpoints.isEnabled()) {
+                String hash = checkpoints.contentHash(file);
+                if (checkpoints.isProcessed(hash)) {
+                    System.out.println("⏭️ Already processed (same content), not sending again: " + file);
+                    moveToProcessed(file, processedDir);
+                    return;
+                }
+                FileCheckpoint resumeFrom = checkpoints.load(file, hash);
+                AtomicReference<FileCheckpoint> last = new AtomicReference<>(resumeFrom != null ? resumeFrom : FileCheckpoint.start(hash));
+                report = producer.sendCsvDataToKafka(file, last.get(), checkpoint -> {
+                    last.set(checkpoint);
+                    checkpoints.save(file, checkpoint);
+                });
+                if (report.allAcknowledged()) {
+                    checkpoints.complete(file, last.get());
+                }
+            } else {
+                report = producer.sendCsvDataToKafka(file);
+            }
+            if (!report.allAcknowledged()) {
+                // Leave the file in the incoming folder so it is retried (or resumed) on the next start
+                System.err.println("⚠️ Not all records acknowledged, keeping in incoming: " + file);
+                return;
+            }
+            moveToProcessed(file, processedDir);
         } catch (Exception e) {
             System.err.println("❌ Error processing file: " + file + " -> " + e.getMessage());
         }
     }
+
+    private void moveToProcessed(Path file, Path processedDir) throws IOException {
+        Path targetPath = processedDir.resolve(file.getFileName());
+        Files.move(file, targetPath, StandardCopyOption.REPLACE_EXISTING);
+        System.out.println("📦 Moved to processed: " + targetPath);
+    }
 }
@@ -1,6 +1,7 @@
 package com.kafka.producer.config;
 
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -9,12 +10,20 @@ import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
 
+import com.kafka.producer.partitioning.SkewAwarePartitioner;
+import com.kafka.producer.serialization.TransactionSerializer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
 
 @Configuration
 public class KafkaProducerConfig {
 
+    private final MeterRegistry meterRegistry;
+
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
@@ -27,21 +36,127 @@ public class KafkaProducerConfig {
     @Value("${spring.kafka.properties.sasl.jaas.config}")
     private String jaasConfig;
 
+    // json (legacy) or binary; consumers accept both while the migration is running
+    @Value("${transaction.value.format:json}")
+    private String valueFormat;
+
+    @Value("${transaction.schema.registry.dir:data/schemas}")
+    private String schemaRegistryDir;
+
+    // default → broker/client defaults, throughput → batching, linger, compression, idempotence
+    @Value("${producer.profile:default}")
+    private String producerProfile;
+
+    @Value("${producer.throughput.batch-size:262144}")
+    private int throughputBatchSize;
+
+    @Value("${producer.throughput.linger-ms:20}")
+    private int throughputLingerMs;
+
+    @Value("${producer.throughput.compression-type:lz4}")
+    private String throughputCompressionType;
+
+    @Value("${producer.throughput.buffer-memory:134217728}")
+    private long throughputBufferMemory;
+
+    @Value("${producer.throughput.max-in-flight-requests:5}")
+    private int throughputMaxInFlightRequests;
+
+    // default → murmur2 of the key, skew-aware → SkewAwarePartitioner spreads hot keys
+    @Value("${producer.partitioner:default}")
+    private String partitioner;
+
+    @Value("${producer.partitioner.hot-key-share:0.02}")
+    private double hotKeyShare;
+
+    @Value("${producer.partitioner.hot-key-partitions:8}")
+    private int hotKeyPartitions;
+
+    @Value("${producer.partitioner.window-records:100000}")
+    private long partitionerWindowRecords;
+
+    @Value("${producer.partitioner.min-samples:1000}")
+    private long partitionerMinSamples;
+
+    // at-least-once → plain sends; exactly-once → a transactional producer, and CsvKafkaProducer
+    // publishes each chunk (or each file, see producer.transaction.scope) in one transaction
+    @Value("${producer.delivery:at-least-once}")
+    private String delivery;
+
+    // Must differ between producer instances: a new producer with the same id fences the old one
+    @Value("${producer.transactional.id.prefix:csv-producer-}")
+    private String transactionalIdPrefix;
+
+    @Value("${producer.transaction.timeout-ms:60000}")
+    private int transactionTimeoutMs;
+
+    public KafkaProducerConfig(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
     @Bean
-    public ProducerFactory<String, String> producerFactory() {
+    public ProducerFactory<String, byte[]> producerFactory() {
         Map<String, Object> props = new HashMap<>();
         props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put("security.protocol", securityProtocol);
         props.put("sasl.mechanism", saslMechanism);
         props.put("sasl.jaas.config", jaasConfig);
         props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        // Values are serialized by TransactionSerializer before the send, on the parsing threads
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
         props.put(ProducerConfig.ACKS_CONFIG, "all");
-        return new DefaultKafkaProducerFactory<>(props);
+        if ("throughput".equalsIgnoreCase(producerProfile)) {
+            applyThroughputProfile(props);
+        }
+        if ("skew-aware".equalsIgnoreCase(partitioner)) {
+            applySkewAwarePartitioner(props);
+        }
+        boolean transactional = "exactly-once".equalsIgnoreCase(delivery);
+        if (transactional) {
+            applyTransactions(props);
+        }
+        DefaultKafkaProducerFactory<String, byte[]> factory = new DefaultKafkaProducerFactory<>(props);
+        if (transactional) {
+            // Each concurrently used producer gets the prefix plus its own suffix as transactional.id
+            factory.setTransactionIdPrefix(transactionalIdPrefix);
+        }
+        return factory;
+    }
+
+    // Transactions require idempotence (and with it acks=all and at most 5 in-flight requests)
+    private void applyTransactions(Map<String, Object> props) {
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        props.put(ProducerConfig.TRANSACTION_TIMEOUT_CONFIG, transactionTimeoutMs);
+        props.merge(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5,
+                (configured, max) -> Math.min((Integer) configured, (Integer) max));
+    }
+
+    // Idempotence keeps per-partition ordering with up to 5 in-flight requests and retries
+    private void applyThroughputProfile(Map<String, Object> props) {
+        props.put(ProducerConfig.BATCH_SIZE_CONFIG, throughputBatchSize);
+        props.put(ProducerConfig.LINGER_MS_CONFIG, throughputLingerMs);
+        props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, throughputCompressionType);
+        props.put(ProducerConfig.BUFFER_MEMORY_CONFIG, throughputBufferMemory);
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        props.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, throughputMaxInFlightRequests);
+    }
+
+    private void applySkewAwarePartitioner(Map<String, Object> props) {
+        props.put(ProducerConfig.PARTITIONER_CLASS_CONFIG, SkewAwarePartitioner.class);
+        props.put(SkewAwarePartitioner.HOT_KEY_SHARE_CONFIG, hotKeyShare);
+        props.put(SkewAwarePartitioner.HOT_KEY_PARTITIONS_CONFIG, hotKeyPartitions);
+        props.put(SkewAwarePartitioner.WINDOW_RECORDS_CONFIG, partitionerWindowRecords);
+        props.put(SkewAwarePartitioner.MIN_SAMPLES_CONFIG, partitionerMinSamples);
+        props.put(SkewAwarePartitioner.METER_REGISTRY_CONFIG, meterRegistry);
+    }
+
+    @Bean
+    public TransactionSerializer transactionSerializer() {
+        return new TransactionSerializer(valueFormat, Path.of(schemaRegistryDir));
     }
 
     @Bean
-    public KafkaTemplate<String, String> kafkaTemplate() {
+    public KafkaTemplate<String, byte[]> kafkaTemplate() {
         return new KafkaTemplate<>(producerFactory());
     }
 }
@@ -0,0 +1,70 @@
+package com.kafka.producer.partitioning;
+
+// Count-min sketch of per-key record counts over a decaying window: depth rows of width
+// counters, each key hashed to one counter per row. An estimate is the row minimum, so it
+// never undercounts and overcounts by at most ~e/width of the total with high probability.
+// Conservative update only raises the counters that hold the minimum, which tightens
+// estimates for the long tail. Halving every counter ages out keys that stopped being hot.
+final class CountMinSketch {
+
+    private final int depth;
+    private final int mask;
+    private final long[] counters;
+    private long total;
+
+    CountMinSketch(int depth, int width) {
+        int capacity = Integer.highestOneBit(Math.max(2, width) - 1) << 1;
+        this.depth = depth;
+        this.mask = capacity - 1;
+        this.counters = new long[depth * capacity];
+    }
+
+    // Adds one occurrence and returns the key's new estimate
+    long add(int hash) {
+        int h2 = mix(hash) | 1;
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counters[index(row, hash, h2)]);
+        }
+        long estimate = min + 1;
+        for (int row = 0; row < depth; row++) {
+            int i = index(row, hash, h2);
+            if (counters[i] < estimate) counters[i] = estimate;
+        }
+        total++;
+        return estimate;
+    }
+
+    long estimate(int hash) {
+        int h2 = mix(hash) | 1;
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counters[index(row, hash, h2)]);
+        }
+        return min;
+    }
+
+    long total() {
+        return total;
+    }
+
+    void halve() {
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] >>>= 1;
+        }
+        total >>>= 1;
+    }
+
+    private int index(int row, int h1, int h2) {
+        return row * (mask + 1) + ((h1 + row * h2) & mask);
+    }
+
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
@@ -0,0 +1,233 @@
+package com.kafka.producer.partitioning;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.kafka.clients.producer.Partitioner;
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.utils.Utils;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+
+// Keyed records go where the default partitioner sends them (murmur2 of the key), so a key
+// keeps its partition and its order, unless the key is hot. Per-key rates are estimated with
+// a count-min sketch over a decaying window; a key above hot-key-share of the recent records
+// is salted over a stable sub-set of partitions: its own partition plus others spaced evenly
+// around the ring, enough of them that each carries about hot-key-share (at most
+// hot-key-partitions). Each record of a hot key goes to the member with the fewest recent
+// records, so overlapping sub-sets of several hot keys still even out. The sub-set is
+// re-sized only when the window decays. Hot keys give up per-key
+// ordering, which the consumer does not rely on (rows are deduplicated by transaction id and
+// aggregated by event time). A key stays hot until its share falls below half the threshold,
+// so it does not flap around the boundary.
+public class SkewAwarePartitioner implements Partitioner {
+
+    public static final String HOT_KEY_SHARE_CONFIG = "skew.partitioner.hot.key.share";
+    public static final String HOT_KEY_PARTITIONS_CONFIG = "skew.partitioner.hot.key.partitions";
+    public static final String WINDOW_RECORDS_CONFIG = "skew.partitioner.window.records";
+    public static final String MIN_SAMPLES_CONFIG = "skew.partitioner.min.samples";
+    public static final String METER_REGISTRY_CONFIG = "skew.partitioner.meter.registry";
+
+    private final CountMinSketch sketch = new CountMinSketch(4, 4096);
+    private final Map<Object, HotKey> hotKeys = new ConcurrentHashMap<>();
+    private final AtomicInteger unkeyed = new AtomicInteger();
+    private volatile PartitionLoad partitionLoad = new PartitionLoad(new AtomicLongArray(0), new Counter[0]);
+
+    private double hotKeyShare = 0.02;
+    private int hotKeyPartitions = 8;
+    private long windowRecords = 100_000;
+    private long minSamples = 1_000;
+
+    private MeterRegistry meterRegistry = Metrics.globalRegistry;
+    private Counter saltedRecords;
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+        hotKeyShare = doubleConfig(configs, HOT_KEY_SHARE_CONFIG, hotKeyShare);
+        hotKeyPartitions = (int) longConfig(configs, HOT_KEY_PARTITIONS_CONFIG, hotKeyPartitions);
+        windowRecords = longConfig(configs, WINDOW_RECORDS_CONFIG, windowRecords);
+        minSamples = longConfig(configs, MIN_SAMPLES_CONFIG, minSamples);
+        if (configs.get(METER_REGISTRY_CONFIG) instanceof MeterRegistry registry) {
+            meterRegistry = registry;
+        }
+
+        saltedRecords = Counter.builder("producer.partitioner.salted")
+                .description("Records of hot keys spread over their partition sub-set").register(meterRegistry);
+        Gauge.builder("producer.partitioner.hot.keys", hotKeys, Map::size).register(meterRegistry);
+        Gauge.builder("producer.partition.imbalance", this, SkewAwarePartitioner::imbalance)
+                .description("Busiest partition's recent records over the mean (1.0 = perfectly even)")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public int partition(String topic, Object key, byte[] keyBytes, Object value, byte[] valueBytes, Cluster cluster) {
+        int partitions = cluster.partitionsForTopic(topic).size();
+        int partition = keyBytes == null
+                ? Utils.toPositive(unkeyed.getAndIncrement()) % partitions
+                : partitionForKey(key, keyBytes, partitions);
+        countLoad(partition, partitions);
+        return partition;
+    }
+
+    int partitionForKey(Object key, byte[] keyBytes, int partitions) {
+        int hash = Utils.murmur2(keyBytes);
+        int home = Utils.toPositive(hash) % partitions;
+        HotKey hot = trackHot(key, hash);
+        if (hot == null || partitions < 2) {
+            return home;
+        }
+        saltedRecords.increment();
+        return leastLoadedMember(home, hot, partitions);
+    }
+
+    // The salt rotates the starting member so that ties (and the first records) go round-robin
+    private int leastLoadedMember(int home, HotKey hot, int partitions) {
+        int fanout = Math.min(hot.fanout, partitions);
+        int start = Math.floorMod(hot.salt.getAndIncrement(), fanout);
+        AtomicLongArray load = partitionLoad.records();
+        int best = member(home, start, fanout, partitions);
+        if (load.length() != partitions) return best;
+        long bestLoad = load.get(best);
+        for (int i = 1; i < fanout; i++) {
+            int candidate = member(home, (start + i) % fanout, fanout, partitions);
+            long candidateLoad = load.get(candidate);
+            if (candidateLoad < bestLoad) {
+                best = candidate;
+                bestLoad = candidateLoad;
+            }
+        }
+        return best;
+    }
+
+    // The partitions a hot key is currently spread over; a cold key only uses the first one
+    int[] partitionsForHotKey(Object key, byte[] keyBytes, int partitions) {
+        int home = Utils.toPositive(Utils.murmur2(keyBytes)) % partitions;
+        HotKey hot = hotKeys.get(key);
+        int fanout = hot == null ? 1 : Math.min(hot.fanout, partitions);
+        int[] result = new int[fanout];
+        for (int i = 0; i < fanout; i++) {
+            result[i] = member(home, i, fanout, partitions);
+        }
+        return result;
+    }
+
+    private static int member(int home, int salt, int fanout, int partitions) {
+        return (home + salt * (partitions / fanout)) % partitions;
+    }
+
+    public boolean isHot(Object key) {
+        return hotKeys.containsKey(key);
+    }
+
+    // max / mean of the per-partition record counts over the same decaying window
+    public double imbalance() {
+        AtomicLongArray load = partitionLoad.records();
+        long max = 0;
+        long sum = 0;
+        for (int i = 0; i < load.length(); i++) {
+            long count = load.get(i);
+            max = Math.max(max, count);
+            sum += count;
+        }
+        return sum == 0 ? 1.0 : max * (double) load.length() / sum;
+    }
+
+    private HotKey trackHot(Object key, int hash) {
+        long estimate;
+        long total;
+        synchronized (sketch) {
+            estimate = sketch.add(hash);
+            total = sketch.total();
+            if (total >= windowRecords) {
+                sketch.halve();
+                halveLoad();
+                hotKeys.values().removeIf(hot -> {
+                    long recent = sketch.estimate(hot.hash);
+                    hot.fanout = fanout(recent, sketch.total());
+                    return recent < hotKeyShare * sketch.total() / 2;
+                });
+            }
+        }
+        HotKey hot = hotKeys.get(key);
+        if (hot != null) {
+            if (estimate < hotKeyShare * total / 2) {
+                hotKeys.remove(key);
+                return null;
+            }
+            return hot;
+        }
+        if (total >= minSamples && estimate >= hotKeyShare * total) {
+            int fanout = fanout(estimate, total);
+            System.out.printf("🔥 Hot key %s (~%.1f%% of recent records) spread over %d partitions%n",
+                    key, 100.0 * estimate / total, fanout);
+            return hotKeys.computeIfAbsent(key, k -> new HotKey(hash, fanout));
+        }
+        return null;
+    }
+
+    private int fanout(long estimate, long total) {
+        int needed = (int) Math.ceil(estimate / (hotKeyShare * Math.max(1, total)));
+        return Math.max(2, Math.min(hotKeyPartitions, needed));
+    }
+
+    private void countLoad(int partition, int partitions) {
+        PartitionLoad load = partitionLoad;
+        if (load.records().length() != partitions) {
+            synchronized (this) {
+                load = partitionLoad;
+                if (load.records().length() != partitions) {
+                    Counter[] counters = new Counter[partitions];
+                    for (int i = 0; i < partitions; i++) {
+                        counters[i] = Counter.builder("producer.partition.records").tag("partition", String.valueOf(i))
+                                .register(meterRegistry);
+                    }
+                    load = new PartitionLoad(new AtomicLongArray(partitions), counters);
+                    partitionLoad = load;
+                }
+            }
+        }
+        load.records().incrementAndGet(partition);
+        load.counters()[partition].increment();
+    }
+
+    private void halveLoad() {
+        AtomicLongArray load = partitionLoad.records();
+        for (int i = 0; i < load.length(); i++) {
+            load.set(i, load.get(i) >>> 1);
+        }
+    }
+
+    private static double doubleConfig(Map<String, ?> configs, String name, double defaultValue) {
+        Object value = configs.get(name);
+        return value == null ? defaultValue : Double.parseDouble(value.toString());
+    }
+
+    private static long longConfig(Map<String, ?> configs, String name, long defaultValue) {
+        Object value = configs.get(name);
+        return value == null ? defaultValue : Long.parseLong(value.toString());
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private static final class HotKey {
+        final int hash;
+        final AtomicInteger salt = new AtomicInteger();
+        volatile int fanout;
+
+        HotKey(int hash, int fanout) {
+            this.hash = hash;
+            this.fanout = fanout;
+        }
+    }
+
+    // Recent records per partition (halved with the sketch) and the matching cumulative counters
+    private record PartitionLoad(AtomicLongArray records, Counter[] counters) {
+    }
+}
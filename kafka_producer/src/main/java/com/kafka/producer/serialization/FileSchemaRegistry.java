@@ -0,0 +1,56 @@
+package com.kafka.producer.serialization;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Local stand-in for a schema registry: one JSON file per schema id in a shared directory.
+// Producer and consumer must point transaction.schema.registry.dir at the same folder.
+public class FileSchemaRegistry {
+
+    private final Path directory;
+    private final Map<Integer, TransactionSchema> cache = new ConcurrentHashMap<>();
+
+    public FileSchemaRegistry(Path directory) {
+        this.directory = directory;
+    }
+
+    public int register(TransactionSchema schema) {
+        int id = schema.id();
+        if (cache.putIfAbsent(id, schema) != null) {
+            return id;
+        }
+        try {
+            Files.createDirectories(directory);
+            Files.writeString(fileFor(schema.subject(), id), schema.toJson(), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE_NEW);
+        } catch (FileAlreadyExistsException e) {
+            // Already registered by this or another application
+        } catch (IOException e) {
+            cache.remove(id);
+            throw new UncheckedIOException("Cannot register schema " + schema.subject(), e);
+        }
+        return id;
+    }
+
+    public TransactionSchema lookup(String subject, int id) {
+        return cache.computeIfAbsent(id, key -> {
+            Path file = fileFor(subject, key);
+            try {
+                return TransactionSchema.fromJson(Files.readString(file, StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unknown schema id " + Integer.toHexString(key) + " in " + directory, e);
+            }
+        });
+    }
+
+    private Path fileFor(String subject, int id) {
+        return directory.resolve(subject + "-" + String.format("%08x", id) + ".json");
+    }
+}
@@ -0,0 +1,100 @@
+package com.kafka.producer.serialization;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.kafka.producer.model.Transaction;
+
+// Wire format: magic byte 0x00, 4-byte schema id, then the schema fields in order.
+// Strings are varint(length + 1) followed by UTF-8 bytes (0 = null), ints are zigzag
+// varints and doubles are 8 big-endian bytes. JSON values never start with 0x00, which
+// lets consumers accept both formats during the migration.
+public final class TransactionBinaryCodec {
+
+    public static final byte MAGIC_BYTE = 0x00;
+
+    private final int schemaId;
+
+    public TransactionBinaryCodec(int schemaId) {
+        this.schemaId = schemaId;
+    }
+
+    public byte[] encode(Transaction t) {
+        Writer out = new Writer(64);
+        out.writeByte(MAGIC_BYTE);
+        out.writeFixedInt(schemaId);
+        out.writeString(t.getTransactionId());
+        out.writeString(t.getUserId());
+        out.writeString(t.getTransactionTime());
+        out.writeString(t.getItemCode());
+        out.writeString(t.getItemDescription());
+        out.writeVarInt(t.getNumberOfItemPurchased());
+        out.writeDouble(t.getCostPerItem());
+        out.writeString(t.getCountry());
+        return out.toByteArray();
+    }
+
+    private static final class Writer {
+
+        private byte[] buffer;
+        private int position;
+
+        Writer(int initialCapacity) {
+            buffer = new byte[initialCapacity];
+        }
+
+        void writeByte(int b) {
+            ensureCapacity(1);
+            buffer[position++] = (byte) b;
+        }
+
+        void writeFixedInt(int value) {
+            ensureCapacity(4);
+            buffer[position++] = (byte) (value >>> 24);
+            buffer[position++] = (byte) (value >>> 16);
+            buffer[position++] = (byte) (value >>> 8);
+            buffer[position++] = (byte) value;
+        }
+
+        void writeVarInt(int value) {
+            writeUnsignedVarInt((value << 1) ^ (value >> 31)); // zigzag
+        }
+
+        void writeUnsignedVarInt(int value) {
+            ensureCapacity(5);
+            while ((value & ~0x7F) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        void writeDouble(double value) {
+            long bits = Double.doubleToLongBits(value);
+            writeFixedInt((int) (bits >>> 32));
+            writeFixedInt((int) bits);
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeUnsignedVarInt(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeUnsignedVarInt(bytes.length + 1);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (position + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.kafka.producer.serialization;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kafka.producer.model.Transaction;
+
+// Writes a Transaction as JSON (legacy) or as the compact binary format, selected by
+// transaction.value.format. Can be used as a Kafka value.serializer or called directly.
+public class TransactionSerializer implements Serializer<Transaction> {
+
+    public static final String FORMAT_CONFIG = "transaction.value.format";
+    public static final String REGISTRY_DIR_CONFIG = "transaction.schema.registry.dir";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private boolean binary;
+    private TransactionBinaryCodec binaryCodec;
+
+    public TransactionSerializer() {
+    }
+
+    public TransactionSerializer(String format, Path registryDir) {
+        init(format, registryDir);
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        Object format = configs.get(FORMAT_CONFIG);
+        Object registryDir = configs.get(REGISTRY_DIR_CONFIG);
+        init(format != null ? format.toString() : "json", Path.of(registryDir != null ? registryDir.toString() : "data/schemas"));
+    }
+
+    private void init(String format, Path registryDir) {
+        binary = "binary".equalsIgnoreCase(format);
+        if (binary) {
+            int schemaId = new FileSchemaRegistry(registryDir).register(TransactionSchema.CURRENT);
+            binaryCodec = new TransactionBinaryCodec(schemaId);
+        }
+    }
+
+    @Override
+    public byte[] serialize(String topic, Transaction transaction) {
+        if (transaction == null) {
+            return null;
+        }
+        if (binary) {
+            return binaryCodec.encode(transaction);
+        }
+        try {
+            return objectMapper.writeValueAsBytes(transaction);
+        } catch (Exception e) {
+            throw new SerializationException("JSON conversion failed for: " + transaction, e);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.kafka.producer.service;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+
+import com.kafka.producer.checkpoint.FileCheckpoint;
+
+// Turns out-of-order acknowledgements into the longest acknowledged prefix of a file. Rows are
+// sent chunk by chunk in file order; the prefix only grows over whole chunks that are sealed
+// (every row sent) and fully acknowledged, so its end is always a line start. After a failed
+// send it stops growing: that chunk has to be sent again.
+final class AcknowledgedPrefix {
+
+    private final Deque<Chunk> open = new ArrayDeque<>();
+    private final String contentHash;
+    private long byteOffset;
+    private long rows;
+    private boolean failed;
+    private FileCheckpoint lastTaken;
+
+    AcknowledgedPrefix(FileCheckpoint from) {
+        this.contentHash = from.contentHash();
+        this.byteOffset = from.byteOffset();
+        this.rows = from.rowNumber();
+        this.lastTaken = from;
+    }
+
+    // The next chunk in file order, ending at endOffset
+    synchronized Chunk open(long endOffset) {
+        Chunk chunk = new Chunk(endOffset);
+        open.add(chunk);
+        return chunk;
+    }
+
+    synchronized FileCheckpoint checkpoint() {
+        return new FileCheckpoint(contentHash, byteOffset, rows);
+    }
+
+    // The checkpoint if the prefix grew since the last call, otherwise null
+    synchronized FileCheckpoint takeProgress() {
+        if (byteOffset == lastTaken.byteOffset()) return null;
+        lastTaken = checkpoint();
+        return lastTaken;
+    }
+
+    private synchronized void completed(Chunk chunk, boolean acknowledged) {
+        if (!acknowledged) failed = true;
+        chunk.pending--;
+        advance();
+    }
+
+    private void advance() {
+        while (!failed && !open.isEmpty() && open.peek().sealed && open.peek().pending == 0) {
+            Chunk chunk = open.poll();
+            byteOffset = chunk.endOffset;
+            rows += chunk.rows;
+        }
+    }
+
+    final class Chunk {
+        private final long endOffset;
+        private int pending;
+        private int rows;
+        private boolean sealed;
+
+        private Chunk(long endOffset) {
+            this.endOffset = endOffset;
+        }
+
+        void track(CompletableFuture<?> send) {
+            synchronized (AcknowledgedPrefix.this) {
+                pending++;
+                rows++;
+            }
+            send.whenComplete((result, ex) -> completed(this, ex == null));
+        }
+
+        // Every row of the chunk has been handed to the producer
+        void seal() {
+            synchronized (AcknowledgedPrefix.this) {
+                sealed = true;
+                advance();
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.kafka.producer.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+// Splits a CSV file into byte ranges that start and end on line boundaries.
+// Assumes no quoted field spans multiple lines (true for the transaction_data.csv
+// layout); files that need multi-line fields should use the streaming mode with
+// producer.checkpoint.enabled=false, the only path that reads a file as one stream.
+final class CsvChunkSplitter {
+
+    private static final int SCAN_BUFFER_BYTES = 8 * 1024;
+
+    record CsvChunk(int index, long start, long end) {
+        long length() {
+            return end - start;
+        }
+    }
+
+    private CsvChunkSplitter() {
+    }
+
+    static byte[] readHeader(FileChannel channel) throws IOException {
+        long headerEnd = nextLineStart(channel, 0);
+        ByteBuffer header = ByteBuffer.allocate((int) headerEnd);
+        channel.read(header, 0);
+        return header.array();
+    }
+
+    static List<CsvChunk> split(FileChannel channel, long chunkBytes) throws IOException {
+        return split(channel, 0, chunkBytes);
+    }
+
+    // Chunks from a line start (e.g. a checkpoint); anything before the header end is skipped
+    static List<CsvChunk> split(FileChannel channel, long from, long chunkBytes) throws IOException {
+        long size = channel.size();
+        long start = Math.max(from, nextLineStart(channel, 0));
+        List<CsvChunk> chunks = new ArrayList<>();
+
+        while (start < size) {
+            long end = start + chunkBytes >= size ? size : nextLineStart(channel, start + chunkBytes - 1);
+            chunks.add(new CsvChunk(chunks.size(), start, end));
+            start = end;
+        }
+        return chunks;
+    }
+
+    // Header bytes followed by the chunk, so every chunk parses with the same column mapping
+    static InputStream open(FileChannel channel, byte[] header, CsvChunk chunk) throws IOException {
+        ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, chunk.start(), chunk.length());
+        return new SequenceInputStream(new ByteArrayInputStream(header), new ByteBufferInputStream(mapped));
+    }
+
+    // Position just after the first '\n' at or after pos, or the file size if there is none
+    static long nextLineStart(FileChannel channel, long pos) throws IOException {
+        long size = channel.size();
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_BYTES);
+
+        while (pos < size) {
+            buffer.clear();
+            int read = channel.read(buffer, pos);
+            if (read <= 0) break;
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return pos + i + 1;
+                }
+            }
+            pos += read;
+        }
+        return size;
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buffer.hasRemaining()) return -1;
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
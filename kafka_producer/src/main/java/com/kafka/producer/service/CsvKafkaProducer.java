@@ -1,72 +1,415 @@
 package com.kafka.producer.service;
 
+import java.io.BufferedReader;
 import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kafka.producer.checkpoint.FileCheckpoint;
+import com.kafka.producer.logging.RecordLog;
 import com.kafka.producer.model.Transaction;
+import com.kafka.producer.serialization.TransactionSerializer;
+import com.kafka.producer.service.CsvChunkSplitter.CsvChunk;
 import com.opencsv.CSVReader;
+import com.opencsv.bean.CsvToBean;
 import com.opencsv.bean.CsvToBeanBuilder;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
 @Service
 public class CsvKafkaProducer {
 
-    private final KafkaTemplate<String, String> kafkaTemplate;
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final TransactionSerializer transactionSerializer;
+    private final RecordLog recordLog;
+    private final MeterRegistry meterRegistry;
 
     @Value("${kafka.topic.name}")
     private String topicName;
 
-    public CsvKafkaProducer(KafkaTemplate<String, String> kafkaTemplate) {
+    @Value("${producer.ingest.mode:streaming}")
+    private String ingestMode;
+
+    @Value("${producer.max.in.flight.sends:10000}")
+    private int maxInFlightSends;
+
+    @Value("${producer.file.completion.timeout.ms:300000}")
+    private long fileCompletionTimeoutMs;
+
+    @Value("${producer.parallel.workers:0}")
+    private int parallelWorkers;
+
+    @Value("${producer.parallel.chunk.bytes:8388608}")
+    private long parallelChunkBytes;
+
+    @Value("${producer.parallel.min.file.bytes:33554432}")
+    private long parallelMinFileBytes;
+
+    // Granularity of checkpoints in streaming and batch modes (parallel mode uses its chunks)
+    @Value("${producer.checkpoint.chunk.bytes:1048576}")
+    private long checkpointChunkBytes;
+
+    // With producer.delivery=exactly-once: chunk → one Kafka transaction per chunk (the checkpoint
+    // chunk, or the parallel chunk for large files); file → one transaction for the whole file
+    @Value("${producer.transaction.scope:chunk}")
+    private String transactionScope;
+
+    private ForkJoinPool chunkPool;
+
+    // Histograms for the timers are switched on through management.metrics.distribution
+    private final AtomicInteger inFlightSends = new AtomicInteger();
+    private Timer parseTimer;
+    private Timer serializeTimer;
+    private Timer ackedSendTimer;
+    private Timer failedSendTimer;
+    private Counter sentBytes;
+
+    public CsvKafkaProducer(KafkaTemplate<String, byte[]> kafkaTemplate, TransactionSerializer transactionSerializer,
+                            RecordLog recordLog, MeterRegistry meterRegistry) {
         this.kafkaTemplate = kafkaTemplate;
+        this.transactionSerializer = transactionSerializer;
+        this.recordLog = recordLog;
+        this.meterRegistry = meterRegistry;
     }
     
     
-    public void sendCsvDataToKafka(Path csvFilePath) {
+    @PostConstruct
+    void startChunkPool() {
+        int workers = parallelWorkers > 0 ? parallelWorkers : Runtime.getRuntime().availableProcessors();
+        chunkPool = new ForkJoinPool(workers);
+
+        parseTimer = Timer.builder("producer.parse")
+                .description("Reading and binding one CSV row").register(meterRegistry);
+        serializeTimer = Timer.builder("producer.serialize")
+                .description("Encoding one record value").register(meterRegistry);
+        ackedSendTimer = Timer.builder("producer.send").tag("result", "acked")
+                .description("Wait for in-flight capacity, send() and broker acknowledgement").register(meterRegistry);
+        failedSendTimer = Timer.builder("producer.send").tag("result", "failed").register(meterRegistry);
+        sentBytes = Counter.builder("producer.bytes").baseUnit("bytes")
+                .description("Acknowledged record value bytes").register(meterRegistry);
+        Gauge.builder("producer.sends.in.flight", inFlightSends, AtomicInteger::get)
+                .description("Sends awaiting acknowledgement, all files").register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stopChunkPool() {
+        chunkPool.shutdownNow();
+    }
+
+    // Returns once every record of the file is acknowledged, failed or timed out; callers
+    // must only treat the file as done when the report says all records were acknowledged
+    public FileSendReport sendCsvDataToKafka(Path csvFilePath) {
+        return sendCsvDataToKafka(csvFilePath, null, null);
+    }
+
+    // With a checkpoint, sending resumes at its byte offset and the file is read in line-aligned
+    // chunks; onProgress is called on this thread whenever the acknowledged prefix has grown
+    // (after each chunk is sent and once at the end), with the same content hash. A
+    // transactional template also sends in chunks, and a chunk only counts towards the
+    // checkpoint once the transaction it was sent in has committed.
+    public FileSendReport sendCsvDataToKafka(Path csvFilePath, FileCheckpoint resumeFrom,
+                                             Consumer<FileCheckpoint> onProgress) {
+        FileSendBarrier barrier = new FileSendBarrier(maxInFlightSends);
+        boolean checkpointed = resumeFrom != null;
+        boolean chunked = checkpointed || kafkaTemplate.isTransactional();
+        AcknowledgedPrefix prefix = new AcknowledgedPrefix(checkpointed ? resumeFrom : FileCheckpoint.start(null));
+        Consumer<FileCheckpoint> progress = onProgress != null ? onProgress : checkpoint -> { };
+        if (checkpointed && resumeFrom.byteOffset() > 0) {
+            System.out.printf("⏩ Resuming %s at byte %d (row %d)%n", csvFilePath.getFileName(),
+                    resumeFrom.byteOffset(), resumeFrom.rowNumber());
+        }
+
+        FileSendReport report;
+        try {
+            switch (ingestMode.toLowerCase()) {
+                case "batch" -> {
+                    if (chunked) {
+                        // Every chunk is parsed before the first send, as in the unchunked batch mode
+                        sendInChunks(csvFilePath, barrier, prefix, progress, checkpointChunkBytes, Integer.MAX_VALUE, false);
+                    } else {
+                        sendCsvBatchToKafka(csvFilePath, barrier);
+                    }
+                }
+                // Small files are not worth splitting
+                case "parallel" -> {
+                    if (csvFilePath.toFile().length() >= parallelMinFileBytes) {
+                        sendInChunks(csvFilePath, barrier, prefix, progress, parallelChunkBytes,
+                                chunkPool.getParallelism() + 1, true);
+                    } else if (chunked) {
+                        sendInChunks(csvFilePath, barrier, prefix, progress, checkpointChunkBytes, 1, false);
+                    } else {
+                        streamCsvDataToKafka(csvFilePath, barrier);
+                    }
+                }
+                default -> {
+                    if (chunked) {
+                        sendInChunks(csvFilePath, barrier, prefix, progress, checkpointChunkBytes, 1, false);
+                    } else {
+                        streamCsvDataToKafka(csvFilePath, barrier);
+                    }
+                }
+            }
+            report = barrier.await(fileCompletionTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            report = barrier.abort(e);
+        } catch (Exception e) {
+            report = barrier.abort(e);
+        }
+
+        publishProgress(prefix, progress);
+        reportCompletion(csvFilePath, report);
+        return report;
+    }
+
+    // Streaming mode → rows are parsed and sent one at a time; the barrier keeps at most
+    // maxInFlightSends unacknowledged sends so heap stays flat for any file size
+    private void streamCsvDataToKafka(Path csvFilePath, FileSendBarrier barrier) throws Exception {
+        try (var reader = new CSVReader(Files.newBufferedReader(csvFilePath, StandardCharsets.UTF_8))) {
+            for (Transaction transaction : parse(reader)) {
+                sendRecord(transaction.getUserId(), serialize(transaction), barrier);
+            }
+        }
+    }
+
+    // Exactly-once → with file scope the whole send is one transaction, and its chunks are only
+    // sealed into the acknowledged prefix after the commit; chunk scope is handled per chunk
+    private void sendInChunks(Path csvFilePath, FileSendBarrier barrier, AcknowledgedPrefix prefix,
+                              Consumer<FileCheckpoint> progress, long chunkBytes, int window, boolean onPool)
+            throws Exception {
+        if (!kafkaTemplate.isTransactional() || !"file".equalsIgnoreCase(transactionScope)) {
+            sendCsvChunksToKafka(csvFilePath, barrier, prefix, progress, chunkBytes, window, onPool, null);
+            return;
+        }
+        List<AcknowledgedPrefix.Chunk> uncommitted = new ArrayList<>();
+        inTransaction(() -> sendCsvChunksToKafka(csvFilePath, barrier, prefix, progress, chunkBytes, window, onPool, uncommitted));
+        uncommitted.forEach(AcknowledgedPrefix.Chunk::seal);
+    }
+
+    // Parallel mode → the file is split into line-aligned byte ranges that are parsed and
+    // serialized on the chunk pool. Chunks are sent strictly in file order, so records for
+    // the same userId key keep their relative order; only parsing runs out of order.
+    // Checkpointed streaming and batch modes use the same path with chunks parsed on this
+    // thread, one (streaming) or all (batch) ahead of the sends. window bounds parsed-but-unsent
+    // chunks in memory. Chunks added to uncommitted are left unsealed for the caller.
+    private void sendCsvChunksToKafka(Path csvFilePath, FileSendBarrier barrier, AcknowledgedPrefix prefix,
+                                      Consumer<FileCheckpoint> progress, long chunkBytes, int window, boolean onPool,
+                                      List<AcknowledgedPrefix.Chunk> uncommitted)
+            throws Exception {
+        boolean chunkTransactions = kafkaTemplate.isTransactional() && uncommitted == null;
+        try (FileChannel channel = FileChannel.open(csvFilePath, StandardOpenOption.READ)) {
+
+            byte[] header = CsvChunkSplitter.readHeader(channel);
+            Iterator<CsvChunk> chunks = CsvChunkSplitter.split(channel, prefix.checkpoint().byteOffset(), chunkBytes).iterator();
+            Deque<Future<List<Map.Entry<String, byte[]>>>> pending = new ArrayDeque<>();
+            Deque<CsvChunk> parsing = new ArrayDeque<>();
+
+            try {
+                while (chunks.hasNext() || !pending.isEmpty()) {
+                    while (chunks.hasNext() && pending.size() < window) {
+                        CsvChunk chunk = chunks.next();
+                        parsing.add(chunk);
+                        if (onPool) {
+                            pending.add(chunkPool.submit(() -> parseChunk(channel, header, chunk)));
+                        } else {
+                            FutureTask<List<Map.Entry<String, byte[]>>> task = new FutureTask<>(() -> parseChunk(channel, header, chunk));
+                            task.run();
+                            pending.add(task);
+                        }
+                    }
+                    AcknowledgedPrefix.Chunk sending = prefix.open(parsing.poll().end());
+                    List<Map.Entry<String, byte[]>> records = pending.poll().get();
+                    if (chunkTransactions) {
+                        inTransaction(() -> sendChunk(records, sending, barrier));
+                    } else {
+                        sendChunk(records, sending, barrier);
+                    }
+                    if (uncommitted != null) {
+                        uncommitted.add(sending);
+                        continue;
+                    }
+                    sending.seal();
+                    publishProgress(prefix, progress);
+                }
+            } finally {
+                pending.forEach(future -> future.cancel(true));
+            }
+        }
+    }
+
+    private void sendChunk(List<Map.Entry<String, byte[]>> records, AcknowledgedPrefix.Chunk sending,
+                           FileSendBarrier barrier) throws InterruptedException {
+        for (Map.Entry<String, byte[]> entry : records) {
+            sending.track(sendRecord(entry.getKey(), entry.getValue(), barrier));
+        }
+    }
+
+    // Sends made by work join the transaction through the producer bound to this thread. It is
+    // committed when work returns and aborted when it throws; exceptions are rethrown unchanged.
+    private void inTransaction(TransactionalWork work) throws Exception {
+        try {
+            kafkaTemplate.executeInTransaction(operations -> {
+                try {
+                    work.run();
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new TransactionalWorkException(e);
+                }
+                return null;
+            });
+        } catch (TransactionalWorkException e) {
+            throw (Exception) e.getCause();
+        }
+    }
+
+    @FunctionalInterface
+    private interface TransactionalWork {
+        void run() throws Exception;
+    }
+
+    private static final class TransactionalWorkException extends RuntimeException {
+        TransactionalWorkException(Exception cause) {
+            super(cause);
+        }
+    }
+
+    // Batch mode → the whole file is parsed into memory before the first send
+    private void sendCsvBatchToKafka(Path csvFilePath, FileSendBarrier barrier) throws Exception {
         try (var reader = new CSVReader(new FileReader(csvFilePath.toFile()))) {
 
-            var transactions = new CsvToBeanBuilder<Transaction>(reader)
-                    .withType(Transaction.class)
-                    .withIgnoreLeadingWhiteSpace(true)
-                    .withSkipLines(1)
-                    .build()
-                    .parse();
-
-            transactions.stream()
-                    .map(transaction -> {
-                        try {
-                            return new AbstractMap.SimpleEntry<>(
-                                    transaction.getUserId(),
-                                    objectMapper.writeValueAsString(transaction)
-                            );
-                        } catch (Exception e) {
-                            throw new RuntimeException("JSON conversion failed for: " + transaction, e);
+            List<Transaction> transactions = new ArrayList<>();
+            parse(reader).forEach(transactions::add);
+
+            for (Transaction transaction : transactions) {
+                sendRecord(transaction.getUserId(), serialize(transaction), barrier);
+            }
+        }
+    }
+
+    private List<Map.Entry<String, byte[]>> parseChunk(FileChannel channel, byte[] header, CsvChunk chunk)
+            throws IOException {
+        List<Map.Entry<String, byte[]>> records = new ArrayList<>();
+        try (var reader = new CSVReader(new BufferedReader(new InputStreamReader(
+                CsvChunkSplitter.open(channel, header, chunk), StandardCharsets.UTF_8)))) {
+            for (Transaction transaction : parse(reader)) {
+                records.add(new AbstractMap.SimpleEntry<>(transaction.getUserId(), serialize(transaction)));
+            }
+        }
+        return records;
+    }
+
+    // Rows are read ahead in hasNext(), so each row is timed from hasNext() to the end of next()
+    private Iterable<Transaction> parse(CSVReader reader) {
+        Iterator<Transaction> rows = newCsvToBean(reader).iterator();
+        return () -> new Iterator<>() {
+            private long start;
+
+            @Override
+            public boolean hasNext() {
+                start = System.nanoTime();
+                return rows.hasNext();
+            }
+
+            @Override
+            public Transaction next() {
+                Transaction row = rows.next();
+                parseTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return row;
+            }
+        };
+    }
+
+    private CsvToBean<Transaction> newCsvToBean(CSVReader reader) {
+        return new CsvToBeanBuilder<Transaction>(reader)
+                .withType(Transaction.class)
+                .withIgnoreLeadingWhiteSpace(true)
+                .withSkipLines(1)
+                .build();
+    }
+
+    // Completions run on the Kafka producer's I/O thread, so they only update meters and hand
+    // the line to the sampled, asynchronous record log
+    private CompletableFuture<?> sendRecord(String key, byte[] value, FileSendBarrier barrier) throws InterruptedException {
+        long start = System.nanoTime();
+        inFlightSends.incrementAndGet();
+        try {
+            return barrier.send(() -> kafkaTemplate.send(topicName, key, value))
+                    .whenComplete((result, ex) -> {
+                        inFlightSends.decrementAndGet();
+                        long nanos = System.nanoTime() - start;
+                        if (ex == null) {
+                            ackedSendTimer.record(nanos, TimeUnit.NANOSECONDS);
+                            sentBytes.increment(value.length);
+                            recordLog.info("✅ Sent to Kafka [%s]: key=%s (%d bytes)%n", topicName, key, value.length);
+                        } else {
+                            failedSendTimer.record(nanos, TimeUnit.NANOSECONDS);
+                            recordLog.error("❌ Failed to send message: %s%n", ex.getMessage());
                         }
-                    })
-                    .forEach(entry -> kafkaTemplate.send(topicName, entry.getKey(), entry.getValue())
-                            .whenComplete((result, ex) -> {
-                                if (ex == null) {
-                                    System.out.printf("✅ Sent to Kafka [%s]: %s%n", topicName, entry.getValue());
-                                } else {
-                                    System.err.printf("❌ Failed to send message: %s%n", ex.getMessage());
-                                }
-                            })
-                    );
-
-            System.out.printf("📦 Successfully sent %d records from %s%n",
-                    transactions.size(), csvFilePath.getFileName());
+                    });
+        } catch (InterruptedException | RuntimeException e) {
+            inFlightSends.decrementAndGet();
+            throw e;
+        }
+    }
 
-        } catch (Exception e) {
-            System.err.printf("❌ Error processing %s: %s%n", csvFilePath.getFileName(), e.getMessage());
-            e.printStackTrace();
+    private static void publishProgress(AcknowledgedPrefix prefix, Consumer<FileCheckpoint> progress) {
+        FileCheckpoint checkpoint = prefix.takeProgress();
+        if (checkpoint != null) {
+            progress.accept(checkpoint);
         }
     }
 
+    private void reportCompletion(Path csvFilePath, FileSendReport report) {
+        meterRegistry.counter("producer.files", "result", report.allAcknowledged() ? "completed" : "incomplete").increment();
+        if (report.allAcknowledged()) {
+            System.out.printf("📦 Successfully sent %d records from %s in %.2fs (%.0f records/sec, p99 send %.1f ms)%n",
+                    report.acknowledged(), csvFilePath.getFileName(), report.elapsedNanos() / 1_000_000_000.0,
+                    report.recordsPerSecond(), report.p99LatencyNanos() / 1_000_000.0);
+        } else {
+            System.err.printf("❌ Incomplete send of %s: %d sent, %d acknowledged, %d failed%s%n",
+                    csvFilePath.getFileName(), report.sent(), report.acknowledged(), report.failed(),
+                    report.error() != null ? " (" + report.error().getMessage() + ")"
+                            : report.drained() ? "" : " (timed out waiting for acknowledgements)");
+        }
+    }
+
+    // JSON or binary depending on transaction.value.format
+    private byte[] serialize(Transaction transaction) {
+        long start = System.nanoTime();
+        byte[] value = transactionSerializer.serialize(topicName, transaction);
+        serializeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return value;
+    }
     
     
 
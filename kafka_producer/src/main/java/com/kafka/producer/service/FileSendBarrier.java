@@ -0,0 +1,70 @@
+package com.kafka.producer.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+// Tracks every send of one file: bounds unacknowledged sends, records per-send latency
+// and lets the caller wait until each record is acknowledged (or failed) by the broker.
+public final class FileSendBarrier {
+
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+    private final long startNanos = System.nanoTime();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong acknowledged = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    public FileSendBarrier(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    public <T> CompletableFuture<T> send(Supplier<CompletableFuture<T>> sender) throws InterruptedException {
+        inFlight.acquire();
+        long sentAt = System.nanoTime();
+        CompletableFuture<T> future;
+        try {
+            future = sender.get();
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+        sent.incrementAndGet();
+        future.whenComplete((result, ex) -> {
+            latencies.record(System.nanoTime() - sentAt);
+            if (ex == null) {
+                acknowledged.incrementAndGet();
+            } else {
+                failed.incrementAndGet();
+                firstFailure.compareAndSet(null, ex);
+            }
+            inFlight.release();
+        });
+        return future;
+    }
+
+    // Waits for all outstanding sends; the report is incomplete if the timeout expires first
+    public FileSendReport await(long timeoutMs) throws InterruptedException {
+        boolean drained = inFlight.tryAcquire(maxInFlight, timeoutMs, TimeUnit.MILLISECONDS);
+        if (drained) {
+            inFlight.release(maxInFlight);
+        }
+        return report(drained, firstFailure.get());
+    }
+
+    // Report for a file that could not be read to the end; it is never treated as complete
+    public FileSendReport abort(Throwable error) {
+        return report(false, error);
+    }
+
+    private FileSendReport report(boolean drained, Throwable error) {
+        return new FileSendReport(sent.get(), acknowledged.get(), failed.get(),
+                System.nanoTime() - startNanos, latencies.percentile(99.0), drained, error);
+    }
+}
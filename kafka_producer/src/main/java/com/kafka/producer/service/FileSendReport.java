@@ -0,0 +1,13 @@
+package com.kafka.producer.service;
+
+public record FileSendReport(long sent, long acknowledged, long failed, long elapsedNanos,
+                             long p99LatencyNanos, boolean drained, Throwable error) {
+
+    public boolean allAcknowledged() {
+        return drained && error == null && failed == 0 && acknowledged == sent;
+    }
+
+    public double recordsPerSecond() {
+        return acknowledged / Math.max(elapsedNanos / 1_000_000_000.0, 1e-9);
+    }
+}
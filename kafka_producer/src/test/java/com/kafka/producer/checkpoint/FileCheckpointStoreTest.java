@@ -0,0 +1,64 @@
+package com.kafka.producer.checkpoint;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class FileCheckpointStoreTest {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void checkpointSurvivesARestartButOnlyForTheSameContent() throws Exception {
+		Path file = csv("transactions.csv", "UserId,TransactionId\n278166,6355745\n");
+		FileCheckpointStore store = store();
+		String hash = store.contentHash(file);
+		store.save(file, new FileCheckpoint(hash, 22, 1));
+
+		FileCheckpointStore restarted = store();
+		assertEquals(new FileCheckpoint(hash, 22, 1), restarted.load(file, hash));
+
+		// Same name, different rows: the old offset means nothing for it
+		Files.writeString(file, "UserId,TransactionId\n337701,6283376\n");
+		String otherHash = restarted.contentHash(file);
+		assertNotEquals(hash, otherHash);
+		assertNull(restarted.load(file, otherHash));
+	}
+
+	@Test
+	void completedContentIsRecognisedUnderAnyNameAfterARestart() throws Exception {
+		Path file = csv("monday.csv", "UserId,TransactionId\n278166,6355745\n");
+		FileCheckpointStore store = store();
+		String hash = store.contentHash(file);
+		store.save(file, new FileCheckpoint(hash, 22, 1));
+		store.complete(file, new FileCheckpoint(hash, 36, 2));
+
+		assertNull(store.load(file, hash));
+		FileCheckpointStore restarted = store();
+		Path copy = csv("monday-again.csv", "UserId,TransactionId\n278166,6355745\n");
+		assertTrue(restarted.isProcessed(restarted.contentHash(copy)));
+		assertFalse(restarted.isProcessed(restarted.contentHash(csv("tuesday.csv", "UserId,TransactionId\n"))));
+	}
+
+	private FileCheckpointStore store() throws Exception {
+		FileCheckpointStore store = new FileCheckpointStore();
+		ReflectionTestUtils.setField(store, "enabled", true);
+		ReflectionTestUtils.setField(store, "checkpointDir", tempDir.resolve("checkpoints").toString());
+		store.init();
+		return store;
+	}
+
+	private Path csv(String name, String content) throws Exception {
+		return Files.writeString(tempDir.resolve(name), content);
+	}
+}
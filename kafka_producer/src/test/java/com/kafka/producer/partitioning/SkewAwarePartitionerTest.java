@@ -0,0 +1,136 @@
+package com.kafka.producer.partitioning;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.utils.Utils;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class SkewAwarePartitionerTest {
+
+	private static final int PARTITIONS = 12;
+	private static final String TOPIC = "topic_0";
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final Cluster cluster = cluster(PARTITIONS);
+
+	@Test
+	void hotKeysOfASkewedDatasetAreSpreadAndTheLoadEvensOut() {
+		SkewAwarePartitioner partitioner = partitioner(PARTITIONS);
+		long[] defaultLoad = new long[PARTITIONS];
+		for (String key : zipfKeys(200_000, 5_000, 1.2)) {
+			byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+			defaultLoad[Utils.toPositive(Utils.murmur2(keyBytes)) % PARTITIONS]++;
+			partitioner.partition(TOPIC, key, keyBytes, null, null, cluster);
+		}
+
+		double defaultImbalance = Arrays.stream(defaultLoad).max().getAsLong() * (double) PARTITIONS / 200_000;
+		assertTrue(defaultImbalance > 1.8, "dataset should be skewed, was " + defaultImbalance);
+		assertTrue(partitioner.imbalance() < 1.25, "imbalance " + partitioner.imbalance());
+		assertTrue(partitioner.isHot("250000"));
+		assertTrue(registry.get("producer.partitioner.salted").counter().count() > 0);
+		assertEquals(partitioner.imbalance(), registry.get("producer.partition.imbalance").gauge().value());
+		double recorded = registry.find("producer.partition.records").counters().stream().mapToDouble(c -> c.count()).sum();
+		assertEquals(200_000, recorded);
+	}
+
+	@Test
+	void coldKeysKeepTheDefaultPartitionAndHotKeysStayInTheirSubset() {
+		SkewAwarePartitioner partitioner = partitioner(4);
+		byte[] hotKey = "250000".getBytes(StandardCharsets.UTF_8);
+		Set<Integer> hotPartitions = new HashSet<>();
+		List<Integer> coldPartitions = new ArrayList<>();
+		for (int i = 0; i < 20_000; i++) {
+			hotPartitions.add(partitioner.partition(TOPIC, "250000", hotKey, null, null, cluster));
+			String cold = String.valueOf(300_000 + i % 2_000);
+			coldPartitions.add(partitioner.partition(TOPIC, cold, cold.getBytes(StandardCharsets.UTF_8), null, null, cluster));
+		}
+
+		// Half of all records: as many partitions as allowed
+		int[] subset = partitioner.partitionsForHotKey("250000", hotKey, PARTITIONS);
+		assertEquals(4, subset.length);
+		assertEquals(Utils.toPositive(Utils.murmur2(hotKey)) % PARTITIONS, subset[0]);
+		assertArrayEquals(Arrays.stream(subset).sorted().toArray(), hotPartitions.stream().mapToInt(p -> p).sorted().toArray());
+		for (int i = 0; i < coldPartitions.size(); i++) {
+			byte[] cold = String.valueOf(300_000 + i % 2_000).getBytes(StandardCharsets.UTF_8);
+			assertEquals(Utils.toPositive(Utils.murmur2(cold)) % PARTITIONS, coldPartitions.get(i));
+		}
+	}
+
+	@Test
+	void keyThatCoolsDownReturnsToItsOwnPartition() {
+		SkewAwarePartitioner partitioner = partitioner(4);
+		byte[] hotKey = "250000".getBytes(StandardCharsets.UTF_8);
+		for (int i = 0; i < 5_000; i++) {
+			partitioner.partition(TOPIC, "250000", hotKey, null, null, cluster);
+			String cold = String.valueOf(300_000 + i);
+			partitioner.partition(TOPIC, cold, cold.getBytes(StandardCharsets.UTF_8), null, null, cluster);
+		}
+		assertTrue(partitioner.isHot("250000"));
+
+		// Other keys only: the window halves until the key's share is under half the threshold
+		for (int i = 0; i < 200_000; i++) {
+			String cold = String.valueOf(400_000 + i);
+			partitioner.partition(TOPIC, cold, cold.getBytes(StandardCharsets.UTF_8), null, null, cluster);
+		}
+		partitioner.partition(TOPIC, "250000", hotKey, null, null, cluster);
+
+		assertFalse(partitioner.isHot("250000"));
+		assertEquals(Utils.toPositive(Utils.murmur2(hotKey)) % PARTITIONS,
+				partitioner.partition(TOPIC, "250000", hotKey, null, null, cluster));
+	}
+
+	private SkewAwarePartitioner partitioner(int hotKeyPartitions) {
+		SkewAwarePartitioner partitioner = new SkewAwarePartitioner();
+		partitioner.configure(Map.of(
+				SkewAwarePartitioner.HOT_KEY_SHARE_CONFIG, "0.02",
+				SkewAwarePartitioner.HOT_KEY_PARTITIONS_CONFIG, String.valueOf(hotKeyPartitions),
+				SkewAwarePartitioner.WINDOW_RECORDS_CONFIG, "20000",
+				SkewAwarePartitioner.MIN_SAMPLES_CONFIG, "1000",
+				SkewAwarePartitioner.METER_REGISTRY_CONFIG, registry));
+		return partitioner;
+	}
+
+	// userIds 250000.. with rank k drawn with probability ∝ 1 / k^skew
+	private static List<String> zipfKeys(int records, int users, double skew) {
+		double[] cumulative = new double[users];
+		double sum = 0;
+		for (int k = 0; k < users; k++) {
+			sum += 1.0 / Math.pow(k + 1, skew);
+			cumulative[k] = sum;
+		}
+		Random random = new Random(42);
+		List<String> keys = new ArrayList<>(records);
+		for (int i = 0; i < records; i++) {
+			int rank = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+			if (rank < 0) rank = Math.min(-rank - 1, users - 1);
+			keys.add(String.valueOf(250_000 + rank));
+		}
+		return keys;
+	}
+
+	private static Cluster cluster(int partitions) {
+		Node node = new Node(0, "localhost", 9092);
+		List<PartitionInfo> infos = new ArrayList<>();
+		for (int p = 0; p < partitions; p++) {
+			infos.add(new PartitionInfo(TOPIC, p, node, new Node[] {node}, new Node[] {node}));
+		}
+		return new Cluster("test", List.of(node), infos, Set.of(), Set.of());
+	}
+}
@@ -0,0 +1,43 @@
+package com.kafka.producer.serialization;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HexFormat;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.kafka.producer.model.Transaction;
+
+class TransactionSerializerTest {
+
+	// Same bytes are decoded in the consumer's TransactionDeserializerTest
+	static final String GOLDEN_V1 = "009328457a0836333535373435073237383136361d536174204665622030322031323a35303a3030204953542032303139073436353534392146414d494c5920414c42554d2057484954452050494354555245204652414d450c402775c28f5c28f60f556e69746564204b696e67646f6d";
+
+	@TempDir
+	Path registryDir;
+
+	private final Transaction transaction = new Transaction("278166", "6355745", "Sat Feb 02 12:50:00 IST 2019",
+			"465549", "FAMILY ALBUM WHITE PICTURE FRAME", 6, 11.73, "United Kingdom");
+
+	@Test
+	void binaryFormatMatchesTheSharedWireContract() throws Exception {
+		byte[] bytes = new TransactionSerializer("binary", registryDir).serialize("topic_0", transaction);
+
+		assertArrayEquals(HexFormat.of().parseHex(GOLDEN_V1), bytes);
+		assertTrue(Files.exists(registryDir.resolve(String.format("transaction-%08x.json", TransactionSchema.CURRENT.id()))));
+	}
+
+	@Test
+	void binaryIsMuchSmallerThanJson() {
+		byte[] json = new TransactionSerializer("json", registryDir).serialize("topic_0", transaction);
+		byte[] binary = new TransactionSerializer("binary", registryDir).serialize("topic_0", transaction);
+
+		assertEquals('{', json[0]);
+		assertTrue(binary.length * 2 < json.length, binary.length + " vs " + json.length);
+	}
+}
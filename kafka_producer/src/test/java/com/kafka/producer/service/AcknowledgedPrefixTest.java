@@ -0,0 +1,56 @@
+package com.kafka.producer.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+
+import com.kafka.producer.checkpoint.FileCheckpoint;
+
+class AcknowledgedPrefixTest {
+
+	@Test
+	void prefixGrowsOnlyOverSealedAndFullyAcknowledgedChunks() {
+		AcknowledgedPrefix prefix = new AcknowledgedPrefix(new FileCheckpoint("abc", 100, 10));
+		AcknowledgedPrefix.Chunk first = prefix.open(200);
+		CompletableFuture<String> a = track(first);
+		CompletableFuture<String> b = track(first);
+		first.seal();
+		AcknowledgedPrefix.Chunk second = prefix.open(300);
+		CompletableFuture<String> c = track(second);
+		second.seal();
+
+		// The later chunk is acknowledged first: nothing before it is complete yet
+		c.complete("ok");
+		a.complete("ok");
+		assertNull(prefix.takeProgress());
+
+		b.complete("ok");
+		assertEquals(new FileCheckpoint("abc", 300, 13), prefix.takeProgress());
+		assertNull(prefix.takeProgress());
+	}
+
+	@Test
+	void failedSendStopsThePrefixAtItsChunk() {
+		AcknowledgedPrefix prefix = new AcknowledgedPrefix(FileCheckpoint.start("abc"));
+		AcknowledgedPrefix.Chunk first = prefix.open(200);
+		track(first).complete("ok");
+		first.seal();
+		AcknowledgedPrefix.Chunk second = prefix.open(300);
+		track(second).completeExceptionally(new IllegalStateException("broker down"));
+		second.seal();
+		AcknowledgedPrefix.Chunk third = prefix.open(400);
+		track(third).complete("ok");
+		third.seal();
+
+		assertEquals(new FileCheckpoint("abc", 200, 1), prefix.checkpoint());
+	}
+
+	private static CompletableFuture<String> track(AcknowledgedPrefix.Chunk chunk) {
+		CompletableFuture<String> send = new CompletableFuture<>();
+		chunk.track(send);
+		return send;
+	}
+}
@@ -0,0 +1,67 @@
+package com.kafka.producer.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.kafka.producer.service.CsvChunkSplitter.CsvChunk;
+
+class CsvChunkSplitterTest {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void chunksAreLineAlignedAndCoverEveryRow() throws Exception {
+		StringBuilder csv = new StringBuilder("UserId,TransactionId\n");
+		for (int i = 0; i < 1000; i++) {
+			csv.append(i % 37).append(',').append(6000000 + i).append('\n');
+		}
+		Path file = tempDir.resolve("transactions.csv");
+		Files.writeString(file, csv);
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			byte[] header = CsvChunkSplitter.readHeader(channel);
+			List<CsvChunk> chunks = CsvChunkSplitter.split(channel, 100);
+
+			assertEquals("UserId,TransactionId\n", new String(header, StandardCharsets.UTF_8));
+			assertEquals(header.length, chunks.get(0).start());
+			assertEquals(channel.size(), chunks.get(chunks.size() - 1).end());
+
+			StringBuilder rows = new StringBuilder();
+			for (int i = 0; i < chunks.size(); i++) {
+				CsvChunk chunk = chunks.get(i);
+				if (i > 0) assertEquals(chunks.get(i - 1).end(), chunk.start());
+				try (InputStream in = CsvChunkSplitter.open(channel, header, chunk)) {
+					String text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+					assertTrue(text.startsWith("UserId,TransactionId\n"));
+					assertTrue(text.endsWith("\n"));
+					rows.append(text.substring(header.length));
+				}
+			}
+			assertEquals(csv.substring(header.length), rows.toString());
+		}
+	}
+
+	@Test
+	void lastChunkWithoutTrailingNewlineIsKept() throws Exception {
+		Path file = tempDir.resolve("no-newline.csv");
+		Files.writeString(file, "UserId\n1\n2\n3");
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			List<CsvChunk> chunks = CsvChunkSplitter.split(channel, 2);
+			assertEquals(3, chunks.size());
+			assertEquals(channel.size(), chunks.get(2).end());
+		}
+	}
+}
@@ -0,0 +1,190 @@
+package com.kafka.producer.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.apache.kafka.common.KafkaException;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.kafka.producer.checkpoint.FileCheckpoint;
+import com.kafka.producer.logging.RecordLog;
+import com.kafka.producer.serialization.TransactionSerializer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class CsvKafkaProducerCheckpointTest {
+
+	private static final String HEADER =
+			"UserId,TransactionId,TransactionTime,ItemCode,ItemDescription,NumberOfItemsPurchased,CostPerItem,Country\n";
+
+	@TempDir
+	Path tempDir;
+
+	@SuppressWarnings("unchecked")
+	private final KafkaTemplate<String, byte[]> template = mock(KafkaTemplate.class);
+	private final List<String> sentKeys = new ArrayList<>();
+	private CsvKafkaProducer producer;
+
+	@AfterEach
+	void stop() {
+		if (producer != null) producer.stopChunkPool();
+	}
+
+	@Test
+	void interruptedFileResumesAfterItsAcknowledgedPrefix() throws Exception {
+		Path file = csv(1000);
+		producer = producer("streaming");
+		brokerFailsAfter(600);
+
+		AtomicReference<FileCheckpoint> saved = new AtomicReference<>();
+		FileSendReport first = producer.sendCsvDataToKafka(file, FileCheckpoint.start("hash"), saved::set);
+
+		assertFalse(first.allAcknowledged());
+		FileCheckpoint checkpoint = saved.get();
+		assertTrue(checkpoint.rowNumber() > 0 && checkpoint.rowNumber() <= 600, "row " + checkpoint.rowNumber());
+		assertEquals(lineStartOfRow(file, checkpoint.rowNumber()), checkpoint.byteOffset());
+
+		sentKeys.clear();
+		brokerFailsAfter(Integer.MAX_VALUE);
+		FileSendReport second = producer.sendCsvDataToKafka(file, checkpoint, saved::set);
+
+		assertTrue(second.allAcknowledged());
+		assertEquals(1000 - checkpoint.rowNumber(), sentKeys.size());
+		assertEquals("user-" + checkpoint.rowNumber(), sentKeys.get(0));
+		assertEquals(new FileCheckpoint("hash", Files.size(file), 1000), saved.get());
+	}
+
+	@Test
+	void parallelModeCheckpointsAtItsChunkBoundaries() throws Exception {
+		Path file = csv(1000);
+		producer = producer("parallel");
+		ReflectionTestUtils.setField(producer, "parallelMinFileBytes", 0L);
+		brokerFailsAfter(Integer.MAX_VALUE);
+
+		List<FileCheckpoint> progress = new ArrayList<>();
+		FileSendReport report = producer.sendCsvDataToKafka(file, FileCheckpoint.start("hash"), progress::add);
+
+		assertTrue(report.allAcknowledged());
+		assertEquals(1000, sentKeys.size());
+		assertEquals(new FileCheckpoint("hash", Files.size(file), 1000), progress.get(progress.size() - 1));
+		for (FileCheckpoint checkpoint : progress) {
+			assertEquals(lineStartOfRow(file, checkpoint.rowNumber()), checkpoint.byteOffset());
+		}
+	}
+
+	@Test
+	void chunkOfAnAbortedTransactionIsNotCheckpointed() throws Exception {
+		Path file = csv(1000);
+		producer = producer("streaming");
+		brokerFailsAfter(Integer.MAX_VALUE);
+		List<Integer> committedRows = commitFailsOnTransaction(3);
+
+		List<FileCheckpoint> progress = new ArrayList<>();
+		FileSendReport report = producer.sendCsvDataToKafka(file, FileCheckpoint.start("hash"), progress::add);
+
+		// All sends of the third chunk were acknowledged, but its commit failed
+		assertFalse(report.allAcknowledged());
+		assertEquals(2, committedRows.size());
+		FileCheckpoint last = progress.get(progress.size() - 1);
+		assertEquals((long) committedRows.get(1), last.rowNumber());
+		assertEquals(lineStartOfRow(file, last.rowNumber()), last.byteOffset());
+	}
+
+	@Test
+	void fileTransactionIsCheckpointedOnlyOnceCommitted() throws Exception {
+		Path file = csv(1000);
+		producer = producer("streaming");
+		ReflectionTestUtils.setField(producer, "transactionScope", "file");
+		brokerFailsAfter(Integer.MAX_VALUE);
+		List<Integer> committedRows = commitFailsOnTransaction(Integer.MAX_VALUE);
+
+		List<FileCheckpoint> progress = new ArrayList<>();
+		FileSendReport report = producer.sendCsvDataToKafka(file, null, progress::add);
+
+		assertTrue(report.allAcknowledged());
+		assertEquals(List.of(1000), committedRows);
+		assertEquals(List.of(new FileCheckpoint(null, Files.size(file), 1000)), progress);
+	}
+
+	private CsvKafkaProducer producer(String mode) {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		RecordLog recordLog = new RecordLog(registry);
+		ReflectionTestUtils.setField(recordLog, "queueCapacity", 10);
+		recordLog.start();
+		CsvKafkaProducer producer = new CsvKafkaProducer(template, new TransactionSerializer("json", tempDir.resolve("schemas")),
+				recordLog, registry);
+		ReflectionTestUtils.setField(producer, "topicName", "topic_0");
+		ReflectionTestUtils.setField(producer, "ingestMode", mode);
+		ReflectionTestUtils.setField(producer, "maxInFlightSends", 100);
+		ReflectionTestUtils.setField(producer, "fileCompletionTimeoutMs", 5000L);
+		ReflectionTestUtils.setField(producer, "parallelWorkers", 2);
+		ReflectionTestUtils.setField(producer, "parallelChunkBytes", 4096L);
+		ReflectionTestUtils.setField(producer, "parallelMinFileBytes", Long.MAX_VALUE);
+		ReflectionTestUtils.setField(producer, "checkpointChunkBytes", 4096L);
+		producer.startChunkPool();
+		return producer;
+	}
+
+	// Every send after the first `acknowledged` fails, as when the broker goes away mid-file
+	private void brokerFailsAfter(int acknowledged) {
+		doAnswer(invocation -> {
+			sentKeys.add(invocation.getArgument(1));
+			return sentKeys.size() <= acknowledged
+					? CompletableFuture.completedFuture(null)
+					: CompletableFuture.failedFuture(new IllegalStateException("broker down"));
+		}).when(template).send(anyString(), anyString(), any(byte[].class));
+	}
+
+	// A transactional template whose commit of the `failing`-th transaction fails; returns the
+	// number of records sent when each successful commit happened
+	@SuppressWarnings("unchecked")
+	private List<Integer> commitFailsOnTransaction(int failing) {
+		List<Integer> committedRows = new ArrayList<>();
+		when(template.isTransactional()).thenReturn(true);
+		doAnswer(invocation -> {
+			Object result = invocation.<KafkaOperations.OperationsCallback<String, byte[], Object>>getArgument(0)
+					.doInOperations(template);
+			if (committedRows.size() + 1 == failing) throw new KafkaException("commit failed");
+			committedRows.add(sentKeys.size());
+			return result;
+		}).when(template).executeInTransaction(any());
+		return committedRows;
+	}
+
+	private Path csv(int rows) throws Exception {
+		StringBuilder csv = new StringBuilder(HEADER);
+		for (int i = 0; i < rows; i++) {
+			csv.append("user-").append(i).append(',').append(6000000 + i)
+			   .append(",Sat Feb 02 12:50:00 IST 2019,465549,FAMILY ALBUM WHITE PICTURE FRAME,6,11.73,United Kingdom\n");
+		}
+		return Files.writeString(tempDir.resolve("transactions.csv"), csv);
+	}
+
+	private static long lineStartOfRow(Path file, long row) throws Exception {
+		byte[] bytes = Files.readAllBytes(file);
+		long lines = -1; // the header
+		for (int i = 0; i < bytes.length; i++) {
+			if (lines == row) return i;
+			if (bytes[i] == '\n') lines++;
+		}
+		return bytes.length;
+	}
+}
@@ -0,0 +1,53 @@
+package com.kafka.producer.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+
+class FileSendBarrierTest {
+
+	@Test
+	void reportsCompleteOnlyAfterEverySendIsAcknowledged() throws Exception {
+		FileSendBarrier barrier = new FileSendBarrier(10);
+		List<CompletableFuture<String>> sends = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			CompletableFuture<String> future = new CompletableFuture<>();
+			sends.add(future);
+			barrier.send(() -> future);
+		}
+
+		assertFalse(barrier.await(50).allAcknowledged());
+
+		sends.forEach(future -> future.complete("ok"));
+		FileSendReport report = barrier.await(1000);
+		assertTrue(report.allAcknowledged());
+		assertEquals(5, report.acknowledged());
+	}
+
+	@Test
+	void singleFailedSendMakesTheFileIncomplete() throws Exception {
+		FileSendBarrier barrier = new FileSendBarrier(10);
+		barrier.send(() -> CompletableFuture.completedFuture("ok"));
+		barrier.send(() -> CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+		FileSendReport report = barrier.await(1000);
+		assertFalse(report.allAcknowledged());
+		assertEquals(1, report.failed());
+	}
+
+	@Test
+	void p99LatencyIsWithinHistogramPrecision() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (long i = 1; i <= 1000; i++) {
+			histogram.record(i * 1_000_000);
+		}
+		long p99 = histogram.percentile(99.0);
+		assertTrue(p99 >= 990_000_000L && p99 <= 990_000_000L * 107 / 100, "p99 was " + p99);
+	}
+}